@@ -0,0 +1,163 @@
+package com.ILoveU.archive;
+
+import com.ILoveU.model.Loan;
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 本地磁盘上的冷归档段文件集合。所有段的头部（最小/最大值和布隆过滤器）常驻内存，
+ * 查询时只映射可能命中的段。段目录在 hibernate.cfg.xml 中通过 library.cold_archive.dir 配置，
+ * 默认为用户主目录下的 library-cold-archive。
+ *
+ * 段文件一经写入不再修改；新增段时替换整个列表（写时复制），查询无需加锁。
+ */
+public final class ColdArchiveStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColdArchiveStore.class);
+
+    public static final String SEGMENT_SUFFIX = ".seg";
+    public static final String TEMP_SUFFIX = ".seg.tmp";
+
+    private static final ColdArchiveStore INSTANCE = new ColdArchiveStore();
+
+    // 保护目录、段列表的初始化和新增段。持有期间要读段文件头部，
+    // 在 synchronized 中做磁盘I/O 会让虚拟线程钉住载体线程（见 Bulkheads），所以不用对象监视器
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Path directory;
+    private volatile List<LoanSegment> segments;
+
+    private ColdArchiveStore() {
+    }
+
+    public static ColdArchiveStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return 段文件目录（不存在时创建）
+     * @throws IOException 如果目录无法创建
+     */
+    public Path directory() throws IOException {
+        Path current = directory;
+        if (current == null) {
+            lock.lock();
+            try {
+                if (directory == null) {
+                    String configured = new Configuration().configure().getProperties().getProperty("library.cold_archive.dir");
+                    Path dir = configured == null || configured.trim().isEmpty()
+                            ? Paths.get(System.getProperty("user.home"), "library-cold-archive")
+                            : Paths.get(configured.trim());
+                    Files.createDirectories(dir);
+                    directory = dir;
+                }
+                current = directory;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 登记一个新写好的段文件。
+     *
+     * @throws IOException 如果段文件头部无法读取
+     */
+    public void add(Path segmentFile) throws IOException {
+        lock.lock();
+        try {
+            List<LoanSegment> current = segments();
+            for (LoanSegment existing : current) {
+                // 首次加载目录时可能已经读到了该文件
+                if (existing.getPath().equals(segmentFile)) {
+                    return;
+                }
+            }
+            LoanSegment segment = LoanSegment.open(segmentFile);
+            List<LoanSegment> updated = new ArrayList<>(current);
+            updated.add(segment);
+            segments = Collections.unmodifiableList(updated);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 扫描所有段，返回满足条件的借阅记录（各段内按借阅ID升序）。
+     *
+     * @param userId     用户ID，null 表示不限
+     * @param fromMillis loanDate 下限（含），null 表示不限
+     * @param toMillis   loanDate 上限（不含），null 表示不限
+     * @param limit      最多返回的记录数
+     * @throws IOException 如果段文件无法读取
+     */
+    public List<Loan> scan(Integer userId, Long fromMillis, Long toMillis, int limit) throws IOException {
+        List<Loan> result = new ArrayList<>();
+        int scanned = 0;
+        List<LoanSegment> all = segments();
+        for (LoanSegment segment : all) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (segment.mightMatch(userId, fromMillis, toMillis)) {
+                scanned++;
+                segment.scan(userId, fromMillis, toMillis, result, limit);
+            }
+        }
+        logger.debug("冷归档查询 - 用户: {}，区间: [{}, {})，共 {} 个段，映射 {} 个，命中 {} 条",
+                userId, fromMillis, toMillis, all.size(), scanned, result.size());
+        return result;
+    }
+
+    /**
+     * @return 已加载的段数
+     */
+    public int segmentCount() {
+        return segments().size();
+    }
+
+    private List<LoanSegment> segments() {
+        List<LoanSegment> current = segments;
+        if (current == null) {
+            lock.lock();
+            try {
+                if (segments == null) {
+                    segments = load();
+                }
+                current = segments;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private List<LoanSegment> load() {
+        List<LoanSegment> loaded = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory(), "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    loaded.add(LoanSegment.open(file));
+                } catch (IOException e) {
+                    logger.error("无法读取冷归档段文件 {}，已跳过: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.error("无法读取冷归档目录: {}", e.getMessage(), e);
+        }
+        loaded.sort((a, b) -> Integer.compare(a.getMinLoanId(), b.getMinLoanId()));
+        logger.info("已加载 {} 个冷归档段文件", loaded.size());
+        return Collections.unmodifiableList(loaded);
+    }
+}
@@ -0,0 +1,304 @@
+package com.ILoveU.archive;
+
+import com.ILoveU.model.Book;
+import com.ILoveU.model.Loan;
+import com.ILoveU.model.User;
+import com.ILoveU.util.BloomFilter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 一个不可变的冷归档段文件（由 {@link LoanSegmentWriter} 写出）。
+ *
+ * 文件由头部和按列存放的数据块组成。头部记录行数、loanDate 和 userId 的最小/最大值以及 userId 布隆过滤器，
+ * 打开段时只读取头部并常驻内存；查询先用头部判断段是否可能命中，只有可能命中的段才内存映射数据区，
+ * 并先解压 userId 和 loanDate 两列筛选行，确有命中时才解压其余列。
+ * 各列独立用 Deflate 压缩，整数列使用变长编码，日期列存差值。
+ */
+public final class LoanSegment {
+
+    static final int MAGIC = 0x4C534547; // "LSEG"
+    static final int VERSION = 1;
+
+    static final int COL_LOAN_ID = 0;
+    static final int COL_USER_ID = 1;
+    static final int COL_BOOK_ID = 2;
+    static final int COL_LOAN_DATE = 3;
+    static final int COL_DUE_DATE = 4;
+    static final int COL_RETURN_DATE = 5;
+    static final int COL_OVERDUE = 6;
+    static final int COL_TITLE = 7;
+    static final int COLUMN_COUNT = 8;
+
+    private final Path path;
+    private final int rowCount;
+    private final long minLoanDate;
+    private final long maxLoanDate;
+    private final int minUserId;
+    private final int maxUserId;
+    private final int minLoanId;
+    private final int maxLoanId;
+    private final BloomFilter userFilter;
+    // 各列在文件中的偏移、压缩后长度和原始长度
+    private final long[] columnOffsets = new long[COLUMN_COUNT];
+    private final int[] compressedLengths = new int[COLUMN_COUNT];
+    private final int[] rawLengths = new int[COLUMN_COUNT];
+    private final long dataOffset;
+    private final long dataLength;
+
+    private LoanSegment(Path path, DataInputStream in) throws IOException {
+        this.path = path;
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是有效的借阅段文件: " + path);
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("不支持的段文件版本 " + version + ": " + path);
+        }
+        rowCount = in.readInt();
+        minLoanDate = in.readLong();
+        maxLoanDate = in.readLong();
+        minUserId = in.readInt();
+        maxUserId = in.readInt();
+        minLoanId = in.readInt();
+        maxLoanId = in.readInt();
+        int hashes = in.readInt();
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        userFilter = new BloomFilter(words, hashes);
+        long end = 0;
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            columnOffsets[i] = in.readLong();
+            compressedLengths[i] = in.readInt();
+            rawLengths[i] = in.readInt();
+            end = Math.max(end, columnOffsets[i] + compressedLengths[i]);
+        }
+        dataOffset = columnOffsets[0];
+        dataLength = end - dataOffset;
+    }
+
+    /**
+     * 读取段文件头部。
+     *
+     * @throws IOException 如果文件无法读取或格式无效
+     */
+    public static LoanSegment open(Path path) throws IOException {
+        try (InputStream raw = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+            return new LoanSegment(path, in);
+        }
+    }
+
+    /**
+     * 仅根据头部判断段中是否可能有满足条件的记录。
+     *
+     * @param userId     用户ID，null 表示不限
+     * @param fromMillis loanDate 下限（含），null 表示不限
+     * @param toMillis   loanDate 上限（不含），null 表示不限
+     */
+    public boolean mightMatch(Integer userId, Long fromMillis, Long toMillis) {
+        if (fromMillis != null && maxLoanDate < fromMillis) {
+            return false;
+        }
+        if (toMillis != null && minLoanDate >= toMillis) {
+            return false;
+        }
+        if (userId != null) {
+            return userId >= minUserId && userId <= maxUserId && userFilter.mightContain(userId);
+        }
+        return true;
+    }
+
+    /**
+     * 扫描段中满足条件的借阅，按借阅ID升序追加到 result，最多追加到 limit 条。
+     *
+     * @return 本段实际匹配的行数（不超过剩余的 limit）
+     * @throws IOException 如果文件无法读取或数据损坏
+     */
+    public int scan(Integer userId, Long fromMillis, Long toMillis, List<Loan> result, int limit) throws IOException {
+        if (!mightMatch(userId, fromMillis, toMillis) || result.size() >= limit) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, dataLength);
+
+            int[] userIds = new int[rowCount];
+            Cursor users = column(data, COL_USER_ID);
+            for (int i = 0; i < rowCount; i++) {
+                userIds[i] = users.readZigZagInt();
+            }
+            long[] loanDates = new long[rowCount];
+            Cursor dates = column(data, COL_LOAN_DATE);
+            long previous = minLoanDate;
+            for (int i = 0; i < rowCount; i++) {
+                previous += dates.readZigZagLong();
+                loanDates[i] = previous;
+            }
+
+            List<Integer> rows = new ArrayList<>();
+            for (int i = 0; i < rowCount && result.size() + rows.size() < limit; i++) {
+                if ((userId == null || userIds[i] == userId)
+                        && (fromMillis == null || loanDates[i] >= fromMillis)
+                        && (toMillis == null || loanDates[i] < toMillis)) {
+                    rows.add(i);
+                }
+            }
+            if (rows.isEmpty()) {
+                return 0;
+            }
+
+            // 其余列按行顺序解码，只为命中的行构造对象
+            Cursor loanIds = column(data, COL_LOAN_ID);
+            Cursor bookIds = column(data, COL_BOOK_ID);
+            Cursor dueDates = column(data, COL_DUE_DATE);
+            Cursor returnDates = column(data, COL_RETURN_DATE);
+            Cursor overdue = column(data, COL_OVERDUE);
+            Cursor titles = column(data, COL_TITLE);
+            int loanId = minLoanId;
+            int next = 0;
+            for (int i = 0; i < rowCount && next < rows.size(); i++) {
+                loanId += loanIds.readVarInt();
+                int bookId = bookIds.readVarInt() - 1;
+                long dueDelta = dueDates.readZigZagLong();
+                long returnDelta = returnDates.readVarLong();
+                boolean isOverdue = overdue.readByte() != 0;
+                String title = titles.readString();
+                if (rows.get(next) != i) {
+                    continue;
+                }
+                next++;
+
+                Loan loan = new Loan();
+                loan.setLoanId(loanId);
+                User user = new User();
+                user.setId(userIds[i]);
+                loan.setUser(user);
+                if (bookId >= 0) {
+                    Book book = new Book();
+                    book.setBookId(bookId);
+                    loan.setBook(book);
+                }
+                loan.setBorrowedBookTitle(title);
+                loan.setLoanDate(new Timestamp(loanDates[i]));
+                loan.setDueDate(new Timestamp(loanDates[i] + dueDelta));
+                loan.setReturnDate(returnDelta == 0 ? null : new Timestamp(loanDates[i] + zigZagDecode(returnDelta - 1)));
+                loan.setOverdue(isOverdue);
+                result.add(loan);
+            }
+            return rows.size();
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getMinLoanId() {
+        return minLoanId;
+    }
+
+    public int getMaxLoanId() {
+        return maxLoanId;
+    }
+
+    private Cursor column(MappedByteBuffer data, int column) throws IOException {
+        byte[] compressed = new byte[compressedLengths[column]];
+        data.position((int) (columnOffsets[column] - dataOffset));
+        data.get(compressed);
+        byte[] raw = new byte[rawLengths[column]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                int read = inflater.inflate(raw, n, raw.length - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != raw.length) {
+                throw new IOException("段文件列数据长度不符: " + path);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("段文件列数据损坏: " + path, e);
+        } finally {
+            inflater.end();
+        }
+        return new Cursor(raw);
+    }
+
+    static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 顺序读取一列解压后的数据。
+     */
+    private static final class Cursor {
+        private final byte[] bytes;
+        private int position;
+
+        Cursor(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            return bytes[position++];
+        }
+
+        long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                result |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return result;
+        }
+
+        int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        long readZigZagLong() {
+            return zigZagDecode(readVarLong());
+        }
+
+        int readZigZagInt() {
+            return (int) readZigZagLong();
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(bytes, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return value;
+        }
+    }
+}
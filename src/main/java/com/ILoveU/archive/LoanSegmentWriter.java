@@ -0,0 +1,170 @@
+package com.ILoveU.archive;
+
+import com.ILoveU.model.Loan;
+import com.ILoveU.util.BloomFilter;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * 把一批借阅记录写成一个不可变的段文件，格式见 {@link LoanSegment}。
+ * 写入完成后会强制刷盘，调用方可以在此之后再删除数据库中的原始记录。
+ */
+public final class LoanSegmentWriter {
+
+    private LoanSegmentWriter() {
+    }
+
+    /**
+     * @param loans 至少一条借阅记录，每条都必须有 loanId、user、loanDate 和 dueDate
+     * @throws IOException 如果写入失败
+     */
+    public static void write(Path path, List<Loan> loans) throws IOException {
+        if (loans.isEmpty()) {
+            throw new IllegalArgumentException("段文件至少需要一条记录");
+        }
+        List<Loan> rows = new ArrayList<>(loans);
+        rows.sort((a, b) -> Integer.compare(a.getLoanId(), b.getLoanId()));
+
+        int minUserId = Integer.MAX_VALUE;
+        int maxUserId = Integer.MIN_VALUE;
+        long minLoanDate = Long.MAX_VALUE;
+        long maxLoanDate = Long.MIN_VALUE;
+        Set<Integer> distinctUsers = new HashSet<>();
+        for (Loan loan : rows) {
+            int userId = loan.getUser().getId();
+            long loanDate = loan.getLoanDate().getTime();
+            minUserId = Math.min(minUserId, userId);
+            maxUserId = Math.max(maxUserId, userId);
+            minLoanDate = Math.min(minLoanDate, loanDate);
+            maxLoanDate = Math.max(maxLoanDate, loanDate);
+            distinctUsers.add(userId);
+        }
+        BloomFilter userFilter = new BloomFilter(distinctUsers.size());
+        for (Integer userId : distinctUsers) {
+            userFilter.add(userId);
+        }
+
+        Column[] columns = new Column[LoanSegment.COLUMN_COUNT];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new Column();
+        }
+        int previousLoanId = rows.get(0).getLoanId();
+        long previousLoanDate = minLoanDate;
+        for (Loan loan : rows) {
+            long loanDate = loan.getLoanDate().getTime();
+            columns[LoanSegment.COL_LOAN_ID].writeVarLong(loan.getLoanId() - previousLoanId);
+            previousLoanId = loan.getLoanId();
+            columns[LoanSegment.COL_USER_ID].writeZigZag(loan.getUser().getId());
+            columns[LoanSegment.COL_BOOK_ID].writeVarLong(loan.getBook() == null ? 0 : loan.getBook().getBookId() + 1L);
+            columns[LoanSegment.COL_LOAN_DATE].writeZigZag(loanDate - previousLoanDate);
+            previousLoanDate = loanDate;
+            columns[LoanSegment.COL_DUE_DATE].writeZigZag(loan.getDueDate().getTime() - loanDate);
+            // 0 表示未归还，否则为 zigzag(归还时间 - 借阅时间) + 1
+            columns[LoanSegment.COL_RETURN_DATE].writeVarLong(loan.getReturnDate() == null
+                    ? 0 : zigZagEncode(loan.getReturnDate().getTime() - loanDate) + 1);
+            columns[LoanSegment.COL_OVERDUE].write(Boolean.TRUE.equals(loan.getOverdue()) ? 1 : 0);
+            columns[LoanSegment.COL_TITLE].writeString(loan.getBorrowedBookTitle());
+        }
+
+        byte[][] compressed = new byte[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            compressed[i] = deflate(columns[i].toByteArray());
+        }
+        long[] words = userFilter.getWords();
+        long headerLength = 4L * 9 + 8L * 2 + 8L * words.length + (8L + 4 + 4) * columns.length;
+
+        try (OutputStream out = Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out))) {
+            data.writeInt(LoanSegment.MAGIC);
+            data.writeInt(LoanSegment.VERSION);
+            data.writeInt(rows.size());
+            data.writeLong(minLoanDate);
+            data.writeLong(maxLoanDate);
+            data.writeInt(minUserId);
+            data.writeInt(maxUserId);
+            data.writeInt(rows.get(0).getLoanId());
+            data.writeInt(rows.get(rows.size() - 1).getLoanId());
+            data.writeInt(userFilter.getHashes());
+            data.writeInt(words.length);
+            for (long word : words) {
+                data.writeLong(word);
+            }
+            long offset = headerLength;
+            for (int i = 0; i < columns.length; i++) {
+                data.writeLong(offset);
+                data.writeInt(compressed[i].length);
+                data.writeInt(columns[i].size());
+                offset += compressed[i].length;
+            }
+            for (byte[] block : compressed) {
+                data.write(block);
+            }
+        }
+        // 确保数据落盘后调用方才能删除数据库中的原始记录
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * 一列未压缩的数据。
+     */
+    private static final class Column extends ByteArrayOutputStream {
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong(zigZagEncode(value));
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            write(bytes, 0, bytes.length);
+        }
+    }
+}
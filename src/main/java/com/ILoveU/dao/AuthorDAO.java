@@ -1,6 +1,9 @@
 package com.ILoveU.dao;
 
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
 import com.ILoveU.model.Author;
+import com.ILoveU.util.FieldMask;
 
 import java.util.List;
 import java.util.Set;
@@ -52,17 +55,15 @@ public interface AuthorDAO {
 
     /**
      * 根据指定的ID从数据库中删除一个作者。
-     * 实现时需要考虑与该作者关联的其他数据（如图书）的处理策略。
-     * 通常，如果作者有关联的书籍，直接删除可能会因为外键约束而失败（除非配置了级联删除，但这通常不推荐用于Author和Book之间的关系）。
-     * Service层在调用此方法前应处理这些业务规则。
+     * 关联图书的检查在删除事务中进行：锁定作者行后读取主库上的 book_count，仍有图书时拒绝删除；
+     * 计数暂时偏小时由外键约束拦下，同样视为有关联图书。
      *
      * @param authorId 要删除的作者的唯一ID。
-     * @return 如果成功删除作者，则返回 {@code true}；
-     * 如果未找到具有该ID的作者，或者由于其他原因（如外键约束）导致删除失败，则返回 {@code false}。
-     * (或者，可以考虑让此方法返回 {@code void}，并在未找到或删除失败时抛出异常)。
+     * @return 如果成功删除作者，则返回 {@code true}；如果未找到具有该ID的作者，则返回 {@code false}。
+     * @throws OperationForbiddenException 如果该作者尚有关联的图书
+     * @throws OperationFailedException    如果数据库操作失败
      */
     boolean deleteAuthor(int authorId);
-    // 备选签名: void deleteAuthor(int authorId) throws AuthorNotFoundException, DataIntegrityViolationException;
 
     /**
      * 统计数据库中所有作者的总数。
@@ -94,6 +95,19 @@ public interface AuthorDAO {
      */
     List<Author> findAuthorsByNameKeyword(String nameKeyword, int page, int pageSize);
 
+    /**
+     * 按字段掩码搜索作者（稀疏字段集）。
+     * 只查询掩码所需的列，例如不请求 bio 时不会读取TEXT类型的简介列。
+     * 关键词为空时查询所有作者。返回的 {@link Author} 是不受Session管理的快照。
+     *
+     * @param nameKeyword 姓或名的关键词，可以为null。
+     * @param page        页码。
+     * @param pageSize    每页大小。
+     * @param fieldMask   字段掩码。为null或表示全部字段时，等价于调用不带掩码的版本。
+     * @return 符合条件的作者列表。
+     */
+    List<Author> findAuthorsByNameKeyword(String nameKeyword, int page, int pageSize, FieldMask fieldMask);
+
     /**
      * 统计符合姓名关键词搜索条件的作者总数。
      *
@@ -0,0 +1,17 @@
+package com.ILoveU.dao;
+
+/**
+ * BookCountDAO 负责校正出版社、作者、标签表上预先维护的 book_count 计数列。
+ * 日常的增减由 BookDAO 在图书写操作的同一事务中完成，这里只做兜底的全量核对。
+ */
+public interface BookCountDAO {
+
+    /**
+     * 将所有与实际关联数量不一致的 book_count 改为实际值。
+     * 读取使用一致性快照（不加锁），修正时按"读取到的旧值"做条件更新，
+     * 期间被并发写操作改过的计数会被跳过，留给下一次校正。
+     *
+     * @return 被修正的行数；发生错误时返回 -1
+     */
+    int reconcileBookCounts();
+}
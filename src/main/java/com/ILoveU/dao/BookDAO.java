@@ -2,8 +2,11 @@ package com.ILoveU.dao;
 
 import com.ILoveU.exception.OperationFailedException;
 import com.ILoveU.model.Book;
+import com.ILoveU.util.FieldMask;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * BookDAO (Data Access Object) 接口定义了与图书（Book）实体相关的数据库操作。
@@ -70,6 +73,19 @@ public interface BookDAO {
      */
     List<Book> findBooks(String searchKeyword, Integer pressId, Integer tagId, int page, int pageSize) throws OperationFailedException;
 
+    /**
+     * 按字段掩码分页查询图书列表（稀疏字段集）。
+     * 与 {@link #findBooks(String, Integer, Integer, int, int)} 的过滤条件相同，但只查询掩码中请求的列：
+     * 未请求 press 时不连接出版社表，未请求 authors/tags 时完全不加载对应的关联；
+     * 请求了 authors/tags 时，对当前页的所有图书各只执行一次批量查询。
+     * 返回的 {@link Book} 对象是不受Session管理的只读快照，未请求的属性为null（或空集合）。
+     *
+     * @param fieldMask 字段掩码。为null或表示全部字段时，等价于调用不带掩码的版本。
+     * @return 包含当前页图书对象的列表。如果查询结果为空或发生错误，应返回一个空列表。
+     * @throws OperationFailedException 如果查询过程中发生数据库错误。
+     */
+    List<Book> findBooks(String searchKeyword, Integer pressId, Integer tagId, int page, int pageSize, FieldMask fieldMask) throws OperationFailedException;
+
     /**
      * 根据多种条件统计符合条件的图书总数。
      * 用于配合 {@link #findBooks(String, Integer, Integer, int, int)} 方法实现分页。
@@ -82,6 +98,36 @@ public interface BookDAO {
      */
     long countBooks(String searchKeyword, Integer pressId, Integer tagId) throws OperationFailedException;
 
+    /**
+     * 从给定的图书ID中筛选出满足出版社/标签条件的ID，保持输入顺序。
+     * 用于容错搜索：候选ID来自内存索引，过滤条件仍由数据库判断。
+     *
+     * @param bookIds 候选图书ID（已按相关度排序）。
+     * @param pressId 可选的出版社ID。
+     * @param tagId   可选的标签ID。
+     * @return 满足条件且仍存在的图书ID，顺序与输入一致；发生错误时返回空列表。
+     * @throws OperationFailedException 如果查询过程中发生数据库错误。
+     */
+    List<Integer> filterBookIds(List<Integer> bookIds, Integer pressId, Integer tagId) throws OperationFailedException;
+
+    /**
+     * 根据ID列表批量查询图书，返回顺序与输入ID顺序一致（不存在的ID会被跳过）。
+     *
+     * @param bookIds 图书ID列表。
+     * @return 图书列表；ID列表为空或发生错误时返回空列表。
+     * @throws OperationFailedException 如果查询过程中发生数据库错误。
+     */
+    List<Book> findBooksByIds(List<Integer> bookIds) throws OperationFailedException;
+
+    /**
+     * 在主库上批量查询图书的当前可用库存，用于推送刚刚提交的库存变化。
+     *
+     * @param bookIds 图书ID集合。
+     * @return 图书ID到可用库存的映射（不存在的ID不会出现在结果中）。
+     * @throws OperationFailedException 如果查询过程中发生数据库错误。
+     */
+    Map<Integer, Integer> findAvailableCopies(Collection<Integer> bookIds) throws OperationFailedException;
+
     /**
      * 统计属于指定出版社的图书数量。
      * 用于在删除出版社前检查其是否有关联图书。
@@ -0,0 +1,35 @@
+package com.ILoveU.dao;
+
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.model.Loan;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ColdArchiveDAO 为冷归档导出任务提供 loans_archive 的读取、删除和段文件登记。
+ */
+public interface ColdArchiveDAO {
+
+    /**
+     * 按归还时间升序读取最多 limit 条归还时间早于 returnedBefore 的归档借阅。
+     *
+     * @throws OperationFailedException 如果查询失败
+     */
+    List<Loan> findLoansToExport(Timestamp returnedBefore, int limit) throws OperationFailedException;
+
+    /**
+     * 在一个事务中从 loans_archive 删除已写入段文件的借阅，并登记段文件名。事务提交即表示段文件生效。
+     * 实际删除的行数必须与 loanIds 一致，否则回滚。
+     *
+     * @throws OperationFailedException 如果操作失败或删除行数不一致（此时数据库不变，调用方应删除该段文件）
+     */
+    void commitSegment(String segmentName, List<Integer> loanIds, int minLoanId, int maxLoanId) throws OperationFailedException;
+
+    /**
+     * @return 所有已登记的段文件名
+     * @throws OperationFailedException 如果查询失败
+     */
+    Set<String> findSegmentNames() throws OperationFailedException;
+}
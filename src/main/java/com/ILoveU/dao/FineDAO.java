@@ -0,0 +1,45 @@
+package com.ILoveU.dao;
+
+import com.ILoveU.exception.OperationFailedException;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * FineDAO 为罚款批量计算任务提供按借阅ID区间的扫描和批量写入，并提供按用户汇总的罚款查询。
+ * 扫描和写入直接访问主库；罚款记录不与 loans 建外键，借阅归档后仍可查询。
+ */
+public interface FineDAO {
+
+    /**
+     * @return [最小借阅ID, 最大借阅ID]；借阅表为空时返回null
+     * @throws OperationFailedException 如果查询失败
+     */
+    int[] findLoanIdRange() throws OperationFailedException;
+
+    /**
+     * 查询借阅ID在 [fromLoanId, toLoanId) 区间内需要计算罚款的借阅：在 now 之前已到期仍未归还的，
+     * 以及逾期归还的。非全量模式下跳过归还后已经计算过（金额已固定，accruing = 0）的借阅。
+     *
+     * @return 每行为 [loanId, userId, dueDate毫秒, returnDate毫秒（未归还为-1）]
+     * @throws OperationFailedException 如果查询失败
+     */
+    List<long[]> findFineCandidates(int fromLoanId, int toLoanId, Timestamp now, boolean full) throws OperationFailedException;
+
+    /**
+     * 以JDBC批处理按 loan_id 插入或覆盖罚款记录，在一个事务中提交。
+     *
+     * @param fines 每行为 [loanId, userId, 逾期天数, 金额（分）, 是否仍在累计（1/0）]
+     * @return 写入的记录数
+     * @throws OperationFailedException 如果写入失败
+     */
+    int upsertFines(List<long[]> fines, Timestamp computedAt) throws OperationFailedException;
+
+    /**
+     * 汇总用户的罚款。
+     *
+     * @return [罚款总额 (BigDecimal), 有罚款的借阅数 (Number), 其中仍在累计的借阅数 (Number), 最近计算时间 (Timestamp，可能为null)]
+     * @throws OperationFailedException 如果查询失败
+     */
+    Object[] summarizeFinesByUserId(int userId) throws OperationFailedException;
+}
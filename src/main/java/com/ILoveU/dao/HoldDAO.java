@@ -0,0 +1,76 @@
+package com.ILoveU.dao;
+
+import com.ILoveU.exception.DuplicateResourceException;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
+import com.ILoveU.model.Hold;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * HoldDAO 定义图书预约队列的数据库操作。
+ * 所有改变预约状态的方法都先锁定图书行（books）再锁定预约行，与借书/还书事务的加锁顺序一致；
+ * 释放出副本时在同一事务中把队首的等待预约置为 READY，并写入 HOLD_READY 通知。
+ * 预约变化频繁且用户通常在操作后立即查询，读取也访问主库。
+ */
+public interface HoldDAO {
+
+    /**
+     * 为读者预约一本暂无可借副本的图书（追加到队尾）。
+     *
+     * @return 新建的预约；图书不存在时返回 {@code null}
+     * @throws DuplicateResourceException  如果该读者对这本书已有未结束的预约
+     * @throws OperationForbiddenException 如果图书当前有未被保留的可借副本（应直接借阅）
+     * @throws OperationFailedException    如果数据库操作失败
+     */
+    Hold placeHold(int userId, int bookId);
+
+    /**
+     * @return 对应的预约；不存在时返回 {@code null}
+     * @throws OperationFailedException 如果查询失败
+     */
+    Hold findHoldById(int holdId);
+
+    /**
+     * 查询读者未结束（WAITING 或 READY）的预约，按预约先后排序。
+     *
+     * @throws OperationFailedException 如果查询失败
+     */
+    List<Hold> findOpenHoldsByUserId(int userId);
+
+    /**
+     * 按排队顺序查询一本书的等待中预约，用于加载内存中的队列镜像。
+     *
+     * @return 每行为 [holdId, userId]
+     * @throws OperationFailedException 如果查询失败
+     */
+    List<int[]> findWaitingQueue(int bookId);
+
+    /**
+     * 取消一个未结束的预约；被取消的预约正在保留副本时，副本转给队列中的下一位。
+     *
+     * @param pickupDays 转给下一位时的保留天数
+     * @return 取消后的预约；预约不存在或已结束时返回 {@code null}
+     * @throws OperationFailedException 如果数据库操作失败
+     */
+    Hold cancelHold(int holdId, int pickupDays);
+
+    /**
+     * 在一个事务中按当前未被保留的可借副本数，把队首的等待预约置为 READY。
+     * 用于图书库存被修改等不经过还书流程的可用性变化。
+     *
+     * @return 本次置为 READY 的预约数
+     * @throws OperationFailedException 如果数据库操作失败
+     */
+    int promoteHolds(int bookId, int pickupDays);
+
+    /**
+     * 把最多 batchSize 个保留截止时间早于 now 的 READY 预约置为 EXPIRED（写入 HOLD_EXPIRED 通知），
+     * 并把释放的副本转给队列中的下一位。每个预约在独立的短事务中处理。
+     *
+     * @return 等待队列发生变化的图书ID（可能重复）
+     * @throws OperationFailedException 如果查询过期预约失败
+     */
+    List<Integer> expireReadyHolds(Timestamp now, int pickupDays, int batchSize);
+}
@@ -0,0 +1,35 @@
+package com.ILoveU.dao;
+
+import com.ILoveU.exception.OperationFailedException;
+
+import java.util.List;
+
+/**
+ * InventoryDAO 为库存核对任务提供按ID区间的批量扫描和条件修复。
+ * 所有方法都直接访问主库（修复依赖读到的最新值），并且只使用短小的语句，不持有长时间的锁。
+ */
+public interface InventoryDAO {
+
+    /**
+     * @return 图书表的 [最小ID, 最大ID]；没有图书时返回null
+     * @throws OperationFailedException 如果查询失败
+     */
+    int[] findBookIdRange() throws OperationFailedException;
+
+    /**
+     * 查询ID在 [fromBookId, toBookId) 区间内每本书的库存数据。
+     * 借出数量通过对 loans 的一次分组查询得到（每个区间一条SQL），读取不加锁。
+     *
+     * @return 每行为 [bookId, numCopiesTotal, numCopiesAvailable, 未归还的借阅数]
+     * @throws OperationFailedException 如果查询失败
+     */
+    List<int[]> findInventoryInRange(int fromBookId, int toBookId) throws OperationFailedException;
+
+    /**
+     * 在一个短事务中把图书的可用库存从 seenAvailable 改为 expectedAvailable。
+     * 只有当前值仍等于 seenAvailable 时才会修改（期间有借还发生则跳过，留给下一次核对）。
+     *
+     * @return 如果修改成功返回true
+     */
+    boolean repairAvailableCopies(int bookId, int seenAvailable, int expectedAvailable);
+}
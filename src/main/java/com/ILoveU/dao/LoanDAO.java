@@ -1,7 +1,9 @@
 package com.ILoveU.dao;
 
 import com.ILoveU.model.Loan;
+import com.ILoveU.util.FieldMask;
 
+import java.sql.Timestamp;
 import java.util.Collections; // 用于返回空列表
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +25,39 @@ public interface LoanDAO {
      */
     Loan addLoan(Loan loan);
 
+    /**
+     * 借书：在一个事务中检查并增加用户的未归还计数（user_loan_stats），检查可用副本没有被其他读者的预约保留，
+     * 然后保存借阅记录；读者对这本书的未结束预约随之完成。
+     * 与 {@link #addLoan(Loan)} 不同，本方法维护用户借阅计数和预约，业务上的借书应使用本方法。
+     *
+     * @param loan            要保存的借阅记录，必须关联用户。
+     * @param maxActiveLoans  用户最多同时借阅的数量，小于等于0表示不限制。
+     * @param maxOverdueLoans 允许继续借书的最大逾期未还数量，小于0表示不限制。
+     * @return 持久化后的 {@link Loan} 对象。
+     * @throws com.ILoveU.exception.OperationForbiddenException 如果用户已达到借阅上限或没有未被保留的可借副本（此时不会保存任何数据）
+     * @throws com.ILoveU.exception.OperationFailedException    如果数据库操作失败（包括库存触发器拒绝）
+     */
+    Loan checkoutLoan(Loan loan, int maxActiveLoans, int maxOverdueLoans);
+
+    /**
+     * 还书：在一个事务中锁定借阅记录、保存归还信息并扣减用户的未归还（及逾期）计数；
+     * 这本书有等待中的预约时，归还的副本在同一事务中保留给队首的读者。
+     *
+     * @param loan           已设置归还日期的借阅记录。
+     * @param holdPickupDays 为预约读者保留副本的天数
+     * @return 更新后的 {@link Loan} 对象，其 overdue 为归还时的逾期状态；记录不存在或已被归还时返回 {@code null}。
+     * @throws com.ILoveU.exception.OperationFailedException 如果数据库操作失败
+     */
+    Loan returnLoan(Loan loan, int holdPickupDays);
+
+    /**
+     * 读取用户的借阅计数（主键查询）。
+     *
+     * @return [未归还数, 逾期未还数]；用户从未借过书时返回 {@code null}
+     * @throws com.ILoveU.exception.OperationFailedException 如果查询失败
+     */
+    int[] findUserLoanStats(int userId);
+
     /**
      * 根据指定的ID查找单个借阅记录。
      *
@@ -33,6 +68,14 @@ public interface LoanDAO {
     Loan findLoanById(int loanId);
     // 备选签名: Optional<Loan> findLoanById(int loanId);
 
+    /**
+     * 在归档表中根据ID查找已归档的借阅记录。
+     *
+     * @param loanId 借阅记录的ID。
+     * @return 找到的 {@link Loan} 对象（只读，不应再被更新）；未找到或发生错误时返回 {@code null}。
+     */
+    Loan findArchivedLoanById(int loanId);
+
     /**
      * 更新数据库中已存在的借阅记录信息。
      * 主要用于用户还书时，更新归还日期等信息。
@@ -44,7 +87,7 @@ public interface LoanDAO {
     Loan updateLoan(Loan loan);
 
     // 通常不提供物理删除借阅记录的方法，因为它们是重要的历史数据。
-    // 如果需要，可以考虑软删除或归档。
+    // 早已归还的借阅由 LoanArchivalJob 移入 loans_archive，见 archiveReturnedLoans。
 
     /**
      * 统计指定图书当前未归还的（活动的）借阅记录数量。
@@ -66,6 +109,16 @@ public interface LoanDAO {
      */
     List<Loan> findLoansByUserId(int userId, int page, int pageSize);
 
+    /**
+     * 按字段掩码分页查询指定用户的借阅记录（稀疏字段集）。
+     * 只查询掩码所需的列；返回的 {@link Loan} 是不受Session管理的快照，
+     * 其 user/book 只包含ID。
+     *
+     * @param fieldMask 字段掩码。为null或表示全部字段时，等价于调用不带掩码的版本。
+     * @return 包含当前页借阅记录对象的列表。如果查询结果为空或发生错误，则返回空列表。
+     */
+    List<Loan> findLoansByUserId(int userId, int page, int pageSize, FieldMask fieldMask);
+
     /**
      * 统计指定用户的借阅记录总数。
      *
@@ -74,6 +127,16 @@ public interface LoanDAO {
      */
     long countLoansByUserId(int userId);
 
+    /**
+     * 与 {@link #findLoansByUserId(int, int, int)} 相同；includeArchived 为true时同时查询归档表，合并后按借阅日期降序分页。
+     */
+    List<Loan> findLoansByUserId(int userId, int page, int pageSize, boolean includeArchived);
+
+    /**
+     * 与 {@link #countLoansByUserId(int)} 相同；includeArchived 为true时包含归档表中的记录。
+     */
+    long countLoansByUserId(int userId, boolean includeArchived);
+
     /**
      * 分页查询所有借阅记录列表。
      *
@@ -91,4 +154,57 @@ public interface LoanDAO {
      */
     long countAllLoans();
 
+    /**
+     * 与 {@link #findAllLoans(int, int)} 相同；includeArchived 为true时同时查询归档表，合并后按借阅日期降序分页。
+     */
+    List<Loan> findAllLoans(int page, int pageSize, boolean includeArchived);
+
+    /**
+     * 与 {@link #countAllLoans()} 相同；includeArchived 为true时包含归档表中的记录。
+     */
+    long countAllLoans(boolean includeArchived);
+
+    /**
+     * 在一个短事务中把最多 batchSize 条归还时间早于 returnedBefore 的借阅从 loans 移入 loans_archive。
+     * 被其他事务锁定的行会被跳过，留给下一批。
+     *
+     * @return 本批移动的记录数；为0表示没有可归档的记录
+     * @throws com.ILoveU.exception.OperationFailedException 如果数据库操作失败
+     */
+    int archiveReturnedLoans(Timestamp returnedBefore, int batchSize);
+
+    /**
+     * 查询所有未归还借阅的到期信息，用于启动时加载到期时间轮。
+     *
+     * @return 每行为 [loanId (Integer), userId (Integer), dueDate (Timestamp), overdue (Boolean)]；出错时返回空列表
+     */
+    List<Object[]> findActiveLoanDueDates();
+
+    /**
+     * 在一个事务中将未归还的借阅标记为逾期，并向通知发件箱写入一条 OVERDUE 通知。
+     *
+     * @param loanId 借阅记录ID
+     * @return 如果本次调用完成了标记则返回true；借阅已归还或已标记过时返回false
+     * @throws com.ILoveU.exception.OperationFailedException 如果数据库操作失败（调用方可稍后重试）
+     */
+    boolean markOverdue(int loanId);
+
+    /**
+     * 为未归还、未逾期的借阅写入一条 DUE_SOON（即将到期）通知；同一借阅只会写入一次。
+     *
+     * @return 如果写入了新通知则返回true
+     * @throws com.ILoveU.exception.OperationFailedException 如果数据库操作失败（调用方可稍后重试）
+     */
+    boolean addDueSoonNotification(int loanId);
+
+    /**
+     * 分页查询当前逾期（已标记逾期且未归还）的借阅，按应还日期升序。
+     * 走 (overdue, return_date, due_date) 索引，只扫描结果行。
+     */
+    List<Loan> findOverdueLoans(int page, int pageSize);
+
+    /**
+     * @return 当前逾期（已标记逾期且未归还）的借阅总数
+     */
+    long countOverdueLoans();
 }
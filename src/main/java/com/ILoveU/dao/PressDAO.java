@@ -1,5 +1,7 @@
 package com.ILoveU.dao;
 
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
 import com.ILoveU.model.Press;
 
 import java.util.List;
@@ -50,16 +52,15 @@ public interface PressDAO {
 
     /**
      * 根据指定的ID从数据库中删除一个出版社。
-     * 实现时需要考虑与该出版社关联的其他数据（如图书）的处理策略，
-     * 例如，数据库层面是否有外键约束会阻止删除，或者是否有级联删除的设置。
+     * 关联图书的检查在删除事务中进行：锁定出版社行后读取主库上的 book_count，仍有图书时拒绝删除；
+     * 计数暂时偏小时由外键约束拦下，同样视为有关联图书。
      *
      * @param pressId 要删除的出版社的唯一ID。
-     * @return 如果成功删除出版社，则返回 {@code true}；
-     * 如果未找到具有该ID的出版社，或者由于其他原因（如外键约束）导致删除失败，则返回 {@code false}。
-     * (或者，可以考虑让此方法返回 {@code void}，并在未找到或删除失败时抛出异常)。
+     * @return 如果成功删除出版社，则返回 {@code true}；如果未找到具有该ID的出版社，则返回 {@code false}。
+     * @throws OperationForbiddenException 如果该出版社尚有关联的图书
+     * @throws OperationFailedException    如果数据库操作失败
      */
     boolean deletePress(int pressId);
-    // 备选签名: void deletePress(int pressId) throws PressNotFoundException, DataIntegrityViolationException;
 
     /**
      * 统计数据库中所有出版社的总数。
@@ -0,0 +1,40 @@
+package com.ILoveU.dao;
+
+import com.ILoveU.exception.OperationFailedException;
+
+import java.sql.Timestamp;
+import java.util.Map;
+
+/**
+ * RevokedTokenDAO 维护已注销登录令牌的 revoked_tokens 表和按用户撤销的 revoked_user_tokens 表（见 AuthTokens）。
+ * 按用户撤销的记录与角色修改在同一事务中写入（见 UserDAO#updateRole）。
+ */
+public interface RevokedTokenDAO {
+
+    /**
+     * 记录一个已注销的令牌；重复记录同一个 jti 不报错。
+     *
+     * @throws OperationFailedException 如果写入失败
+     */
+    void revoke(String tokenId, int userId, Timestamp expiresAt) throws OperationFailedException;
+
+    /**
+     * @return 尚未过期的撤销记录，jti -> 令牌过期时间（epoch 秒）
+     * @throws OperationFailedException 如果查询失败
+     */
+    Map<String, Long> findUnexpired(Timestamp now) throws OperationFailedException;
+
+    /**
+     * @return 尚未过期的按用户撤销记录，userId -> not_before（epoch 毫秒）
+     * @throws OperationFailedException 如果查询失败
+     */
+    Map<Integer, Long> findUnexpiredUsers(Timestamp now) throws OperationFailedException;
+
+    /**
+     * 删除令牌本身已过期的撤销记录（两张表）。
+     *
+     * @return 删除的行数
+     * @throws OperationFailedException 如果删除失败
+     */
+    int deleteExpired(Timestamp now) throws OperationFailedException;
+}
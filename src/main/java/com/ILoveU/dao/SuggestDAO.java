@@ -0,0 +1,33 @@
+package com.ILoveU.dao;
+
+import com.ILoveU.exception.OperationFailedException;
+
+import java.util.List;
+
+/**
+ * SuggestDAO 为输入联想索引提供启动时的全量数据。
+ * 每个方法返回的每一行都是 [id (Integer), 名称 (String), 热度 (Long)]。
+ * 查询失败时抛出 OperationFailedException，而不是返回空列表：空列表会被当作"没有数据"建成空索引。
+ */
+public interface SuggestDAO {
+
+    /**
+     * @return 所有图书的 [bookId, title, 借阅次数]
+     */
+    List<Object[]> findBookTitlesWithLoanCounts() throws OperationFailedException;
+
+    /**
+     * @return 所有作者的 [authorId, "firstName lastName", 图书数量]
+     */
+    List<Object[]> findAuthorNamesWithBookCounts() throws OperationFailedException;
+
+    /**
+     * @return 所有标签的 [tagId, name, 图书数量]
+     */
+    List<Object[]> findTagNamesWithBookCounts() throws OperationFailedException;
+
+    /**
+     * @return 所有出版社的 [pressId, name, 图书数量]
+     */
+    List<Object[]> findPressNamesWithBookCounts() throws OperationFailedException;
+}
@@ -1,5 +1,7 @@
 package com.ILoveU.dao;
 
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
 import com.ILoveU.model.Tag;
 
 import java.util.List;
@@ -53,11 +55,13 @@ public interface TagDAO {
 
     /**
      * 根据指定的ID从数据库中删除一个标签。
-     * Service层在调用此方法前，应已处理完所有业务规则检查。
+     * 关联图书的检查在删除事务中进行：锁定标签行后读取主库上的 book_count，仍被图书使用时拒绝删除；
+     * 计数暂时偏小时由外键约束拦下，同样视为仍被使用。
      *
      * @param tagId 要删除的标签的唯一ID。
-     * @return 如果成功删除标签，则返回 {@code true}；
-     * 如果未找到具有该ID的标签或删除失败（如因外键约束或数据库错误），则返回 {@code false}。
+     * @return 如果成功删除标签，则返回 {@code true}；如果未找到具有该ID的标签，则返回 {@code false}。
+     * @throws OperationForbiddenException 如果该标签尚被图书使用
+     * @throws OperationFailedException    如果数据库操作失败
      */
     boolean deleteTag(int tagId);
 
@@ -1,7 +1,10 @@
 package com.ILoveU.dao;
 
+import com.ILoveU.exception.OperationFailedException;
 import com.ILoveU.model.User;
 
+import java.sql.Timestamp;
+
 public interface UserDAO {
 
     /**
@@ -17,4 +20,27 @@ public interface UserDAO {
 
     public boolean isAccountExists(String account);
 
+    /**
+     * replace the stored password hash only if it still equals expectedHash (used to upgrade legacy hashes on login)
+     * @return true if the hash was replaced, false if it had been changed concurrently or the update failed
+     */
+    public boolean updatePasswordHash(int userId, String expectedHash, String newHash);
+
+    /**
+     * read the user's current role from the primary (used when refreshing login tokens)
+     * @return the role, or null if the user does not exist
+     * @throws OperationFailedException if the query failed
+     */
+    public User.Role findRoleById(int userId);
+
+    /**
+     * change the user's role and, in the same transaction, record in revoked_user_tokens that the user's
+     * tokens issued at or before notBefore are invalid, so the new role and the revocation commit or fail together
+     * @param notBefore tokens issued at or before this time are revoked
+     * @param expiresAt when all of those tokens have expired and the revocation record can be deleted
+     * @return true if the user exists and was updated (nothing is written otherwise)
+     * @throws OperationFailedException if the update failed
+     */
+    public boolean updateRole(int userId, User.Role role, Timestamp notBefore, Timestamp expiresAt);
+
 }
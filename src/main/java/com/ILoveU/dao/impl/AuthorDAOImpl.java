@@ -1,15 +1,21 @@
 package com.ILoveU.dao.impl;
 
 import com.ILoveU.dao.AuthorDAO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
 import com.ILoveU.model.Author;
+import com.ILoveU.util.FieldMask;
 import com.ILoveU.util.HibernateUtil;
+import com.ILoveU.util.TextNormalizer;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -20,7 +26,7 @@ public class AuthorDAOImpl implements AuthorDAO {
 
     @Override
     public List<Author> findAuthors(int page, int pageSize) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
 
             // 可以根据需要添加 ORDER BY 子句，例如按名称排序: "ORDER BY a.name ASC"
             String hql = "FROM Author a ORDER BY a.lastName ASC, a.firstName ASC";
@@ -39,7 +45,7 @@ public class AuthorDAOImpl implements AuthorDAO {
 
     @Override
     public Author findAuthorById(int authorId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             return session.get(Author.class, authorId);
         } catch (Exception e) {
             logger.error("通过ID {} 查询作者时发生错误: {}", authorId, e.getMessage(), e);
@@ -89,31 +95,48 @@ public class AuthorDAOImpl implements AuthorDAO {
         Transaction transaction = null;
         try (Session session = HibernateUtil.getSessionFactory().openSession()) {
             transaction = session.beginTransaction();
-            Author author = session.get(Author.class, authorId);
-            if (author != null) {
-                session.delete(author);
-                transaction.commit();
-                logger.info("作者 ID: {}, 名称: {} {} 已成功从数据库删除", author.getAuthorId(), author.getFirstName(), author.getLastName());
-                return true;
-            } else {
+            // 在删除事务中锁定该行并从主库读取图书计数：新增/修改图书时会在同一行上调整计数，
+            // 加锁后二者串行，既不会读到副本上过期的计数，也不会在检查后被并发关联上新图书
+            Number bookCount = (Number) session.createNativeQuery(
+                            "SELECT book_count FROM authors WHERE author_id = :authorId FOR UPDATE")
+                    .setParameter("authorId", authorId)
+                    .uniqueResult();
+            if (bookCount == null) {
                 logger.warn("尝试删除作者失败：未找到ID为 {} 的作者", authorId);
-                // 如果没找到，也需要提交（或回滚）事务，虽然没做任何修改
-                if (transaction.isActive()) transaction.commit();
+                transaction.rollback();
                 return false;
             }
+            if (bookCount.longValue() > 0) {
+                throw new OperationForbiddenException("无法删除该作者，他/她尚著有 " + bookCount + " 本书籍。");
+            }
+            Author author = session.get(Author.class, authorId);
+            session.delete(author);
+            // 计数偏小时（由定期校正任务修复）由外键约束拦下，在这里flush以便把约束冲突转换为业务异常
+            session.flush();
+            transaction.commit();
+            logger.info("作者 ID: {} 已成功从数据库删除", authorId);
+            return true;
+        } catch (OperationForbiddenException e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
         } catch (Exception e) {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            if (HibernateUtil.isConstraintViolation(e)) {
+                logger.warn("删除作者 ID: {} 时违反外键约束，该作者仍被图书引用。", authorId);
+                throw new OperationForbiddenException("无法删除该作者，他/她尚有关联的书籍。", e);
+            }
             logger.error("删除作者 ID: {} 时发生错误: {}", authorId, e.getMessage(), e);
+            throw new OperationFailedException("删除作者时发生数据库错误。", e);
         }
-
-        return false;
     }
 
     @Override
     public long countTotalAuthors() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "SELECT COUNT(a) FROM Author a";
             Query<Long> query = session.createQuery(hql, Long.class);
             return query.uniqueResultOptional().orElse(0L);
@@ -125,11 +148,12 @@ public class AuthorDAOImpl implements AuthorDAO {
 
     @Override
     public boolean existsByNameIgnoreCase(String firstName, String lastName) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "SELECT COUNT(a) FROM Author a WHERE lower(a.firstName) = lower(:firstNameParam) and lower(a.lastName) = lower(:lastNameParam)";
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            // 按规范化影子列比较，命中 idx_authors_name_normalized 复合索引
+            String hql = "SELECT COUNT(a) FROM Author a WHERE a.firstNameNormalized = :firstNameParam and a.lastNameNormalized = :lastNameParam";
             Query<Long> query = session.createQuery(hql, Long.class);
-            query.setParameter("firstNameParam", firstName);
-            query.setParameter("lastNameParam", lastName);
+            query.setParameter("firstNameParam", TextNormalizer.normalize(firstName));
+            query.setParameter("lastNameParam", TextNormalizer.normalize(lastName));
 
             Long count = query.uniqueResult();
             return count != null && count > 0;
@@ -147,7 +171,7 @@ public class AuthorDAOImpl implements AuthorDAO {
             return findAuthors(page, pageSize);
         }
 
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             // 准备模糊匹配的关键词模式，通常在关键词前后加上 '%'
             // 并转换为小写，以配合HQL中的 lower() 函数实现不区分大小写的搜索
             String keywordPattern = "%" + nameKeyword.toLowerCase().trim() + "%";
@@ -172,6 +196,61 @@ public class AuthorDAOImpl implements AuthorDAO {
         return Collections.emptyList();
     }
 
+    @Override
+    public List<Author> findAuthorsByNameKeyword(String nameKeyword, int page, int pageSize, FieldMask fieldMask) {
+        if (fieldMask == null || fieldMask.isAll()) {
+            return findAuthorsByNameKeyword(nameKeyword, page, pageSize);
+        }
+
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            // 排序依赖姓名，因此 authorId/firstName/lastName 总是查询
+            boolean withBio = fieldMask.includes("bio");
+            boolean withBookCount = fieldMask.includes("bookCount");
+            boolean withCreatedAt = fieldMask.includes("createdAt");
+            boolean withUpdatedAt = fieldMask.includes("updatedAt");
+            List<String> columns = new ArrayList<>(Arrays.asList("a.authorId", "a.firstName", "a.lastName"));
+            if (withBio) columns.add("a.bio");
+            if (withBookCount) columns.add("a.bookCount");
+            if (withCreatedAt) columns.add("a.createdAt");
+            if (withUpdatedAt) columns.add("a.updatedAt");
+
+            boolean hasKeyword = nameKeyword != null && !nameKeyword.trim().isEmpty();
+            StringBuilder hqlBuilder = new StringBuilder("SELECT ").append(String.join(", ", columns)).append(" FROM Author a");
+            if (hasKeyword) {
+                hqlBuilder.append(" WHERE lower(a.firstName) LIKE :keyword OR lower(a.lastName) LIKE :keyword");
+            }
+            hqlBuilder.append(" ORDER BY a.lastName ASC, a.firstName ASC");
+
+            Query<Object[]> query = session.createQuery(hqlBuilder.toString(), Object[].class);
+            if (hasKeyword) {
+                query.setParameter("keyword", "%" + nameKeyword.toLowerCase().trim() + "%");
+            }
+            query.setFirstResult((page - 1) * pageSize);
+            query.setMaxResults(pageSize);
+
+            List<Author> authors = new ArrayList<>();
+            for (Object[] row : query.list()) {
+                int i = 0;
+                Author author = new Author();
+                author.setAuthorId((Integer) row[i++]);
+                author.setFirstName((String) row[i++]);
+                author.setLastName((String) row[i++]);
+                if (withBio) author.setBio((String) row[i++]);
+                if (withBookCount) author.setBookCount((Integer) row[i++]);
+                if (withCreatedAt) author.setCreatedAt((Timestamp) row[i++]);
+                if (withUpdatedAt) author.setUpdatedAt((Timestamp) row[i]);
+                authors.add(author);
+            }
+            logger.info("按字段掩码 [{}] 和关键词 '{}' 分页查询到 {} 条作者记录。页码: {}, 每页大小: {}",
+                    fieldMask, nameKeyword, authors.size(), page, pageSize);
+            return authors;
+        } catch (Exception e) {
+            logger.error("按字段掩码 [{}] 和关键词 '{}' 分页查询作者时发生错误: page={}, pageSize={}. 错误: {}",
+                    fieldMask, nameKeyword, page, pageSize, e.getMessage(), e);
+        }
+        return Collections.emptyList();
+    }
+
     @Override
     public long countAuthorsByNameKeyword(String nameKeyword) {
         // 如果关键词为空或仅包含空白，返回0L
@@ -180,7 +259,7 @@ public class AuthorDAOImpl implements AuthorDAO {
             return 0L;
         }
 
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             // 并转换为小写，以配合HQL中的 lower() 函数实现不区分大小写的搜索
             String keywordPattern = "%" + nameKeyword.toLowerCase().trim() + "%";
             String hql = "SELECT COUNT(a) FROM Author a WHERE lower(a.firstName) LIKE :keyword OR lower(a.lastName) LIKE :keyword";
@@ -203,7 +282,7 @@ public class AuthorDAOImpl implements AuthorDAO {
             return Collections.emptyList();
         }
 
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "FROM Author a WHERE a.authorId IN (:ids)";
             Query<Author> query = session.createQuery(hql, Author.class);
             // 使用 setParameterList 来设置集合类型的参数
@@ -0,0 +1,77 @@
+package com.ILoveU.dao.impl;
+
+import com.ILoveU.dao.BookCountDAO;
+import com.ILoveU.util.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+public class BookCountDAOImpl implements BookCountDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookCountDAOImpl.class);
+
+    @Override
+    public int reconcileBookCounts() {
+        try {
+            return reconcile("presses", "press_id", "SELECT COUNT(*) FROM books b WHERE b.press_id = t.press_id")
+                    + reconcile("authors", "author_id", "SELECT COUNT(*) FROM book_authors ba WHERE ba.author_id = t.author_id")
+                    + reconcile("tags", "tag_id", "SELECT COUNT(*) FROM book_tags bt WHERE bt.tag_id = t.tag_id");
+        } catch (Exception e) {
+            logger.error("校正图书计数时发生错误: {}", e.getMessage(), e);
+        }
+        return -1;
+    }
+
+    /**
+     * 校正一张表的 book_count。
+     * 这里必须读主库：如果读到副本的旧数据，条件更新可能会把正确的计数改错。
+     */
+    @SuppressWarnings("unchecked")
+    private int reconcile(String table, String idColumn, String actualCountSql) {
+        List<Object[]> mismatches;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            // 单条语句在同一个一致性快照中读取计数和实际数量，不加锁
+            mismatches = session.createNativeQuery(
+                    "SELECT x.id, x.book_count, x.actual FROM ("
+                            + "SELECT t." + idColumn + " AS id, t.book_count, (" + actualCountSql + ") AS actual"
+                            + " FROM " + table + " t) x WHERE x.book_count <> x.actual").list();
+        }
+        if (mismatches.isEmpty()) {
+            return 0;
+        }
+
+        int fixed = 0;
+        for (Object[] row : mismatches) {
+            int id = ((Number) row[0]).intValue();
+            int seen = ((Number) row[1]).intValue();
+            int actual = ((Number) row[2]).intValue();
+            // 每行一个短事务，只锁定被修正的那一行
+            Transaction transaction = null;
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                transaction = session.beginTransaction();
+                int updated = session.createNativeQuery("UPDATE " + table + " SET book_count = :actual"
+                                + " WHERE " + idColumn + " = :id AND book_count = :seen")
+                        .setParameter("actual", actual)
+                        .setParameter("id", id)
+                        .setParameter("seen", seen)
+                        .executeUpdate();
+                transaction.commit();
+                if (updated > 0) {
+                    fixed++;
+                    logger.warn("{} ID {} 的 book_count 与实际不符，已由 {} 修正为 {}。", table, id, seen, actual);
+                } else {
+                    logger.debug("{} ID {} 的 book_count 在校正期间被并发修改，跳过。", table, id);
+                }
+            } catch (Exception e) {
+                if (transaction != null && transaction.isActive()) {
+                    transaction.rollback();
+                }
+                logger.error("修正 {} ID {} 的 book_count 时发生错误: {}", table, id, e.getMessage(), e);
+            }
+        }
+        return fixed;
+    }
+}
@@ -3,6 +3,7 @@ package com.ILoveU.dao.impl;
 import com.ILoveU.dao.BookDAO;
 import com.ILoveU.exception.OperationFailedException;
 import com.ILoveU.model.*;
+import com.ILoveU.util.FieldMask;
 import com.ILoveU.util.HibernateUtil;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
@@ -10,11 +11,15 @@ import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Timestamp;
 import java.util.*;
 
 public class BookDAOImpl implements BookDAO {
     private static final Logger logger = LoggerFactory.getLogger(BookDAOImpl.class);
 
+    // filterBookIds 每条语句携带的ID数
+    private static final int FILTER_CHUNK = 1000;
+
     @Override
     public Book addBook(Book book) {
         Transaction transaction = null;
@@ -61,6 +66,9 @@ public class BookDAOImpl implements BookDAO {
             // 2. 现在保存Book对象，它关联的都是当前session管理的对象了
             session.save(book);
 
+            // 3. 在同一事务中维护出版社/作者/标签的图书计数
+            adjustBookCounts(session, BookAssociations.of(book), 1);
+
             transaction.commit();
             logger.info("图书 '{}' (ID: {}) 已成功添加到数据库。", book.getTitle(), book.getBookId());
             return book;
@@ -75,7 +83,7 @@ public class BookDAOImpl implements BookDAO {
 
     @Override
     public Book findBookById(int bookId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             Book book = session.get(Book.class, bookId);
             if (book != null) {
                 logger.debug("通过ID {} 找到图书: {}", bookId, book.getTitle());
@@ -106,6 +114,9 @@ public class BookDAOImpl implements BookDAO {
         try (Session session = HibernateUtil.getSessionFactory().openSession()) {
             transaction = session.beginTransaction();
 
+            // 0. 锁定图书行并读取更新前的关联，用于之后按差异调整图书计数
+            BookAssociations before = lockAndLoadAssociations(session, book.getBookId());
+
             // 1. 先处理关联的游离对象，将它们merge到当前session
             //    确保这些关联对象已经是当前session管理的持久态对象
             if (book.getPress() != null && book.getPress().getPressId() != null) {
@@ -151,6 +162,11 @@ public class BookDAOImpl implements BookDAO {
             // merge book会将其基本属性更新，并根据其authors和tags集合的状态更新中间表。
             Book managedBook = (Book) session.merge(book);
 
+            // 3. 按关联的增减调整图书计数
+            BookAssociations after = BookAssociations.of(managedBook);
+            adjustBookCounts(session, after.minus(before), 1);
+            adjustBookCounts(session, before.minus(after), -1);
+
             transaction.commit();
             logger.info("图书 ID: {} 已成功更新。", managedBook.getBookId());
             return managedBook;
@@ -171,7 +187,9 @@ public class BookDAOImpl implements BookDAO {
             Book book = session.get(Book.class, bookId);
             if (book != null) {
                 // Hibernate will handle deletion from join tables for @ManyToMany if Book is owning side or cascade is set appropriately
+                BookAssociations associations = BookAssociations.of(book);
                 session.delete(book);
+                adjustBookCounts(session, associations, -1);
                 transaction.commit();
                 logger.info("图书 ID: {} 已成功从数据库删除。", bookId);
                 return true;
@@ -194,7 +212,7 @@ public class BookDAOImpl implements BookDAO {
     @Override
     public List<Book> findBooks(String searchKeyword, Integer pressId, Integer tagId, int page, int pageSize) {
 
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             StringBuilder hqlBuilder = new StringBuilder("SELECT DISTINCT b FROM Book b ");
             Map<String, Object> parameters = new HashMap<>();
             List<String> whereClauses = new ArrayList<>();
@@ -263,9 +281,131 @@ public class BookDAOImpl implements BookDAO {
         return Collections.emptyList();
     }
 
+    @Override
+    public List<Book> findBooks(String searchKeyword, Integer pressId, Integer tagId, int page, int pageSize, FieldMask fieldMask) {
+        if (fieldMask == null || fieldMask.isAll()) {
+            return findBooks(searchKeyword, pressId, tagId, page, pageSize);
+        }
+
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            // 只选择需要的列。bookId 用于批量加载关联，title 用于排序，因此总是查询
+            List<String> columns = new ArrayList<>(Arrays.asList("b.bookId", "b.title"));
+            boolean withIsbn = fieldMask.includes("isbn");
+            boolean withTotal = fieldMask.includes("numCopiesTotal");
+            boolean withAvailable = fieldMask.includes("numCopiesAvailable");
+            boolean withCreatedAt = fieldMask.includes("createdAt");
+            boolean withUpdatedAt = fieldMask.includes("updatedAt");
+            boolean withPress = fieldMask.includes("press");
+            if (withIsbn) columns.add("b.isbn");
+            if (withTotal) columns.add("b.numCopiesTotal");
+            if (withAvailable) columns.add("b.numCopiesAvailable");
+            if (withCreatedAt) columns.add("b.createdAt");
+            if (withUpdatedAt) columns.add("b.updatedAt");
+            if (withPress) {
+                columns.add("p.pressId");
+                columns.add("p.name");
+            }
+
+            StringBuilder hqlBuilder = new StringBuilder("SELECT ")
+                    .append(String.join(", ", columns))
+                    .append(" FROM Book b ");
+            if (withPress) {
+                hqlBuilder.append("JOIN b.press p ");
+            }
+            if (tagId != null) {
+                // 复合主键(book_id, tag_id)保证按单个标签过滤时不会产生重复行
+                hqlBuilder.append("JOIN b.tags t_filter ");
+            }
+
+            Map<String, Object> parameters = new HashMap<>();
+            List<String> whereClauses = new ArrayList<>();
+            if (searchKeyword != null && !searchKeyword.trim().isEmpty()) {
+                // 作者条件放到子查询中，避免连接作者表后需要 DISTINCT
+                whereClauses.add("(lower(b.title) LIKE :keyword OR b.bookId IN ("
+                        + "SELECT ab.bookId FROM Book ab JOIN ab.authors auth "
+                        + "WHERE lower(auth.firstName) LIKE :keyword OR lower(auth.lastName) LIKE :keyword))");
+                parameters.put("keyword", "%" + searchKeyword.toLowerCase().trim() + "%");
+            }
+            if (pressId != null) {
+                whereClauses.add("b.press.id = :pressId");
+                parameters.put("pressId", pressId);
+            }
+            if (tagId != null) {
+                whereClauses.add("t_filter.id = :tagId");
+                parameters.put("tagId", tagId);
+            }
+            if (!whereClauses.isEmpty()) {
+                hqlBuilder.append(" WHERE ").append(String.join(" AND ", whereClauses));
+            }
+            hqlBuilder.append(" ORDER BY b.title ASC, b.bookId ASC");
+
+            Query<Object[]> query = session.createQuery(hqlBuilder.toString(), Object[].class);
+            for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+                query.setParameter(entry.getKey(), entry.getValue());
+            }
+            query.setFirstResult((page - 1) * pageSize);
+            query.setMaxResults(pageSize);
+
+            // 将投影结果组装为不受管理的Book快照，保持查询顺序
+            Map<Integer, Book> booksById = new LinkedHashMap<>();
+            for (Object[] row : query.list()) {
+                int i = 0;
+                Book book = new Book();
+                book.setBookId((Integer) row[i++]);
+                book.setTitle((String) row[i++]);
+                if (withIsbn) book.setIsbn((String) row[i++]);
+                if (withTotal) book.setNumCopiesTotal((Integer) row[i++]);
+                if (withAvailable) book.setNumCopiesAvailable((Integer) row[i++]);
+                if (withCreatedAt) book.setCreatedAt((Timestamp) row[i++]);
+                if (withUpdatedAt) book.setUpdatedAt((Timestamp) row[i++]);
+                if (withPress) {
+                    Press press = new Press();
+                    press.setPressId((Integer) row[i++]);
+                    press.setName((String) row[i]);
+                    book.setPress(press);
+                }
+                booksById.put(book.getBookId(), book);
+            }
+
+            if (!booksById.isEmpty() && fieldMask.includes("authors")) {
+                String authorHql = "SELECT b.bookId, a.authorId, a.firstName, a.lastName FROM Book b JOIN b.authors a WHERE b.bookId IN (:ids)";
+                Query<Object[]> authorQuery = session.createQuery(authorHql, Object[].class);
+                authorQuery.setParameterList("ids", booksById.keySet());
+                for (Object[] row : authorQuery.list()) {
+                    Author author = new Author();
+                    author.setAuthorId((Integer) row[1]);
+                    author.setFirstName((String) row[2]);
+                    author.setLastName((String) row[3]);
+                    booksById.get((Integer) row[0]).getAuthors().add(author);
+                }
+            }
+
+            if (!booksById.isEmpty() && fieldMask.includes("tags")) {
+                String tagHql = "SELECT b.bookId, t.tagId, t.name FROM Book b JOIN b.tags t WHERE b.bookId IN (:ids)";
+                Query<Object[]> tagQuery = session.createQuery(tagHql, Object[].class);
+                tagQuery.setParameterList("ids", booksById.keySet());
+                for (Object[] row : tagQuery.list()) {
+                    Tag tag = new Tag();
+                    tag.setTagId((Integer) row[1]);
+                    tag.setName((String) row[2]);
+                    booksById.get((Integer) row[0]).getTags().add(tag);
+                }
+            }
+
+            logger.info("按字段掩码 [{}] 查询图书: {}条记录，关键词='{}', 出版社ID={}, 标签ID={}, 页码={}, 每页大小={}",
+                    fieldMask, booksById.size(), searchKeyword, pressId, tagId, page, pageSize);
+            return new ArrayList<>(booksById.values());
+
+        } catch (Exception e) {
+            logger.error("按字段掩码 [{}] 查询图书时发生错误: 关键词='{}', 出版社ID={}, 标签ID={}, 页码={}, 每页大小={}",
+                    fieldMask, searchKeyword, pressId, tagId, page, pageSize, e);
+        }
+        return Collections.emptyList();
+    }
+
     @Override
     public long countBooks(String searchKeyword, Integer pressId, Integer tagId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             StringBuilder hqlBuilder = new StringBuilder("SELECT COUNT(DISTINCT b.id) FROM Book b ");
             Map<String, Object> parameters = new HashMap<>();
             List<String> whereClauses = new ArrayList<>();
@@ -323,8 +463,97 @@ public class BookDAOImpl implements BookDAO {
     }
 
     @Override
-    public long countBooksByPressId(int pressId) {
+    public List<Integer> filterBookIds(List<Integer> bookIds, Integer pressId, Integer tagId) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            StringBuilder hql = new StringBuilder("SELECT b.bookId FROM Book b WHERE b.bookId IN (:ids)");
+            // 容错搜索的匹配数不设上限，按 FILTER_CHUNK 分批查询，避免单条语句过长
+            if (pressId != null) {
+                hql.append(" AND b.press.id = :pressId");
+            }
+            if (tagId != null) {
+                hql.append(" AND b.bookId IN (SELECT tb.bookId FROM Book tb JOIN tb.tags t WHERE t.id = :tagId)");
+            }
+            Set<Integer> matched = new HashSet<>();
+            for (int from = 0; from < bookIds.size(); from += FILTER_CHUNK) {
+                Query<Integer> query = session.createQuery(hql.toString(), Integer.class);
+                query.setParameterList("ids", bookIds.subList(from, Math.min(from + FILTER_CHUNK, bookIds.size())));
+                if (pressId != null) {
+                    query.setParameter("pressId", pressId);
+                }
+                if (tagId != null) {
+                    query.setParameter("tagId", tagId);
+                }
+                matched.addAll(query.list());
+            }
+
+            List<Integer> result = new ArrayList<>(matched.size());
+            for (Integer id : bookIds) {
+                if (matched.contains(id)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error("按条件筛选图书ID时发生错误: {}", e.getMessage(), e);
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Integer, Integer> findAvailableCopies(Collection<Integer> bookIds) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        // 主库读取：副本可能尚未同步刚提交的借还
         try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            List<Object[]> rows = session.createNativeQuery("SELECT book_id, num_copies_available FROM books WHERE book_id IN (:ids)")
+                    .setParameterList("ids", bookIds)
+                    .list();
+            Map<Integer, Integer> result = new HashMap<>();
+            for (Object[] row : rows) {
+                result.put(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error("批量查询图书可用库存时发生错误: {}", e.getMessage(), e);
+            throw new OperationFailedException("查询图书库存失败。", e);
+        }
+    }
+
+    @Override
+    public List<Book> findBooksByIds(List<Integer> bookIds) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            Query<Book> query = session.createQuery("SELECT DISTINCT b FROM Book b WHERE b.bookId IN (:ids)", Book.class);
+            query.setParameterList("ids", bookIds);
+            Map<Integer, Book> booksById = new HashMap<>();
+            for (Book book : query.list()) {
+                booksById.put(book.getBookId(), book);
+            }
+
+            List<Book> result = new ArrayList<>(booksById.size());
+            for (Integer id : bookIds) {
+                Book book = booksById.get(id);
+                if (book != null) {
+                    result.add(book);
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error("根据ID列表查询图书时发生错误: {}", e.getMessage(), e);
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public long countBooksByPressId(int pressId) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "SELECT COUNT(b.bookId) FROM Book b WHERE b.press.id = :pressIdParam";
             Query<Long> query = session.createQuery(hql, Long.class);
             query.setParameter("pressIdParam", pressId);
@@ -339,7 +568,7 @@ public class BookDAOImpl implements BookDAO {
 
     @Override
     public long countBooksByAuthorId(int authorId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             // To count books by a specific author, we need to query through the join table
             // or the 'authors' collection in Book entity.
             // HQL: "SELECT COUNT(DISTINCT b.id) FROM Book b JOIN b.authors a WHERE a.id = :authorIdParam"
@@ -357,7 +586,7 @@ public class BookDAOImpl implements BookDAO {
 
     @Override
     public long countBooksByTagId(int tagId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "SELECT COUNT(DISTINCT b.bookId) FROM Book b JOIN b.tags tag_alias WHERE tag_alias.tagId = :tagIdParam";
             Query<Long> query = session.createQuery(hql, Long.class);
             query.setParameter("tagIdParam", tagId);
@@ -375,7 +604,7 @@ public class BookDAOImpl implements BookDAO {
         if (isbn == null || isbn.trim().isEmpty()) {
             return null;
         }
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "FROM Book b WHERE b.isbn = :isbnParam";
             Query<Book> query = session.createQuery(hql, Book.class);
             query.setParameter("isbnParam", isbn.trim());
@@ -391,7 +620,7 @@ public class BookDAOImpl implements BookDAO {
         if (isbn == null || isbn.trim().isEmpty()) {
             return false;
         }
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "SELECT COUNT(b.bookId) FROM Book b WHERE b.isbn = :isbnParam";
             Query<Long> query = session.createQuery(hql, Long.class);
             query.setParameter("isbnParam", isbn.trim());
@@ -407,7 +636,7 @@ public class BookDAOImpl implements BookDAO {
         if (isbn == null || isbn.trim().isEmpty()) {
             return false;
         }
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "SELECT COUNT(b.bookId) FROM Book b WHERE b.isbn = :isbnParam AND b.bookId != :excludeBookIdParam";
             Query<Long> query = session.createQuery(hql, Long.class);
             query.setParameter("isbnParam", isbn.trim());
@@ -418,4 +647,108 @@ public class BookDAOImpl implements BookDAO {
         }
         return false;
     }
+
+    /**
+     * 一本书关联的出版社/作者/标签ID，用于维护它们的 book_count 计数列。
+     */
+    private static final class BookAssociations {
+        final Set<Integer> pressIds;
+        final Set<Integer> authorIds;
+        final Set<Integer> tagIds;
+
+        BookAssociations(Set<Integer> pressIds, Set<Integer> authorIds, Set<Integer> tagIds) {
+            this.pressIds = pressIds;
+            this.authorIds = authorIds;
+            this.tagIds = tagIds;
+        }
+
+        static BookAssociations of(Book book) {
+            Set<Integer> pressIds = new HashSet<>();
+            if (book.getPress() != null && book.getPress().getPressId() != null) {
+                pressIds.add(book.getPress().getPressId());
+            }
+            Set<Integer> authorIds = new HashSet<>();
+            if (book.getAuthors() != null) {
+                for (Author author : book.getAuthors()) {
+                    if (author != null && author.getAuthorId() != null) {
+                        authorIds.add(author.getAuthorId());
+                    }
+                }
+            }
+            Set<Integer> tagIds = new HashSet<>();
+            if (book.getTags() != null) {
+                for (Tag tag : book.getTags()) {
+                    if (tag != null && tag.getTagId() != null) {
+                        tagIds.add(tag.getTagId());
+                    }
+                }
+            }
+            return new BookAssociations(pressIds, authorIds, tagIds);
+        }
+
+        /**
+         * @return 在本对象中但不在 other 中的关联
+         */
+        BookAssociations minus(BookAssociations other) {
+            return new BookAssociations(difference(pressIds, other.pressIds),
+                    difference(authorIds, other.authorIds), difference(tagIds, other.tagIds));
+        }
+
+        private static Set<Integer> difference(Set<Integer> a, Set<Integer> b) {
+            Set<Integer> result = new HashSet<>(a);
+            result.removeAll(b);
+            return result;
+        }
+    }
+
+    /**
+     * 对图书行加行锁（SELECT ... FOR UPDATE）并读取其当前关联。
+     * 行锁保证并发更新同一本书时，各自计算的关联差异不会重复计数。
+     */
+    @SuppressWarnings("unchecked")
+    private BookAssociations lockAndLoadAssociations(Session session, int bookId) {
+        List<Object> pressRows = session.createNativeQuery(
+                        "SELECT press_id FROM books WHERE book_id = :bookId FOR UPDATE")
+                .setParameter("bookId", bookId)
+                .list();
+        List<Object> authorRows = session.createNativeQuery(
+                        "SELECT author_id FROM book_authors WHERE book_id = :bookId")
+                .setParameter("bookId", bookId)
+                .list();
+        List<Object> tagRows = session.createNativeQuery(
+                        "SELECT tag_id FROM book_tags WHERE book_id = :bookId")
+                .setParameter("bookId", bookId)
+                .list();
+        return new BookAssociations(toIdSet(pressRows), toIdSet(authorRows), toIdSet(tagRows));
+    }
+
+    private static Set<Integer> toIdSet(List<Object> rows) {
+        Set<Integer> ids = new HashSet<>();
+        for (Object row : rows) {
+            if (row != null) {
+                ids.add(((Number) row).intValue());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 在当前事务中调整关联实体的 book_count 计数列（不会减到0以下，偏差由定期校正任务修复）。
+     */
+    private void adjustBookCounts(Session session, BookAssociations associations, int delta) {
+        adjustBookCount(session, "presses", "press_id", associations.pressIds, delta);
+        adjustBookCount(session, "authors", "author_id", associations.authorIds, delta);
+        adjustBookCount(session, "tags", "tag_id", associations.tagIds, delta);
+    }
+
+    private void adjustBookCount(Session session, String table, String idColumn, Set<Integer> ids, int delta) {
+        if (ids.isEmpty() || delta == 0) {
+            return;
+        }
+        session.createNativeQuery("UPDATE " + table + " SET book_count = GREATEST(book_count + :delta, 0)"
+                        + " WHERE " + idColumn + " IN (:ids)")
+                .setParameter("delta", delta)
+                .setParameterList("ids", ids)
+                .executeUpdate();
+    }
 }
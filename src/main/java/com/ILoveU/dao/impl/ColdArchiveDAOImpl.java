@@ -0,0 +1,83 @@
+package com.ILoveU.dao.impl;
+
+import com.ILoveU.dao.ColdArchiveDAO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.model.Loan;
+import com.ILoveU.util.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ColdArchiveDAOImpl implements ColdArchiveDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColdArchiveDAOImpl.class);
+
+    // 每条 DELETE 语句携带的ID数，避免单条语句过长
+    private static final int DELETE_CHUNK = 1000;
+
+    @Override
+    public List<Loan> findLoansToExport(Timestamp returnedBefore, int limit) {
+        String sql = "SELECT loan_id, user_id, book_id, borrowed_book_title, loan_date, due_date, return_date, overdue"
+                + " FROM loans_archive WHERE return_date < :before ORDER BY return_date LIMIT :limit";
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return session.createNativeQuery(sql, Loan.class)
+                    .setParameter("before", returnedBefore)
+                    .setParameter("limit", limit)
+                    .list();
+        } catch (Exception e) {
+            logger.error("读取待导出的归档借阅时发生错误: {}", e.getMessage(), e);
+            throw new OperationFailedException("读取待导出的归档借阅失败。", e);
+        }
+    }
+
+    @Override
+    public void commitSegment(String segmentName, List<Integer> loanIds, int minLoanId, int maxLoanId) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            int deleted = 0;
+            for (int from = 0; from < loanIds.size(); from += DELETE_CHUNK) {
+                List<Integer> chunk = loanIds.subList(from, Math.min(from + DELETE_CHUNK, loanIds.size()));
+                deleted += session.createNativeQuery("DELETE FROM loans_archive WHERE loan_id IN (:ids)")
+                        .setParameterList("ids", chunk)
+                        .executeUpdate();
+            }
+            if (deleted != loanIds.size()) {
+                // 部分记录已被并发的导出或人工操作删除：段文件与数据库不一致，整段放弃，留给下一次运行
+                throw new IllegalStateException("删除了 " + deleted + " 条归档借阅，段文件中有 " + loanIds.size() + " 条");
+            }
+            session.createNativeQuery("INSERT INTO cold_segments (segment_name, row_count, min_loan_id, max_loan_id)"
+                            + " VALUES (:name, :rows, :minId, :maxId)")
+                    .setParameter("name", segmentName)
+                    .setParameter("rows", loanIds.size())
+                    .setParameter("minId", minLoanId)
+                    .setParameter("maxId", maxLoanId)
+                    .executeUpdate();
+            transaction.commit();
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("提交冷归档段 {} 时发生错误: {}", segmentName, e.getMessage(), e);
+            throw new OperationFailedException("提交冷归档段失败。", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<String> findSegmentNames() {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            List<String> names = session.createNativeQuery("SELECT segment_name FROM cold_segments").list();
+            return new HashSet<>(names);
+        } catch (Exception e) {
+            logger.error("查询冷归档段登记时发生错误: {}", e.getMessage(), e);
+            throw new OperationFailedException("查询冷归档段登记失败。", e);
+        }
+    }
+}
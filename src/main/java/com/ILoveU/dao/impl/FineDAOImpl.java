@@ -0,0 +1,119 @@
+package com.ILoveU.dao.impl;
+
+import com.ILoveU.dao.FineDAO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.util.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FineDAOImpl implements FineDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(FineDAOImpl.class);
+
+    // 需要连接URL开启 rewriteBatchedStatements，驱动才会把整批改写为一条多行 INSERT
+    private static final String UPSERT_SQL = "INSERT INTO loan_fines (loan_id, user_id, overdue_days, amount, accruing, computed_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE user_id = VALUES(user_id), overdue_days = VALUES(overdue_days),"
+            + " amount = VALUES(amount), accruing = VALUES(accruing), computed_at = VALUES(computed_at)";
+
+    @Override
+    public int[] findLoanIdRange() {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Object[] row = (Object[]) session.createNativeQuery("SELECT MIN(loan_id), MAX(loan_id) FROM loans")
+                    .uniqueResult();
+            if (row == null || row[0] == null) {
+                return null;
+            }
+            return new int[]{((Number) row[0]).intValue(), ((Number) row[1]).intValue()};
+        } catch (Exception e) {
+            logger.error("查询借阅ID范围时发生错误: {}", e.getMessage(), e);
+            throw new OperationFailedException("查询借阅ID范围失败。", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<long[]> findFineCandidates(int fromLoanId, int toLoanId, Timestamp now, boolean full) {
+        // 按主键区间扫描；归还后已计算过的借阅金额不会再变，增量模式下跳过
+        String sql = "SELECT l.loan_id, l.user_id, l.due_date, l.return_date FROM loans l"
+                + " LEFT JOIN loan_fines f ON f.loan_id = l.loan_id"
+                + " WHERE l.loan_id >= :fromId AND l.loan_id < :toId"
+                + " AND ((l.return_date IS NULL AND l.due_date < :now)"
+                + "   OR (l.return_date > l.due_date AND (:full OR f.loan_id IS NULL OR f.accruing = b'1')))";
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            List<Object[]> rows = session.createNativeQuery(sql)
+                    .setParameter("fromId", fromLoanId)
+                    .setParameter("toId", toLoanId)
+                    .setParameter("now", now)
+                    .setParameter("full", full)
+                    .list();
+            List<long[]> result = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                result.add(new long[]{
+                        ((Number) row[0]).longValue(),
+                        ((Number) row[1]).longValue(),
+                        ((Timestamp) row[2]).getTime(),
+                        row[3] == null ? -1L : ((Timestamp) row[3]).getTime()});
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error("扫描借阅ID区间 [{}, {}) 的逾期记录时发生错误: {}", fromLoanId, toLoanId, e.getMessage(), e);
+            throw new OperationFailedException("扫描逾期借阅失败。", e);
+        }
+    }
+
+    @Override
+    public int upsertFines(List<long[]> fines, Timestamp computedAt) {
+        if (fines.isEmpty()) {
+            return 0;
+        }
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            session.doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(UPSERT_SQL)) {
+                    for (long[] fine : fines) {
+                        ps.setInt(1, (int) fine[0]);
+                        ps.setInt(2, (int) fine[1]);
+                        ps.setInt(3, (int) Math.min(fine[2], Integer.MAX_VALUE));
+                        ps.setBigDecimal(4, BigDecimal.valueOf(fine[3], 2));
+                        ps.setBoolean(5, fine[4] != 0);
+                        ps.setTimestamp(6, computedAt);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            });
+            transaction.commit();
+            return fines.size();
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("批量写入 {} 条罚款记录时发生错误: {}", fines.size(), e.getMessage(), e);
+            throw new OperationFailedException("批量写入罚款记录失败。", e);
+        }
+    }
+
+    @Override
+    public Object[] summarizeFinesByUserId(int userId) {
+        String sql = "SELECT COALESCE(SUM(amount), 0), COUNT(*), COALESCE(SUM(accruing = b'1'), 0), MAX(computed_at)"
+                + " FROM loan_fines WHERE user_id = :userId AND amount > 0";
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            return (Object[]) session.createNativeQuery(sql)
+                    .setParameter("userId", userId)
+                    .uniqueResult();
+        } catch (Exception e) {
+            logger.error("汇总用户ID {} 的罚款时发生错误: {}", userId, e.getMessage(), e);
+            throw new OperationFailedException("查询罚款余额失败。", e);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.ILoveU.dao.impl;
+
+import com.ILoveU.dao.HoldDAO;
+import com.ILoveU.exception.DuplicateResourceException;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
+import com.ILoveU.model.Hold;
+import com.ILoveU.util.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class HoldDAOImpl implements HoldDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(HoldDAOImpl.class);
+
+    private static final List<Hold.Status> OPEN_STATUSES = Arrays.asList(Hold.Status.WAITING, Hold.Status.READY);
+
+    @Override
+    public Hold placeHold(int userId, int bookId) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            // 锁定图书行：与还书（触发器增加库存）串行，避免预约入队时恰好有副本被归还却无人领取
+            Number available = lockAvailableCopies(session, bookId);
+            if (available == null) {
+                transaction.rollback();
+                return null;
+            }
+            Number open = (Number) session.createNativeQuery("SELECT COUNT(*) FROM holds"
+                            + " WHERE book_id = :bookId AND user_id = :userId AND status IN ('WAITING', 'READY')")
+                    .setParameter("bookId", bookId)
+                    .setParameter("userId", userId)
+                    .uniqueResult();
+            if (open.intValue() > 0) {
+                throw new DuplicateResourceException("您已预约过该图书。");
+            }
+            if (available.intValue() > countReadyHolds(session, bookId, null)) {
+                throw new OperationForbiddenException("图书当前有可借副本，请直接借阅。");
+            }
+            Hold hold = new Hold();
+            hold.setBookId(bookId);
+            hold.setUserId(userId);
+            hold.setStatus(Hold.Status.WAITING);
+            session.save(hold);
+            transaction.commit();
+            logger.info("用户ID {} 预约图书ID {}，预约ID: {}", userId, bookId, hold.getHoldId());
+            return hold;
+        } catch (DuplicateResourceException | OperationForbiddenException e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("用户ID {} 预约图书ID {} 时发生错误: {}", userId, bookId, e.getMessage(), e);
+            throw new OperationFailedException("创建预约时发生数据库错误。", e);
+        }
+    }
+
+    @Override
+    public Hold findHoldById(int holdId) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return session.get(Hold.class, holdId);
+        } catch (Exception e) {
+            logger.error("通过ID {} 查询预约时发生错误: {}", holdId, e.getMessage(), e);
+            throw new OperationFailedException("查询预约失败。", e);
+        }
+    }
+
+    @Override
+    public List<Hold> findOpenHoldsByUserId(int userId) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            return session.createQuery("FROM Hold h WHERE h.userId = :userId AND h.status IN (:statuses) ORDER BY h.holdId", Hold.class)
+                    .setParameter("userId", userId)
+                    .setParameterList("statuses", OPEN_STATUSES)
+                    .list();
+        } catch (Exception e) {
+            logger.error("查询用户ID {} 的预约时发生错误: {}", userId, e.getMessage(), e);
+            throw new OperationFailedException("查询预约失败。", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<int[]> findWaitingQueue(int bookId) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            List<Object[]> rows = session.createNativeQuery("SELECT hold_id, user_id FROM holds"
+                            + " WHERE book_id = :bookId AND status = 'WAITING' ORDER BY hold_id")
+                    .setParameter("bookId", bookId)
+                    .list();
+            List<int[]> queue = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                queue.add(new int[]{((Number) row[0]).intValue(), ((Number) row[1]).intValue()});
+            }
+            return queue;
+        } catch (Exception e) {
+            logger.error("查询图书ID {} 的预约队列时发生错误: {}", bookId, e.getMessage(), e);
+            throw new OperationFailedException("查询预约队列失败。", e);
+        }
+    }
+
+    @Override
+    public Hold cancelHold(int holdId, int pickupDays) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Number bookId = (Number) session.createNativeQuery("SELECT book_id FROM holds WHERE hold_id = :holdId")
+                    .setParameter("holdId", holdId)
+                    .uniqueResult();
+            if (bookId == null) {
+                return null;
+            }
+            transaction = session.beginTransaction();
+            lockAvailableCopies(session, bookId.intValue());
+            String status = (String) session.createNativeQuery("SELECT status FROM holds WHERE hold_id = :holdId FOR UPDATE")
+                    .setParameter("holdId", holdId)
+                    .uniqueResult();
+            if (!Hold.Status.WAITING.name().equals(status) && !Hold.Status.READY.name().equals(status)) {
+                transaction.rollback();
+                return null;
+            }
+            session.createNativeQuery("UPDATE holds SET status = 'CANCELLED', closed_at = NOW(6) WHERE hold_id = :holdId")
+                    .setParameter("holdId", holdId)
+                    .executeUpdate();
+            if (Hold.Status.READY.name().equals(status)) {
+                promoteHolds(session, bookId.intValue(), pickupDays);
+            }
+            transaction.commit();
+            logger.info("预约ID {} 已取消（原状态: {}）。", holdId, status);
+            return session.get(Hold.class, holdId);
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("取消预约ID {} 时发生错误: {}", holdId, e.getMessage(), e);
+            throw new OperationFailedException("取消预约时发生数据库错误。", e);
+        }
+    }
+
+    @Override
+    public int promoteHolds(int bookId, int pickupDays) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            int promoted = promoteHolds(session, bookId, pickupDays);
+            transaction.commit();
+            return promoted;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("为图书ID {} 分配预约副本时发生错误: {}", bookId, e.getMessage(), e);
+            throw new OperationFailedException("分配预约副本时发生数据库错误。", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Integer> expireReadyHolds(Timestamp now, int pickupDays, int batchSize) {
+        List<Object[]> candidates;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            candidates = session.createNativeQuery("SELECT hold_id, book_id FROM holds"
+                            + " WHERE status = 'READY' AND expires_at < :now ORDER BY expires_at LIMIT :limit")
+                    .setParameter("now", now)
+                    .setParameter("limit", batchSize)
+                    .list();
+        } catch (Exception e) {
+            logger.error("查询过期预约时发生错误: {}", e.getMessage(), e);
+            throw new OperationFailedException("查询过期预约失败。", e);
+        }
+
+        List<Integer> changedBookIds = new ArrayList<>();
+        for (Object[] candidate : candidates) {
+            int holdId = ((Number) candidate[0]).intValue();
+            int bookId = ((Number) candidate[1]).intValue();
+            Transaction transaction = null;
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                transaction = session.beginTransaction();
+                lockAvailableCopies(session, bookId);
+                // 加锁后重新检查：读者可能刚刚借走或取消
+                int expired = session.createNativeQuery("UPDATE holds SET status = 'EXPIRED', closed_at = NOW(6)"
+                                + " WHERE hold_id = :holdId AND status = 'READY' AND expires_at < :now")
+                        .setParameter("holdId", holdId)
+                        .setParameter("now", now)
+                        .executeUpdate();
+                if (expired > 0) {
+                    insertNotification(session, holdId, "HOLD_EXPIRED");
+                    promoteHolds(session, bookId, pickupDays);
+                    changedBookIds.add(bookId);
+                }
+                transaction.commit();
+            } catch (Exception e) {
+                if (transaction != null && transaction.isActive()) {
+                    transaction.rollback();
+                }
+                // 单个预约失败不影响其他预约，留给下一次运行
+                logger.warn("处理过期预约ID {} 时发生错误: {}", holdId, e.getMessage());
+            }
+        }
+        return changedBookIds;
+    }
+
+    /**
+     * 在调用方的事务中，按未被保留的可借副本数把队首的等待预约置为 READY，并写入 HOLD_READY 通知。
+     * 调用方必须已经（或由本方法）锁定图书行；还书时图书行已被库存触发器锁定。
+     *
+     * @return 置为 READY 的预约数
+     */
+    @SuppressWarnings("unchecked")
+    static int promoteHolds(Session session, int bookId, int pickupDays) {
+        Number available = lockAvailableCopies(session, bookId);
+        if (available == null) {
+            return 0;
+        }
+        int free = available.intValue() - countReadyHolds(session, bookId, null);
+        if (free <= 0) {
+            return 0;
+        }
+        List<Number> next = session.createNativeQuery("SELECT hold_id FROM holds"
+                        + " WHERE book_id = :bookId AND status = 'WAITING' ORDER BY hold_id LIMIT :limit FOR UPDATE")
+                .setParameter("bookId", bookId)
+                .setParameter("limit", free)
+                .list();
+        for (Number holdId : next) {
+            session.createNativeQuery("UPDATE holds SET status = 'READY', ready_at = NOW(6),"
+                            + " expires_at = NOW(6) + INTERVAL :days DAY WHERE hold_id = :holdId")
+                    .setParameter("days", pickupDays)
+                    .setParameter("holdId", holdId.intValue())
+                    .executeUpdate();
+            insertNotification(session, holdId.intValue(), "HOLD_READY");
+            logger.info("图书ID {} 有副本可借，预约ID {} 已转为待取书。", bookId, holdId);
+        }
+        return next.size();
+    }
+
+    /**
+     * 统计一本书正在保留副本的预约数；excludeUserId 不为null时不计该读者的预约。
+     */
+    static int countReadyHolds(Session session, int bookId, Integer excludeUserId) {
+        String sql = "SELECT COUNT(*) FROM holds WHERE book_id = :bookId AND status = 'READY'"
+                + (excludeUserId != null ? " AND user_id <> :userId" : "");
+        NativeQuery<?> query = session.createNativeQuery(sql).setParameter("bookId", bookId);
+        if (excludeUserId != null) {
+            query.setParameter("userId", excludeUserId);
+        }
+        return ((Number) query.uniqueResult()).intValue();
+    }
+
+    /**
+     * 锁定图书行并返回当前可用库存；图书不存在时返回null。
+     */
+    static Number lockAvailableCopies(Session session, int bookId) {
+        return (Number) session.createNativeQuery("SELECT num_copies_available FROM books WHERE book_id = :bookId FOR UPDATE")
+                .setParameter("bookId", bookId)
+                .uniqueResult();
+    }
+
+    private static void insertNotification(Session session, int holdId, String eventType) {
+        session.createNativeQuery("INSERT IGNORE INTO hold_notifications (hold_id, user_id, book_id, event_type)"
+                        + " SELECT hold_id, user_id, book_id, :eventType FROM holds WHERE hold_id = :holdId")
+                .setParameter("eventType", eventType)
+                .setParameter("holdId", holdId)
+                .executeUpdate();
+    }
+}
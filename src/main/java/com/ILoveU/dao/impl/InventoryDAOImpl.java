@@ -0,0 +1,83 @@
+package com.ILoveU.dao.impl;
+
+import com.ILoveU.dao.InventoryDAO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.util.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class InventoryDAOImpl implements InventoryDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryDAOImpl.class);
+
+    @Override
+    public int[] findBookIdRange() {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Object[] row = (Object[]) session.createNativeQuery("SELECT MIN(book_id), MAX(book_id) FROM books")
+                    .uniqueResult();
+            if (row == null || row[0] == null) {
+                return null;
+            }
+            return new int[]{((Number) row[0]).intValue(), ((Number) row[1]).intValue()};
+        } catch (Exception e) {
+            logger.error("查询图书ID范围时发生错误: {}", e.getMessage(), e);
+            throw new OperationFailedException("查询图书ID范围失败。", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<int[]> findInventoryInRange(int fromBookId, int toBookId) {
+        String sql = "SELECT b.book_id, b.num_copies_total, b.num_copies_available, COALESCE(l.active_loans, 0)"
+                + " FROM books b"
+                + " LEFT JOIN (SELECT book_id, COUNT(*) AS active_loans FROM loans"
+                + "            WHERE book_id >= :fromId AND book_id < :toId AND return_date IS NULL"
+                + "            GROUP BY book_id) l ON l.book_id = b.book_id"
+                + " WHERE b.book_id >= :fromId AND b.book_id < :toId";
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            List<Object[]> rows = session.createNativeQuery(sql)
+                    .setParameter("fromId", fromBookId)
+                    .setParameter("toId", toBookId)
+                    .list();
+            List<int[]> result = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                result.add(new int[]{
+                        ((Number) row[0]).intValue(),
+                        ((Number) row[1]).intValue(),
+                        ((Number) row[2]).intValue(),
+                        ((Number) row[3]).intValue()});
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error("扫描图书ID区间 [{}, {}) 的库存时发生错误: {}", fromBookId, toBookId, e.getMessage(), e);
+            throw new OperationFailedException("扫描图书库存失败。", e);
+        }
+    }
+
+    @Override
+    public boolean repairAvailableCopies(int bookId, int seenAvailable, int expectedAvailable) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            int updated = session.createNativeQuery("UPDATE books SET num_copies_available = :expected"
+                            + " WHERE book_id = :bookId AND num_copies_available = :seen")
+                    .setParameter("expected", expectedAvailable)
+                    .setParameter("bookId", bookId)
+                    .setParameter("seen", seenAvailable)
+                    .executeUpdate();
+            transaction.commit();
+            return updated > 0;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("修复图书ID {} 的可用库存时发生错误: {}", bookId, e.getMessage(), e);
+        }
+        return false;
+    }
+}
@@ -1,14 +1,23 @@
 package com.ILoveU.dao.impl;
 
 import com.ILoveU.dao.LoanDAO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
+import com.ILoveU.model.Book;
 import com.ILoveU.model.Loan;
+import com.ILoveU.model.User;
+import com.ILoveU.util.FieldMask;
 import com.ILoveU.util.HibernateUtil;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -16,6 +25,10 @@ public class LoanDAOImpl implements LoanDAO {
 
     private static final Logger logger = LoggerFactory.getLogger(LoanDAOImpl.class);
 
+    // loans 与 loans_archive 共有的列，用于归档和跨两张表的原生查询（结果映射为 Loan 实体）
+    private static final String LOAN_COLUMNS =
+            "loan_id, user_id, book_id, borrowed_book_title, loan_date, due_date, return_date, overdue";
+
     @Override
     public Loan addLoan(Loan loan) {
         Transaction transaction = null;
@@ -39,8 +52,126 @@ public class LoanDAOImpl implements LoanDAO {
     }
 
     @Override
-    public Loan findLoanById(int loanId) {
+    public Loan checkoutLoan(Loan loan, int maxActiveLoans, int maxOverdueLoans) {
+        int userId = loan.getUser().getId();
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            session.createNativeQuery("INSERT IGNORE INTO user_loan_stats (user_id) VALUES (:userId)")
+                    .setParameter("userId", userId)
+                    .executeUpdate();
+            // 条件更新同时完成上限检查和计数，并发借书时由行锁串行化，不会超出上限
+            String sql = "UPDATE user_loan_stats SET active_loans = active_loans + 1 WHERE user_id = :userId"
+                    + (maxActiveLoans > 0 ? " AND active_loans < :maxActive" : "")
+                    + (maxOverdueLoans >= 0 ? " AND overdue_loans <= :maxOverdue" : "");
+            NativeQuery<?> increment = session.createNativeQuery(sql).setParameter("userId", userId);
+            if (maxActiveLoans > 0) {
+                increment.setParameter("maxActive", maxActiveLoans);
+            }
+            if (maxOverdueLoans >= 0) {
+                increment.setParameter("maxOverdue", maxOverdueLoans);
+            }
+            if (increment.executeUpdate() == 0) {
+                transaction.rollback();
+                logger.info("用户ID {} 已达到借阅上限，拒绝借阅。", userId);
+                throw new OperationForbiddenException("已达到借阅上限，请先归还已借阅或逾期的图书。");
+            }
+            Integer bookId = loan.getBook() != null ? loan.getBook().getBookId() : null;
+            if (bookId != null) {
+                // 锁定图书行后检查：为其他读者保留（READY 预约）的副本不能被借走
+                Number available = HoldDAOImpl.lockAvailableCopies(session, bookId);
+                if (available != null && available.intValue() <= 0) {
+                    transaction.rollback();
+                    throw new OperationForbiddenException("图书当前无可用库存，可以预约排队。");
+                }
+                if (available != null && available.intValue() <= HoldDAOImpl.countReadyHolds(session, bookId, userId)) {
+                    transaction.rollback();
+                    logger.info("图书ID {} 的可用副本已为预约读者保留，拒绝用户ID {} 借阅。", bookId, userId);
+                    throw new OperationForbiddenException("图书当前的可用副本已为预约读者保留，可以预约排队。");
+                }
+            }
+            session.save(loan);
+            if (bookId != null) {
+                // 读者借走了自己预约的书
+                session.createNativeQuery("UPDATE holds SET status = 'FULFILLED', closed_at = NOW(6)"
+                                + " WHERE book_id = :bookId AND user_id = :userId AND status IN ('WAITING', 'READY')")
+                        .setParameter("bookId", bookId)
+                        .setParameter("userId", userId)
+                        .executeUpdate();
+            }
+            transaction.commit();
+            logger.info("新的借阅记录 (ID: {}) 已成功添加，用户ID: {}, 图书ID: {}",
+                    loan.getLoanId(), userId, loan.getBook() != null ? loan.getBook().getBookId() : "N/A");
+            return loan;
+        } catch (OperationForbiddenException e) {
+            throw e;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("添加借阅记录时发生错误: {}", e.getMessage(), e);
+            throw new OperationFailedException("创建借阅记录时发生数据库错误。", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Loan returnLoan(Loan loan, int holdPickupDays) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            // 先锁定借阅行：与标记逾期互斥，保证读到的逾期状态和扣减的计数一致，也防止重复归还
+            List<Object[]> rows = session.createNativeQuery("SELECT overdue, return_date FROM loans WHERE loan_id = :loanId FOR UPDATE")
+                    .setParameter("loanId", loan.getLoanId())
+                    .list();
+            if (rows.isEmpty() || rows.get(0)[1] != null) {
+                transaction.rollback();
+                logger.warn("归还借阅记录 ID: {} 失败：记录不存在或已归还。", loan.getLoanId());
+                return null;
+            }
+            boolean overdue = Boolean.TRUE.equals(rows.get(0)[0]);
+            // 加锁顺序与借书一致：user_loan_stats -> books -> holds
+            session.createNativeQuery("UPDATE user_loan_stats SET active_loans = GREATEST(active_loans - 1, 0),"
+                            + " overdue_loans = GREATEST(overdue_loans - :overdue, 0) WHERE user_id = :userId")
+                    .setParameter("overdue", overdue ? 1 : 0)
+                    .setParameter("userId", loan.getUser().getId())
+                    .executeUpdate();
+            Loan updatedLoan = (Loan) session.merge(loan);
+            if (updatedLoan.getBook() != null) {
+                // 先执行UPDATE让触发器增加库存，再把空出的副本分配给预约队列的队首
+                session.flush();
+                HoldDAOImpl.promoteHolds(session, updatedLoan.getBook().getBookId(), holdPickupDays);
+            }
+            transaction.commit();
+            updatedLoan.setOverdue(overdue);
+            logger.info("借阅记录 ID: {} 已成功归还。", updatedLoan.getLoanId());
+            return updatedLoan;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("归还借阅记录 ID: {} 时发生错误: {}", loan.getLoanId(), e.getMessage(), e);
+            throw new OperationFailedException("更新借阅记录时发生数据库错误。", e);
+        }
+    }
+
+    @Override
+    public int[] findUserLoanStats(int userId) {
         try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            // 读主库：刚刚提交的借还必须可见，主键查询代价很小
+            Object[] row = (Object[]) session.createNativeQuery("SELECT active_loans, overdue_loans FROM user_loan_stats WHERE user_id = :userId")
+                    .setParameter("userId", userId)
+                    .uniqueResult();
+            return row == null ? null : new int[]{((Number) row[0]).intValue(), ((Number) row[1]).intValue()};
+        } catch (Exception e) {
+            logger.error("查询用户ID {} 的借阅计数时发生错误: {}", userId, e.getMessage(), e);
+            throw new OperationFailedException("查询借阅计数失败。", e);
+        }
+    }
+
+    @Override
+    public Loan findLoanById(int loanId) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             return session.get(Loan.class, loanId);
         } catch (Exception e) {
             logger.error("通过ID {} 查询借阅记录时发生错误: {}", loanId, e.getMessage(), e);
@@ -68,9 +199,21 @@ public class LoanDAOImpl implements LoanDAO {
         return null;
     }
 
+    @Override
+    public Loan findArchivedLoanById(int loanId) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            return session.createNativeQuery("SELECT " + LOAN_COLUMNS + " FROM loans_archive WHERE loan_id = :loanId", Loan.class)
+                    .setParameter("loanId", loanId)
+                    .uniqueResult();
+        } catch (Exception e) {
+            logger.error("通过ID {} 查询归档借阅记录时发生错误: {}", loanId, e.getMessage(), e);
+        }
+        return null;
+    }
+
     @Override
     public long countActiveLoansByBookId(int bookId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             // HQL查询: 统计指定bookId且returnDate为NULL的借阅记录数量
             // "l.book.bookId" 是因为Loan实体中关联的是Book对象，其ID属性是bookId
             String hql = "SELECT COUNT(l.id) FROM Loan l WHERE l.book.bookId = :bookIdParam AND l.returnDate IS NULL";
@@ -87,7 +230,7 @@ public class LoanDAOImpl implements LoanDAO {
 
     @Override
     public List<Loan> findLoansByUserId(int userId, int page, int pageSize) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             // HQL查询: 按userId分页查询，并按借阅日期降序排列
             String hql = "FROM Loan l WHERE l.user.id = :userIdParam ORDER BY l.loanDate DESC";
             Query<Loan> query = session.createQuery(hql, Loan.class);
@@ -103,9 +246,70 @@ public class LoanDAOImpl implements LoanDAO {
         return Collections.emptyList();
     }
 
+    @Override
+    public List<Loan> findLoansByUserId(int userId, int page, int pageSize, FieldMask fieldMask) {
+        if (fieldMask == null || fieldMask.isAll()) {
+            return findLoansByUserId(userId, page, pageSize);
+        }
+
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            // isOverdue 需要由 dueDate 和 returnDate 计算得出
+            boolean withUser = fieldMask.includes("userId");
+            boolean withBook = fieldMask.includes("bookId");
+            boolean withLoanDate = fieldMask.includes("checkoutDate");
+            boolean withDueDate = fieldMask.includesAny("dueDate", "isOverdue");
+            boolean withReturnDate = fieldMask.includesAny("returnDate", "isOverdue");
+
+            List<String> columns = new ArrayList<>(Arrays.asList("l.loanId"));
+            if (withUser) columns.add("l.user.id");
+            if (withBook) columns.add("l.book.id");
+            if (withLoanDate) columns.add("l.loanDate");
+            if (withDueDate) columns.add("l.dueDate");
+            if (withReturnDate) columns.add("l.returnDate");
+
+            // l.user.id / l.book.id 直接读取外键列，不会连接 users / books 表
+            String hql = "SELECT " + String.join(", ", columns)
+                    + " FROM Loan l WHERE l.user.id = :userIdParam ORDER BY l.loanDate DESC";
+            Query<Object[]> query = session.createQuery(hql, Object[].class);
+            query.setParameter("userIdParam", userId);
+            query.setFirstResult((page - 1) * pageSize);
+            query.setMaxResults(pageSize);
+
+            List<Loan> loans = new ArrayList<>();
+            for (Object[] row : query.list()) {
+                int i = 0;
+                Loan loan = new Loan();
+                loan.setLoanId((Integer) row[i++]);
+                if (withUser) {
+                    User user = new User();
+                    user.setId((Integer) row[i++]);
+                    loan.setUser(user);
+                }
+                if (withBook) {
+                    Integer bookId = (Integer) row[i++];
+                    if (bookId != null) {
+                        Book book = new Book();
+                        book.setBookId(bookId);
+                        loan.setBook(book);
+                    }
+                }
+                if (withLoanDate) loan.setLoanDate((Timestamp) row[i++]);
+                if (withDueDate) loan.setDueDate((Timestamp) row[i++]);
+                if (withReturnDate) loan.setReturnDate((Timestamp) row[i]);
+                loans.add(loan);
+            }
+            logger.debug("按字段掩码 [{}] 为用户ID {} 查询到 {} 条借阅记录 (页码: {}, 每页大小: {})",
+                    fieldMask, userId, loans.size(), page, pageSize);
+            return loans;
+        } catch (Exception e) {
+            logger.error("按字段掩码 [{}] 为用户ID {} 分页查询借阅记录时发生错误: {}", fieldMask, userId, e.getMessage(), e);
+        }
+        return Collections.emptyList();
+    }
+
     @Override
     public long countLoansByUserId(int userId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "SELECT COUNT(l.id) FROM Loan l WHERE l.user.id = :userIdParam";
             Query<Long> query = session.createQuery(hql, Long.class);
             query.setParameter("userIdParam", userId);
@@ -120,7 +324,7 @@ public class LoanDAOImpl implements LoanDAO {
 
     @Override
     public List<Loan> findAllLoans(int page, int pageSize) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "FROM Loan l ORDER BY l.loanDate DESC"; // 按借阅日期降序排列
             Query<Loan> query = session.createQuery(hql, Loan.class);
             query.setFirstResult((page - 1) * pageSize);
@@ -136,7 +340,7 @@ public class LoanDAOImpl implements LoanDAO {
 
     @Override
     public long countAllLoans() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "SELECT COUNT(l.id) FROM Loan l";
             Query<Long> query = session.createQuery(hql, Long.class);
             return query.uniqueResultOptional().orElse(0L);
@@ -145,4 +349,228 @@ public class LoanDAOImpl implements LoanDAO {
         }
         return 0L;
     }
+
+    @Override
+    public List<Object[]> findActiveLoanDueDates() {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            // 读主库：时间轮需要包含刚刚借出的记录
+            String hql = "SELECT l.loanId, l.user.id, l.dueDate, l.overdue FROM Loan l WHERE l.returnDate IS NULL";
+            return session.createQuery(hql, Object[].class).list();
+        } catch (Exception e) {
+            logger.error("查询未归还借阅的到期信息时发生错误: {}", e.getMessage(), e);
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean markOverdue(int loanId) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            int updated = session.createNativeQuery("UPDATE loans SET overdue = b'1'"
+                            + " WHERE loan_id = :loanId AND return_date IS NULL AND overdue = b'0'")
+                    .setParameter("loanId", loanId)
+                    .executeUpdate();
+            if (updated > 0) {
+                // 与逾期标记在同一事务中写入发件箱并增加用户的逾期计数，保证三者要么都成功要么都不发生
+                insertNotification(session, loanId, "OVERDUE");
+                session.createNativeQuery("UPDATE user_loan_stats s JOIN loans l ON l.user_id = s.user_id"
+                                + " SET s.overdue_loans = s.overdue_loans + 1 WHERE l.loan_id = :loanId")
+                        .setParameter("loanId", loanId)
+                        .executeUpdate();
+            }
+            transaction.commit();
+            return updated > 0;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("标记借阅ID {} 为逾期时发生错误: {}", loanId, e.getMessage(), e);
+            throw new OperationFailedException("标记借阅逾期失败。", e);
+        }
+    }
+
+    @Override
+    public boolean addDueSoonNotification(int loanId) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            int inserted = session.createNativeQuery("INSERT IGNORE INTO loan_notifications (loan_id, user_id, event_type, due_date)"
+                            + " SELECT loan_id, user_id, 'DUE_SOON', due_date FROM loans"
+                            + " WHERE loan_id = :loanId AND return_date IS NULL AND overdue = b'0'")
+                    .setParameter("loanId", loanId)
+                    .executeUpdate();
+            transaction.commit();
+            return inserted > 0;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("写入借阅ID {} 的即将到期通知时发生错误: {}", loanId, e.getMessage(), e);
+            throw new OperationFailedException("写入即将到期通知失败。", e);
+        }
+    }
+
+    /**
+     * 写入通知发件箱；(loan_id, event_type) 唯一，重复写入会被忽略，保证多实例或重试时不会重复通知。
+     */
+    private void insertNotification(Session session, int loanId, String eventType) {
+        session.createNativeQuery("INSERT IGNORE INTO loan_notifications (loan_id, user_id, event_type, due_date)"
+                        + " SELECT loan_id, user_id, :eventType, due_date FROM loans WHERE loan_id = :loanId")
+                .setParameter("eventType", eventType)
+                .setParameter("loanId", loanId)
+                .executeUpdate();
+    }
+
+    @Override
+    public List<Loan> findOverdueLoans(int page, int pageSize) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            String hql = "FROM Loan l WHERE l.overdue = true AND l.returnDate IS NULL ORDER BY l.dueDate ASC";
+            Query<Loan> query = session.createQuery(hql, Loan.class);
+            query.setFirstResult((page - 1) * pageSize);
+            query.setMaxResults(pageSize);
+            List<Loan> loans = query.list();
+            logger.debug("查询到 {} 条逾期借阅记录 (页码: {}, 每页大小: {})", loans.size(), page, pageSize);
+            return loans;
+        } catch (Exception e) {
+            logger.error("分页查询逾期借阅记录时发生错误: {}", e.getMessage(), e);
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public long countOverdueLoans() {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            String hql = "SELECT COUNT(l.loanId) FROM Loan l WHERE l.overdue = true AND l.returnDate IS NULL";
+            Query<Long> query = session.createQuery(hql, Long.class);
+            return query.uniqueResultOptional().orElse(0L);
+        } catch (Exception e) {
+            logger.error("统计逾期借阅记录总数时发生错误: {}", e.getMessage(), e);
+        }
+        return 0L;
+    }
+
+    @Override
+    public List<Loan> findLoansByUserId(int userId, int page, int pageSize, boolean includeArchived) {
+        if (!includeArchived) {
+            return findLoansByUserId(userId, page, pageSize);
+        }
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            List<Loan> loans = unionPage(session, "WHERE user_id = :userId", userId, page, pageSize);
+            logger.debug("为用户ID {} 查询到 {} 条借阅记录（含归档） (页码: {}, 每页大小: {})", userId, loans.size(), page, pageSize);
+            return loans;
+        } catch (Exception e) {
+            logger.error("为用户ID {} 分页查询借阅记录（含归档）时发生错误: {}", userId, e.getMessage(), e);
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public long countLoansByUserId(int userId, boolean includeArchived) {
+        if (!includeArchived) {
+            return countLoansByUserId(userId);
+        }
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            return unionCount(session, "WHERE user_id = :userId", userId);
+        } catch (Exception e) {
+            logger.error("统计用户ID {} 的借阅记录总数（含归档）时发生错误: {}", userId, e.getMessage(), e);
+        }
+        return 0L;
+    }
+
+    @Override
+    public List<Loan> findAllLoans(int page, int pageSize, boolean includeArchived) {
+        if (!includeArchived) {
+            return findAllLoans(page, pageSize);
+        }
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            List<Loan> loans = unionPage(session, "", null, page, pageSize);
+            logger.debug("查询到 {} 条所有借阅记录（含归档） (页码: {}, 每页大小: {})", loans.size(), page, pageSize);
+            return loans;
+        } catch (Exception e) {
+            logger.error("获取所有借阅记录（含归档）时发生错误: {}", e.getMessage(), e);
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public long countAllLoans(boolean includeArchived) {
+        if (!includeArchived) {
+            return countAllLoans();
+        }
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            return unionCount(session, "", null);
+        } catch (Exception e) {
+            logger.error("统计借阅记录总数（含归档）时发生错误: {}", e.getMessage(), e);
+        }
+        return 0L;
+    }
+
+    /**
+     * 对 loans 和 loans_archive 分别取按借阅日期降序的前 (offset + pageSize) 条，合并后再取当前页。
+     * 两张表的借阅ID互不重复，结果可直接映射为 Loan 实体。
+     */
+    @SuppressWarnings("unchecked")
+    private List<Loan> unionPage(Session session, String where, Integer userId, int page, int pageSize) {
+        int offset = (page - 1) * pageSize;
+        int limit = offset + pageSize;
+        String sql = "SELECT " + LOAN_COLUMNS + " FROM ("
+                + "(SELECT " + LOAN_COLUMNS + " FROM loans " + where + " ORDER BY loan_date DESC LIMIT :limit)"
+                + " UNION ALL "
+                + "(SELECT " + LOAN_COLUMNS + " FROM loans_archive " + where + " ORDER BY loan_date DESC LIMIT :limit)"
+                + ") l ORDER BY loan_date DESC, loan_id DESC";
+        NativeQuery<Loan> query = session.createNativeQuery(sql, Loan.class);
+        query.setParameter("limit", limit);
+        if (userId != null) {
+            query.setParameter("userId", userId);
+        }
+        query.setFirstResult(offset);
+        query.setMaxResults(pageSize);
+        return query.list();
+    }
+
+    private long unionCount(Session session, String where, Integer userId) {
+        String sql = "SELECT (SELECT COUNT(*) FROM loans " + where + ") + (SELECT COUNT(*) FROM loans_archive " + where + ")";
+        NativeQuery<?> query = session.createNativeQuery(sql);
+        if (userId != null) {
+            query.setParameter("userId", userId);
+        }
+        Object result = query.uniqueResult();
+        return result == null ? 0L : ((Number) result).longValue();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int archiveReturnedLoans(Timestamp returnedBefore, int batchSize) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            // 按 return_date 索引挑选并锁定一批；正在被其他事务使用的行跳过，不等待
+            List<Number> ids = session.createNativeQuery("SELECT loan_id FROM loans"
+                            + " WHERE return_date IS NOT NULL AND return_date < :before"
+                            + " ORDER BY return_date LIMIT :batchSize FOR UPDATE SKIP LOCKED")
+                    .setParameter("before", returnedBefore)
+                    .setParameter("batchSize", batchSize)
+                    .list();
+            if (ids.isEmpty()) {
+                transaction.commit();
+                return 0;
+            }
+            session.createNativeQuery("INSERT INTO loans_archive (" + LOAN_COLUMNS + ")"
+                            + " SELECT " + LOAN_COLUMNS + " FROM loans WHERE loan_id IN (:ids)")
+                    .setParameterList("ids", ids)
+                    .executeUpdate();
+            int moved = session.createNativeQuery("DELETE FROM loans WHERE loan_id IN (:ids)")
+                    .setParameterList("ids", ids)
+                    .executeUpdate();
+            transaction.commit();
+            return moved;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("归档 {} 之前归还的借阅记录时发生错误: {}", returnedBefore, e.getMessage(), e);
+            throw new OperationFailedException("归档借阅记录失败。", e);
+        }
+    }
 }
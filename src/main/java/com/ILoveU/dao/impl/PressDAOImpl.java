@@ -1,8 +1,11 @@
 package com.ILoveU.dao.impl;
 
 import com.ILoveU.dao.PressDAO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
 import com.ILoveU.model.Press;
 import com.ILoveU.util.HibernateUtil;
+import com.ILoveU.util.TextNormalizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.hibernate.Session;
@@ -17,7 +20,7 @@ public class PressDAOImpl implements PressDAO {
 
     @Override
     public List<Press> findPresses(int page, int pageSize) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
 
             // 可以根据需要添加 ORDER BY 子句，例如按出版社名称排序: "FROM Press p ORDER BY p.name ASC"
             String hql = "FROM Press p order by p.name ASC";
@@ -36,7 +39,7 @@ public class PressDAOImpl implements PressDAO {
 
     @Override
     public Press findPressById(int pressId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             return session.get(Press.class, pressId);
         } catch (Exception e) {
             logger.error("通过ID {} 查询出版社时发生错误: {}", pressId, e.getMessage(), e);
@@ -89,30 +92,48 @@ public class PressDAOImpl implements PressDAO {
         Transaction transaction = null;
         try (Session session = HibernateUtil.getSessionFactory().openSession()) {
             transaction = session.beginTransaction();
-            Press press = session.get(Press.class, pressId);
-            if (press != null) {
-                session.delete(press);
-                transaction.commit();
-                logger.info("出版社 ID: {}, 名称: {} 已成功从数据库删除", pressId, press.getName());
-                return true;
-            } else {
+            // 在删除事务中锁定该行并从主库读取图书计数：新增/修改图书时会在同一行上调整计数，
+            // 加锁后二者串行，既不会读到副本上过期的计数，也不会在检查后被并发关联上新图书
+            Number bookCount = (Number) session.createNativeQuery(
+                            "SELECT book_count FROM presses WHERE press_id = :pressId FOR UPDATE")
+                    .setParameter("pressId", pressId)
+                    .uniqueResult();
+            if (bookCount == null) {
                 logger.warn("尝试删除出版社失败：未找到ID为 {} 的出版社", pressId);
-                if (transaction.isActive()) transaction.commit(); // 如果没找到，也需要提交（或回滚）事务，虽然没做任何修改
+                transaction.rollback();
                 return false;
             }
-        } catch (Exception e) { // 可以尝试去捕获更具体的异常，例如 ConstraintViolationException
+            if (bookCount.longValue() > 0) {
+                throw new OperationForbiddenException("无法删除出版社ID " + pressId + "，因为它尚有关联的书籍 " + bookCount + " 本。请先处理这些书籍。");
+            }
+            Press press = session.get(Press.class, pressId);
+            session.delete(press);
+            // 计数偏小时（由定期校正任务修复）由外键约束拦下，在这里flush以便把约束冲突转换为业务异常
+            session.flush();
+            transaction.commit();
+            logger.info("出版社 ID: {} 已成功从数据库删除", pressId);
+            return true;
+        } catch (OperationForbiddenException e) {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            throw e;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            if (HibernateUtil.isConstraintViolation(e)) {
+                logger.warn("删除出版社 ID: {} 时违反外键约束，该出版社仍被图书引用。", pressId);
+                throw new OperationForbiddenException("无法删除出版社ID " + pressId + "，因为它尚有关联的书籍。请先处理这些书籍。", e);
+            }
             logger.error("删除出版社 ID: {} 时发生错误: {}", pressId, e.getMessage(), e);
+            throw new OperationFailedException("删除出版社时发生数据库错误。", e);
         }
-
-        return false;
     }
 
     @Override
     public long countTotalPresses() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "SELECT COUNT(p) FROM Press p";
             Query<Long> query = session.createQuery(hql, Long.class);
             return query.uniqueResultOptional().orElse(0L);
@@ -124,10 +145,11 @@ public class PressDAOImpl implements PressDAO {
 
     @Override
     public boolean existsByNameIgnoreCase(String name) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "SELECT COUNT(p) FROM Press p WHERE lower(p.name) = lower(:nameParam)";
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            // 按规范化影子列比较，命中 idx_presses_name_normalized 索引
+            String hql = "SELECT COUNT(p) FROM Press p WHERE p.nameNormalized = :nameParam";
             Query<Long> query = session.createQuery(hql, Long.class);
-            query.setParameter("nameParam", name);
+            query.setParameter("nameParam", TextNormalizer.normalize(name));
 
             Long count = query.uniqueResult();
             return count != null && count > 0;
@@ -0,0 +1,101 @@
+package com.ILoveU.dao.impl;
+
+import com.ILoveU.dao.RevokedTokenDAO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.util.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RevokedTokenDAOImpl implements RevokedTokenDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevokedTokenDAOImpl.class);
+
+    @Override
+    public void revoke(String tokenId, int userId, Timestamp expiresAt) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            session.createNativeQuery("INSERT IGNORE INTO revoked_tokens (token_id, user_id, expires_at)"
+                            + " VALUES (:tokenId, :userId, :expiresAt)")
+                    .setParameter("tokenId", tokenId)
+                    .setParameter("userId", userId)
+                    .setParameter("expiresAt", expiresAt)
+                    .executeUpdate();
+            transaction.commit();
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("记录已注销令牌 {} 时发生错误: {}", tokenId, e.getMessage(), e);
+            throw new OperationFailedException("记录令牌注销失败。", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Long> findUnexpired(Timestamp now) {
+        // 注销后立即生效依赖于同步到的是最新数据，因此读主库
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            List<Object[]> rows = session.createNativeQuery(
+                            "SELECT token_id, expires_at FROM revoked_tokens WHERE expires_at > :now")
+                    .setParameter("now", now)
+                    .list();
+            Map<String, Long> result = new HashMap<>(rows.size() * 2);
+            for (Object[] row : rows) {
+                result.put((String) row[0], ((Timestamp) row[1]).getTime() / 1000);
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error("读取已注销令牌时发生错误: {}", e.getMessage(), e);
+            throw new OperationFailedException("读取已注销令牌失败。", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Integer, Long> findUnexpiredUsers(Timestamp now) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            List<Object[]> rows = session.createNativeQuery(
+                            "SELECT user_id, not_before FROM revoked_user_tokens WHERE expires_at > :now")
+                    .setParameter("now", now)
+                    .list();
+            Map<Integer, Long> result = new HashMap<>(rows.size() * 2);
+            for (Object[] row : rows) {
+                result.put(((Number) row[0]).intValue(), ((Timestamp) row[1]).getTime());
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error("读取按用户撤销的令牌记录时发生错误: {}", e.getMessage(), e);
+            throw new OperationFailedException("读取已注销令牌失败。", e);
+        }
+    }
+
+    @Override
+    public int deleteExpired(Timestamp now) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            int deleted = session.createNativeQuery("DELETE FROM revoked_tokens WHERE expires_at <= :now")
+                    .setParameter("now", now)
+                    .executeUpdate();
+            deleted += session.createNativeQuery("DELETE FROM revoked_user_tokens WHERE expires_at <= :now")
+                    .setParameter("now", now)
+                    .executeUpdate();
+            transaction.commit();
+            return deleted;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("清理过期的令牌撤销记录时发生错误: {}", e.getMessage(), e);
+            throw new OperationFailedException("清理令牌撤销记录失败。", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ILoveU.dao.impl;
+
+import com.ILoveU.dao.SuggestDAO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.util.HibernateUtil;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SuggestDAOImpl implements SuggestDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestDAOImpl.class);
+
+    @Override
+    public List<Object[]> findBookTitlesWithLoanCounts() {
+        return list("SELECT b.bookId, b.title, (SELECT COUNT(l.loanId) FROM Loan l WHERE l.book = b) FROM Book b",
+                "图书");
+    }
+
+    @Override
+    public List<Object[]> findAuthorNamesWithBookCounts() {
+        List<Object[]> rows = list("SELECT a.authorId, a.firstName, a.lastName, a.bookCount FROM Author a", "作者");
+        // 将 firstName 和 lastName 合并为一个显示名称
+        List<Object[]> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            String firstName = row[1] == null ? "" : (String) row[1];
+            String lastName = row[2] == null ? "" : (String) row[2];
+            result.add(new Object[]{row[0], (firstName + " " + lastName).trim(), row[3]});
+        }
+        return result;
+    }
+
+    @Override
+    public List<Object[]> findTagNamesWithBookCounts() {
+        return list("SELECT t.tagId, t.name, t.bookCount FROM Tag t", "标签");
+    }
+
+    @Override
+    public List<Object[]> findPressNamesWithBookCounts() {
+        return list("SELECT p.pressId, p.name, p.bookCount FROM Press p", "出版社");
+    }
+
+    private List<Object[]> list(String hql, String what) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            return session.createQuery(hql, Object[].class).list();
+        } catch (Exception e) {
+            logger.error("加载{}联想数据时发生错误: {}", what, e.getMessage(), e);
+            throw new OperationFailedException("加载" + what + "联想数据失败。", e);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.ILoveU.dao.impl;
 
 import com.ILoveU.dao.TagDAO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
 
 import com.ILoveU.model.Tag;
 import com.ILoveU.util.HibernateUtil;
+import com.ILoveU.util.TextNormalizer;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
@@ -43,7 +46,7 @@ public class TagDAOImpl implements TagDAO {
 
     @Override
     public Tag findTagById(int tagId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             Tag tag = session.get(Tag.class, tagId);
             if (tag != null) {
                 logger.debug("通过ID {} 找到标签: {}", tagId, tag.getName());
@@ -62,7 +65,7 @@ public class TagDAOImpl implements TagDAO {
         if (tagIds == null || tagIds.isEmpty()) {
             return Collections.emptyList();
         }
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             // 使用 "IN (:ids)" 子句来查询多个ID
             String hql = "FROM Tag t WHERE t.tagId IN (:ids)";
             Query<Tag> query = session.createQuery(hql, Tag.class);
@@ -102,32 +105,49 @@ public class TagDAOImpl implements TagDAO {
         Transaction transaction = null;
         try (Session session = HibernateUtil.getSessionFactory().openSession()) {
             transaction = session.beginTransaction();
-            Tag tag = session.get(Tag.class, tagId);
-            if (tag != null) {
-                session.delete(tag);
-                transaction.commit();
-                logger.info("标签 ID: {} 已成功从数据库删除。", tagId);
-                return true;
-            } else {
-                logger.warn("尝试删除标签失败：未找到ID为 {} 的标签。", tagId);
-                if (transaction != null && transaction.isActive()) {
-                    transaction.commit(); // 事务中无修改，提交是安全的
-                }
+            // 在删除事务中锁定该行并从主库读取图书计数：新增/修改图书时会在同一行上调整计数，
+            // 加锁后二者串行，既不会读到副本上过期的计数，也不会在检查后被并发关联上新图书
+            Number bookCount = (Number) session.createNativeQuery(
+                            "SELECT book_count FROM tags WHERE tag_id = :tagId FOR UPDATE")
+                    .setParameter("tagId", tagId)
+                    .uniqueResult();
+            if (bookCount == null) {
+                logger.warn("尝试删除标签失败：未找到ID为 {} 的标签", tagId);
+                transaction.rollback();
                 return false;
             }
-        } catch (Exception e) { // 例如，如果因为外键约束（如果Tag被Book引用且没有配置级联删除或SET NULL）
+            if (bookCount.longValue() > 0) {
+                throw new OperationForbiddenException("无法删除该标签，它尚被 " + bookCount + " 本书籍使用。");
+            }
+            Tag tag = session.get(Tag.class, tagId);
+            session.delete(tag);
+            // 计数偏小时（由定期校正任务修复）由外键约束拦下，在这里flush以便把约束冲突转换为业务异常
+            session.flush();
+            transaction.commit();
+            logger.info("标签 ID: {} 已成功从数据库删除", tagId);
+            return true;
+        } catch (OperationForbiddenException e) {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            throw e;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            if (HibernateUtil.isConstraintViolation(e)) {
+                logger.warn("删除标签 ID: {} 时违反外键约束，该标签仍被图书引用。", tagId);
+                throw new OperationForbiddenException("无法删除该标签，它尚被书籍使用。", e);
+            }
             logger.error("删除标签 ID: {} 时发生错误: {}", tagId, e.getMessage(), e);
+            throw new OperationFailedException("删除标签时发生数据库错误。", e);
         }
-        return false;
     }
 
     @Override
     public List<Tag> findTags(int page, int pageSize) {
         // 假设参数 page 和 pageSize 的基本校验（例如 > 0）已在Service层完成。
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "FROM Tag t ORDER BY t.name ASC"; // 按名称排序
             Query<Tag> query = session.createQuery(hql, Tag.class);
             query.setFirstResult((page - 1) * pageSize);
@@ -141,7 +161,7 @@ public class TagDAOImpl implements TagDAO {
 
     @Override
     public List<Tag> findAllTags() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "FROM Tag t ORDER BY t.name ASC";
             Query<Tag> query = session.createQuery(hql, Tag.class);
             return query.list();
@@ -154,7 +174,7 @@ public class TagDAOImpl implements TagDAO {
 
     @Override
     public long countTotalTags() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "SELECT COUNT(t.id) FROM Tag t";
             Query<Long> query = session.createQuery(hql, Long.class);
             return query.uniqueResultOptional().orElse(0L);
@@ -169,10 +189,11 @@ public class TagDAOImpl implements TagDAO {
         if (name == null || name.trim().isEmpty()) {
             return false;
         }
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "SELECT COUNT(t.id) FROM Tag t WHERE lower(t.name) = lower(:nameParam)";
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            // 按规范化影子列比较，命中 uk_tags_name_normalized 唯一索引
+            String hql = "SELECT COUNT(t.id) FROM Tag t WHERE t.nameNormalized = :nameParam";
             Query<Long> query = session.createQuery(hql, Long.class);
-            query.setParameter("nameParam", name.trim());
+            query.setParameter("nameParam", TextNormalizer.normalize(name));
             return query.uniqueResultOptional().orElse(0L) > 0;
         } catch (Exception e) {
             logger.error("检查标签名称 '{}' 是否存在时发生错误: {}", name, e.getMessage(), e);
@@ -185,10 +206,10 @@ public class TagDAOImpl implements TagDAO {
         if (name == null || name.trim().isEmpty()) {
             return null;
         }
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "FROM Tag t WHERE lower(t.name) = lower(:nameParam)";
+        try (Session session = HibernateUtil.openReadOnlySession()) {
+            String hql = "FROM Tag t WHERE t.nameNormalized = :nameParam";
             Query<Tag> query = session.createQuery(hql, Tag.class);
-            query.setParameter("nameParam", name.trim());
+            query.setParameter("nameParam", TextNormalizer.normalize(name));
             // 标签名应该是唯一的，所以uniqueResultOptional是合适的
             return query.uniqueResultOptional().orElse(null);
         } catch (Exception e) {
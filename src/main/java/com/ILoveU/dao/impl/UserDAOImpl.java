@@ -1,14 +1,18 @@
 package com.ILoveU.dao.impl;
 
 import com.ILoveU.dao.UserDAO;
+import com.ILoveU.exception.OperationFailedException;
 import com.ILoveU.model.User;
 import com.ILoveU.util.HibernateUtil;
+import com.ILoveU.util.TextNormalizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
+import java.sql.Timestamp;
+
 public class UserDAOImpl implements UserDAO {
     private static final Logger logger = LoggerFactory.getLogger(UserDAOImpl.class);
     
@@ -38,7 +42,7 @@ public class UserDAOImpl implements UserDAO {
 
     @Override
     public User findUserById(int id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadOnlySession()) {
             String hql = "FROM User u WHERE u.id = :idParam";
 
             Query<User> query = session.createQuery(hql, User.class);
@@ -58,16 +62,17 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public User findUserByAccount(String account) {
         // 使用 try-with-resources 语句确保Session被正确关闭
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        // 登录时使用：密码哈希升级按查到的旧哈希做比较更新，必须读主库
+        try (Session session = HibernateUtil.openPrimaryReadOnlySession()) {
             // 使用HQL (Hibernate Query Language) 进行查询
             // "FROM User" 中的 "User" 是实体类的名称，而不是数据库表的名称
-            // "U.account" 中的 "account" 是User实体类中的属性名
-            String hql = "FROM User U WHERE U.account = :accountParam";
+            // "U.accountNormalized" 是规范化后的账户名（见 TextNormalizer），有唯一索引，查询为索引点查
+            String hql = "FROM User U WHERE U.accountNormalized = :accountParam";
 
             // 创建查询对象，并指定返回类型为User.class
             Query<User> query = session.createQuery(hql, User.class);
             // 设置查询参数 :accountParam 的值
-            query.setParameter("accountParam", account);
+            query.setParameter("accountParam", TextNormalizer.normalize(account));
 
             // uniqueResultOptional() 返回一个 Optional<User>
             // 如果没有找到结果，Optional为空；如果找到一个，Optional包含该结果
@@ -86,15 +91,16 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public boolean isAccountExists(String account) {
         // 使用 try-with-resources 语句确保Session被正确关闭
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        // 注册时使用：刚注册的账户可能还没同步到副本，读主库
+        try (Session session = HibernateUtil.openPrimaryReadOnlySession()) {
             // 使用HQL COUNT查询来检查账户是否存在，这通常比获取整个实体更高效
             // "SELECT COUNT(U.id)" 查询符合条件的User实体的id数量
             // "FROM User U" User是实体类名, U是别名
-            // "WHERE U.account = :accountParam" account是User实体中的属性名
-            String hql = "SELECT COUNT(U.id) FROM User U WHERE U.account = :accountParam";
+            // "WHERE U.accountNormalized = :accountParam" 按规范化账户名做索引点查
+            String hql = "SELECT COUNT(U.id) FROM User U WHERE U.accountNormalized = :accountParam";
 
             Query<Long> query = session.createQuery(hql, Long.class); // COUNT查询返回Long类型
-            query.setParameter("accountParam", account);
+            query.setParameter("accountParam", TextNormalizer.normalize(account));
 
             // uniqueResult() 会返回单个结果 (在这里是计数)
             Long count = query.uniqueResult();
@@ -106,4 +112,73 @@ public class UserDAOImpl implements UserDAO {
             return false;
         }
     }
+
+    @Override
+    public boolean updatePasswordHash(int userId, String expectedHash, String newHash) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            // 以旧哈希为条件更新，避免覆盖同时发生的修改
+            int updated = session.createQuery(
+                            "UPDATE User U SET U.password = :newHash WHERE U.id = :idParam AND U.password = :expectedHash")
+                    .setParameter("newHash", newHash)
+                    .setParameter("idParam", userId)
+                    .setParameter("expectedHash", expectedHash)
+                    .executeUpdate();
+            transaction.commit();
+            return updated == 1;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("更新用户ID:{}的密码哈希时发生错误: {}", userId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public User.Role findRoleById(int userId) {
+        // 换发令牌时使用：角色刚被修改时副本可能还是旧值，读主库
+        try (Session session = HibernateUtil.openPrimaryReadOnlySession()) {
+            return session.createQuery("SELECT U.role FROM User U WHERE U.id = :idParam", User.Role.class)
+                    .setParameter("idParam", userId)
+                    .uniqueResultOptional()
+                    .orElse(null);
+        } catch (Exception e) {
+            logger.error("查询用户ID:{}的角色时发生错误: {}", userId, e.getMessage(), e);
+            throw new OperationFailedException("查询用户角色失败。", e);
+        }
+    }
+
+    @Override
+    public boolean updateRole(int userId, User.Role role, Timestamp notBefore, Timestamp expiresAt) {
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            transaction = session.beginTransaction();
+            int updated = session.createQuery("UPDATE User U SET U.role = :role WHERE U.id = :idParam")
+                    .setParameter("role", role)
+                    .setParameter("idParam", userId)
+                    .executeUpdate();
+            if (updated != 1) {
+                transaction.rollback();
+                return false;
+            }
+            // 与角色修改在同一事务中撤销该用户此前签发的令牌：不会出现角色已改而旧令牌仍带着旧权限的情况
+            session.createNativeQuery("INSERT INTO revoked_user_tokens (user_id, not_before, expires_at)"
+                            + " VALUES (:userId, :notBefore, :expiresAt)"
+                            + " ON DUPLICATE KEY UPDATE not_before = VALUES(not_before), expires_at = VALUES(expires_at)")
+                    .setParameter("userId", userId)
+                    .setParameter("notBefore", notBefore)
+                    .setParameter("expiresAt", expiresAt)
+                    .executeUpdate();
+            transaction.commit();
+            return true;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            logger.error("修改用户ID:{}的角色时发生错误: {}", userId, e.getMessage(), e);
+            throw new OperationFailedException("修改用户角色失败。", e);
+        }
+    }
 }
@@ -5,16 +5,33 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class AuthorDTO {
+
+    /**
+     * 可以通过 ?fields= 请求的字段名（与下方属性名一致）。
+     */
+    public static final Set<String> FIELD_NAMES = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "id", "firstName", "lastName", "bio", "bookCount", "createdAt", "updatedAt")));
+
     private Integer id;
     private String firstName;
     private String lastName;
     private String bio;
 
+    /**
+     * 该作者关联的图书数量（读取预先维护的 book_count 计数列，不做聚合查询）。
+     */
+    private Integer bookCount;
+
     /**
      * 作者记录的创建时间，格式为ISO8601字符串。
      * 对应API规范中的 "createdAt" 字段。
@@ -5,7 +5,11 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Book Data Transfer Object (DTO).
@@ -17,6 +21,14 @@ import java.util.List;
 @AllArgsConstructor
 public class BookDTO {
 
+    /**
+     * 可以通过 ?fields= 请求的字段名（与下方属性名一致）。
+     * 静态字段不会被Gson序列化。
+     */
+    public static final Set<String> FIELD_NAMES = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "id", "title", "isbn", "numCopiesTotal", "numCopiesAvailable",
+            "createdAt", "updatedAt", "authors", "press", "tags")));
+
     private Integer id;
     private String title;
     private String isbn;
@@ -0,0 +1,21 @@
+package com.ILoveU.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * 用户的逾期罚款汇总（截至最近一次罚款计算）。
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class FineBalanceDTO {
+    private Integer userId;
+    private BigDecimal balance;        // 罚款总额（元）
+    private Long finedLoans;           // 产生罚款的借阅数
+    private Long accruingLoans;        // 其中仍未归还、金额仍在增长的借阅数
+    private String calculatedAt;       // 最近一次计算时间，从未计算过时为null
+}
@@ -0,0 +1,22 @@
+package com.ILoveU.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 图书预约。position 只对等待中的预约有值；readyAt/expiresAt 只在副本被保留后有值。
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class HoldDTO {
+    private Integer id;
+    private Integer userId;
+    private Integer bookId;
+    private String status;        // WAITING, READY, FULFILLED, CANCELLED 或 EXPIRED
+    private Integer position;     // 在等待队列中的位置（从1开始）
+    private String createdAt;
+    private String readyAt;
+    private String expiresAt;     // 需在此时间前借走，否则副本转给下一位
+}
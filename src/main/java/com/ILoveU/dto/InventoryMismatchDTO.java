@@ -0,0 +1,22 @@
+package com.ILoveU.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 库存核对发现的一条不一致记录。
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryMismatchDTO {
+    private Integer bookId;
+    private Integer numCopiesTotal;
+    private Integer numCopiesAvailable;   // 数据库中记录的可用库存
+    private Integer activeLoans;          // 未归还的借阅数
+    private Integer expectedAvailable;    // numCopiesTotal - activeLoans
+    private Boolean repaired;
+}
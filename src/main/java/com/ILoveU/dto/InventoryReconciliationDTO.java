@@ -0,0 +1,30 @@
+package com.ILoveU.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * 库存核对任务的进度和结果（最近一次运行）。
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class InventoryReconciliationDTO {
+    private String state;              // IDLE, RUNNING, COMPLETED, FAILED
+    private Boolean repair;            // 本次运行是否修复不一致的记录
+    private String startedAt;
+    private String finishedAt;
+    private Integer totalChunks;
+    private Integer completedChunks;
+    private Integer failedChunks;
+    private Double progress;           // 0 ~ 1
+    private Long booksScanned;
+    private Long elapsedMs;
+    private Double booksPerSecond;
+    private Integer mismatchCount;
+    private Integer repairedCount;
+    private List<InventoryMismatchDTO> mismatches;   // 最多返回前若干条
+}
@@ -5,11 +5,23 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class LoanDTO {
+
+    /**
+     * 可以通过 ?fields= 请求的字段名（与下方属性名一致）。
+     */
+    public static final Set<String> FIELD_NAMES = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "id", "userId", "bookId", "checkoutDate", "dueDate", "returnDate", "isOverdue")));
+
     private Integer id;
     private Integer userId;
     private Integer bookId;
@@ -12,4 +12,14 @@ import lombok.Setter;
 public class PressDTO {
     private Integer id;
     private String name;
+
+    /**
+     * 该出版社关联的图书数量（读取预先维护的 book_count 计数列，不做聚合查询）。
+     */
+    private Integer bookCount;
+
+    public PressDTO(Integer id, String name) {
+        this.id = id;
+        this.name = name;
+    }
 }
@@ -0,0 +1,19 @@
+package com.ILoveU.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 输入联想（/api/suggest）返回的单条建议。
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private String type;   // book, author, tag, press
+    private Integer id;
+    private String text;
+}
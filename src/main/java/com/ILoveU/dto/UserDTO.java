@@ -14,4 +14,5 @@ public class UserDTO {
     private Integer id;        // 对应API规范中的 "id"
     private String username;  // 对应API规范中的 "username" (通常映射到User实体的name字段)
     private String account;   // 对应API规范中的 "account"
+    private String role;      // READER、LIBRARIAN 或 ADMIN
 }
@@ -0,0 +1,20 @@
+package com.ILoveU.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 用户当前的借阅概况及借阅上限。
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserLoanSummaryDTO {
+    private Integer userId;
+    private Integer activeLoans;       // 未归还的借阅数
+    private Integer overdueLoans;      // 其中已逾期的借阅数
+    private Integer maxActiveLoans;    // 最多同时借阅数，null 表示不限制
+    private Integer maxOverdueLoans;   // 允许继续借书的最大逾期数，null 表示不限制
+    private Boolean canBorrow;         // 按当前计数是否还能借书
+}
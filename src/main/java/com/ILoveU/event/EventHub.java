@@ -0,0 +1,272 @@
+package com.ILoveU.event;
+
+import com.ILoveU.dao.BookDAO;
+import com.ILoveU.dao.impl.BookDAOImpl;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.util.ServletUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务端推送（SSE）的事件中心：业务代码在事务提交后发布库存、借阅和图书目录的变化，
+ * 由单个分发线程推送给所有订阅了对应主题的 /api/events 连接。
+ *
+ * 发布只是把事件按 key（如 availability:124）放入待分发表，同一 key 的新事件覆盖旧事件；
+ * 分发线程每 {@link #COALESCE_MILLIS} 毫秒取出一批，可用库存在此时用一次主库查询批量读取，
+ * 每个事件只序列化一次，再放入各连接的有界缓冲区（见 {@link SseClient}）。
+ * 因此一阵密集的借还最终只推送每本书的最新库存，发布方也从不等待网络写入。
+ * 借阅事件含有读者信息，分发时按连接过滤（见 {@link SseClient#acceptsLoanOf}）。
+ */
+public final class EventHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventHub.class);
+
+    public static final String TOPIC_AVAILABILITY = "availability";
+    public static final String TOPIC_LOANS = "loans";
+    public static final String TOPIC_BOOKS = "books";
+    public static final Set<String> TOPICS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            TOPIC_AVAILABILITY, TOPIC_LOANS, TOPIC_BOOKS)));
+
+    public static final long COALESCE_MILLIS = 200L;
+    public static final long HEARTBEAT_MILLIS = 15_000L;
+    public static final int MAX_CLIENTS = 1000;
+
+    private static final byte[] HEARTBEAT_FRAME = ": heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final EventHub INSTANCE = new EventHub();
+
+    /**
+     * 一个待分发的事件；可用库存事件的 data 在分发时才读取。
+     */
+    private static final class PendingEvent {
+        final String topic;
+        final String type;
+        final Map<String, Object> data;
+        final Integer bookId;
+        // 只对借阅事件有意义：借阅所属的用户
+        final Integer loanUserId;
+
+        PendingEvent(String topic, String type, Map<String, Object> data, Integer bookId) {
+            this(topic, type, data, bookId, null);
+        }
+
+        PendingEvent(String topic, String type, Map<String, Object> data, Integer bookId, Integer loanUserId) {
+            this.topic = topic;
+            this.type = type;
+            this.data = data;
+            this.bookId = bookId;
+            this.loanUserId = loanUserId;
+        }
+    }
+
+    private final BookDAO bookDAO = new BookDAOImpl();
+    private final Set<SseClient> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    // 按 key 合并的待分发事件，受 this 保护
+    private Map<String, PendingEvent> pending = new LinkedHashMap<>();
+    private ScheduledExecutorService dispatcher;
+    private long lastHeartbeatAt = System.currentTimeMillis();
+
+    private EventHub() {
+    }
+
+    public static EventHub getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void start() {
+        if (dispatcher != null) {
+            return;
+        }
+        dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.scheduleWithFixedDelay(this::dispatchSafely, COALESCE_MILLIS, COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+        logger.info("事件中心已启动，合并窗口 {}ms，最多 {} 个连接", COALESCE_MILLIS, MAX_CLIENTS);
+    }
+
+    public void shutdown() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = dispatcher;
+            dispatcher = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        for (SseClient client : new ArrayList<>(clients)) {
+            client.close();
+        }
+    }
+
+    /**
+     * @return 如果已达到连接上限则返回false，调用方应拒绝该连接
+     */
+    public boolean register(SseClient client) {
+        if (clients.size() >= MAX_CLIENTS) {
+            return false;
+        }
+        clients.add(client);
+        logger.debug("SSE连接已建立，当前 {} 个", clients.size());
+        return true;
+    }
+
+    void unregister(SseClient client) {
+        if (clients.remove(client)) {
+            logger.debug("SSE连接已关闭，当前 {} 个", clients.size());
+        }
+    }
+
+    public int clientCount() {
+        return clients.size();
+    }
+
+    /**
+     * 图书的可用库存发生了变化（借书、还书、修改库存）。推送的是分发时主库中的最新值。
+     */
+    public void publishAvailabilityChanged(int bookId) {
+        publish("availability:" + bookId, new PendingEvent(TOPIC_AVAILABILITY, "availability", null, bookId));
+    }
+
+    /**
+     * 借阅状态发生了变化。只推送给借阅者本人和拥有 LOAN_ANY 权限的连接。
+     *
+     * @param state CHECKED_OUT、RETURNED 或 OVERDUE
+     */
+    public void publishLoanChanged(int loanId, Integer userId, Integer bookId, String state) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("loanId", loanId);
+        data.put("userId", userId);
+        data.put("bookId", bookId);
+        data.put("state", state);
+        publish("loan:" + loanId, new PendingEvent(TOPIC_LOANS, "loan", data, null, userId));
+    }
+
+    /**
+     * 图书目录发生了变化。
+     *
+     * @param action CREATED、UPDATED 或 DELETED
+     */
+    public void publishBookChanged(int bookId, String action) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("bookId", bookId);
+        data.put("action", action);
+        publish("book:" + bookId, new PendingEvent(TOPIC_BOOKS, "book", data, null));
+    }
+
+    private void publish(String key, PendingEvent event) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            // 先移除再放入，使合并后的事件排在最近发生的位置
+            pending.remove(key);
+            pending.put(key, event);
+        }
+    }
+
+    private void dispatchSafely() {
+        try {
+            dispatch();
+        } catch (Exception e) {
+            // 异常不能逃出，否则调度器会停止后续分发
+            logger.error("分发事件时发生错误: {}", e.getMessage(), e);
+        }
+    }
+
+    private void dispatch() {
+        Map<String, PendingEvent> batch;
+        synchronized (this) {
+            batch = pending;
+            if (!batch.isEmpty()) {
+                pending = new LinkedHashMap<>();
+            }
+        }
+        long now = System.currentTimeMillis();
+        boolean heartbeat = now - lastHeartbeatAt >= HEARTBEAT_MILLIS;
+        if (batch.isEmpty() && !heartbeat) {
+            return;
+        }
+        if (heartbeat) {
+            lastHeartbeatAt = now;
+        }
+
+        Map<Integer, Integer> available = resolveAvailability(batch.values());
+        List<String> keys = new ArrayList<>(batch.size());
+        List<PendingEvent> events = new ArrayList<>(batch.size());
+        List<byte[]> frames = new ArrayList<>(batch.size());
+        for (Map.Entry<String, PendingEvent> entry : batch.entrySet()) {
+            PendingEvent event = entry.getValue();
+            Map<String, Object> data = event.data;
+            if (event.bookId != null) {
+                Integer copies = available.get(event.bookId);
+                if (copies == null) {
+                    // 图书已被删除（会有 book 事件）或查询失败
+                    continue;
+                }
+                data = new LinkedHashMap<>();
+                data.put("bookId", event.bookId);
+                data.put("numCopiesAvailable", copies);
+            }
+            keys.add(entry.getKey());
+            events.add(event);
+            frames.add(frame(event.type, data));
+        }
+
+        for (SseClient client : clients) {
+            for (int i = 0; i < frames.size(); i++) {
+                PendingEvent event = events.get(i);
+                if (client.accepts(event.topic)
+                        && (!TOPIC_LOANS.equals(event.topic) || client.acceptsLoanOf(event.loanUserId))) {
+                    client.enqueue(keys.get(i), frames.get(i));
+                }
+            }
+            if (heartbeat) {
+                client.enqueue(":heartbeat", HEARTBEAT_FRAME);
+            }
+            client.flush();
+        }
+    }
+
+    private Map<Integer, Integer> resolveAvailability(Iterable<PendingEvent> events) {
+        Set<Integer> bookIds = new LinkedHashSet<>();
+        for (PendingEvent event : events) {
+            if (event.bookId != null) {
+                bookIds.add(event.bookId);
+            }
+        }
+        if (bookIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return bookDAO.findAvailableCopies(bookIds);
+        } catch (OperationFailedException e) {
+            logger.warn("读取 {} 本图书的可用库存失败，本批库存事件不推送", bookIds.size());
+            return Collections.emptyMap();
+        }
+    }
+
+    private byte[] frame(String type, Map<String, Object> data) {
+        String frame = "id: " + sequence.incrementAndGet() + "\n"
+                + "event: " + type + "\n"
+                + "data: " + ServletUtil.toJson(data) + "\n\n";
+        return frame.getBytes(StandardCharsets.UTF_8);
+    }
+}
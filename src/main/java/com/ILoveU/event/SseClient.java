@@ -0,0 +1,160 @@
+package com.ILoveU.event;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一个 /api/events 连接。
+ *
+ * 待发送的事件帧放在按 key 合并的有界缓冲区中：同一本书、同一条借阅只保留最新的一帧，
+ * 缓冲区满时清空并改为发送一条 resync 事件，提示客户端重新拉取数据。
+ * 写出使用 Servlet 非阻塞IO：只在 isReady() 时写，写不动就返回，等容器回调 onWritePossible 再继续，
+ * 因此一个慢客户端只会让自己的缓冲区堆积，不会阻塞分发线程和其他连接。
+ *
+ * 借阅事件只发给借阅者本人和有 LOAN_ANY 权限的连接（与 GET /api/loans 的权限一致）。
+ */
+public final class SseClient implements WriteListener, AsyncListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseClient.class);
+
+    public static final int MAX_BUFFERED_EVENTS = 256;
+
+    private static final byte[] RESYNC_FRAME = "event: resync\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream out;
+    private final Set<String> topics;
+    // 建立连接的用户，未登录时为null
+    private final Integer userId;
+    private final boolean allLoans;
+    // 受 this 保护
+    private final Map<String, byte[]> buffer = new LinkedHashMap<>();
+    private boolean overflowed;
+    private volatile boolean closed;
+
+    /**
+     * @param userId   建立连接的用户，未登录时为null
+     * @param allLoans 是否接收所有用户的借阅事件（拥有 LOAN_ANY 权限），否则只接收 userId 本人的
+     */
+    public SseClient(AsyncContext asyncContext, ServletOutputStream out, Set<String> topics,
+                     Integer userId, boolean allLoans) {
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.topics = topics;
+        this.userId = userId;
+        this.allLoans = allLoans;
+    }
+
+    boolean accepts(String topic) {
+        return topics.contains(topic);
+    }
+
+    /**
+     * @param loanUserId 借阅所属的用户，未知时为null（只发给拥有 LOAN_ANY 的连接）
+     */
+    boolean acceptsLoanOf(Integer loanUserId) {
+        return allLoans || (userId != null && userId.equals(loanUserId));
+    }
+
+    /**
+     * 放入一帧待发送的数据；同一 key 尚未发出的旧帧被替换。
+     */
+    public synchronized void enqueue(String key, byte[] frame) {
+        if (closed) {
+            return;
+        }
+        if (buffer.remove(key) == null && buffer.size() >= MAX_BUFFERED_EVENTS) {
+            // 客户端长期读不动：丢弃积压，让客户端重新拉取
+            buffer.clear();
+            overflowed = true;
+        }
+        buffer.put(key, frame);
+    }
+
+    /**
+     * 尽可能多地写出缓冲区中的事件帧；连接暂时不可写时直接返回。
+     */
+    synchronized void flush() {
+        if (closed) {
+            return;
+        }
+        try {
+            while (out.isReady()) {
+                byte[] frame;
+                if (overflowed) {
+                    overflowed = false;
+                    frame = RESYNC_FRAME;
+                } else {
+                    Iterator<byte[]> it = buffer.values().iterator();
+                    if (!it.hasNext()) {
+                        out.flush();
+                        return;
+                    }
+                    frame = it.next();
+                    it.remove();
+                }
+                out.write(frame);
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("写入SSE连接失败，关闭连接: {}", e.getMessage());
+            close();
+        }
+    }
+
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer.clear();
+        }
+        EventHub.getInstance().unregister(this);
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            // 容器已经结束了该请求
+        }
+    }
+
+    @Override
+    public void onWritePossible() {
+        flush();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        close();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.ILoveU.exception;
+
+/**
+ * 这个异常表示当前登录用户的角色没有执行该操作的权限，例如读者查询其他读者的借阅记录（对应HTTP 403）。
+ * 与 OperationForbiddenException（业务规则不允许，对应400）不同，同样的请求换成有权限的用户就能执行。
+ */
+public class AccessDeniedException extends ServiceException {
+    public AccessDeniedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ILoveU.exception;
+
+/**
+ * 这个异常表示服务暂时过载，请求没有被执行，客户端稍后重试即可（对应HTTP 503）。
+ * 与 OperationFailedException 不同，它不代表系统故障，而是为了保护其他请求主动拒绝了这一个。
+ */
+public class ServiceUnavailableException extends ServiceException {
+
+    private final int retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return 建议客户端等待的秒数，用于 Retry-After 响应头
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
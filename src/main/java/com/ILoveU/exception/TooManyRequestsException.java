@@ -0,0 +1,21 @@
+package com.ILoveU.exception;
+
+/**
+ * 这个异常表示调用方在一段时间内的请求次数超过了限制，请求没有被执行（对应HTTP 429）。
+ */
+public class TooManyRequestsException extends ServiceException {
+
+    private final int retryAfterSeconds;
+
+    public TooManyRequestsException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return 建议客户端等待的秒数，用于 Retry-After 响应头
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
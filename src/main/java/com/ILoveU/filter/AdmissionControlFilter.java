@@ -0,0 +1,158 @@
+package com.ILoveU.filter;
+
+import com.ILoveU.util.AdmissionController;
+import com.ILoveU.util.ApiRoute;
+import com.ILoveU.util.ConnectionWaits;
+import com.ILoveU.util.Metrics;
+import com.ILoveU.util.RouteTrie;
+import com.ILoveU.util.ServletUtil;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AdmissionControlFilter 在数据库变慢时限制同时处理的请求数，并优先拒绝不重要的请求（见 AdmissionController）。
+ *
+ * 请求按接口分为三个优先级（与 RateLimitFilter 的路由类别对应）：
+ * - 高：写请求，如借书、还书、预约；
+ * - 普通：其他读请求；
+ * - 低：搜索、输入联想和批量导出（冷归档扫描、库存核对报告），过载时最先被拒绝。
+ *
+ * 被拒绝的请求立即返回 503 并带 Retry-After，不占用数据库连接，也不会在容器线程上长时间排队。
+ * 事件推送（/api/events）是长连接，不受准入控制；未登记的路由交给 AuthenticationFilter 返回404。
+ *
+ * 参数在 hibernate.cfg.xml 中通过 library.admission.* 配置。并发上限不超过 hibernate.connection.pool_size：
+ * 超过连接数的请求只会在 TimedConnectionProvider 的信号量上排队，放进来也不能更快完成。
+ *
+ * 依赖 web.xml 中的过滤器顺序（RateLimitFilter → AuthenticationFilter → 本过滤器 → ReadRoutingFilter）：
+ * - 排在限流和认证之后：被 429/401/403/404 拒绝的请求不占用并发名额，其极短的耗时也不会计入延迟样本，
+ *   因此上面对未登记路由直接放行是安全的；
+ * - 排在 ReadRoutingFilter 和Servlet之前：连接等待计数在这里开始，之后借用主库或副本连接的等待都计入本请求，
+ *   BulkheadServlet 也要在这里绑定之后才能把它带到执行线程上。
+ * 调整顺序时需要同时检查以上两点。
+ */
+public class AdmissionControlFilter implements Filter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private AdmissionController controller;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        Properties properties = new Configuration().configure().getProperties();
+        try {
+            int initialLimit = intProperty(properties, "initial_limit", 50);
+            int minLimit = intProperty(properties, "min_limit", 10);
+            int maxLimit = intProperty(properties, "max_limit", 200);
+            // 未配置时与 TimedConnectionProvider 的默认大小相同
+            int poolSize = Integer.parseInt(properties.getProperty("hibernate.connection.pool_size", "20").trim());
+            if (maxLimit > poolSize) {
+                logger.warn("library.admission.max_limit {} exceeds hibernate.connection.pool_size, clamped to {}",
+                        maxLimit, poolSize);
+                maxLimit = poolSize;
+                initialLimit = Math.min(initialLimit, maxLimit);
+                minLimit = Math.min(minLimit, maxLimit);
+            }
+            int targetMs = intProperty(properties, "target_ms", 5);
+            int intervalMs = intProperty(properties, "interval_ms", 100);
+            int maxWaitMs = intProperty(properties, "max_wait_ms", 500);
+            controller = new AdmissionController(initialLimit, minLimit, maxLimit,
+                    TimeUnit.MILLISECONDS.toNanos(targetMs), TimeUnit.MILLISECONDS.toNanos(intervalMs),
+                    TimeUnit.MILLISECONDS.toNanos(maxWaitMs));
+            logger.info("AdmissionControlFilter initialized - limit {} ({}-{}), target {}ms, interval {}ms, max wait {}ms",
+                    initialLimit, minLimit, maxLimit, targetMs, intervalMs, maxWaitMs);
+        } catch (IllegalArgumentException e) {
+            throw new ServletException("library.admission.* 配置无效: " + e.getMessage(), e);
+        }
+        Metrics.register("admission", this::metrics);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        // 与 AuthenticationFilter 共用请求属性中缓存的路由匹配结果
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(httpRequest);
+        if (route == null || route.is(ApiRoute.EVENTS)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AdmissionController.Priority priority = priorityOf(httpRequest);
+        long slotWait = controller.acquire(priority);
+        if (slotWait < 0) {
+            // 过载时每秒可能拒绝大量请求，只在debug级别逐条记录，总数见 /api/metrics
+            logger.debug("Request shed - priority: {}, path: {}", priority, httpRequest.getRequestURI());
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setHeader("Retry-After", "1");
+            httpResponse.setContentType("application/json");
+            httpResponse.setCharacterEncoding("UTF-8");
+            ServletUtil.sendErrorResponse(httpResponse, httpRequest, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    "Service Unavailable", "服务繁忙，请稍后重试。", logger);
+            return;
+        }
+
+        AtomicLong connectionWait = ConnectionWaits.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ConnectionWaits.detach();
+            // 请求在隔离线程池上异步执行时，槽位一直占用到执行结束
+            ServletUtil.runAfterResponse(httpRequest,
+                    () -> controller.release(slotWait + connectionWait.get(), System.nanoTime()));
+        }
+    }
+
+    static AdmissionController.Priority priorityOf(HttpServletRequest request) {
+        switch (RateLimitFilter.classify(request)) {
+            case WRITE:
+                return AdmissionController.Priority.HIGH;
+            case READ:
+                return AdmissionController.Priority.NORMAL;
+            default:
+                return AdmissionController.Priority.LOW;
+        }
+    }
+
+    private static int intProperty(Properties properties, String name, int defaultValue) {
+        String value = properties.getProperty("library.admission." + name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " 应为整数，当前为: " + value, e);
+        }
+    }
+
+    private Map<String, Object> metrics() {
+        Map<String, Object> metrics = controller.metrics();
+        metrics.put("connectionWaits", ConnectionWaits.count());
+        metrics.put("connectionWaitTotalMs", ConnectionWaits.totalMillis());
+        metrics.put("connectionWaitMaxMs", ConnectionWaits.maxMillis());
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+        logger.info("AdmissionControlFilter destroyed.");
+    }
+}
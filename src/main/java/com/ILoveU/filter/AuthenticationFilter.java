@@ -1,6 +1,11 @@
 package com.ILoveU.filter;
 
-import com.ILoveU.dto.UserDTO;          // 引入UserDTO
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.service.Impl.UserServiceImpl;
+import com.ILoveU.service.UserService;
+import com.ILoveU.util.ApiRoute;
+import com.ILoveU.util.AuthTokens;
+import com.ILoveU.util.RouteTrie;
 import com.ILoveU.util.ServletUtil;     // 引入ServletUtil
 
 // 使用 jakarta.servlet.* 因为你用的是Tomcat 10
@@ -10,59 +15,40 @@ import jakarta.servlet.FilterConfig;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
-import jakarta.servlet.annotation.WebFilter;
-import jakarta.servlet.annotation.WebInitParam;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collections;
 
 /**
- * AuthenticationFilter 负责对需要认证的API请求进行统一的会话检查。
- * 它会拦截指定的URL模式，如果用户未登录（即HttpSession中没有有效的用户信息），
- * 则返回HTTP 401 Unauthorized错误，阻止请求到达目标Servlet。
+ * AuthenticationFilter 负责对需要认证的API请求进行统一的登录检查。
+ * 它会拦截指定的URL模式，如果请求没有携带有效的登录令牌（见 AuthTokens，签名、过期时间和撤销状态均在本地校验，
+ * 不查询数据库也不使用HttpSession），则返回HTTP 401 Unauthorized错误，阻止请求到达目标Servlet。
  * 公共路径（如登录、注册）会被排除在检查之外。
+ *
+ * 请求先按 ApiRoute 的路由树匹配（结果缓存在请求属性中，供之后的过滤器和Servlet使用）：未登记的路由返回404，
+ * 公共路由直接放行，其余路由在登录之后检查令牌中的权限位集，权限不足返回403。
+ * 权限位集在签发令牌时由角色算出，这里同样不查询数据库；只有换发令牌时才从主库读取用户当前的角色。
  */
-@WebFilter(
-        filterName = "AuthenticationFilter",
-        urlPatterns = {"/api/*"}, // 拦截所有以 /api/ 开头的请求
-        initParams = {
-                // 定义不需要认证的公共路径（相对于应用上下文）
-                // 注意：这里的路径是相对于应用上下文的，并且不包含通配符本身
-                // 例如，如果AuthServlet映射到 /api/auth/*，那么登录和注册路径是 /api/auth/login 和 /api/auth/register
-                @WebInitParam(name = "publicPaths", value = "/api/auth/login,/api/auth/register")
-        }
-)
 public class AuthenticationFilter implements Filter {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationFilter.class);
-    private Set<String> publicPathsSet;
+
+    private final UserService userService = new UserServiceImpl();
 
     /**
      * Filter初始化方法。
-     * 在Filter第一次被创建时调用，用于读取初始化参数。
+     * 在Filter第一次被创建时调用。公共路径登记在 ApiRoute 中，这里不再读取初始化参数。
      * @param filterConfig Filter的配置对象
      * @throws ServletException 如果初始化失败
      */
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
-        logger.info("AuthenticationFilter initializing...");
-        String publicPathsParam = filterConfig.getInitParameter("publicPaths");
-        if (publicPathsParam != null && !publicPathsParam.isEmpty()) {
-            publicPathsSet = new HashSet<>(Arrays.asList(publicPathsParam.split(",")));
-            logger.info("Public paths configured: {}", publicPathsSet);
-        } else {
-            publicPathsSet = new HashSet<>();
-            logger.info("No public paths configured for AuthenticationFilter.");
-        }
-        logger.info("AuthenticationFilter initialized successfully.");
+        logger.info("AuthenticationFilter initialized, {} routes registered.", ApiRoute.values().length);
     }
 
     /**
@@ -82,56 +68,93 @@ public class AuthenticationFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        // 获取请求的路径（不包含应用上下文路径）
-        String path = httpRequest.getRequestURI().substring(httpRequest.getContextPath().length());
-        // 有些容器的getRequestURI可能已经去掉了contextPath，需要根据实际情况调整
-        // 或者更健壮的方式是直接使用 httpRequest.getServletPath() + (httpRequest.getPathInfo() == null ? "" : httpRequest.getPathInfo())
-        // 但对于 /api/* 这样的模式，直接用 path 应该可以
+        String method = httpRequest.getMethod();
+        // OPTIONS 不对应具体路由，只要求登录
+        RouteTrie.Match<ApiRoute> match = "OPTIONS".equals(method) ? null : ApiRoute.match(httpRequest);
+        ApiRoute route = match == null ? null : match.getValue();
 
-        logger.debug("AuthenticationFilter processing request for path: {}", path);
+        if (route == null && !"OPTIONS".equals(method)) {
+            logger.warn("Request to unregistered route: {} {}", method, httpRequest.getRequestURI());
+            httpResponse.setContentType("application/json");
+            httpResponse.setCharacterEncoding("UTF-8");
+            ServletUtil.sendErrorResponse(httpResponse, httpRequest, HttpServletResponse.SC_NOT_FOUND,
+                    "Not Found", "请求的接口不存在。", logger);
+            return;
+        }
 
-        // 检查请求路径是否为公共路径
-        if (isPublicPath(path)) {
-            logger.debug("Path {} is public, allowing request to proceed.", path);
-            chain.doFilter(request, response); // 公共路径，直接放行
+        // 公共路由，直接放行
+        if (route != null && route.isPublic()) {
+            logger.debug("Route {} is public, allowing request to proceed.", route);
+            chain.doFilter(request, response);
             return;
         }
 
-        // 对于非公共路径，检查Session
-        HttpSession session = httpRequest.getSession(false); // false: 不自动创建新Session
+        // 对于非公共路由，校验登录令牌
+        AuthTokens.Claims claims = AuthTokens.authenticate(httpRequest);
 
-        if (session == null || session.getAttribute("loggedInUser") == null) {
-            // 用户未登录或Session无效/已过期
-            logger.warn("Unauthorized access attempt to protected path: {}", path);
+        if (claims == null) {
+            // 未携带令牌，或令牌无效/已过期/已注销
+            logger.warn("Unauthorized access attempt to protected route: {} {}", method, httpRequest.getRequestURI());
             // 设置响应类型和编码，因为ServletUtil.sendErrorResponse不再设置它们
             httpResponse.setContentType("application/json");
             httpResponse.setCharacterEncoding("UTF-8");
             ServletUtil.sendErrorResponse(httpResponse, httpRequest, HttpServletResponse.SC_UNAUTHORIZED,
-                    "Unauthorized", "用户未登录或会话已过期，请先登录。", logger);
+                    "Unauthorized", "用户未登录或登录已过期，请先登录。", logger);
             return; // 阻止请求继续传递
         }
 
-        // 用户已登录，允许请求继续传递给目标Servlet或下一个Filter
-        UserDTO loggedInUser = (UserDTO) session.getAttribute("loggedInUser");
-        logger.debug("User {} (ID: {}) is authorized for path: {}",
-                loggedInUser.getAccount(), loggedInUser.getId(), path);
+        // 令牌已过半有效期、由旧密钥签发或不带任何权限（旧版本的 USER 角色）时，按用户当前的角色换发新令牌，
+        // 并按新令牌检查权限；注销请求不换发
+        if (route != ApiRoute.AUTH_LOGOUT && (AuthTokens.needsRefresh(claims) || claims.getPermissions() == 0)) {
+            claims = refresh(httpRequest, httpResponse, claims);
+            if (claims == null) {
+                AuthTokens.clearCookie(httpRequest, httpResponse);
+                httpResponse.setContentType("application/json");
+                httpResponse.setCharacterEncoding("UTF-8");
+                ServletUtil.sendErrorResponse(httpResponse, httpRequest, HttpServletResponse.SC_UNAUTHORIZED,
+                        "Unauthorized", "用户未登录或登录已过期，请先登录。", logger);
+                return;
+            }
+        }
+
+        long required = route == null ? 0L : route.getRequiredPermissions();
+        if ((claims.getPermissions() & required) != required) {
+            logger.warn("Forbidden - user ID: {} (roles: {}) lacks permissions for {}",
+                    claims.getUserId(), claims.getRoles(), route);
+            httpResponse.setContentType("application/json");
+            httpResponse.setCharacterEncoding("UTF-8");
+            ServletUtil.sendErrorResponse(httpResponse, httpRequest, HttpServletResponse.SC_FORBIDDEN,
+                    "Forbidden", "当前账户没有执行此操作的权限。", logger);
+            return;
+        }
+
+        // 用户已登录且有权限，允许请求继续传递给目标Servlet或下一个Filter
+        logger.debug("User ID {} (roles: {}) is authorized for route: {}", claims.getUserId(), claims.getRoles(), route);
         chain.doFilter(request, response);
     }
 
     /**
-     * 检查给定路径是否为配置的公共路径之一。
-     * @param path 要检查的请求路径
-     * @return 如果是公共路径则返回true，否则返回false
+     * 按用户当前的角色换发令牌，并替换请求属性中缓存的校验结果。
+     *
+     * @return 新令牌的内容；读取角色失败时沿用原令牌；用户已不存在时返回null
      */
-    private boolean isPublicPath(String path) {
-        if (publicPathsSet == null || publicPathsSet.isEmpty()) {
-            return false;
+    private AuthTokens.Claims refresh(HttpServletRequest request, HttpServletResponse response, AuthTokens.Claims claims) {
+        String role;
+        try {
+            role = userService.findCurrentRole(claims.getUserId());
+        } catch (OperationFailedException e) {
+            logger.warn("Token refresh skipped for user ID {}: {}", claims.getUserId(), e.getMessage());
+            return claims;
+        }
+        if (role == null) {
+            logger.warn("Token presented for deleted user ID: {}", claims.getUserId());
+            return null;
         }
-        // 精确匹配公共路径
-        // 例如，如果 publicPathsSet 包含 "/api/auth/login"
-        // 那么 path 必须完全等于 "/api/auth/login"
-        // 如果你的公共路径也可能包含通配符或需要更复杂的匹配，这里的逻辑需要调整
-        return publicPathsSet.contains(path);
+        AuthTokens.Issued refreshed = AuthTokens.issue(claims.getUserId(), Collections.singleton(role));
+        AuthTokens.writeCookie(request, response, refreshed.getToken(), AuthTokens.getTtlSeconds());
+        request.setAttribute(AuthTokens.REQUEST_ATTRIBUTE, refreshed.getClaims());
+        logger.debug("Token refreshed for user ID: {} (roles: {} -> {})", claims.getUserId(), claims.getRoles(), role);
+        return refreshed.getClaims();
     }
 
     /**
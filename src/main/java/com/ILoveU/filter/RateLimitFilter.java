@@ -0,0 +1,185 @@
+package com.ILoveU.filter;
+
+import com.ILoveU.util.ApiRoute;
+import com.ILoveU.util.AuthTokens;
+import com.ILoveU.util.Metrics;
+import com.ILoveU.util.RouteTrie;
+import com.ILoveU.util.ServletUtil;
+import com.ILoveU.util.TokenBucketTable;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RateLimitFilter 按 (登录用户, 路由类别) 做令牌桶限流，超限的请求直接返回 429，不会到达Servlet和服务层。
+ *
+ * 路由分为四类，每类的桶容量（允许的突发请求数）和每秒补充速率在 hibernate.cfg.xml 中通过
+ * library.ratelimit.&lt;类别&gt; 配置为 {@code 容量:每秒补充数}：
+ * - write：非 GET/HEAD/OPTIONS 请求；
+ * - export：批量读取的接口（冷归档扫描、库存核对报告）；
+ * - search：带 search 参数的列表查询和输入联想；
+ * - read：其他读请求。
+ *
+ * 未登录的请求不在这里限流：公共路径由 LoginThrottle 负责，其余路径会被 AuthenticationFilter 以 401 拒绝。
+ */
+public class RateLimitFilter implements Filter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    enum RouteClass {
+        READ("60:10"),
+        SEARCH("30:5"),
+        WRITE("30:3"),
+        EXPORT("3:0.05");
+
+        final String defaultLimit;
+
+        RouteClass(String defaultLimit) {
+            this.defaultLimit = defaultLimit;
+        }
+    }
+
+    private static final RouteClass[] ROUTE_CLASSES = RouteClass.values();
+
+    private final int[] capacities = new int[ROUTE_CLASSES.length];
+    private final double[] refillRates = new double[ROUTE_CLASSES.length];
+    private final LongAdder[] allowed = new LongAdder[ROUTE_CLASSES.length];
+    private final LongAdder[] rejected = new LongAdder[ROUTE_CLASSES.length];
+    private TokenBucketTable buckets;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        Properties properties = new Configuration().configure().getProperties();
+        for (RouteClass routeClass : ROUTE_CLASSES) {
+            String name = routeClass.name().toLowerCase(Locale.ROOT);
+            String value = properties.getProperty("library.ratelimit." + name, routeClass.defaultLimit).trim();
+            String[] parts = value.split(":");
+            try {
+                int capacity = Integer.parseInt(parts[0].trim());
+                double refill = Double.parseDouble(parts[1].trim());
+                if (capacity < 1 || capacity > TokenBucketTable.MAX_CAPACITY || refill <= 0) {
+                    throw new NumberFormatException(value);
+                }
+                capacities[routeClass.ordinal()] = capacity;
+                refillRates[routeClass.ordinal()] = refill;
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new ServletException("library.ratelimit." + name + " 格式应为 容量:每秒补充数（容量1-"
+                        + TokenBucketTable.MAX_CAPACITY + "），当前为: " + value, e);
+            }
+            allowed[routeClass.ordinal()] = new LongAdder();
+            rejected[routeClass.ordinal()] = new LongAdder();
+        }
+        buckets = new TokenBucketTable(Integer.parseInt(properties.getProperty("library.ratelimit.table_size", "65536").trim()));
+        Metrics.register("rateLimit", this::metrics);
+        logger.info("RateLimitFilter initialized - read {}:{}, search {}:{}, write {}:{}, export {}:{}",
+                capacities[0], refillRates[0], capacities[1], refillRates[1],
+                capacities[2], refillRates[2], capacities[3], refillRates[3]);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        // 与 AuthenticationFilter 共用请求属性中缓存的校验结果
+        AuthTokens.Claims claims = AuthTokens.authenticate(httpRequest);
+        if (claims == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RouteClass routeClass = classify(httpRequest);
+        int index = routeClass.ordinal();
+        long wait = buckets.tryAcquire(claims.getUserId(), index, capacities[index], refillRates[index],
+                System.currentTimeMillis());
+        if (wait == 0) {
+            allowed[index].increment();
+            chain.doFilter(request, response);
+            return;
+        }
+
+        rejected[index].increment();
+        // 被限流的脚本每秒可能触发成百上千次，只在debug级别逐条记录，总数见 /api/metrics
+        logger.debug("Rate limit exceeded - user ID: {}, route class: {}, path: {}",
+                claims.getUserId(), routeClass, httpRequest.getRequestURI());
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        httpResponse.setHeader("Retry-After", String.valueOf(Math.max(1, (wait + 999) / 1000)));
+        httpResponse.setContentType("application/json");
+        httpResponse.setCharacterEncoding("UTF-8");
+        ServletUtil.sendErrorResponse(httpResponse, httpRequest, ServletUtil.SC_TOO_MANY_REQUESTS,
+                "Too Many Requests", "请求过于频繁，请稍后再试。", logger);
+    }
+
+    static RouteClass classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method)) {
+            return RouteClass.WRITE;
+        }
+        // 与 AuthenticationFilter 共用请求属性中缓存的路由匹配结果
+        RouteTrie.Match<ApiRoute> match = ApiRoute.match(request);
+        ApiRoute route = match == null ? null : match.getValue();
+        if (route == ApiRoute.LOAN_COLD_ARCHIVE || route == ApiRoute.INVENTORY_REPORT) {
+            return RouteClass.EXPORT;
+        }
+        if (route == ApiRoute.SUGGEST || hasSearchParameter(request.getQueryString())) {
+            return RouteClass.SEARCH;
+        }
+        return RouteClass.READ;
+    }
+
+    /**
+     * 直接在查询串中查找非空的 search 参数，不触发容器解析全部参数。
+     */
+    private static boolean hasSearchParameter(String queryString) {
+        if (queryString == null) {
+            return false;
+        }
+        int from = 0;
+        while (true) {
+            int found = queryString.indexOf("search=", from);
+            if (found < 0) {
+                return false;
+            }
+            int valueStart = found + "search=".length();
+            if ((found == 0 || queryString.charAt(found - 1) == '&')
+                    && valueStart < queryString.length() && queryString.charAt(valueStart) != '&') {
+                return true;
+            }
+            from = valueStart;
+        }
+    }
+
+    private Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (RouteClass routeClass : ROUTE_CLASSES) {
+            String name = routeClass.name().toLowerCase(Locale.ROOT);
+            metrics.put(name + "Allowed", allowed[routeClass.ordinal()].sum());
+            metrics.put(name + "Rejected", rejected[routeClass.ordinal()].sum());
+        }
+        metrics.put("trackedBuckets", buckets.trackedBuckets());
+        metrics.put("evictedBuckets", buckets.evictions());
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+        logger.info("RateLimitFilter destroyed.");
+    }
+}
@@ -0,0 +1,136 @@
+package com.ILoveU.filter;
+
+import com.ILoveU.util.AuthTokens;
+import com.ILoveU.util.ReplicaRouter;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * ReadRoutingFilter 为读写分离提供请求上下文。
+ * 客户端发起写请求（非 GET/HEAD/OPTIONS）后，响应中会带上记录写入时间的签名 Cookie；
+ * 之后携带该 Cookie 的读请求在回退窗口内使用主库（读自己的写），而不会读到副本尚未同步的旧数据。
+ * 写入时间由客户端携带而不是保存在本节点内存中，因此写请求和随后的读请求落到不同节点时同样生效。
+ * 请求转到隔离线程池执行时，BulkheadServlet 把绑定的写入时间带到执行线程上。
+ */
+public class ReadRoutingFilter implements Filter {
+
+    public static final String LAST_WRITE_COOKIE = "LIBRARY_LAST_WRITE";
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        boolean isWrite = !isReadMethod(httpRequest.getMethod());
+
+        // 写请求处理期间的读取（存在性、唯一性校验等）同样走主库
+        ReplicaRouter.bindLastWrite(isWrite ? Long.valueOf(System.currentTimeMillis()) : lastWriteFrom(httpRequest));
+        LastWriteResponse tracked = null;
+        if (isWrite && ReplicaRouter.hasReplicas()) {
+            tracked = new LastWriteResponse(httpRequest, (HttpServletResponse) response);
+            response = tracked;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRouter.unbindLastWrite();
+            if (tracked != null && !httpRequest.isAsyncStarted()) {
+                // 没有写响应体的同步请求（如只设置了默认状态码）在这里补上
+                tracked.writeLastWriteCookie();
+            }
+        }
+    }
+
+    private static boolean isReadMethod(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    private static Long lastWriteFrom(HttpServletRequest request) {
+        String value = AuthTokens.unseal(AuthTokens.cookieValue(request, LAST_WRITE_COOKIE));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 在响应提交前写入最近写入时间的 Cookie。Servlet 在写操作完成后才设置状态码和响应体，
+     * 因此回退窗口从写操作结束时开始计算；请求在隔离线程池上异步执行时，Servlet 使用的仍是这个包装对象。
+     */
+    private static final class LastWriteResponse extends HttpServletResponseWrapper {
+        private final HttpServletRequest request;
+        private volatile boolean written;
+
+        LastWriteResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        void writeLastWriteCookie() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            long maxAgeSeconds = (ReplicaRouter.readYourWritesMillis() + 999) / 1000;
+            AuthTokens.writeCookie(request, (HttpServletResponse) getResponse(), LAST_WRITE_COOKIE,
+                    AuthTokens.seal(Long.toString(System.currentTimeMillis())), maxAgeSeconds);
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            writeLastWriteCookie();
+            super.setStatus(sc);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeLastWriteCookie();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeLastWriteCookie();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeLastWriteCookie();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeLastWriteCookie();
+            return super.getWriter();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeLastWriteCookie();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeLastWriteCookie();
+            super.flushBuffer();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ILoveU.job;
+
+import com.ILoveU.dao.BookCountDAO;
+import com.ILoveU.dao.impl.BookCountDAOImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 定期校正出版社/作者/标签的 book_count 计数列。
+ * 计数在图书写操作的事务中增减，正常情况下不会偏差；此任务用于修复手工改库等途径造成的漂移。
+ */
+public class BookCountReconciliationJob implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookCountReconciliationJob.class);
+
+    /**
+     * 首次执行延迟和执行间隔（分钟）。
+     */
+    public static final long INITIAL_DELAY_MINUTES = 5;
+    public static final long INTERVAL_MINUTES = 60;
+
+    private final BookCountDAO bookCountDAO;
+
+    public BookCountReconciliationJob() {
+        this.bookCountDAO = new BookCountDAOImpl();
+    }
+
+    @Override
+    public void run() {
+        long start = System.currentTimeMillis();
+        int fixed = bookCountDAO.reconcileBookCounts();
+        long elapsed = System.currentTimeMillis() - start;
+        if (fixed < 0) {
+            logger.error("图书计数校正失败，耗时 {}ms。", elapsed);
+        } else if (fixed > 0) {
+            logger.warn("图书计数校正完成，修正 {} 行，耗时 {}ms。", fixed, elapsed);
+        } else {
+            logger.info("图书计数校正完成，无偏差，耗时 {}ms。", elapsed);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.ILoveU.job;
+
+import com.ILoveU.archive.ColdArchiveStore;
+import com.ILoveU.archive.LoanSegmentWriter;
+import com.ILoveU.dao.ColdArchiveDAO;
+import com.ILoveU.dao.impl.ColdArchiveDAOImpl;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.model.Loan;
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 冷归档导出任务：把 loans_archive 中归还时间早于保留期限的借阅写入本地压缩段文件（见 {@link ColdArchiveStore}），
+ * 然后从数据库中删除。在 hibernate.cfg.xml 中配置（均为可选）：
+ * <pre>
+ * library.cold_archive.dir           段文件目录，默认用户主目录下的 library-cold-archive
+ * library.cold_archive.loan_age_days 归还超过该天数的借阅导出为段文件，默认 1095（3年）
+ * library.cold_archive.segment_rows  每个段文件的记录数，默认 20000
+ * </pre>
+ *
+ * 每个段的导出顺序为：写临时文件并刷盘 → 在一个事务中删除数据库记录并登记段名 → 重命名为正式段文件。
+ * 进程在任意一步中断后，下一次运行先检查临时文件：已登记的补做重命名，未登记的删除（数据仍在数据库中）。
+ */
+public class ColdArchiveExportJob implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColdArchiveExportJob.class);
+
+    private static final String PREFIX = "library.cold_archive.";
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    /**
+     * 首次延迟和执行间隔（分钟）。
+     */
+    public static final long INITIAL_DELAY_MINUTES = 90;
+    public static final long INTERVAL_MINUTES = 7 * 24 * 60;
+
+    private final ColdArchiveDAO coldArchiveDAO;
+    private final ColdArchiveStore store;
+    private final int loanAgeDays;
+    private final int segmentRows;
+
+    public ColdArchiveExportJob() {
+        this(new ColdArchiveDAOImpl(), ColdArchiveStore.getInstance(), new Configuration().configure().getProperties());
+    }
+
+    public ColdArchiveExportJob(ColdArchiveDAO coldArchiveDAO, ColdArchiveStore store, Properties properties) {
+        this.coldArchiveDAO = coldArchiveDAO;
+        this.store = store;
+        this.loanAgeDays = Integer.parseInt(value(properties, PREFIX + "loan_age_days", "1095"));
+        this.segmentRows = Integer.parseInt(value(properties, PREFIX + "segment_rows", "20000"));
+    }
+
+    @Override
+    public void run() {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - loanAgeDays * DAY_MILLIS);
+        int segments = 0;
+        long rows = 0;
+        try {
+            recoverTemporaryFiles();
+            List<Loan> batch;
+            do {
+                batch = coldArchiveDAO.findLoansToExport(cutoff, segmentRows);
+                if (!batch.isEmpty()) {
+                    exportSegment(batch);
+                    segments++;
+                    rows += batch.size();
+                }
+            } while (batch.size() == segmentRows && !Thread.currentThread().isInterrupted());
+        } catch (IOException | OperationFailedException e) {
+            logger.error("冷归档导出失败，已导出 {} 个段 {} 条记录，剩余记录留给下一次运行: {}", segments, rows, e.getMessage(), e);
+            return;
+        }
+        if (segments > 0) {
+            logger.info("冷归档导出完成 - 归还早于 {} 的借阅共 {} 条，写入 {} 个段文件", cutoff, rows, segments);
+        }
+    }
+
+    private void exportSegment(List<Loan> batch) throws IOException {
+        List<Integer> loanIds = new ArrayList<>(batch.size());
+        int minLoanId = Integer.MAX_VALUE;
+        int maxLoanId = Integer.MIN_VALUE;
+        for (Loan loan : batch) {
+            loanIds.add(loan.getLoanId());
+            minLoanId = Math.min(minLoanId, loan.getLoanId());
+            maxLoanId = Math.max(maxLoanId, loan.getLoanId());
+        }
+        String name = "loans-" + minLoanId + "-" + maxLoanId + "-" + System.currentTimeMillis();
+        Path dir = store.directory();
+        Path temp = dir.resolve(name + ColdArchiveStore.TEMP_SUFFIX);
+        Path segment = dir.resolve(name + ColdArchiveStore.SEGMENT_SUFFIX);
+
+        LoanSegmentWriter.write(temp, batch);
+        try {
+            coldArchiveDAO.commitSegment(name, loanIds, minLoanId, maxLoanId);
+        } catch (OperationFailedException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, segment, StandardCopyOption.ATOMIC_MOVE);
+        store.add(segment);
+        logger.info("已导出冷归档段 {}，{} 条记录，{} 字节", segment.getFileName(), batch.size(), Files.size(segment));
+    }
+
+    private void recoverTemporaryFiles() throws IOException {
+        Set<String> registered = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(store.directory(), "*" + ColdArchiveStore.TEMP_SUFFIX)) {
+            for (Path temp : files) {
+                if (registered == null) {
+                    registered = coldArchiveDAO.findSegmentNames();
+                }
+                String fileName = temp.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - ColdArchiveStore.TEMP_SUFFIX.length());
+                if (registered.contains(name)) {
+                    Path segment = temp.resolveSibling(name + ColdArchiveStore.SEGMENT_SUFFIX);
+                    Files.move(temp, segment, StandardCopyOption.ATOMIC_MOVE);
+                    store.add(segment);
+                    logger.warn("补完上次中断的冷归档段 {}", segment.getFileName());
+                } else {
+                    Files.delete(temp);
+                    logger.warn("删除未提交的冷归档临时文件 {}", fileName);
+                }
+            }
+        }
+    }
+
+    private static String value(Properties properties, String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+}
@@ -0,0 +1,194 @@
+package com.ILoveU.job;
+
+import com.ILoveU.dao.FineDAO;
+import com.ILoveU.dao.impl.FineDAOImpl;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.util.FineSchedule;
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 逾期罚款批量计算任务：按收费标准（{@link FineSchedule}）计算所有逾期未还和逾期归还借阅的罚款，写入 loan_fines。
+ *
+ * 借阅ID范围由 fork/join 递归对半拆分，直到区间不超过 {@link #CHUNK_SIZE}，叶子区间各用一条主键范围查询读取候选借阅，
+ * 计算后用一次JDBC批处理写回。使用独立的、并行度为 {@link #PARALLELISM} 的 ForkJoinPool，
+ * 不占用公共池，也不会同时占用过多数据库连接。
+ *
+ * 每晚 {@link #RUN_AT_HOUR} 点增量运行：归还后已经计算过的借阅金额不会再变化，直接跳过；
+ * 调整收费标准后可调用 {@link #start(boolean)} 全量重算。同一时间只允许运行一次。
+ */
+public class FineCalculationJob implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FineCalculationJob.class);
+
+    public static final int CHUNK_SIZE = 10000;
+    public static final int PARALLELISM = 4;
+
+    /**
+     * 每天运行的时刻（服务器本地时间）和执行间隔（分钟）。
+     */
+    public static final int RUN_AT_HOUR = 2;
+    public static final long INTERVAL_MINUTES = 24 * 60;
+
+    private static final FineCalculationJob INSTANCE = new FineCalculationJob();
+
+    private final FineDAO fineDAO;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile FineSchedule schedule;
+
+    private FineCalculationJob() {
+        this.fineDAO = new FineDAOImpl();
+    }
+
+    public static FineCalculationJob getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return 距离下一次 {@link #RUN_AT_HOUR} 点的分钟数，用作定时任务的首次延迟
+     */
+    public static long minutesUntilNextRun() {
+        Calendar now = Calendar.getInstance();
+        Calendar next = (Calendar) now.clone();
+        next.set(Calendar.HOUR_OF_DAY, RUN_AT_HOUR);
+        next.set(Calendar.MINUTE, 0);
+        next.set(Calendar.SECOND, 0);
+        next.set(Calendar.MILLISECOND, 0);
+        if (!next.after(now)) {
+            next.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return (next.getTimeInMillis() - now.getTimeInMillis()) / 60000L;
+    }
+
+    /**
+     * 定时触发：增量计算。
+     */
+    @Override
+    public void run() {
+        if (!start(false)) {
+            logger.info("罚款计算正在运行，跳过本次定时触发。");
+        }
+    }
+
+    /**
+     * 在当前线程中执行一次计算，直到完成。
+     *
+     * @param full 是否全量重算（包括金额已固定的已归还借阅）
+     * @return 如果已有计算在运行则返回false
+     * @throws OperationFailedException 如果无法读取借阅ID范围
+     */
+    public boolean start(boolean full) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            calculate(full);
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void calculate(boolean full) {
+        int[] range = fineDAO.findLoanIdRange();
+        if (range == null) {
+            logger.info("借阅表为空，无需计算罚款。");
+            return;
+        }
+        FineSchedule currentSchedule = schedule();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Stats stats = new Stats();
+        long startedAt = System.currentTimeMillis();
+        logger.info("开始计算罚款 - 借阅ID范围 [{}, {}]，全量: {}，并行度: {}", range[0], range[1], full, PARALLELISM);
+
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+        try {
+            pool.invoke(new RangeTask(range[0], range[1] + 1L, now, full, currentSchedule, stats));
+        } finally {
+            pool.shutdown();
+        }
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - startedAt);
+        logger.info("罚款计算结束 - 写入 {} 条，罚款合计 {} 分，失败区间 {} 个，耗时 {}ms（{} 条/秒）",
+                stats.upserted.get(), stats.totalCents.get(), stats.failedChunks.get(), elapsed,
+                stats.upserted.get() * 1000L / elapsed);
+    }
+
+    private FineSchedule schedule() {
+        FineSchedule current = schedule;
+        if (current == null) {
+            current = FineSchedule.fromProperties(new Configuration().configure().getProperties());
+            schedule = current;
+        }
+        return current;
+    }
+
+    private static final class Stats {
+        final AtomicLong upserted = new AtomicLong();
+        final AtomicLong totalCents = new AtomicLong();
+        final AtomicInteger failedChunks = new AtomicInteger();
+    }
+
+    /**
+     * 处理借阅ID区间 [from, to)：超过 CHUNK_SIZE 时对半拆分并行处理，否则直接计算。
+     */
+    private final class RangeTask extends RecursiveAction {
+        private final long from;
+        private final long to;
+        private final Timestamp now;
+        private final boolean full;
+        private final FineSchedule schedule;
+        private final Stats stats;
+
+        RangeTask(long from, long to, Timestamp now, boolean full, FineSchedule schedule, Stats stats) {
+            this.from = from;
+            this.to = to;
+            this.now = now;
+            this.full = full;
+            this.schedule = schedule;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                long mid = from + (to - from) / 2;
+                invokeAll(new RangeTask(from, mid, now, full, schedule, stats),
+                        new RangeTask(mid, to, now, full, schedule, stats));
+                return;
+            }
+            try {
+                List<long[]> candidates = fineDAO.findFineCandidates((int) from, (int) to, now, full);
+                if (candidates.isEmpty()) {
+                    return;
+                }
+                List<long[]> fines = new ArrayList<>(candidates.size());
+                long chunkCents = 0;
+                for (long[] loan : candidates) {
+                    boolean accruing = loan[3] < 0;
+                    long end = accruing ? now.getTime() : loan[3];
+                    long overdueDays = FineSchedule.overdueDays(loan[2], end);
+                    long cents = schedule.fineCents(overdueDays);
+                    chunkCents += cents;
+                    fines.add(new long[]{loan[0], loan[1], overdueDays, cents, accruing ? 1 : 0});
+                }
+                stats.upserted.addAndGet(fineDAO.upsertFines(fines, now));
+                stats.totalCents.addAndGet(chunkCents);
+            } catch (OperationFailedException e) {
+                // 单个区间失败不影响其他区间，下一次运行会重新计算
+                stats.failedChunks.incrementAndGet();
+            }
+        }
+    }
+}
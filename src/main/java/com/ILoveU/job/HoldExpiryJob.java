@@ -0,0 +1,65 @@
+package com.ILoveU.job;
+
+import com.ILoveU.dao.HoldDAO;
+import com.ILoveU.dao.impl.HoldDAOImpl;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.util.HoldQueues;
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 预约过期任务：为读者保留的副本超过 library.holds.pickup_days 天未借走时，预约置为 EXPIRED，
+ * 副本转给队列中的下一位。还书和取消在各自的事务中直接分配副本，本任务只处理到期未取的情况，
+ * 查询走 (status, expires_at) 索引，没有过期预约时只是一次空的索引范围扫描。
+ */
+public class HoldExpiryJob implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HoldExpiryJob.class);
+
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * 首次延迟和执行间隔（分钟）。
+     */
+    public static final long INITIAL_DELAY_MINUTES = 5;
+    public static final long INTERVAL_MINUTES = 5;
+
+    private final HoldDAO holdDAO;
+    private final int pickupDays;
+
+    public HoldExpiryJob() {
+        this(new HoldDAOImpl(), new Configuration().configure().getProperties());
+    }
+
+    public HoldExpiryJob(HoldDAO holdDAO, Properties properties) {
+        this.holdDAO = holdDAO;
+        this.pickupDays = Integer.parseInt(properties.getProperty("library.holds.pickup_days", "3").trim());
+    }
+
+    @Override
+    public void run() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int expired = 0;
+        try {
+            List<Integer> changedBookIds;
+            do {
+                changedBookIds = holdDAO.expireReadyHolds(now, pickupDays, BATCH_SIZE);
+                for (Integer bookId : changedBookIds) {
+                    HoldQueues.invalidate(bookId);
+                }
+                expired += changedBookIds.size();
+            } while (changedBookIds.size() == BATCH_SIZE);
+        } catch (OperationFailedException e) {
+            logger.warn("预约过期处理失败，已处理 {} 个，剩余的留给下一次运行", expired);
+            return;
+        }
+        if (expired > 0) {
+            logger.info("预约过期处理完成 - {} 个预约过期，副本已转给下一位读者", expired);
+        }
+    }
+}
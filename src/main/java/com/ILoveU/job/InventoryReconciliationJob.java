@@ -0,0 +1,236 @@
+package com.ILoveU.job;
+
+import com.ILoveU.dao.InventoryDAO;
+import com.ILoveU.dao.impl.InventoryDAOImpl;
+import com.ILoveU.dto.InventoryMismatchDTO;
+import com.ILoveU.dto.InventoryReconciliationDTO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.util.DateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 库存核对任务：检查每本书的 numCopiesAvailable 是否等于 numCopiesTotal - 未归还借阅数。
+ *
+ * 可用库存由数据库触发器维护，手工改库或事务失败都可能造成漂移。任务把图书按ID切成固定大小的区间，
+ * 由有界的工作线程池并行扫描；每个区间只对 loans 做一次分组查询，读取不加锁。
+ * 开启修复时，每条不一致的记录在独立短事务中按"读到的旧值"做条件更新，期间发生借还的记录会被跳过。
+ *
+ * 同一时间只允许运行一次，进度和最近一次的结果可通过 {@link #status()} 查询。
+ */
+public class InventoryReconciliationJob implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReconciliationJob.class);
+
+    public static final int CHUNK_SIZE = 1000;
+    public static final int PARALLELISM = 4;
+    // 结果中最多保留的不一致记录条数，避免大面积漂移时占用过多内存
+    public static final int MAX_REPORTED_MISMATCHES = 500;
+
+    /**
+     * 定时核对（只报告、不修复）的首次延迟和执行间隔（分钟）。
+     */
+    public static final long INITIAL_DELAY_MINUTES = 30;
+    public static final long INTERVAL_MINUTES = 24 * 60;
+
+    public enum State {
+        IDLE, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * 一次运行的状态，工作线程并发更新。
+     */
+    private static final class Run {
+        final boolean repair;
+        final long startedAt = System.currentTimeMillis();
+        final int minBookId;
+        final int totalChunks;
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final AtomicInteger completedChunks = new AtomicInteger();
+        final AtomicInteger failedChunks = new AtomicInteger();
+        final AtomicInteger activeWorkers = new AtomicInteger();
+        final AtomicLong booksScanned = new AtomicLong();
+        final AtomicInteger mismatchCount = new AtomicInteger();
+        final AtomicInteger repairedCount = new AtomicInteger();
+        final List<InventoryMismatchDTO> mismatches = new ArrayList<>();
+        volatile State state = State.RUNNING;
+        volatile long finishedAt;
+
+        Run(boolean repair, int minBookId, int totalChunks) {
+            this.repair = repair;
+            this.minBookId = minBookId;
+            this.totalChunks = totalChunks;
+        }
+    }
+
+    private static final InventoryReconciliationJob INSTANCE = new InventoryReconciliationJob();
+
+    private final InventoryDAO inventoryDAO;
+    private volatile Run current;
+
+    private InventoryReconciliationJob() {
+        this.inventoryDAO = new InventoryDAOImpl();
+    }
+
+    /**
+     * 定时触发和手动触发共用同一个实例，以保证同一时间只有一次核对在运行。
+     */
+    public static InventoryReconciliationJob getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 定时触发：只报告不修复；已有运行中的核对时跳过。
+     */
+    @Override
+    public void run() {
+        if (!start(false)) {
+            logger.info("库存核对正在运行，跳过本次定时触发。");
+        }
+    }
+
+    /**
+     * 在后台启动一次核对。
+     *
+     * @param repair 是否修复发现的不一致记录
+     * @return 如果已有核对在运行则返回false
+     * @throws OperationFailedException 如果无法读取图书ID范围
+     */
+    public synchronized boolean start(boolean repair) {
+        if (current != null && current.state == State.RUNNING) {
+            return false;
+        }
+        int[] range = inventoryDAO.findBookIdRange();
+        if (range == null) {
+            Run empty = new Run(repair, 0, 0);
+            empty.state = State.COMPLETED;
+            empty.finishedAt = empty.startedAt;
+            current = empty;
+            return true;
+        }
+
+        int totalChunks = (int) (((long) range[1] - range[0]) / CHUNK_SIZE + 1);
+        Run run = new Run(repair, range[0], totalChunks);
+        current = run;
+
+        int workers = Math.min(PARALLELISM, totalChunks);
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "inventory-reconciliation-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        run.activeWorkers.set(workers);
+        logger.info("开始库存核对 - 图书ID范围 [{}, {}]，{} 个区间，{} 个工作线程，修复: {}",
+                range[0], range[1], totalChunks, workers, repair);
+        for (int i = 0; i < workers; i++) {
+            pool.execute(() -> work(run));
+        }
+        // 已提交的任务执行完后线程池自行结束
+        pool.shutdown();
+        return true;
+    }
+
+    /**
+     * @return 当前或最近一次核对的进度和结果
+     */
+    public InventoryReconciliationDTO status() {
+        Run run = current;
+        InventoryReconciliationDTO dto = new InventoryReconciliationDTO();
+        if (run == null) {
+            dto.setState(State.IDLE.name());
+            return dto;
+        }
+        long end = run.finishedAt > 0 ? run.finishedAt : System.currentTimeMillis();
+        long elapsed = Math.max(0, end - run.startedAt);
+        long scanned = run.booksScanned.get();
+
+        dto.setState(run.state.name());
+        dto.setRepair(run.repair);
+        dto.setStartedAt(DateUtil.formatTimestampToISOString(new Timestamp(run.startedAt)));
+        dto.setFinishedAt(run.finishedAt > 0 ? DateUtil.formatTimestampToISOString(new Timestamp(run.finishedAt)) : null);
+        dto.setTotalChunks(run.totalChunks);
+        dto.setCompletedChunks(run.completedChunks.get());
+        dto.setFailedChunks(run.failedChunks.get());
+        dto.setProgress(run.totalChunks == 0 ? 1.0 : (double) run.completedChunks.get() / run.totalChunks);
+        dto.setBooksScanned(scanned);
+        dto.setElapsedMs(elapsed);
+        dto.setBooksPerSecond(elapsed == 0 ? 0.0 : scanned * 1000.0 / elapsed);
+        dto.setMismatchCount(run.mismatchCount.get());
+        dto.setRepairedCount(run.repairedCount.get());
+        synchronized (run.mismatches) {
+            dto.setMismatches(new ArrayList<>(run.mismatches));
+        }
+        return dto;
+    }
+
+    /**
+     * 工作线程循环领取下一个区间，直到所有区间处理完；最后一个退出的线程负责收尾。
+     */
+    private void work(Run run) {
+        try {
+            int chunk;
+            while ((chunk = run.nextChunk.getAndIncrement()) < run.totalChunks) {
+                scanChunk(run, chunk);
+            }
+        } finally {
+            if (run.activeWorkers.decrementAndGet() == 0) {
+                run.finishedAt = System.currentTimeMillis();
+                run.state = run.failedChunks.get() > 0 ? State.FAILED : State.COMPLETED;
+                logger.info("库存核对结束 - 状态: {}，扫描图书 {} 本，不一致 {} 条，已修复 {} 条，失败区间 {} 个，耗时 {}ms",
+                        run.state, run.booksScanned.get(), run.mismatchCount.get(), run.repairedCount.get(),
+                        run.failedChunks.get(), run.finishedAt - run.startedAt);
+            }
+        }
+    }
+
+    private void scanChunk(Run run, int chunk) {
+        int fromId = run.minBookId + chunk * CHUNK_SIZE;
+        int toId = fromId + CHUNK_SIZE;
+        List<int[]> rows;
+        try {
+            rows = inventoryDAO.findInventoryInRange(fromId, toId);
+        } catch (OperationFailedException e) {
+            run.failedChunks.incrementAndGet();
+            run.completedChunks.incrementAndGet();
+            return;
+        }
+
+        for (int[] row : rows) {
+            int bookId = row[0];
+            int total = row[1];
+            int available = row[2];
+            int activeLoans = row[3];
+            int expected = total - activeLoans;
+            if (available == expected) {
+                continue;
+            }
+            run.mismatchCount.incrementAndGet();
+            boolean repaired = false;
+            // 借出数超过总库存时无法确定正确值，只报告不修复
+            if (run.repair && expected >= 0) {
+                repaired = inventoryDAO.repairAvailableCopies(bookId, available, expected);
+                if (repaired) {
+                    run.repairedCount.incrementAndGet();
+                }
+            }
+            logger.warn("图书ID {} 库存不一致 - 总库存: {}，可用: {}，未归还借阅: {}，应为: {}，已修复: {}",
+                    bookId, total, available, activeLoans, expected, repaired);
+            synchronized (run.mismatches) {
+                if (run.mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                    run.mismatches.add(new InventoryMismatchDTO(bookId, total, available, activeLoans, expected, repaired));
+                }
+            }
+        }
+        run.booksScanned.addAndGet(rows.size());
+        run.completedChunks.incrementAndGet();
+    }
+}
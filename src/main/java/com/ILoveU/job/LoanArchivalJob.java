@@ -0,0 +1,87 @@
+package com.ILoveU.job;
+
+import com.ILoveU.dao.LoanDAO;
+import com.ILoveU.dao.impl.LoanDAOImpl;
+import com.ILoveU.exception.OperationFailedException;
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.Properties;
+
+/**
+ * 借阅历史归档任务：把归还时间早于保留期限的借阅从 loans 移入 loans_archive，让热表只保留未归还和近期的记录，
+ * 常用查询和索引都能留在缓冲池中。在 hibernate.cfg.xml 中配置（均为可选）：
+ * <pre>
+ * library.archive.loan_age_days 归还超过该天数的借阅会被归档，默认 365
+ * library.archive.batch_size    每个事务移动的记录数，默认 500
+ * </pre>
+ *
+ * 每批在独立的短事务中完成（锁定、复制、删除），批与批之间短暂停顿，避免长时间持锁和复制延迟。
+ */
+public class LoanArchivalJob implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanArchivalJob.class);
+
+    private static final String PREFIX = "library.archive.";
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    // 两批之间的停顿（毫秒）
+    private static final long PAUSE_BETWEEN_BATCHES_MS = 50L;
+
+    /**
+     * 首次延迟和执行间隔（分钟）。
+     */
+    public static final long INITIAL_DELAY_MINUTES = 60;
+    public static final long INTERVAL_MINUTES = 24 * 60;
+
+    private final LoanDAO loanDAO;
+    private final int loanAgeDays;
+    private final int batchSize;
+
+    public LoanArchivalJob() {
+        this(new LoanDAOImpl(), new Configuration().configure().getProperties());
+    }
+
+    public LoanArchivalJob(LoanDAO loanDAO, Properties properties) {
+        this.loanDAO = loanDAO;
+        this.loanAgeDays = Integer.parseInt(value(properties, PREFIX + "loan_age_days", "365"));
+        this.batchSize = Integer.parseInt(value(properties, PREFIX + "batch_size", "500"));
+    }
+
+    @Override
+    public void run() {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - loanAgeDays * DAY_MILLIS);
+        long startedAt = System.currentTimeMillis();
+        long archived = 0;
+        int batches = 0;
+        try {
+            int moved;
+            do {
+                moved = loanDAO.archiveReturnedLoans(cutoff, batchSize);
+                archived += moved;
+                batches++;
+                if (moved > 0) {
+                    Thread.sleep(PAUSE_BETWEEN_BATCHES_MS);
+                }
+            } while (moved > 0);
+        } catch (InterruptedException e) {
+            // 应用关闭：已提交的批次保持有效，剩余的留给下一次运行
+            Thread.currentThread().interrupt();
+            logger.info("借阅归档被中断，已归档 {} 条", archived);
+            return;
+        } catch (OperationFailedException e) {
+            logger.warn("借阅归档在第 {} 批失败，已归档 {} 条，剩余记录留给下一次运行", batches, archived);
+            return;
+        }
+        if (archived > 0) {
+            logger.info("借阅归档完成 - 归还早于 {} 的借阅共归档 {} 条，{} 批，耗时 {}ms",
+                    cutoff, archived, batches, System.currentTimeMillis() - startedAt);
+        }
+    }
+
+    private static String value(Properties properties, String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+}
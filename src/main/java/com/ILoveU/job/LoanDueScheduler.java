@@ -0,0 +1,150 @@
+package com.ILoveU.job;
+
+import com.ILoveU.dao.LoanDAO;
+import com.ILoveU.dao.impl.LoanDAOImpl;
+import com.ILoveU.event.EventHub;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.util.TimingWheel;
+import com.ILoveU.util.UserLoanStatsCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * 借阅到期调度：在应还日期前 {@link #DUE_SOON_ADVANCE_MS} 写入"即将到期"通知，到期时把借阅标记为逾期并写入"逾期"通知。
+ *
+ * 所有未归还借阅的到期事件放在内存中的分层时间轮里，启动时从数据库加载一次，之后借出/归还时增量维护；
+ * 每秒推进一次时间轮，只处理真正到期的事件，不再需要定期全表扫描 loans。
+ * 状态变化和通知写入在同一事务中完成，且对同一借阅同一事件只写一次，因此多实例部署或重试都不会产生重复通知。
+ */
+public class LoanDueScheduler implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanDueScheduler.class);
+
+    public static final String EVENT_DUE_SOON = "DUE_SOON";
+    public static final String EVENT_OVERDUE = "OVERDUE";
+
+    public static final long TICK_MILLIS = 1000L;
+    public static final long DUE_SOON_ADVANCE_MS = 24L * 60 * 60 * 1000;
+    // 写库失败的事件在该时间后重试
+    public static final long RETRY_DELAY_MS = 60L * 1000;
+
+    /**
+     * 时间轮中的一个到期事件。
+     */
+    private static final class DueEvent {
+        final int loanId;
+        final int userId;
+        final String type;
+
+        DueEvent(int loanId, int userId, String type) {
+            this.loanId = loanId;
+            this.userId = userId;
+            this.type = type;
+        }
+    }
+
+    private static final LoanDueScheduler INSTANCE = new LoanDueScheduler();
+
+    private final LoanDAO loanDAO;
+    private final TimingWheel<String, DueEvent> wheel;
+    private volatile boolean started;
+
+    private LoanDueScheduler() {
+        this.loanDAO = new LoanDAOImpl();
+        this.wheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+    }
+
+    public static LoanDueScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 从数据库加载所有未归还借阅的到期事件。由 HibernateAppListener 在启动时调用一次。
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        List<Object[]> rows = loanDAO.findActiveLoanDueDates();
+        for (Object[] row : rows) {
+            int loanId = (Integer) row[0];
+            int userId = (Integer) row[1];
+            Timestamp dueDate = (Timestamp) row[2];
+            boolean overdue = Boolean.TRUE.equals(row[3]);
+            if (!overdue && dueDate != null) {
+                scheduleEvents(loanId, userId, dueDate.getTime());
+            }
+        }
+        started = true;
+        logger.info("借阅到期调度已启动，加载未归还借阅 {} 条，待触发事件 {} 个", rows.size(), wheel.size());
+    }
+
+    /**
+     * 新借阅创建后调用，登记其到期事件。
+     */
+    public void onCheckout(int loanId, int userId, Timestamp dueDate) {
+        if (dueDate != null) {
+            scheduleEvents(loanId, userId, dueDate.getTime());
+        }
+    }
+
+    /**
+     * 借阅归还后调用，取消其尚未触发的到期事件。
+     */
+    public void onReturn(int loanId) {
+        wheel.cancel(key(loanId, EVENT_DUE_SOON));
+        wheel.cancel(key(loanId, EVENT_OVERDUE));
+    }
+
+    /**
+     * @return 尚未触发的事件数
+     */
+    public int pendingEvents() {
+        return wheel.size();
+    }
+
+    /**
+     * 推进时间轮并处理到期事件，由后台调度器每 {@link #TICK_MILLIS} 毫秒执行一次。
+     */
+    @Override
+    public void run() {
+        if (!started) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (TimingWheel.Expired<String, DueEvent> expired : wheel.advanceTo(now)) {
+            DueEvent event = expired.getPayload();
+            try {
+                if (EVENT_OVERDUE.equals(event.type)) {
+                    if (loanDAO.markOverdue(event.loanId)) {
+                        UserLoanStatsCache.adjust(event.userId, 0, 1);
+                        EventHub.getInstance().publishLoanChanged(event.loanId, event.userId, null, "OVERDUE");
+                        logger.info("借阅ID {} 已逾期，已写入逾期通知", event.loanId);
+                    }
+                } else if (loanDAO.addDueSoonNotification(event.loanId)) {
+                    logger.debug("借阅ID {} 即将到期，已写入提醒通知", event.loanId);
+                }
+            } catch (OperationFailedException e) {
+                logger.warn("处理借阅ID {} 的 {} 事件失败，{}ms 后重试", event.loanId, event.type, RETRY_DELAY_MS);
+                // 重试前若借阅已归还，onReturn 会将其取消；即使错过取消，写库时也会按 return_date 跳过
+                wheel.schedule(expired.getKey(), now + RETRY_DELAY_MS, event);
+            }
+        }
+    }
+
+    private void scheduleEvents(int loanId, int userId, long dueMillis) {
+        long dueSoonAt = dueMillis - DUE_SOON_ADVANCE_MS;
+        // 借期本身不足提醒提前量、或启动时已过提醒时间的借阅，立即提醒；已到期的直接进入逾期处理
+        if (System.currentTimeMillis() < dueMillis) {
+            wheel.schedule(key(loanId, EVENT_DUE_SOON), dueSoonAt, new DueEvent(loanId, userId, EVENT_DUE_SOON));
+        }
+        wheel.schedule(key(loanId, EVENT_OVERDUE), dueMillis, new DueEvent(loanId, userId, EVENT_OVERDUE));
+    }
+
+    private static String key(int loanId, String type) {
+        return loanId + ":" + type;
+    }
+}
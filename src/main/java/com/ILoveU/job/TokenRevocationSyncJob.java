@@ -0,0 +1,50 @@
+package com.ILoveU.job;
+
+import com.ILoveU.dao.RevokedTokenDAO;
+import com.ILoveU.dao.impl.RevokedTokenDAOImpl;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.util.AuthTokens;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+
+/**
+ * 令牌撤销同步任务：把 revoked_tokens 和 revoked_user_tokens 中未过期的记录合并到本节点的内存撤销表（见 AuthTokens），
+ * 使在其他节点注销的令牌最多在 {@link #INTERVAL_SECONDS} 秒后在本节点也失效；同时删除令牌本身已过期的记录。
+ */
+public class TokenRevocationSyncJob implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationSyncJob.class);
+
+    /**
+     * 首次延迟和执行间隔（秒）。首次立即执行，使重启后的节点不会接受已注销的令牌。
+     */
+    public static final long INITIAL_DELAY_SECONDS = 0;
+    public static final long INTERVAL_SECONDS = 30;
+
+    private final RevokedTokenDAO revokedTokenDAO;
+
+    public TokenRevocationSyncJob() {
+        this(new RevokedTokenDAOImpl());
+    }
+
+    public TokenRevocationSyncJob(RevokedTokenDAO revokedTokenDAO) {
+        this.revokedTokenDAO = revokedTokenDAO;
+    }
+
+    @Override
+    public void run() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try {
+            AuthTokens.mergeRevocations(revokedTokenDAO.findUnexpired(now));
+            AuthTokens.mergeUserRevocations(revokedTokenDAO.findUnexpiredUsers(now));
+            int deleted = revokedTokenDAO.deleteExpired(now);
+            if (deleted > 0) {
+                logger.info("清理了 {} 条过期的令牌撤销记录，当前撤销表 {} 条", deleted, AuthTokens.revokedCount());
+            }
+        } catch (OperationFailedException e) {
+            logger.warn("同步令牌撤销表失败，下次运行时重试");
+        }
+    }
+}
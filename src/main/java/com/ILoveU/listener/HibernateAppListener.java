@@ -1,13 +1,76 @@
 package com.ILoveU.listener;
 
+import com.ILoveU.event.EventHub;
+import com.ILoveU.job.BookCountReconciliationJob;
+import com.ILoveU.job.ColdArchiveExportJob;
+import com.ILoveU.job.FineCalculationJob;
+import com.ILoveU.job.HoldExpiryJob;
+import com.ILoveU.job.InventoryReconciliationJob;
+import com.ILoveU.job.LoanArchivalJob;
+import com.ILoveU.job.LoanDueScheduler;
+import com.ILoveU.job.TokenRevocationSyncJob;
+import com.ILoveU.util.BackgroundJobs;
+import com.ILoveU.util.Bulkheads;
 import com.ILoveU.util.HibernateUtil;
+import com.ILoveU.util.LoginThrottle;
+import com.ILoveU.util.Metrics;
+import com.ILoveU.util.PasswordHashExecutor;
+import com.ILoveU.util.ReplicaRouter;
+import com.ILoveU.util.SchemaMigrator;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
 
+import java.util.concurrent.TimeUnit;
+
+@WebListener
 public class HibernateAppListener implements ServletContextListener {
 
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        // 先执行数据库迁移，再构建SessionFactory（hbm2ddl.auto=validate 要求表结构已经就绪）
+        SchemaMigrator.migrate();
+        HibernateUtil.getSessionFactory();
+
+        BackgroundJobs.scheduleWithFixedDelay("book-count-reconciliation", new BookCountReconciliationJob(),
+                BookCountReconciliationJob.INITIAL_DELAY_MINUTES, BookCountReconciliationJob.INTERVAL_MINUTES, TimeUnit.MINUTES);
+        // 每日只报告不修复；需要修复时通过 POST /api/inventory/reconciliation?repair=true 手动触发
+        BackgroundJobs.scheduleWithFixedDelay("inventory-reconciliation", InventoryReconciliationJob.getInstance(),
+                InventoryReconciliationJob.INITIAL_DELAY_MINUTES, InventoryReconciliationJob.INTERVAL_MINUTES, TimeUnit.MINUTES);
+        // 每晚增量计算逾期罚款
+        BackgroundJobs.scheduleWithFixedDelay("fine-calculation", FineCalculationJob.getInstance(),
+                FineCalculationJob.minutesUntilNextRun(), FineCalculationJob.INTERVAL_MINUTES, TimeUnit.MINUTES);
+        // 把早已归还的借阅移入归档表，保持 loans 热表较小
+        BackgroundJobs.scheduleWithFixedDelay("loan-archival", new LoanArchivalJob(),
+                LoanArchivalJob.INITIAL_DELAY_MINUTES, LoanArchivalJob.INTERVAL_MINUTES, TimeUnit.MINUTES);
+        // 每周把多年前的归档借阅导出为本地段文件
+        BackgroundJobs.scheduleWithFixedDelay("cold-archive-export", new ColdArchiveExportJob(),
+                ColdArchiveExportJob.INITIAL_DELAY_MINUTES, ColdArchiveExportJob.INTERVAL_MINUTES, TimeUnit.MINUTES);
+        // 保留期内未借走的预约过期，副本转给下一位
+        BackgroundJobs.scheduleWithFixedDelay("hold-expiry", new HoldExpiryJob(),
+                HoldExpiryJob.INITIAL_DELAY_MINUTES, HoldExpiryJob.INTERVAL_MINUTES, TimeUnit.MINUTES);
+        // 其他节点注销的令牌同步到本节点的撤销表
+        BackgroundJobs.scheduleWithFixedDelay("token-revocation-sync", new TokenRevocationSyncJob(),
+                TokenRevocationSyncJob.INITIAL_DELAY_SECONDS, TokenRevocationSyncJob.INTERVAL_SECONDS, TimeUnit.SECONDS);
+        // GET /api/metrics 输出的指标
+        Metrics.register("loginThrottle", LoginThrottle::metrics);
+        Metrics.register("passwordHashing", PasswordHashExecutor::metrics);
+        Metrics.register("bulkheads", Bulkheads::metrics);
+        // /api/events 的分发线程
+        EventHub.getInstance().start();
+        // 加载未归还借阅的到期事件后每秒推进一次时间轮
+        LoanDueScheduler.getInstance().start();
+        BackgroundJobs.scheduleWithFixedDelay("loan-due-scheduler", LoanDueScheduler.getInstance(),
+                LoanDueScheduler.TICK_MILLIS, LoanDueScheduler.TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
+        EventHub.getInstance().shutdown();
+        BackgroundJobs.shutdown();
+        Bulkheads.shutdown();
+        PasswordHashExecutor.shutdown();
+        ReplicaRouter.shutdown();
         HibernateUtil.shutdown();
     }
 
@@ -1,5 +1,6 @@
 package com.ILoveU.model;
 
+import com.ILoveU.util.TextNormalizer;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -18,7 +19,9 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "authors")
+@Table(name = "authors", indexes = {
+        @Index(name = "idx_authors_name_normalized", columnList = "last_name_normalized, first_name_normalized")
+})
 public class Author {
 
     @Id
@@ -32,6 +35,18 @@ public class Author {
     @Column(name = "last_name", nullable = false, length = 100)
     private String lastName;
 
+    // 规范化后的姓名（见 TextNormalizer），用于不区分大小写的重名检查，走复合索引点查
+    @Column(name = "first_name_normalized", length = 100)
+    private String firstNameNormalized;
+
+    @Column(name = "last_name_normalized", length = 100)
+    private String lastNameNormalized;
+
+    // 关联的图书数量，由 BookDAOImpl 在图书写操作的同一事务中增减（见 V6 迁移），
+    // 实体自身的 insert/update/merge 不写入该列，避免用过期值覆盖计数
+    @Column(name = "book_count", nullable = false, insertable = false, updatable = false)
+    private Integer bookCount = 0;
+
     @Lob
     @Basic(fetch = FetchType.EAGER)
     @Column(name = "bio")
@@ -49,6 +64,13 @@ public class Author {
     private Set<Book> books = new HashSet<>();
 
 
+    @PrePersist
+    @PreUpdate
+    void normalizeLookupColumns() {
+        this.firstNameNormalized = TextNormalizer.normalize(firstName);
+        this.lastNameNormalized = TextNormalizer.normalize(lastName);
+    }
+
     Set<Book> getBooksInternal() {
         return books;
     }
@@ -0,0 +1,60 @@
+package com.ILoveU.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+
+/**
+ * 表示读者对一本暂无库存的图书的预约。
+ * 同一本书的等待中预约按 holdId 先进先出；状态变化由 HoldDAOImpl 中的原生SQL在借还事务内完成。
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "holds")
+public class Hold {
+
+    public enum Status {
+        /** 排队等待 */
+        WAITING,
+        /** 已为该读者保留一本，需在 expiresAt 之前借走 */
+        READY,
+        /** 读者已借走 */
+        FULFILLED,
+        /** 读者取消 */
+        CANCELLED,
+        /** 保留过期未借走 */
+        EXPIRED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "hold_id")
+    private Integer holdId;
+
+    @Column(name = "book_id", nullable = false)
+    private Integer bookId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 12)
+    private Status status = Status.WAITING;
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private Timestamp createdAt;
+
+    @Column(name = "ready_at")
+    private Timestamp readyAt;
+
+    @Column(name = "expires_at")
+    private Timestamp expiresAt;
+
+    @Column(name = "closed_at")
+    private Timestamp closedAt;
+}
@@ -75,5 +75,12 @@ public class Loan {
      */
     @Column(name = "return_date", nullable = true)
     private Timestamp returnDate;
+
+    /**
+     * 是否已逾期（到期时仍未归还）。
+     * 由 LoanDueScheduler 在到期时置位（同时写入通知发件箱），实体自身的 insert/update 不写入该列。
+     */
+    @Column(name = "overdue", nullable = false, insertable = false, updatable = false)
+    private Boolean overdue = false;
 }
 
@@ -1,5 +1,6 @@
 package com.ILoveU.model;
 
+import com.ILoveU.util.TextNormalizer;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -12,7 +13,9 @@ import javax.persistence.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "presses")
+@Table(name = "presses", indexes = {
+        @Index(name = "idx_presses_name_normalized", columnList = "name_normalized")
+})
 public class Press {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,4 +24,19 @@ public class Press {
 
     @Column(name = "name", nullable = false)
     private String name;
+
+    // 规范化后的名称（见 TextNormalizer），用于不区分大小写的重名检查，走索引点查
+    @Column(name = "name_normalized")
+    private String nameNormalized;
+
+    // 关联的图书数量，由 BookDAOImpl 在图书写操作的同一事务中增减（见 V6 迁移），
+    // 实体自身的 insert/update/merge 不写入该列，避免用过期值覆盖计数
+    @Column(name = "book_count", nullable = false, insertable = false, updatable = false)
+    private Integer bookCount = 0;
+
+    @PrePersist
+    @PreUpdate
+    void normalizeLookupColumns() {
+        this.nameNormalized = TextNormalizer.normalize(name);
+    }
 }
@@ -1,5 +1,6 @@
 package com.ILoveU.model;
 
+import com.ILoveU.util.TextNormalizer;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -15,7 +16,9 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "tags")
+@Table(name = "tags", indexes = {
+        @Index(name = "uk_tags_name_normalized", columnList = "name_normalized", unique = true)
+})
 public class Tag {
 
     @Id
@@ -26,6 +29,15 @@ public class Tag {
     @Column(name = "name", nullable = false, length = 100, unique = true)
     private String name;
 
+    // 规范化后的名称（见 TextNormalizer），用于不区分大小写的唯一性检查，走索引点查
+    @Column(name = "name_normalized", length = 100)
+    private String nameNormalized;
+
+    // 关联的图书数量，由 BookDAOImpl 在图书写操作的同一事务中增减（见 V6 迁移），
+    // 实体自身的 insert/update/merge 不写入该列，避免用过期值覆盖计数
+    @Column(name = "book_count", nullable = false, insertable = false, updatable = false)
+    private Integer bookCount = 0;
+
     @ManyToMany(mappedBy = "tags", fetch = FetchType.LAZY)
     // "tags" 是 Book 类中 @ManyToMany 注解标记的那个 Set<Tag> 属性的名称
     private Set<Book> books = new HashSet<>();
@@ -51,6 +63,12 @@ public class Tag {
         }
     }
 
+    @PrePersist
+    @PreUpdate
+    void normalizeLookupColumns() {
+        this.nameNormalized = TextNormalizer.normalize(name);
+    }
+
     // 重写 equals 和 hashCode
     @Override
     public boolean equals(Object o) {
@@ -1,5 +1,6 @@
 package com.ILoveU.model;
 
+import com.ILoveU.util.TextNormalizer;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -12,8 +13,20 @@ import javax.persistence.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity // 标识此类为Hibernate实体类
-@Table(name = "users") // 指定对应的数据库表名
+@Table(name = "users", indexes = { // 指定对应的数据库表名
+        @Index(name = "uk_users_account_normalized", columnList = "account_normalized", unique = true)
+})
 public class User {
+
+    public enum Role {
+        /** 读者：浏览目录，办理自己的借还和预约 */
+        READER,
+        /** 馆员：另外可以维护图书目录、为任何读者办理借还、查看逾期和归档 */
+        LIBRARIAN,
+        /** 管理员：另外可以查看运行指标、修改用户角色 */
+        ADMIN
+    }
+
     @Id // 标识该字段为主键
     @GeneratedValue(strategy = GenerationType.IDENTITY) // 主键生成策略为自增
     @Column(name = "user_id") // 映射到 'user_id' 列
@@ -27,4 +40,18 @@ public class User {
 
     @Column(name = "password", nullable = false, length = 255) // 映射到 'password' 列
     private String password;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "role", nullable = false, length = 16)
+    private Role role = Role.READER;
+
+    // 规范化后的账户名（见 TextNormalizer），账户查找和重复检查都按它做索引点查
+    @Column(name = "account_normalized", length = 255)
+    private String accountNormalized;
+
+    @PrePersist
+    @PreUpdate
+    void normalizeLookupColumns() {
+        this.accountNormalized = TextNormalizer.normalize(account);
+    }
 }
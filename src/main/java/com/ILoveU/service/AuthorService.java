@@ -3,6 +3,7 @@ package com.ILoveU.service;
 import com.ILoveU.dto.AuthorDTO;
 import com.ILoveU.dto.PageDTO;
 import com.ILoveU.exception.*;
+import com.ILoveU.util.FieldMask;
 
 public interface AuthorService {
 
@@ -20,6 +21,28 @@ public interface AuthorService {
      */
     PageDTO<AuthorDTO> getAuthors(String nameKeyword, int page, int pageSize) throws ValidationException;
 
+    /**
+     * 与 {@link #getAuthors(String, int, int)} 相同，但只查询并返回字段掩码中请求的属性。
+     *
+     * @param fieldMask 由 ?fields= 参数解析得到的字段掩码，为null时返回全部字段。
+     * @return 当前页的作者列表，未请求的属性为null，不会出现在JSON中。
+     * @throws ValidationException 如果页码或每页大小参数无效。
+     */
+    PageDTO<AuthorDTO> getAuthors(String nameKeyword, int page, int pageSize, FieldMask fieldMask) throws ValidationException;
+
+    /**
+     * 容错搜索作者（?fuzzy=true）：按姓名与关键词的编辑距离匹配，能容忍少量拼写错误。
+     * 结果按相似度排序。
+     *
+     * @param nameKeyword 搜索关键词，不能为空。
+     * @param fieldMask   字段掩码，为null时返回全部字段。
+     * @return 当前页的作者列表。
+     * @throws ValidationException 如果关键词为空，或页码/每页大小参数无效。
+     * @throws ServiceUnavailableException 如果容错索引暂时不可用。
+     */
+    PageDTO<AuthorDTO> fuzzySearchAuthors(String nameKeyword, int page, int pageSize, FieldMask fieldMask)
+            throws ValidationException, ServiceUnavailableException;
+
     /**
      * 根据指定的ID获取单个作者的详细信息。
      *
@@ -4,6 +4,7 @@ import com.ILoveU.dto.BookCreateRequestDTO;
 import com.ILoveU.dto.BookDTO;
 import com.ILoveU.dto.PageDTO;
 import com.ILoveU.exception.*;
+import com.ILoveU.util.FieldMask;
 
 /**
  * BookService 接口定义了与图书（Book）相关的业务逻辑操作。
@@ -29,6 +30,32 @@ public interface BookService {
     PageDTO<BookDTO> getBooks(String searchKeyword, Integer pressId, Integer tagId, int page, int pageSize)
             throws ValidationException, OperationFailedException;
 
+    /**
+     * 与 {@link #getBooks(String, Integer, Integer, int, int)} 相同，但只返回字段掩码中请求的属性。
+     * 掩码同时用于裁剪数据库查询（不请求 press/authors/tags 时不会加载这些关联）。
+     *
+     * @param fieldMask 由 ?fields= 参数解析得到的字段掩码，为null时返回全部字段。
+     * @return 当前页的图书列表，未请求的属性为null，不会出现在JSON中。
+     * @throws ValidationException 如果页码或每页大小参数无效。
+     * @throws OperationFailedException 如果在获取数据过程中发生意外的后端错误。
+     */
+    PageDTO<BookDTO> getBooks(String searchKeyword, Integer pressId, Integer tagId, int page, int pageSize, FieldMask fieldMask)
+            throws ValidationException, OperationFailedException;
+
+    /**
+     * 容错搜索图书（?fuzzy=true）：按标题与关键词的编辑距离匹配，能容忍少量拼写错误。
+     * 结果按相似度排序，出版社/标签过滤条件在分页之前生效，总数为过滤后的全部匹配数。
+     *
+     * @param searchKeyword 搜索关键词，不能为空。
+     * @param fieldMask     字段掩码，为null时返回全部字段。
+     * @return 当前页的图书列表。
+     * @throws ValidationException 如果关键词为空，或页码/每页大小参数无效。
+     * @throws OperationFailedException 如果在获取数据过程中发生意外的后端错误。
+     * @throws ServiceUnavailableException 如果容错索引暂时不可用。
+     */
+    PageDTO<BookDTO> fuzzySearchBooks(String searchKeyword, Integer pressId, Integer tagId, int page, int pageSize, FieldMask fieldMask)
+            throws ValidationException, OperationFailedException, ServiceUnavailableException;
+
     /**
      * 根据指定的ID获取单个图书的详细信息。
      * 返回的DTO应包含关联的作者、出版社和标签的摘要信息。
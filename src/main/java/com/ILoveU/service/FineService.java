@@ -0,0 +1,21 @@
+package com.ILoveU.service;
+
+import com.ILoveU.dto.FineBalanceDTO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.ResourceNotFoundException;
+
+/**
+ * FineService 提供逾期罚款的查询。罚款由后台任务 FineCalculationJob 每晚批量计算。
+ */
+public interface FineService {
+
+    /**
+     * 获取用户的罚款余额。
+     *
+     * @param userId 用户ID
+     * @return 用户的罚款汇总
+     * @throws ResourceNotFoundException 如果用户不存在
+     * @throws OperationFailedException  如果查询过程中发生错误
+     */
+    FineBalanceDTO getUserFineBalance(int userId) throws ResourceNotFoundException, OperationFailedException;
+}
@@ -0,0 +1,59 @@
+package com.ILoveU.service;
+
+import com.ILoveU.dto.HoldDTO;
+import com.ILoveU.exception.DuplicateResourceException;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
+import com.ILoveU.exception.ResourceNotFoundException;
+import com.ILoveU.exception.ValidationException;
+
+import java.util.List;
+
+/**
+ * HoldService 提供图书预约队列：暂无可借副本时读者排队，副本归还后按先后顺序为队首读者保留，
+ * 并通过通知发件箱告知读者，读者无需反复查询图书库存。
+ */
+public interface HoldService {
+
+    /**
+     * 预约一本暂无可借副本的图书。
+     *
+     * @throws ResourceNotFoundException   如果用户或图书不存在
+     * @throws DuplicateResourceException  如果用户对这本书已有未结束的预约
+     * @throws OperationForbiddenException 如果图书当前有可借副本（应直接借阅）
+     * @throws OperationFailedException    如果数据库操作失败
+     */
+    HoldDTO placeHold(int userId, int bookId)
+            throws ResourceNotFoundException, DuplicateResourceException, OperationForbiddenException, OperationFailedException;
+
+    /**
+     * 查询用户未结束的预约（等待中的带有排队位置）。
+     *
+     * @throws ResourceNotFoundException 如果用户不存在
+     * @throws OperationFailedException  如果查询失败
+     */
+    List<HoldDTO> getHoldsByUserId(int userId) throws ResourceNotFoundException, OperationFailedException;
+
+    /**
+     * 按ID查询预约，用于取消前确认预约属于当前用户。
+     *
+     * @throws ResourceNotFoundException 如果预约不存在
+     * @throws OperationFailedException  如果查询失败
+     */
+    HoldDTO getHoldById(int holdId) throws ResourceNotFoundException, OperationFailedException;
+
+    /**
+     * 取消预约；正在保留的副本转给下一位。
+     *
+     * @throws ResourceNotFoundException 如果预约不存在
+     * @throws ValidationException       如果预约已经结束
+     * @throws OperationFailedException  如果数据库操作失败
+     */
+    HoldDTO cancelHold(int holdId) throws ResourceNotFoundException, ValidationException, OperationFailedException;
+
+    /**
+     * 图书的可用库存在借还之外发生变化（例如修改了库存）后调用，把新增的可借副本分配给等待中的预约。
+     * 失败只记录日志，不影响调用方。
+     */
+    void onAvailabilityChanged(int bookId);
+}
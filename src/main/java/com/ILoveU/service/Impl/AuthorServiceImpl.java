@@ -1,36 +1,45 @@
 package com.ILoveU.service.Impl;
 
 import com.ILoveU.dao.AuthorDAO;
-import com.ILoveU.dao.BookDAO;
 import com.ILoveU.dao.impl.AuthorDAOImpl;
-import com.ILoveU.dao.impl.BookDAOImpl;
 import com.ILoveU.dto.AuthorDTO;
 import com.ILoveU.dto.PageDTO;
 import com.ILoveU.exception.*;
 import com.ILoveU.model.Author;
 import com.ILoveU.service.AuthorService;
+import com.ILoveU.service.SuggestService;
 import com.ILoveU.util.DateUtil;
+import com.ILoveU.util.FieldMask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class AuthorServiceImpl implements AuthorService {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthorServiceImpl.class);
     private final AuthorDAO authorDAO;
-    private final BookDAO bookDAO;
+    private final SuggestService suggestService; // 维护输入联想索引
 
     public AuthorServiceImpl() {
         this.authorDAO = new AuthorDAOImpl();
-        this.bookDAO = new BookDAOImpl();
+        this.suggestService = new SuggestServiceImpl();
     }
 
 
     @Override
     public PageDTO<AuthorDTO> getAuthors(String nameKeyword, int page, int pageSize) throws ValidationException {
+        return getAuthors(nameKeyword, page, pageSize, FieldMask.ALL);
+    }
+
+    @Override
+    public PageDTO<AuthorDTO> getAuthors(String nameKeyword, int page, int pageSize, FieldMask fieldMask) throws ValidationException {
         // 校验1: 页码和每页大小
         if (page <= 0 || pageSize <= 0) {
             logger.warn("无效的分页参数 - page: {}, pageSize: {}", page, pageSize);
@@ -46,13 +55,13 @@ public class AuthorServiceImpl implements AuthorService {
         }
 
 
-        logger.debug("正在获取作者分页数据 - 关键词: '{}', 页码: {}, 每页大小: {}", nameKeyword, page, pageSize);
-        List<Author> authors = authorDAO.findAuthorsByNameKeyword(nameKeyword, page, pageSize);
+        logger.debug("正在获取作者分页数据 - 关键词: '{}', 页码: {}, 每页大小: {}, 字段: {}", nameKeyword, page, pageSize, fieldMask);
+        List<Author> authors = authorDAO.findAuthorsByNameKeyword(nameKeyword, page, pageSize, fieldMask);
         long totalAuthors = authorDAO.countAuthorsByNameKeyword(nameKeyword);
 
         // 将Author实体列表转换为AuthorDTO列表
         List<AuthorDTO> authorDTOs = authors.stream()
-                .map(this::convertToAuthorDTO)
+                .map(author -> convertToAuthorDTO(author, fieldMask))
                 .collect(Collectors.toList());
 
         return new PageDTO<>(authorDTOs, totalAuthors, page, pageSize);
@@ -67,12 +76,67 @@ public class AuthorServiceImpl implements AuthorService {
                 author.getFirstName(),
                 author.getLastName(),
                 author.getBio(),
+                author.getBookCount(),
                 // 假设DateUtil可以安全地将Timestamp转换为ISO8601字符串
                 author.getCreatedAt() != null ? DateUtil.formatTimestampToISOString(author.getCreatedAt()) : null,
                 author.getUpdatedAt() != null ? DateUtil.formatTimestampToISOString(author.getUpdatedAt()) : null
         );
     }
 
+    @Override
+    public PageDTO<AuthorDTO> fuzzySearchAuthors(String nameKeyword, int page, int pageSize, FieldMask fieldMask) throws ValidationException {
+        if (page <= 0 || pageSize <= 0) {
+            logger.warn("无效的分页参数 - page: {}, pageSize: {}", page, pageSize);
+            throw new ValidationException("页码和每页大小必须大于0。");
+        }
+        if (nameKeyword == null || nameKeyword.trim().isEmpty()) {
+            throw new ValidationException("容错搜索需要提供搜索关键词。");
+        }
+
+        String trimmedKeyword = nameKeyword.trim();
+        logger.debug("容错搜索作者 - 关键词: '{}', 页码: {}, 每页大小: {}", trimmedKeyword, page, pageSize);
+
+        // 候选ID来自内存索引，已按相似度排序；取全部匹配，总数即真实的匹配数
+        List<Integer> matchedIds = suggestService.fuzzySearch(SuggestService.Category.AUTHOR, trimmedKeyword, Integer.MAX_VALUE);
+        int fromIndex = (int) Math.min((long) (page - 1) * pageSize, matchedIds.size());
+        int toIndex = (int) Math.min((long) fromIndex + pageSize, matchedIds.size());
+        List<Integer> pageIds = matchedIds.subList(fromIndex, toIndex);
+
+        Map<Integer, Author> authorsById = new HashMap<>();
+        for (Author author : authorDAO.findAuthorsByIds(new LinkedHashSet<>(pageIds))) {
+            authorsById.put(author.getAuthorId(), author);
+        }
+        List<AuthorDTO> authorDTOs = new ArrayList<>(pageIds.size());
+        for (Integer id : pageIds) {
+            Author author = authorsById.get(id);
+            if (author != null) {
+                authorDTOs.add(convertToAuthorDTO(author, fieldMask));
+            }
+        }
+        return new PageDTO<>(authorDTOs, matchedIds.size(), page, pageSize);
+    }
+
+    /**
+     * 按字段掩码将 Author 转换为 AuthorDTO，只填充被请求的属性。
+     */
+    private AuthorDTO convertToAuthorDTO(Author author, FieldMask fieldMask) {
+        if (fieldMask == null || fieldMask.isAll()) {
+            return convertToAuthorDTO(author);
+        }
+        if (author == null) {
+            return null;
+        }
+        AuthorDTO dto = new AuthorDTO();
+        if (fieldMask.includes("id")) dto.setId(author.getAuthorId());
+        if (fieldMask.includes("firstName")) dto.setFirstName(author.getFirstName());
+        if (fieldMask.includes("lastName")) dto.setLastName(author.getLastName());
+        if (fieldMask.includes("bio")) dto.setBio(author.getBio());
+        if (fieldMask.includes("bookCount")) dto.setBookCount(author.getBookCount());
+        if (fieldMask.includes("createdAt")) dto.setCreatedAt(DateUtil.formatTimestampToISOString(author.getCreatedAt()));
+        if (fieldMask.includes("updatedAt")) dto.setUpdatedAt(DateUtil.formatTimestampToISOString(author.getUpdatedAt()));
+        return dto;
+    }
+
     @Override
     public AuthorDTO getAuthorById(int authorId) throws ResourceNotFoundException {
         logger.info("开始查询作者信息，authorId: {}", authorId);
@@ -146,6 +210,7 @@ public class AuthorServiceImpl implements AuthorService {
             throw new OperationFailedException("创建作者时发生数据库错误。", e);
         }
 
+        suggestService.upsert(SuggestService.Category.AUTHOR, savedAuthor.getAuthorId(), fullNameOf(savedAuthor));
         return convertToAuthorDTO(savedAuthor);
     }
 
@@ -227,51 +292,37 @@ public class AuthorServiceImpl implements AuthorService {
             throw new OperationFailedException("更新作者信息到数据库时发生错误。", e);
         }
 
+        suggestService.upsert(SuggestService.Category.AUTHOR, authorId, fullNameOf(updatedAuthor));
         return convertToAuthorDTO(updatedAuthor);
     }
 
+    /**
+     * 作者在联想索引中的显示名称: "firstName lastName"。
+     */
+    private String fullNameOf(Author author) {
+        String firstName = author.getFirstName() == null ? "" : author.getFirstName();
+        String lastName = author.getLastName() == null ? "" : author.getLastName();
+        return (firstName + " " + lastName).trim();
+    }
+
     @Override
     public void deleteAuthor(int authorId)
             throws ResourceNotFoundException, OperationForbiddenException, OperationFailedException {
         logger.info("尝试删除作者，ID: {}", authorId);
-        Author authorToDelete;
+        // 存在性和关联图书都在DAO的删除事务中检查：锁定作者行后读取主库上的 book_count。
+        // 不再先经只读会话查询——它可能落到副本上，读到过期的计数
+        boolean deleted;
         try {
-            authorToDelete = authorDAO.findAuthorById(authorId);
-        } catch (Exception e) {
-            logger.error("删除作者ID {} 时查找失败。", authorId, e);
-            throw new OperationFailedException("查找待删除作者时发生错误。", e);
+            deleted = authorDAO.deleteAuthor(authorId);
+        } catch (OperationForbiddenException e) {
+            logger.warn("删除作者ID {} 失败：{}", authorId, e.getMessage());
+            throw e;
         }
-
-        if (authorToDelete == null) {
+        if (!deleted) {
             throw new ResourceNotFoundException("未找到ID为 " + authorId + " 的作者，无法删除。");
         }
-
-        long bookCount;
-        try {
-            // 依赖BookDAO来检查作者是否有关联的书籍
-            bookCount = bookDAO.countBooksByAuthorId(authorId);
-        } catch (Exception e) {
-            logger.error("删除作者ID {} 时检查关联书籍失败。", authorId, e);
-            throw new OperationFailedException("检查作者关联书籍时发生错误。", e);
-        }
-
-        if (bookCount > 0) {
-            logger.warn("删除作者ID {} 失败：该作者尚著有 {} 本书籍。", authorId, bookCount);
-            throw new OperationForbiddenException("无法删除该作者，他/她尚著有 " + bookCount + " 本书籍。");
-        }
-
-        try {
-            if (!authorDAO.deleteAuthor(authorId)) {
-                logger.warn("删除作者ID {} 操作在DAO层未成功执行。", authorId);
-                // 如果DAO的deleteAuthor返回false，且前面已确认作者存在且无关联书籍，
-                // 这可能指示一个不期望的状态或DAO内部问题。
-                throw new OperationFailedException("删除作者ID " + authorId + " 操作未成功完成。");
-            }
-            logger.info("作者ID {} 已成功删除。", authorId);
-        } catch (Exception e) {
-            logger.error("删除作者ID {} 时发生数据库错误。", authorId, e);
-            throw new OperationFailedException("删除作者时发生数据库错误。", e);
-        }
+        logger.info("作者ID {} 已成功删除。", authorId);
+        suggestService.remove(SuggestService.Category.AUTHOR, authorId);
     }
 
 }
@@ -5,14 +5,18 @@ import com.ILoveU.dto.ApiErrorResponse;
 import com.ILoveU.dto.BookCreateRequestDTO;
 import com.ILoveU.dto.BookDTO;
 import com.ILoveU.dto.PageDTO;
+import com.ILoveU.event.EventHub;
 import com.ILoveU.exception.*;
 import com.ILoveU.model.Author;
 import com.ILoveU.model.Book;
 import com.ILoveU.model.Press;
 import com.ILoveU.model.Tag;
 import com.ILoveU.service.BookService;
+import com.ILoveU.service.HoldService;
+import com.ILoveU.service.SuggestService;
 import com.ILoveU.servlet.BookServlet;
 import com.ILoveU.util.DateUtil;
+import com.ILoveU.util.FieldMask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,6 +32,8 @@ public class BookServiceImpl implements BookService {
     private final PressDAO pressDAO;
     private final TagDAO tagDAO;
     private final LoanDAO loanDAO; // 用于 deleteBook 操作
+    private final SuggestService suggestService; // 维护输入联想索引
+    private final HoldService holdService; // 库存变化后分配预约副本
 
     // 通过构造函数注入DAO实例
     public BookServiceImpl(BookDAO bookDAO, AuthorDAO authorDAO, PressDAO pressDAO, TagDAO tagDAO, LoanDAO loanDAO) {
@@ -36,6 +42,52 @@ public class BookServiceImpl implements BookService {
         this.pressDAO = pressDAO;
         this.tagDAO = tagDAO;
         this.loanDAO = loanDAO;
+        this.suggestService = new SuggestServiceImpl();
+        this.holdService = new HoldServiceImpl();
+    }
+
+    /**
+     * 在图书写操作成功后更新输入联想索引：
+     * 图书标题本身，以及出版社/作者/标签的热度（关联图书数量）。
+     * @param before 写操作前图书关联的 [出版社ID集合, 作者ID集合, 标签ID集合]，新建图书时为null
+     * @param after  写操作后的图书，删除图书时为null
+     */
+    private void syncSuggestIndex(int bookId, List<Set<Integer>> before, Book after) {
+        if (after == null) {
+            suggestService.remove(SuggestService.Category.BOOK, bookId);
+        } else {
+            suggestService.upsert(SuggestService.Category.BOOK, bookId, after.getTitle());
+        }
+        List<Set<Integer>> current = after == null ? null : associationIdsOf(after);
+        SuggestService.Category[] categories = {
+                SuggestService.Category.PRESS, SuggestService.Category.AUTHOR, SuggestService.Category.TAG};
+        for (int i = 0; i < categories.length; i++) {
+            Set<Integer> oldIds = before == null ? Collections.emptySet() : before.get(i);
+            Set<Integer> newIds = current == null ? Collections.emptySet() : current.get(i);
+            for (Integer id : oldIds) {
+                if (!newIds.contains(id)) {
+                    suggestService.adjustPopularity(categories[i], id, -1);
+                }
+            }
+            for (Integer id : newIds) {
+                if (!oldIds.contains(id)) {
+                    suggestService.adjustPopularity(categories[i], id, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 图书当前关联的 [出版社ID集合, 作者ID集合, 标签ID集合]
+     */
+    private List<Set<Integer>> associationIdsOf(Book book) {
+        Set<Integer> pressIds = new HashSet<>();
+        if (book.getPress() != null && book.getPress().getPressId() != null) {
+            pressIds.add(book.getPress().getPressId());
+        }
+        Set<Integer> authorIds = book.getAuthors().stream().map(Author::getAuthorId).collect(Collectors.toSet());
+        Set<Integer> tagIds = book.getTags().stream().map(Tag::getTagId).collect(Collectors.toSet());
+        return Arrays.asList(pressIds, authorIds, tagIds);
     }
     /**
      * 辅助方法，将 Book 实体转换为 BookDTO。
@@ -85,9 +137,54 @@ public class BookServiceImpl implements BookService {
         return dto;
     }
 
+    /**
+     * 按字段掩码将 Book 转换为 BookDTO，只填充被请求的属性。
+     * @param book 要转换的 Book 实体（可以是DAO返回的投影快照）
+     * @param fieldMask 字段掩码
+     * @return 转换后的 BookDTO 对象，如果输入为null则返回null
+     */
+    private BookDTO convertToBookDTO(Book book, FieldMask fieldMask) {
+        if (fieldMask == null || fieldMask.isAll()) {
+            return convertToBookDTO(book);
+        }
+        if (book == null) {
+            return null;
+        }
+
+        BookDTO dto = new BookDTO();
+        if (fieldMask.includes("id")) dto.setId(book.getBookId());
+        if (fieldMask.includes("title")) dto.setTitle(book.getTitle());
+        if (fieldMask.includes("isbn")) dto.setIsbn(book.getIsbn());
+        if (fieldMask.includes("numCopiesTotal")) dto.setNumCopiesTotal(book.getNumCopiesTotal());
+        if (fieldMask.includes("numCopiesAvailable")) dto.setNumCopiesAvailable(book.getNumCopiesAvailable());
+        if (fieldMask.includes("createdAt")) dto.setCreatedAt(DateUtil.formatTimestampToISOString(book.getCreatedAt()));
+        if (fieldMask.includes("updatedAt")) dto.setUpdatedAt(DateUtil.formatTimestampToISOString(book.getUpdatedAt()));
+
+        if (fieldMask.includes("press") && book.getPress() != null) {
+            dto.setPress(new BookDTO.PressInfoDTO(book.getPress().getPressId(), book.getPress().getName()));
+        }
+        if (fieldMask.includes("authors")) {
+            dto.setAuthors(book.getAuthors().stream()
+                    .map(author -> new BookDTO.AuthorInfoDTO(author.getAuthorId(), author.getFirstName(), author.getLastName()))
+                    .collect(Collectors.toList()));
+        }
+        if (fieldMask.includes("tags")) {
+            dto.setTags(book.getTags().stream()
+                    .map(tag -> new BookDTO.TagInfoDTO(tag.getTagId(), tag.getName()))
+                    .collect(Collectors.toList()));
+        }
+        return dto;
+    }
+
     @Override
     public PageDTO<BookDTO> getBooks(String searchKeyword, Integer pressId, Integer tagId, int page, int pageSize)
             throws ValidationException, OperationFailedException {
+        return getBooks(searchKeyword, pressId, tagId, page, pageSize, FieldMask.ALL);
+    }
+
+    @Override
+    public PageDTO<BookDTO> getBooks(String searchKeyword, Integer pressId, Integer tagId, int page, int pageSize, FieldMask fieldMask)
+            throws ValidationException, OperationFailedException {
 
         // 校验分页参数
         if (page <= 0) {
@@ -100,14 +197,14 @@ public class BookServiceImpl implements BookService {
         // 处理搜索关键词，去除前后空格，如果为空则设为null
         String trimmedKeyword = (searchKeyword != null && !searchKeyword.trim().isEmpty()) ? searchKeyword.trim() : null;
 
-        logger.debug("获取图书分页列表 - 关键词: '{}', 出版社ID: {}, 标签ID: {}, 页码: {}, 每页大小: {}",
-                trimmedKeyword, pressId, tagId, page, pageSize);
+        logger.debug("获取图书分页列表 - 关键词: '{}', 出版社ID: {}, 标签ID: {}, 页码: {}, 每页大小: {}, 字段: {}",
+                trimmedKeyword, pressId, tagId, page, pageSize, fieldMask);
 
         List<Book> books;
         long totalBooks;
         try {
             // 调用DAO层获取数据
-            books = bookDAO.findBooks(trimmedKeyword, pressId, tagId, page, pageSize);
+            books = bookDAO.findBooks(trimmedKeyword, pressId, tagId, page, pageSize, fieldMask);
             totalBooks = bookDAO.countBooks(trimmedKeyword, pressId, tagId);
         } catch (Exception e) {
             logger.error("Service层获取图书列表时发生数据库错误。", e);
@@ -116,12 +213,53 @@ public class BookServiceImpl implements BookService {
 
         // 将实体列表转换为DTO列表
         List<BookDTO> bookDTOs = books.stream()
-                .map(this::convertToBookDTO)
+                .map(book -> convertToBookDTO(book, fieldMask))
                 .collect(Collectors.toList());
 
         return new PageDTO<>(bookDTOs, totalBooks, page, pageSize);
     }
 
+    @Override
+    public PageDTO<BookDTO> fuzzySearchBooks(String searchKeyword, Integer pressId, Integer tagId, int page, int pageSize, FieldMask fieldMask)
+            throws ValidationException, OperationFailedException {
+        if (page <= 0) {
+            throw new ValidationException("页码必须是正整数。", Collections.singletonList(new ApiErrorResponse.FieldErrorDetail("page", "页码必须大于0")));
+        }
+        if (pageSize <= 0) {
+            throw new ValidationException("每页大小必须是正整数。", Collections.singletonList(new ApiErrorResponse.FieldErrorDetail("pageSize", "每页大小必须大于0")));
+        }
+        if (searchKeyword == null || searchKeyword.trim().isEmpty()) {
+            throw new ValidationException("容错搜索需要提供搜索关键词。", Collections.singletonList(new ApiErrorResponse.FieldErrorDetail("search", "关键词不能为空")));
+        }
+
+        String trimmedKeyword = searchKeyword.trim();
+        logger.debug("容错搜索图书 - 关键词: '{}', 出版社ID: {}, 标签ID: {}, 页码: {}, 每页大小: {}",
+                trimmedKeyword, pressId, tagId, page, pageSize);
+
+        // 候选ID来自内存索引（已按相似度排序），出版社/标签过滤仍交给数据库。
+        // 取全部匹配再过滤和分页：先截断再过滤会丢掉满足条件的匹配，总数和页数也不对
+        List<Integer> matchedIds = suggestService.fuzzySearch(SuggestService.Category.BOOK, trimmedKeyword, Integer.MAX_VALUE);
+        List<Book> books;
+        long totalBooks;
+        try {
+            if (pressId != null || tagId != null) {
+                matchedIds = bookDAO.filterBookIds(matchedIds, pressId, tagId);
+            }
+            totalBooks = matchedIds.size();
+            int fromIndex = (int) Math.min((long) (page - 1) * pageSize, matchedIds.size());
+            int toIndex = (int) Math.min((long) fromIndex + pageSize, matchedIds.size());
+            books = bookDAO.findBooksByIds(matchedIds.subList(fromIndex, toIndex));
+        } catch (Exception e) {
+            logger.error("Service层容错搜索图书时发生数据库错误。", e);
+            throw new OperationFailedException("搜索图书失败，请稍后再试。", e);
+        }
+
+        List<BookDTO> bookDTOs = books.stream()
+                .map(book -> convertToBookDTO(book, fieldMask))
+                .collect(Collectors.toList());
+        return new PageDTO<>(bookDTOs, totalBooks, page, pageSize);
+    }
+
     @Override
     public BookDTO getBookById(int bookId) throws ResourceNotFoundException, OperationFailedException {
         logger.info("查询图书详情，ID: {}", bookId);
@@ -248,6 +386,8 @@ public class BookServiceImpl implements BookService {
         }
 
         logger.info("图书 '{}' (ID: {}) 创建成功。", savedBook.getTitle(), savedBook.getBookId());
+        syncSuggestIndex(savedBook.getBookId(), null, savedBook);
+        EventHub.getInstance().publishBookChanged(savedBook.getBookId(), "CREATED");
         return convertToBookDTO(savedBook); // 转换并返回DTO
     }
 
@@ -302,6 +442,7 @@ public class BookServiceImpl implements BookService {
         if (existingBook == null) {
             throw new ResourceNotFoundException("未找到ID为 " + bookId + " 的图书，无法更新。");
         }
+        List<Set<Integer>> associationsBefore = associationIdsOf(existingBook);
 
         // 更新基本属性
         existingBook.setTitle(updateRequest.getTitle().trim());
@@ -402,6 +543,10 @@ public class BookServiceImpl implements BookService {
         }
 
         logger.info("图书ID {} 已成功更新。", updatedBookEntity.getBookId());
+        syncSuggestIndex(bookId, associationsBefore, updatedBookEntity);
+        holdService.onAvailabilityChanged(bookId);
+        EventHub.getInstance().publishBookChanged(bookId, "UPDATED");
+        EventHub.getInstance().publishAvailabilityChanged(bookId);
         return convertToBookDTO(updatedBookEntity);
     }
 
@@ -473,6 +618,8 @@ public class BookServiceImpl implements BookService {
                 throw new OperationFailedException("删除图书ID " + bookId + " 操作未成功完成。");
             }
             logger.info("图书ID {} 已成功删除。", bookId);
+            syncSuggestIndex(bookId, associationIdsOf(bookToDelete), null);
+            EventHub.getInstance().publishBookChanged(bookId, "DELETED");
         } catch (Exception e) { // 例如，如果数据库层面仍有其他约束阻止删除
             logger.error("删除图书ID {} 时发生数据库错误。", bookId, e);
             throw new OperationFailedException("删除图书时发生数据库错误。", e);
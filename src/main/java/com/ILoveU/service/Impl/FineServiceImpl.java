@@ -0,0 +1,49 @@
+package com.ILoveU.service.Impl;
+
+import com.ILoveU.dao.FineDAO;
+import com.ILoveU.dao.UserDAO;
+import com.ILoveU.dao.impl.FineDAOImpl;
+import com.ILoveU.dao.impl.UserDAOImpl;
+import com.ILoveU.dto.FineBalanceDTO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.ResourceNotFoundException;
+import com.ILoveU.service.FineService;
+import com.ILoveU.util.DateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+public class FineServiceImpl implements FineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FineServiceImpl.class);
+    private final FineDAO fineDAO;
+    private final UserDAO userDAO;
+
+    public FineServiceImpl() {
+        this(new FineDAOImpl(), new UserDAOImpl());
+    }
+
+    public FineServiceImpl(FineDAO fineDAO, UserDAO userDAO) {
+        this.fineDAO = fineDAO;
+        this.userDAO = userDAO;
+    }
+
+    @Override
+    public FineBalanceDTO getUserFineBalance(int userId) throws ResourceNotFoundException, OperationFailedException {
+        if (userDAO.findUserById(userId) == null) {
+            logger.warn("查询罚款余额失败：未找到用户ID {}", userId);
+            throw new ResourceNotFoundException("未找到ID为 " + userId + " 的用户。");
+        }
+
+        Object[] row = fineDAO.summarizeFinesByUserId(userId);
+        FineBalanceDTO dto = new FineBalanceDTO();
+        dto.setUserId(userId);
+        dto.setBalance(row[0] == null ? BigDecimal.ZERO.setScale(2) : (BigDecimal) row[0]);
+        dto.setFinedLoans(row[1] == null ? 0L : ((Number) row[1]).longValue());
+        dto.setAccruingLoans(row[2] == null ? 0L : ((Number) row[2]).longValue());
+        dto.setCalculatedAt(row[3] == null ? null : DateUtil.formatTimestampToISOString((Timestamp) row[3]));
+        return dto;
+    }
+}
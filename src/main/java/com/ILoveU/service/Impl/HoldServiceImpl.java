@@ -0,0 +1,153 @@
+package com.ILoveU.service.Impl;
+
+import com.ILoveU.dao.BookDAO;
+import com.ILoveU.dao.HoldDAO;
+import com.ILoveU.dao.UserDAO;
+import com.ILoveU.dao.impl.BookDAOImpl;
+import com.ILoveU.dao.impl.HoldDAOImpl;
+import com.ILoveU.dao.impl.UserDAOImpl;
+import com.ILoveU.dto.HoldDTO;
+import com.ILoveU.exception.DuplicateResourceException;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
+import com.ILoveU.exception.ResourceNotFoundException;
+import com.ILoveU.exception.ValidationException;
+import com.ILoveU.model.Hold;
+import com.ILoveU.service.HoldService;
+import com.ILoveU.util.DateUtil;
+import com.ILoveU.util.HoldQueues;
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+public class HoldServiceImpl implements HoldService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HoldServiceImpl.class);
+    private final HoldDAO holdDAO;
+    private final UserDAO userDAO;
+    private final BookDAO bookDAO;
+
+    // 为预约读者保留副本的天数，在 hibernate.cfg.xml 中通过 library.holds.pickup_days 配置
+    private final int pickupDays;
+
+    public HoldServiceImpl() {
+        this(new HoldDAOImpl(), new UserDAOImpl(), new BookDAOImpl());
+    }
+
+    public HoldServiceImpl(HoldDAO holdDAO, UserDAO userDAO, BookDAO bookDAO) {
+        this.holdDAO = holdDAO;
+        this.userDAO = userDAO;
+        this.bookDAO = bookDAO;
+        Properties properties = new Configuration().configure().getProperties();
+        this.pickupDays = Integer.parseInt(properties.getProperty("library.holds.pickup_days", "3").trim());
+    }
+
+    private HoldDTO convertToHoldDTO(Hold hold) {
+        HoldDTO dto = new HoldDTO();
+        dto.setId(hold.getHoldId());
+        dto.setUserId(hold.getUserId());
+        dto.setBookId(hold.getBookId());
+        dto.setStatus(hold.getStatus().name());
+        dto.setPosition(positionOf(hold));
+        dto.setCreatedAt(DateUtil.formatTimestampToISOString(hold.getCreatedAt()));
+        dto.setReadyAt(DateUtil.formatTimestampToISOString(hold.getReadyAt()));
+        dto.setExpiresAt(DateUtil.formatTimestampToISOString(hold.getExpiresAt()));
+        return dto;
+    }
+
+    /**
+     * 从队列镜像中读取排队位置，镜像未加载或已过期时从数据库加载。
+     */
+    private Integer positionOf(Hold hold) {
+        if (hold.getStatus() != Hold.Status.WAITING) {
+            return null;
+        }
+        int position = HoldQueues.positionOf(hold.getBookId(), hold.getHoldId());
+        if (position < 0) {
+            HoldQueues.load(hold.getBookId(), holdDAO.findWaitingQueue(hold.getBookId()));
+            position = HoldQueues.positionOf(hold.getBookId(), hold.getHoldId());
+        }
+        return position > 0 ? position : null;
+    }
+
+    @Override
+    public HoldDTO placeHold(int userId, int bookId)
+            throws ResourceNotFoundException, DuplicateResourceException, OperationForbiddenException, OperationFailedException {
+        logger.info("用户ID: {} 尝试预约图书ID: {}", userId, bookId);
+        if (userDAO.findUserById(userId) == null) {
+            logger.warn("预约失败：未找到用户ID {}", userId);
+            throw new ResourceNotFoundException("未找到ID为 " + userId + " 的用户。");
+        }
+        if (bookDAO.findBookById(bookId) == null) {
+            logger.warn("预约失败：未找到图书ID {}", bookId);
+            throw new ResourceNotFoundException("未找到ID为 " + bookId + " 的图书。");
+        }
+
+        Hold hold = holdDAO.placeHold(userId, bookId);
+        if (hold == null) {
+            // 校验之后图书被删除
+            throw new ResourceNotFoundException("未找到ID为 " + bookId + " 的图书。");
+        }
+        HoldQueues.append(bookId, hold.getHoldId(), userId);
+        // 重新读取以获得数据库生成的 created_at
+        Hold saved = holdDAO.findHoldById(hold.getHoldId());
+        return convertToHoldDTO(saved != null ? saved : hold);
+    }
+
+    @Override
+    public List<HoldDTO> getHoldsByUserId(int userId) throws ResourceNotFoundException, OperationFailedException {
+        if (userDAO.findUserById(userId) == null) {
+            logger.warn("查询预约失败：未找到用户ID {}", userId);
+            throw new ResourceNotFoundException("未找到ID为 " + userId + " 的用户。");
+        }
+        List<Hold> holds = holdDAO.findOpenHoldsByUserId(userId);
+        List<HoldDTO> result = new ArrayList<>(holds.size());
+        for (Hold hold : holds) {
+            result.add(convertToHoldDTO(hold));
+        }
+        return result;
+    }
+
+    @Override
+    public HoldDTO getHoldById(int holdId) throws ResourceNotFoundException, OperationFailedException {
+        Hold hold = holdDAO.findHoldById(holdId);
+        if (hold == null) {
+            throw new ResourceNotFoundException("未找到ID为 " + holdId + " 的预约。");
+        }
+        return convertToHoldDTO(hold);
+    }
+
+    @Override
+    public HoldDTO cancelHold(int holdId) throws ResourceNotFoundException, ValidationException, OperationFailedException {
+        logger.info("尝试取消预约ID: {}", holdId);
+        Hold hold = holdDAO.findHoldById(holdId);
+        if (hold == null) {
+            logger.warn("取消预约失败：未找到预约ID {}", holdId);
+            throw new ResourceNotFoundException("未找到ID为 " + holdId + " 的预约。");
+        }
+
+        Hold cancelled = holdDAO.cancelHold(holdId, pickupDays);
+        if (cancelled == null) {
+            logger.warn("取消预约失败：预约ID {} 已结束。", holdId);
+            throw new ValidationException("该预约已结束，无法取消。");
+        }
+        HoldQueues.invalidate(cancelled.getBookId());
+        return convertToHoldDTO(cancelled);
+    }
+
+    @Override
+    public void onAvailabilityChanged(int bookId) {
+        try {
+            if (holdDAO.promoteHolds(bookId, pickupDays) > 0) {
+                HoldQueues.invalidate(bookId);
+            }
+        } catch (OperationFailedException e) {
+            // 保留的副本会在下一次还书或过期处理时重新分配
+            logger.warn("图书ID {} 库存变化后分配预约副本失败: {}", bookId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.ILoveU.service.Impl;
+
+import com.ILoveU.dto.InventoryReconciliationDTO;
+import com.ILoveU.exception.OperationForbiddenException;
+import com.ILoveU.job.InventoryReconciliationJob;
+import com.ILoveU.service.InventoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class InventoryServiceImpl implements InventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryServiceImpl.class);
+    private final InventoryReconciliationJob reconciliationJob;
+
+    public InventoryServiceImpl() {
+        this.reconciliationJob = InventoryReconciliationJob.getInstance();
+    }
+
+    @Override
+    public InventoryReconciliationDTO startReconciliation(boolean repair) {
+        if (!reconciliationJob.start(repair)) {
+            logger.warn("启动库存核对失败：已有核对正在运行。");
+            throw new OperationForbiddenException("已有库存核对正在运行，请等待其完成后再试。");
+        }
+        logger.info("已启动库存核对，修复模式: {}", repair);
+        return reconciliationJob.status();
+    }
+
+    @Override
+    public InventoryReconciliationDTO getReconciliationStatus() {
+        return reconciliationJob.status();
+    }
+}
@@ -1,5 +1,6 @@
 package com.ILoveU.service.Impl;
 
+import com.ILoveU.archive.ColdArchiveStore;
 import com.ILoveU.dao.BookDAO;
 import com.ILoveU.dao.LoanDAO;
 import com.ILoveU.dao.UserDAO;
@@ -9,22 +10,32 @@ import com.ILoveU.dao.impl.UserDAOImpl;
 import com.ILoveU.dto.ApiErrorResponse;
 import com.ILoveU.dto.LoanDTO;
 import com.ILoveU.dto.PageDTO;
+import com.ILoveU.dto.UserLoanSummaryDTO;
+import com.ILoveU.event.EventHub;
 import com.ILoveU.exception.OperationFailedException;
 import com.ILoveU.exception.OperationForbiddenException;
 import com.ILoveU.exception.ResourceNotFoundException;
 import com.ILoveU.exception.ValidationException;
+import com.ILoveU.job.LoanDueScheduler;
 import com.ILoveU.model.Book;
 import com.ILoveU.model.Loan;
 import com.ILoveU.model.User;
 import com.ILoveU.service.LoanService;
+import com.ILoveU.service.SuggestService;
 import com.ILoveU.util.DateUtil;
+import com.ILoveU.util.FieldMask;
+import com.ILoveU.util.HoldQueues;
+import com.ILoveU.util.UserLoanStatsCache;
+import org.hibernate.cfg.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
 import java.util.stream.Collectors;
 
 public class LoanServiceImpl implements LoanService {
@@ -33,10 +44,17 @@ public class LoanServiceImpl implements LoanService {
     private final LoanDAO loanDAO;
     private final UserDAO userDAO;
     private final BookDAO bookDAO;
+    private final SuggestService suggestService = new SuggestServiceImpl(); // 借阅次数即图书的联想热度
 
     // 默认借阅期限（例如14天）
     private static final int DEFAULT_LOAN_DURATION_DAYS = 14;
 
+    // 借阅上限，在 hibernate.cfg.xml 中通过 library.loans.max_active_per_user / max_overdue_per_user 配置
+    private final int maxActiveLoans;
+    private final int maxOverdueLoans;
+    // 还书时为预约读者保留副本的天数（library.holds.pickup_days）
+    private final int holdPickupDays;
+
     public LoanServiceImpl() {
         this(new LoanDAOImpl(), new UserDAOImpl(), new BookDAOImpl());
     }
@@ -46,6 +64,10 @@ public class LoanServiceImpl implements LoanService {
         this.loanDAO = loanDAO;
         this.userDAO = userDAO;
         this.bookDAO = bookDAO;
+        Properties properties = new Configuration().configure().getProperties();
+        this.maxActiveLoans = Integer.parseInt(properties.getProperty("library.loans.max_active_per_user", "10").trim());
+        this.maxOverdueLoans = Integer.parseInt(properties.getProperty("library.loans.max_overdue_per_user", "0").trim());
+        this.holdPickupDays = Integer.parseInt(properties.getProperty("library.holds.pickup_days", "3").trim());
     }
 
     /**
@@ -87,6 +109,34 @@ public class LoanServiceImpl implements LoanService {
     }
 
 
+    /**
+     * 按字段掩码将 Loan 转换为 LoanDTO，只填充被请求的属性。
+     * @param loan Loan 实体（可以是DAO返回的投影快照）
+     * @param fieldMask 字段掩码
+     * @return LoanDTO 对象，如果输入为null则返回null
+     */
+    private LoanDTO convertToLoanDTO(Loan loan, FieldMask fieldMask) {
+        if (fieldMask == null || fieldMask.isAll()) {
+            return convertToLoanDTO(loan);
+        }
+        if (loan == null) {
+            return null;
+        }
+
+        LoanDTO dto = new LoanDTO();
+        if (fieldMask.includes("id")) dto.setId(loan.getLoanId());
+        if (fieldMask.includes("userId") && loan.getUser() != null) dto.setUserId(loan.getUser().getId());
+        if (fieldMask.includes("bookId") && loan.getBook() != null) dto.setBookId(loan.getBook().getBookId());
+        if (fieldMask.includes("checkoutDate")) dto.setCheckoutDate(DateUtil.formatTimestampToISOString(loan.getLoanDate()));
+        if (fieldMask.includes("dueDate")) dto.setDueDate(DateUtil.formatTimestampToISOString(loan.getDueDate()));
+        if (fieldMask.includes("returnDate")) dto.setReturnDate(DateUtil.formatTimestampToISOString(loan.getReturnDate()));
+        if (fieldMask.includes("isOverdue") && loan.getDueDate() != null) {
+            Timestamp reference = loan.getReturnDate() != null ? loan.getReturnDate() : new Timestamp(System.currentTimeMillis());
+            dto.setIsOverdue(reference.after(loan.getDueDate()));
+        }
+        return dto;
+    }
+
     @Override
     public LoanDTO checkoutBook(int userId, int bookId)
             throws ResourceNotFoundException, ValidationException, OperationForbiddenException, OperationFailedException {
@@ -118,17 +168,29 @@ public class LoanServiceImpl implements LoanService {
             throw new ResourceNotFoundException("未找到ID为 " + bookId + " 的图书。");
         }
 
-        // 3. 检查图书是否有可用库存
+        // 3. 检查借阅上限（读取缓存的计数，不统计 loans；最终由借书事务中的条件更新保证）
+        // 缓存只用于快速放行：其中的计数可能是最长 TTL 之前的（例如在其他节点还了书），
+        // 显示违反上限时先从主库重新读取，确认后才拒绝
+        String limitViolation = limitViolation(loadLoanStats(userId));
+        if (limitViolation != null) {
+            limitViolation = limitViolation(reloadLoanStats(userId));
+        }
+        if (limitViolation != null) {
+            logger.warn("用户ID {} 借阅图书ID {} 失败：{}", userId, bookId, limitViolation);
+            throw new OperationForbiddenException(limitViolation);
+        }
+
+        // 4. 检查图书是否有可用库存
         // 注意：由于你们的DDL中有一个BEFORE INSERT触发器来检查库存并减少库存，
         // Service层的这个检查可以看作是一层额外的防护，或者如果触发器逻辑更可靠，这里可以简化。
         // 如果触发器会SIGNAL SQLSTATE '45000'，那么DAO的addLoan方法会抛出异常，这里可以捕获。
         // 为保持Service层业务逻辑的明确性，我们仍然进行一次检查。
         if (book.getNumCopiesAvailable() <= 0) {
             logger.warn("借阅图书ID {} 失败：库存不足。", bookId);
-            throw new OperationForbiddenException("图书 '" + book.getTitle() + "' 当前无可用库存。");
+            throw new OperationForbiddenException("图书 '" + book.getTitle() + "' 当前无可用库存，可以预约排队。");
         }
 
-        // 4. 创建新的Loan实体
+        // 5. 创建新的Loan实体
         Loan newLoan = new Loan();
         newLoan.setUser(user);
         newLoan.setBook(book);
@@ -146,25 +208,36 @@ public class LoanServiceImpl implements LoanService {
         newLoan.setReturnDate(null); // 新借阅，归还日期为null
         // isOverdue 和 createdAt (如果Loan实体有) 会在DTO转换或由Hibernate自动处理
 
-        // 5. 保存借阅记录 (数据库触发器会自动处理库存减少)
+        // 6. 保存借阅记录并增加用户借阅计数 (数据库触发器会自动处理库存减少)
         Loan savedLoan;
         try {
-            savedLoan = loanDAO.addLoan(newLoan);
+            savedLoan = loanDAO.checkoutLoan(newLoan, maxActiveLoans, maxOverdueLoans);
             if (savedLoan == null || savedLoan.getLoanId() == null) {
                 // 这种情况通常意味着DAO层的save操作因为某些原因（可能是触发器导致的）没有成功返回预期的持久化对象
                 logger.error("创建借阅记录后未能获取有效的记录信息。用户ID: {}, 图书ID: {}", userId, bookId);
                 throw new OperationFailedException("创建借阅记录失败，未能保存信息。");
             }
+        } catch (OperationForbiddenException e) {
+            // 并发借书使计数在预检查之后达到上限
+            UserLoanStatsCache.invalidate(userId);
+            throw e;
         } catch (Exception e) { // 捕获DAO层可能因触发器SIGNAL而抛出的异常
             logger.error("用户ID {} 借阅图书ID {} 时，保存借阅记录失败: {}", userId, bookId, e.getMessage(), e);
             // 检查是否是库存不足的特定错误（如果触发器使用SIGNAL SQLSTATE '45000'）
-            if (e.getMessage() != null && e.getMessage().contains("图书无可用库存")) {
+            if (causedByOutOfStock(e)) {
                 throw new OperationForbiddenException("图书 '" + book.getTitle() + "' 当前无可用库存 (触发器检查)。");
             }
             throw new OperationFailedException("创建借阅记录时发生数据库错误。", e);
         }
 
         logger.info("用户ID {} 成功借阅图书ID {}，借阅记录ID: {}", userId, bookId, savedLoan.getLoanId());
+        suggestService.adjustPopularity(SuggestService.Category.BOOK, bookId, 1);
+        UserLoanStatsCache.adjust(userId, 1, 0);
+        // 读者可能借走的是自己预约的书
+        HoldQueues.invalidate(bookId);
+        EventHub.getInstance().publishLoanChanged(savedLoan.getLoanId(), userId, bookId, "CHECKED_OUT");
+        EventHub.getInstance().publishAvailabilityChanged(bookId);
+        LoanDueScheduler.getInstance().onCheckout(savedLoan.getLoanId(), userId, savedLoan.getDueDate());
         return convertToLoanDTO(savedLoan);
     }
 
@@ -201,17 +274,28 @@ public class LoanServiceImpl implements LoanService {
         // 4. 更新借阅记录
         Loan updatedLoan;
         try {
-            updatedLoan = loanDAO.updateLoan(loanToReturn);
-            if (updatedLoan == null) {
-                logger.error("更新借阅记录ID {} 后未能获取有效的记录信息。", loanId);
-                throw new OperationFailedException("更新借阅记录失败，未能保存更改。");
-            }
+            updatedLoan = loanDAO.returnLoan(loanToReturn, holdPickupDays);
         } catch (Exception e) {
             logger.error("更新借阅记录ID {} 时发生数据库错误。", loanId, e);
             throw new OperationFailedException("更新借阅记录时发生数据库错误。", e);
         }
 
+        if (updatedLoan == null) {
+            // 读取之后被并发请求归还
+            logger.warn("归还图书失败：借阅记录ID {} 已被归还。", loanId);
+            throw new ValidationException("该书已归还。");
+        }
+
         logger.info("借阅记录ID {} 已成功归还。", loanId);
+        UserLoanStatsCache.adjust(updatedLoan.getUser().getId(), -1, Boolean.TRUE.equals(updatedLoan.getOverdue()) ? -1 : 0);
+        LoanDueScheduler.getInstance().onReturn(loanId);
+        Integer bookId = updatedLoan.getBook() != null ? updatedLoan.getBook().getBookId() : null;
+        EventHub.getInstance().publishLoanChanged(loanId, updatedLoan.getUser().getId(), bookId, "RETURNED");
+        if (bookId != null) {
+            // 归还的副本可能已保留给预约队首
+            HoldQueues.invalidate(bookId);
+            EventHub.getInstance().publishAvailabilityChanged(bookId);
+        }
         return convertToLoanDTO(updatedLoan);
     }
 
@@ -221,6 +305,10 @@ public class LoanServiceImpl implements LoanService {
         Loan loan;
         try {
             loan = loanDAO.findLoanById(loanId);
+            if (loan == null) {
+                // 早已归还的借阅可能已被移入归档表
+                loan = loanDAO.findArchivedLoanById(loanId);
+            }
         } catch (Exception e) {
             logger.error("Service层通过ID {} 查询借阅记录时发生数据库错误。", loanId, e);
             throw new OperationFailedException("查询借阅记录失败，请稍后再试。", e);
@@ -236,6 +324,18 @@ public class LoanServiceImpl implements LoanService {
     @Override
     public PageDTO<LoanDTO> getLoansByUserId(int userId, int page, int pageSize)
             throws ResourceNotFoundException, ValidationException, OperationFailedException {
+        return getLoansByUserId(userId, page, pageSize, FieldMask.ALL);
+    }
+
+    @Override
+    public PageDTO<LoanDTO> getLoansByUserId(int userId, int page, int pageSize, FieldMask fieldMask)
+            throws ResourceNotFoundException, ValidationException, OperationFailedException {
+        return getLoansByUserId(userId, page, pageSize, fieldMask, false);
+    }
+
+    @Override
+    public PageDTO<LoanDTO> getLoansByUserId(int userId, int page, int pageSize, FieldMask fieldMask, boolean includeArchived)
+            throws ResourceNotFoundException, ValidationException, OperationFailedException {
 
         if (page <= 0) {
             throw new ValidationException("页码必须是正整数。", Collections.singletonList(new ApiErrorResponse.FieldErrorDetail("page", "页码必须大于0")));
@@ -260,17 +360,153 @@ public class LoanServiceImpl implements LoanService {
         long totalLoans;
 
         try {
-            loans = loanDAO.findLoansByUserId(userId, page, pageSize);
-            totalLoans = loanDAO.countLoansByUserId(userId);
+            if (includeArchived) {
+                // 合并查询返回完整实体，字段掩码在转换DTO时应用
+                loans = loanDAO.findLoansByUserId(userId, page, pageSize, true);
+                totalLoans = loanDAO.countLoansByUserId(userId, true);
+            } else {
+                loans = loanDAO.findLoansByUserId(userId, page, pageSize, fieldMask);
+                totalLoans = loanDAO.countLoansByUserId(userId);
+            }
         } catch (Exception e) {
             logger.error("Service层获取用户ID {} 的借阅列表时发生数据库错误。", userId, e);
             throw new OperationFailedException("获取用户借阅列表失败，请稍后再试。", e);
         }
 
         List<LoanDTO> loanDTOs = loans.stream()
-                .map(this::convertToLoanDTO)
+                .map(loan -> convertToLoanDTO(loan, fieldMask))
                 .collect(Collectors.toList());
 
         return new PageDTO<>(loanDTOs, totalLoans, page, pageSize);
     }
-}
\ No newline at end of file
+
+    @Override
+    public PageDTO<LoanDTO> getOverdueLoans(int page, int pageSize)
+            throws ValidationException, OperationFailedException {
+        if (page <= 0) {
+            throw new ValidationException("页码必须是正整数。", Collections.singletonList(new ApiErrorResponse.FieldErrorDetail("page", "页码必须大于0")));
+        }
+        if (pageSize <= 0) {
+            throw new ValidationException("每页大小必须是正整数。", Collections.singletonList(new ApiErrorResponse.FieldErrorDetail("pageSize", "每页大小必须大于0")));
+        }
+
+        List<Loan> loans;
+        long totalLoans;
+        try {
+            loans = loanDAO.findOverdueLoans(page, pageSize);
+            totalLoans = loanDAO.countOverdueLoans();
+        } catch (Exception e) {
+            logger.error("Service层获取逾期借阅列表时发生数据库错误。", e);
+            throw new OperationFailedException("获取逾期借阅列表失败，请稍后再试。", e);
+        }
+
+        List<LoanDTO> loanDTOs = loans.stream()
+                .map(this::convertToLoanDTO)
+                .collect(Collectors.toList());
+        return new PageDTO<>(loanDTOs, totalLoans, page, pageSize);
+    }
+
+    @Override
+    public List<LoanDTO> findColdArchivedLoans(Integer userId, String from, String to)
+            throws ValidationException, OperationFailedException {
+        if (userId == null && (from == null || from.isEmpty()) && (to == null || to.isEmpty())) {
+            throw new ValidationException("查询冷归档至少需要提供userId、from或to之一。");
+        }
+        Long fromMillis = parseBound("from", from);
+        Long toMillis = parseBound("to", to);
+
+        List<Loan> loans;
+        try {
+            loans = ColdArchiveStore.getInstance().scan(userId, fromMillis, toMillis, COLD_ARCHIVE_MAX_RESULTS);
+        } catch (IOException e) {
+            logger.error("读取冷归档段文件时发生错误。", e);
+            throw new OperationFailedException("读取冷归档失败，请稍后再试。", e);
+        }
+        logger.info("冷归档查询 - 用户ID: {}, from: {}, to: {}，命中 {} 条", userId, from, to, loans.size());
+        return loans.stream()
+                .map(this::convertToLoanDTO)
+                .collect(Collectors.toList());
+    }
+
+    private static Long parseBound(String field, String value) throws ValidationException {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        Timestamp timestamp = DateUtil.parseISOStringToTimestamp(value);
+        if (timestamp == null) {
+            throw new ValidationException("日期格式无效，请使用ISO 8601格式。",
+                    Collections.singletonList(new ApiErrorResponse.FieldErrorDetail(field, "日期格式无效")));
+        }
+        return timestamp.getTime();
+    }
+
+    @Override
+    public UserLoanSummaryDTO getUserLoanSummary(int userId) throws ResourceNotFoundException, OperationFailedException {
+        int[] stats = UserLoanStatsCache.get(userId);
+        if (stats == null) {
+            int[] loaded = loanDAO.findUserLoanStats(userId);
+            if (loaded == null) {
+                // 没有计数行：用户从未借过书，或用户不存在
+                if (userDAO.findUserById(userId) == null) {
+                    logger.warn("查询借阅概况失败：未找到用户ID {}", userId);
+                    throw new ResourceNotFoundException("未找到ID为 " + userId + " 的用户。");
+                }
+                loaded = new int[]{0, 0};
+            }
+            UserLoanStatsCache.put(userId, loaded[0], loaded[1]);
+            stats = loaded;
+        }
+
+        UserLoanSummaryDTO dto = new UserLoanSummaryDTO();
+        dto.setUserId(userId);
+        dto.setActiveLoans(stats[0]);
+        dto.setOverdueLoans(stats[1]);
+        dto.setMaxActiveLoans(maxActiveLoans > 0 ? maxActiveLoans : null);
+        dto.setMaxOverdueLoans(maxOverdueLoans >= 0 ? maxOverdueLoans : null);
+        dto.setCanBorrow(limitViolation(stats) == null);
+        return dto;
+    }
+
+    /**
+     * 库存触发器的错误被 Hibernate/DAO 层逐层包装，需要沿异常链查找。
+     */
+    private static boolean causedByOutOfStock(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains("图书无可用库存")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取用户的借阅计数，优先使用缓存。
+     */
+    private int[] loadLoanStats(int userId) {
+        int[] stats = UserLoanStatsCache.get(userId);
+        return stats == null ? reloadLoanStats(userId) : stats;
+    }
+
+    /**
+     * 从主库读取借阅计数并刷新缓存。
+     */
+    private int[] reloadLoanStats(int userId) {
+        int[] loaded = loanDAO.findUserLoanStats(userId);
+        int[] stats = loaded == null ? new int[]{0, 0} : loaded;
+        UserLoanStatsCache.put(userId, stats[0], stats[1]);
+        return stats;
+    }
+
+    /**
+     * @return 违反的借阅上限说明；未违反时返回null
+     */
+    private String limitViolation(int[] stats) {
+        if (maxOverdueLoans >= 0 && stats[1] > maxOverdueLoans) {
+            return "您有 " + stats[1] + " 本图书逾期未还，请先归还后再借阅。";
+        }
+        if (maxActiveLoans > 0 && stats[0] >= maxActiveLoans) {
+            return "已达到借阅上限：最多同时借阅 " + maxActiveLoans + " 本。";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,221 @@
+package com.ILoveU.service.Impl;
+
+import com.ILoveU.dao.SuggestDAO;
+import com.ILoveU.dao.impl.SuggestDAOImpl;
+import com.ILoveU.dto.ApiErrorResponse;
+import com.ILoveU.dto.SuggestionDTO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.ServiceUnavailableException;
+import com.ILoveU.exception.ValidationException;
+import com.ILoveU.service.SuggestService;
+import com.ILoveU.util.FuzzyIndex;
+import com.ILoveU.util.PrefixIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class SuggestServiceImpl implements SuggestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestServiceImpl.class);
+
+    // 前缀最大长度，超过的部分不可能匹配到任何名称，直接拒绝
+    private static final int MAX_PREFIX_LENGTH = 100;
+
+    // 支持容错搜索的类别
+    private static final Category[] FUZZY_CATEGORIES = {Category.BOOK, Category.AUTHOR};
+
+    // 加载失败后的重试间隔，每次失败翻倍，直到上限
+    private static final long MIN_RETRY_MILLIS = 1_000L;
+    private static final long MAX_RETRY_MILLIS = 60_000L;
+
+    /**
+     * 各类别的前缀索引和容错索引。索引在整个应用中只有一份，第一次查询或写入时才从数据库构建。
+     * 热度在加载与并发写入交错时可能有 ±1 的偏差，对排序来说可以接受。
+     */
+    private static final class Indexes {
+        final Map<Category, PrefixIndex> prefixIndexes = new EnumMap<>(Category.class);
+        final Map<Category, FuzzyIndex> fuzzyIndexes = new EnumMap<>(Category.class);
+    }
+
+    private static volatile Indexes indexes;
+    // 保护加载过程和下面两个重试字段；加载时要查询数据库，使用显式锁
+    private static final ReentrantLock LOAD_LOCK = new ReentrantLock();
+    private static long retryMillis = MIN_RETRY_MILLIS;
+    private static long nextAttemptAt;
+
+    /**
+     * @return 已加载的索引；数据库暂时不可用、尚未加载成功时返回null。
+     *         加载失败不会缓存为空索引，而是在退避间隔之后由下一个请求重试。
+     */
+    private static Indexes indexes() {
+        Indexes loaded = indexes;
+        if (loaded != null) {
+            return loaded;
+        }
+        LOAD_LOCK.lock();
+        try {
+            if (indexes != null) {
+                return indexes;
+            }
+            long now = System.currentTimeMillis();
+            if (now < nextAttemptAt) {
+                return null;
+            }
+            try {
+                indexes = load(new SuggestDAOImpl());
+                retryMillis = MIN_RETRY_MILLIS;
+                return indexes;
+            } catch (OperationFailedException e) {
+                nextAttemptAt = now + retryMillis;
+                logger.warn("联想索引加载失败，{}ms 后重试: {}", retryMillis, e.getMessage());
+                retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+                return null;
+            }
+        } finally {
+            LOAD_LOCK.unlock();
+        }
+    }
+
+    private static Indexes load(SuggestDAO suggestDAO) {
+        long start = System.currentTimeMillis();
+        Indexes loaded = new Indexes();
+        for (Category category : Category.values()) {
+            List<Object[]> rows = loadRows(suggestDAO, category);
+            PrefixIndex prefixIndex = new PrefixIndex();
+            prefixIndex.loadAll(rows);
+            loaded.prefixIndexes.put(category, prefixIndex);
+            if (Arrays.asList(FUZZY_CATEGORIES).contains(category)) {
+                FuzzyIndex fuzzyIndex = new FuzzyIndex();
+                fuzzyIndex.loadAll(rows);
+                loaded.fuzzyIndexes.put(category, fuzzyIndex);
+            }
+        }
+        logger.info("联想索引加载完成 - 图书: {}, 作者: {}, 标签: {}, 出版社: {}, 耗时: {}ms",
+                loaded.prefixIndexes.get(Category.BOOK).size(), loaded.prefixIndexes.get(Category.AUTHOR).size(),
+                loaded.prefixIndexes.get(Category.TAG).size(), loaded.prefixIndexes.get(Category.PRESS).size(),
+                System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    private static List<Object[]> loadRows(SuggestDAO suggestDAO, Category category) {
+        switch (category) {
+            case BOOK:
+                return suggestDAO.findBookTitlesWithLoanCounts();
+            case AUTHOR:
+                return suggestDAO.findAuthorNamesWithBookCounts();
+            case TAG:
+                return suggestDAO.findTagNamesWithBookCounts();
+            default:
+                return suggestDAO.findPressNamesWithBookCounts();
+        }
+    }
+
+    /**
+     * 查询用：索引不可用时返回503，客户端稍后重试。
+     */
+    private static Indexes requireIndexes() throws ServiceUnavailableException {
+        Indexes loaded = indexes();
+        if (loaded == null) {
+            throw new ServiceUnavailableException("联想索引暂不可用，请稍后重试。",
+                    (int) Math.max(1, MIN_RETRY_MILLIS / 1000));
+        }
+        return loaded;
+    }
+
+    @Override
+    public List<SuggestionDTO> suggest(String prefix, List<Category> categories, int limit)
+            throws ValidationException, ServiceUnavailableException {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            throw new ValidationException("联想前缀不能为空。",
+                    Collections.singletonList(new ApiErrorResponse.FieldErrorDetail("q", "联想前缀不能为空")));
+        }
+        if (prefix.length() > MAX_PREFIX_LENGTH) {
+            throw new ValidationException("联想前缀过长。",
+                    Collections.singletonList(new ApiErrorResponse.FieldErrorDetail("q", "长度不能超过" + MAX_PREFIX_LENGTH)));
+        }
+        if (limit <= 0 || limit > PrefixIndex.MAX_TOP_K) {
+            throw new ValidationException("limit 参数无效。",
+                    Collections.singletonList(new ApiErrorResponse.FieldErrorDetail("limit", "必须在1到" + PrefixIndex.MAX_TOP_K + "之间")));
+        }
+
+        List<Category> targets = (categories == null || categories.isEmpty())
+                ? Arrays.asList(Category.values()) : categories;
+        Indexes loaded = requireIndexes();
+        List<SuggestionDTO> suggestions = new ArrayList<>();
+        for (Category category : targets) {
+            for (PrefixIndex.Entry entry : loaded.prefixIndexes.get(category).top(prefix, limit)) {
+                suggestions.add(new SuggestionDTO(category.getTypeName(), entry.getId(), entry.getText()));
+            }
+        }
+        return suggestions;
+    }
+
+    @Override
+    public List<Integer> fuzzySearch(Category category, String query, int maxResults) throws ServiceUnavailableException {
+        FuzzyIndex fuzzyIndex = requireIndexes().fuzzyIndexes.get(category);
+        if (fuzzyIndex == null || query == null || query.length() > MAX_PREFIX_LENGTH) {
+            return Collections.emptyList();
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (FuzzyIndex.Match match : fuzzyIndex.search(query, maxResults)) {
+            ids.add(match.getId());
+        }
+        return ids;
+    }
+
+    @Override
+    public void upsert(Category category, int id, String text) {
+        // 索引尚未加载成功时跳过：之后的加载会从数据库读到这次写入
+        Indexes loaded = indexes();
+        if (loaded == null) {
+            return;
+        }
+        try {
+            loaded.prefixIndexes.get(category).upsert(id, text);
+            FuzzyIndex fuzzyIndex = loaded.fuzzyIndexes.get(category);
+            if (fuzzyIndex != null) {
+                fuzzyIndex.upsert(id, text);
+            }
+        } catch (Exception e) {
+            // 联想索引只是辅助功能，维护失败不应影响已成功的写操作
+            logger.warn("更新联想索引失败 - 类别: {}, ID: {}", category, id, e);
+        }
+    }
+
+    @Override
+    public void remove(Category category, int id) {
+        Indexes loaded = indexes();
+        if (loaded == null) {
+            return;
+        }
+        try {
+            loaded.prefixIndexes.get(category).remove(id);
+            FuzzyIndex fuzzyIndex = loaded.fuzzyIndexes.get(category);
+            if (fuzzyIndex != null) {
+                fuzzyIndex.remove(id);
+            }
+        } catch (Exception e) {
+            logger.warn("从联想索引移除条目失败 - 类别: {}, ID: {}", category, id, e);
+        }
+    }
+
+    @Override
+    public void adjustPopularity(Category category, int id, long delta) {
+        Indexes loaded = indexes();
+        if (loaded == null) {
+            return;
+        }
+        try {
+            loaded.prefixIndexes.get(category).adjustWeight(id, delta);
+        } catch (Exception e) {
+            logger.warn("调整联想热度失败 - 类别: {}, ID: {}", category, id, e);
+        }
+    }
+}
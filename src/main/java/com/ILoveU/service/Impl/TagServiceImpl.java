@@ -1,8 +1,6 @@
 package com.ILoveU.service.Impl;
 
-import com.ILoveU.dao.BookDAO;
 import com.ILoveU.dao.TagDAO;
-import com.ILoveU.dao.impl.BookDAOImpl;
 import com.ILoveU.dao.impl.TagDAOImpl;
 import com.ILoveU.dto.PageDTO;
 import com.ILoveU.dto.TagDTO;
@@ -10,6 +8,7 @@ import com.ILoveU.dto.ApiErrorResponse; // 用于 ValidationException 的 FieldE
 import com.ILoveU.exception.*;
 import com.ILoveU.model.Tag;
 
+import com.ILoveU.service.SuggestService;
 import com.ILoveU.service.TagService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,17 +23,15 @@ public class TagServiceImpl implements TagService {
 
     private static final Logger logger = LoggerFactory.getLogger(TagServiceImpl.class);
     private final TagDAO tagDAO;
-    private final BookDAO bookDAO; // 用于检查标签是否被书籍使用
+    private final SuggestService suggestService = new SuggestServiceImpl(); // 维护输入联想索引
 
     public TagServiceImpl() {
         this.tagDAO = new TagDAOImpl();
-        this.bookDAO = new BookDAOImpl();
     }
 
     // 通过构造函数注入DAO实例
-    public TagServiceImpl(TagDAO tagDAO, BookDAO bookDAO) {
+    public TagServiceImpl(TagDAO tagDAO) {
         this.tagDAO = tagDAO;
-        this.bookDAO = bookDAO;
     }
 
     /**
@@ -46,7 +43,7 @@ public class TagServiceImpl implements TagService {
         if (tag == null) {
             return null;
         }
-        return new TagDTO(tag.getTagId(), tag.getName());
+        return new TagDTO(tag.getTagId(), tag.getName(), tag.getBookCount());
     }
 
     @Override
@@ -143,6 +140,7 @@ public class TagServiceImpl implements TagService {
             logger.error("创建标签 '{}' 时发生数据库错误。", tagName, e);
             throw new OperationFailedException("创建标签时发生数据库错误。", e);
         }
+        suggestService.upsert(SuggestService.Category.TAG, savedTag.getTagId(), savedTag.getName());
         return convertToTagDTO(savedTag);
     }
 
@@ -188,6 +186,7 @@ public class TagServiceImpl implements TagService {
                 if (updatedTag == null) {
                     throw new OperationFailedException("更新标签后未能获取有效的标签信息。");
                 }
+                suggestService.upsert(SuggestService.Category.TAG, tagId, updatedTag.getName());
                 return convertToTagDTO(updatedTag);
             } catch (Exception e) {
                 logger.error("更新标签ID {} 到数据库时失败。", tagId, e);
@@ -203,42 +202,19 @@ public class TagServiceImpl implements TagService {
     public void deleteTag(int tagId)
             throws ResourceNotFoundException, OperationForbiddenException, OperationFailedException {
         logger.info("尝试删除标签，ID: {}", tagId);
-        Tag tagToDelete;
+        // 存在性和关联图书都在DAO的删除事务中检查：锁定标签行后读取主库上的 book_count。
+        // 不再先经只读会话查询——它可能落到副本上，读到过期的计数
+        boolean deleted;
         try {
-            tagToDelete = tagDAO.findTagById(tagId);
-        } catch (Exception e) {
-            logger.error("删除标签ID {} 时查找失败。", tagId, e);
-            throw new OperationFailedException("查找待删除标签时发生错误。", e);
+            deleted = tagDAO.deleteTag(tagId);
+        } catch (OperationForbiddenException e) {
+            logger.warn("删除标签ID {} 失败：{}", tagId, e.getMessage());
+            throw e;
         }
-
-        if (tagToDelete == null) {
+        if (!deleted) {
             throw new ResourceNotFoundException("未找到ID为 " + tagId + " 的标签，无法删除。");
         }
-
-        // 核心业务规则：检查该标签是否仍被任何书籍使用
-        long bookCount;
-        try {
-            // 依赖BookDAO来检查标签是否有关联的书籍
-            bookCount = bookDAO.countBooksByTagId(tagId); // 你需要在BookDAO中实现此方法
-        } catch (Exception e) {
-            logger.error("删除标签ID {} 时检查关联书籍失败。", tagId, e);
-            throw new OperationFailedException("检查标签关联书籍时发生错误。", e);
-        }
-
-        if (bookCount > 0) {
-            logger.warn("删除标签ID {} 失败：该标签尚被 {} 本书籍使用。", tagId, bookCount);
-            throw new OperationForbiddenException("无法删除该标签，它尚被 " + bookCount + " 本书籍使用。");
-        }
-
-        try {
-            if (!tagDAO.deleteTag(tagId)) {
-                logger.warn("删除标签ID {} 操作在DAO层未成功执行。", tagId);
-                throw new OperationFailedException("删除标签ID " + tagId + " 操作未成功完成。");
-            }
-            logger.info("标签ID {} 已成功删除。", tagId);
-        } catch (Exception e) {
-            logger.error("删除标签ID {} 时发生数据库错误。", tagId, e);
-            throw new OperationFailedException("删除标签时发生数据库错误。", e);
-        }
+        logger.info("标签ID {} 已成功删除。", tagId);
+        suggestService.remove(SuggestService.Category.TAG, tagId);
     }
 }
\ No newline at end of file
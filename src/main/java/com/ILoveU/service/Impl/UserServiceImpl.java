@@ -1,28 +1,39 @@
 package com.ILoveU.service.Impl;
 
+import com.ILoveU.dao.RevokedTokenDAO;
 import com.ILoveU.dao.UserDAO;
+import com.ILoveU.dao.impl.RevokedTokenDAOImpl;
 import com.ILoveU.dao.impl.UserDAOImpl;
 import com.ILoveU.dto.UserDTO;
 import com.ILoveU.exception.AuthenticationException;
 import com.ILoveU.exception.DuplicateResourceException;
 import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.ResourceNotFoundException;
+import com.ILoveU.exception.ServiceUnavailableException;
 import com.ILoveU.exception.ValidationException;
 import com.ILoveU.model.User;
 import com.ILoveU.service.UserService;
+import com.ILoveU.util.AuthTokens;
+import com.ILoveU.util.PasswordHashExecutor;
 import com.ILoveU.util.PasswordUtil;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Timestamp;
+import java.util.Locale;
+
 
 public class UserServiceImpl implements UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
     private final UserDAO userDAO;
+    private final RevokedTokenDAO revokedTokenDAO;
 
     public UserServiceImpl() {
         // 或者通过构造函数注入
         this.userDAO = new UserDAOImpl();
+        this.revokedTokenDAO = new RevokedTokenDAOImpl();
     }
 
     @Override
@@ -46,8 +57,8 @@ public class UserServiceImpl implements UserService {
             throw new DuplicateResourceException("账户 '" + account + "' 已被注册，请尝试其他账户。");
         }
 
-        // 3. 密码哈希处理
-        String hashedPassword = PasswordUtil.hashPassword(password);
+        // 3. 密码哈希处理（在哈希线程池上执行，过载时抛出ServiceUnavailableException）
+        String hashedPassword = PasswordHashExecutor.call(() -> PasswordUtil.hashPassword(password));
 
         // 4. 创建用户实体对象
         User newUser = new User();
@@ -73,7 +84,7 @@ public class UserServiceImpl implements UserService {
         // 注册成功，返回UserDTO
         // API规范中注册成功返回的 "username" 对应我们User实体的 "name"
         logger.info("用户 {} 注册成功, ID: {}", createdUser.getAccount(), createdUser.getId());
-        return new UserDTO(createdUser.getId(), createdUser.getName(), createdUser.getAccount());
+        return new UserDTO(createdUser.getId(), createdUser.getName(), createdUser.getAccount(), createdUser.getRole().name());
     }
 
     @Override
@@ -97,20 +108,72 @@ public class UserServiceImpl implements UserService {
         }
 
         if (user == null) {
+            // 与账户存在时一样走一遍哈希校验，避免通过响应时间判断账户是否存在
+            PasswordHashExecutor.call(() -> PasswordUtil.verifyPassword(password, PasswordUtil.dummyHash()));
             logger.warn("尝试登录失败，账户不存在: {}", account);
             throw new AuthenticationException("账户或密码错误。");
         }
 
-        // 3. 验证密码
-        if (PasswordUtil.verifyPassword(password, user.getPassword())) {
-            // 密码正确，登录成功
-            logger.info("用户 {} 登录成功, ID: {}", user.getAccount(), user.getId());
-            // API规范中登录成功返回的 "user.username" 对应我们User实体的 "name"
-            return new UserDTO(user.getId(), user.getName(), user.getAccount());
-        } else {
+        // 3. 验证密码；旧格式或参数过时的哈希在同一个任务中用明文密码重新哈希
+        final String storedHash = user.getPassword();
+        String upgradedHash = PasswordHashExecutor.call(() -> {
+            if (!PasswordUtil.verifyPassword(password, storedHash)) {
+                return null;
+            }
+            return PasswordUtil.needsRehash(storedHash) ? PasswordUtil.hashPassword(password) : storedHash;
+        });
+        if (upgradedHash == null) {
             // 密码错误
             logger.warn("尝试登录失败，密码错误，账户: {}", account);
             throw new AuthenticationException("账户或密码错误。");
         }
+        if (!upgradedHash.equals(storedHash)) {
+            // 升级失败不影响本次登录，下次登录时会再次尝试
+            if (userDAO.updatePasswordHash(user.getId(), storedHash, upgradedHash)) {
+                logger.info("用户 {} 的密码哈希已升级为当前格式", user.getAccount());
+            }
+        }
+
+        // 密码正确，登录成功
+        logger.info("用户 {} 登录成功, ID: {}", user.getAccount(), user.getId());
+        // API规范中登录成功返回的 "user.username" 对应我们User实体的 "name"
+        return new UserDTO(user.getId(), user.getName(), user.getAccount(), user.getRole().name());
+    }
+
+    @Override
+    public void logoutUser(AuthTokens.Claims claims) throws OperationFailedException {
+        // 先持久化再加入本节点的撤销表：写入失败时令牌在所有节点上都仍然有效，而不是只在本节点失效
+        revokedTokenDAO.revoke(claims.getTokenId(), claims.getUserId(), new Timestamp(claims.getExpiresAt() * 1000));
+        AuthTokens.revoke(claims.getTokenId(), claims.getExpiresAt());
+        logger.info("用户ID {} 已注销，令牌 {} 已撤销", claims.getUserId(), claims.getTokenId());
+    }
+
+    @Override
+    public String findCurrentRole(int userId) throws OperationFailedException {
+        User.Role role = userDAO.findRoleById(userId);
+        return role == null ? null : role.name();
+    }
+
+    @Override
+    public UserDTO changeUserRole(int userId, String role)
+            throws ValidationException, ResourceNotFoundException, OperationFailedException {
+        User.Role newRole;
+        try {
+            newRole = User.Role.valueOf(role == null ? "" : role.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("角色必须是 READER、LIBRARIAN 或 ADMIN 之一。");
+        }
+        // 撤销该用户已签发的令牌，旧令牌中的权限不再使用到过期。撤销记录与新角色在同一事务中提交，
+        // 提交成功后才更新本节点的撤销表：事务失败时角色和令牌都保持原样，不会只生效一半
+        long now = System.currentTimeMillis();
+        if (!userDAO.updateRole(userId, newRole, new Timestamp(now),
+                new Timestamp(now + AuthTokens.getTtlSeconds() * 1000))) {
+            logger.warn("修改角色失败：未找到用户ID {}", userId);
+            throw new ResourceNotFoundException("未找到ID为 " + userId + " 的用户。");
+        }
+        AuthTokens.revokeUser(userId, now);
+        User user = userDAO.findUserById(userId);
+        logger.info("用户ID {} 的角色已修改为 {}，已撤销其此前签发的令牌", userId, newRole);
+        return new UserDTO(user.getId(), user.getName(), user.getAccount(), user.getRole().name());
     }
 }
@@ -0,0 +1,27 @@
+package com.ILoveU.service;
+
+import com.ILoveU.dto.InventoryReconciliationDTO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
+
+/**
+ * InventoryService 提供库存核对（numCopiesAvailable 与 总库存 - 未归还借阅数 是否一致）的触发和进度查询。
+ */
+public interface InventoryService {
+
+    /**
+     * 在后台启动一次库存核对。
+     *
+     * @param repair 是否修复发现的不一致记录
+     * @return 启动后的任务状态
+     * @throws OperationForbiddenException 如果已有核对正在运行
+     * @throws OperationFailedException    如果无法启动核对
+     */
+    InventoryReconciliationDTO startReconciliation(boolean repair)
+            throws OperationForbiddenException, OperationFailedException;
+
+    /**
+     * @return 当前或最近一次核对的进度、吞吐量和发现的不一致记录
+     */
+    InventoryReconciliationDTO getReconciliationStatus();
+}
@@ -2,10 +2,14 @@ package com.ILoveU.service;
 
 import com.ILoveU.dto.LoanDTO;
 import com.ILoveU.dto.PageDTO;
+import com.ILoveU.dto.UserLoanSummaryDTO;
 import com.ILoveU.exception.OperationFailedException;
 import com.ILoveU.exception.OperationForbiddenException;
 import com.ILoveU.exception.ResourceNotFoundException;
 import com.ILoveU.exception.ValidationException;
+import com.ILoveU.util.FieldMask;
+
+import java.util.List;
 
 /**
  * LoanService 接口定义了与图书借阅和归还相关的业务逻辑操作。
@@ -24,7 +28,7 @@ public interface LoanService {
      * @return 创建成功的 {@link LoanDTO} 对象，包含借阅详情、应归还日期和逾期状态。
      * @throws ResourceNotFoundException   如果用户或图书未找到。
      * @throws ValidationException         如果输入参数无效（例如，用户ID或图书ID无效）。
-     * @throws OperationForbiddenException 如果图书无可用库存，或用户有其他借阅限制。
+     * @throws OperationForbiddenException 如果图书无可用库存，或用户已达到借阅上限（同时借阅数或逾期数）。
      * @throws OperationFailedException    如果由于数据库或其他原因导致借阅操作失败。
      */
     LoanDTO checkoutBook(int userId, int bookId)
@@ -68,4 +72,66 @@ public interface LoanService {
      */
     PageDTO<LoanDTO> getLoansByUserId(int userId, int page, int pageSize)
             throws ResourceNotFoundException, ValidationException, OperationFailedException;
-}
\ No newline at end of file
+
+    /**
+     * 与 {@link #getLoansByUserId(int, int, int)} 相同，但只查询并返回字段掩码中请求的属性。
+     *
+     * @param fieldMask 由 ?fields= 参数解析得到的字段掩码，为null时返回全部字段。
+     * @return 当前页的借阅记录列表，未请求的属性为null，不会出现在JSON中。
+     * @throws ResourceNotFoundException 如果用户未找到。
+     * @throws ValidationException       如果分页参数无效。
+     * @throws OperationFailedException  如果在获取数据过程中发生意外的后端错误。
+     */
+    PageDTO<LoanDTO> getLoansByUserId(int userId, int page, int pageSize, FieldMask fieldMask)
+            throws ResourceNotFoundException, ValidationException, OperationFailedException;
+
+    /**
+     * 与 {@link #getLoansByUserId(int, int, int, FieldMask)} 相同；includeArchived 为true时同时返回已归档的历史借阅。
+     *
+     * @param includeArchived 是否包含已移入归档表的借阅记录（查询开销更大，仅在需要完整历史时使用）。
+     * @throws ResourceNotFoundException 如果用户未找到。
+     * @throws ValidationException       如果分页参数无效。
+     * @throws OperationFailedException  如果在获取数据过程中发生意外的后端错误。
+     */
+    PageDTO<LoanDTO> getLoansByUserId(int userId, int page, int pageSize, FieldMask fieldMask, boolean includeArchived)
+            throws ResourceNotFoundException, ValidationException, OperationFailedException;
+
+    /**
+     * 分页获取当前逾期（已到期且未归还）的借阅记录，按应还日期升序。
+     * 逾期标记由后台到期调度在到期时写入，查询只读取已标记的记录。
+     *
+     * @param page     请求的页码 (从1开始计数)。
+     * @param pageSize 每页期望返回的记录数。
+     * @return 当前页的逾期借阅记录及分页元数据。
+     * @throws ValidationException      如果分页参数无效。
+     * @throws OperationFailedException 如果在获取数据过程中发生意外的后端错误。
+     */
+    PageDTO<LoanDTO> getOverdueLoans(int page, int pageSize)
+            throws ValidationException, OperationFailedException;
+
+    /**
+     * 在冷归档段文件中查询借阅记录（用于审计），数据不会写回数据库。
+     * 至少需要提供用户ID或借阅日期区间之一；结果最多返回 {@code COLD_ARCHIVE_MAX_RESULTS} 条。
+     *
+     * @param userId 用户ID，可为null。
+     * @param from   借阅日期下限（含，ISO 8601），可为null。
+     * @param to     借阅日期上限（不含，ISO 8601），可为null。
+     * @return 匹配的借阅记录列表。
+     * @throws ValidationException      如果没有任何查询条件或日期格式无效。
+     * @throws OperationFailedException 如果段文件读取失败。
+     */
+    List<LoanDTO> findColdArchivedLoans(Integer userId, String from, String to)
+            throws ValidationException, OperationFailedException;
+
+    int COLD_ARCHIVE_MAX_RESULTS = 10000;
+
+    /**
+     * 获取用户当前的未归还数、逾期数和借阅上限。读取缓存的计数（或 user_loan_stats 的一行），不统计 loans。
+     *
+     * @param userId 用户ID。
+     * @return 用户的借阅概况。
+     * @throws ResourceNotFoundException 如果用户不存在。
+     * @throws OperationFailedException  如果查询过程中发生错误。
+     */
+    UserLoanSummaryDTO getUserLoanSummary(int userId) throws ResourceNotFoundException, OperationFailedException;
+}
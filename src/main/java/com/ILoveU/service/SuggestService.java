@@ -0,0 +1,85 @@
+package com.ILoveU.service;
+
+import com.ILoveU.dto.SuggestionDTO;
+import com.ILoveU.exception.ServiceUnavailableException;
+import com.ILoveU.exception.ValidationException;
+
+import java.util.List;
+
+/**
+ * SuggestService 提供搜索框的输入联想和容错搜索功能。
+ * 数据来自内存中的前缀索引（见 {@link com.ILoveU.util.PrefixIndex}）和容错索引（见 {@link com.ILoveU.util.FuzzyIndex}），首次使用时从数据库全量加载，
+ * 之后由各个Service在写操作成功后调用本接口的维护方法进行增量更新，不需要每次按键都访问数据库。
+ */
+public interface SuggestService {
+
+    /**
+     * 可联想的资源类别。
+     */
+    enum Category {
+        BOOK("book"), AUTHOR("author"), TAG("tag"), PRESS("press");
+
+        private final String typeName;
+
+        Category(String typeName) {
+            this.typeName = typeName;
+        }
+
+        public String getTypeName() {
+            return typeName;
+        }
+
+        /**
+         * @return 与类型名对应的类别；未知类型返回null
+         */
+        public static Category fromTypeName(String typeName) {
+            for (Category category : values()) {
+                if (category.typeName.equalsIgnoreCase(typeName)) {
+                    return category;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 获取与前缀匹配的联想建议，按热度降序排列。
+     * 图书的热度为借阅次数，作者、标签和出版社的热度为关联图书数量。
+     *
+     * @param prefix     用户已输入的前缀。
+     * @param categories 要查询的类别；为null或空时查询全部类别。
+     * @param limit      每个类别最多返回的条目数。
+     * @return 联想建议列表；前缀没有匹配时返回空列表。
+     * @throws ValidationException 如果前缀为空或limit无效。
+     * @throws ServiceUnavailableException 如果索引尚未从数据库加载成功（稍后会自动重试加载）。
+     */
+    List<SuggestionDTO> suggest(String prefix, List<Category> categories, int limit)
+            throws ValidationException, ServiceUnavailableException;
+
+    /**
+     * 容错搜索：查找名称与查询串在有限编辑距离内的条目（用于 ?fuzzy=true）。
+     * 目前支持 {@link Category#BOOK}（标题）和 {@link Category#AUTHOR}（姓名）。
+     *
+     * @param category   要搜索的类别。
+     * @param query      查询串。
+     * @param maxResults 最多返回的条目数。
+     * @return 按编辑距离由近到远排列的条目ID；类别不支持或没有匹配时返回空列表。
+     * @throws ServiceUnavailableException 如果索引尚未从数据库加载成功。
+     */
+    List<Integer> fuzzySearch(Category category, String query, int maxResults) throws ServiceUnavailableException;
+
+    /**
+     * 新增或重命名一个条目（保留原有热度）。
+     */
+    void upsert(Category category, int id, String text);
+
+    /**
+     * 从索引中移除一个条目。
+     */
+    void remove(Category category, int id);
+
+    /**
+     * 调整一个条目的热度，例如图书被借出一次时 +1。
+     */
+    void adjustPopularity(Category category, int id, long delta);
+}
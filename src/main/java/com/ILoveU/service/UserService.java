@@ -5,7 +5,10 @@ import com.ILoveU.dto.UserDTO;
 import com.ILoveU.exception.AuthenticationException;
 import com.ILoveU.exception.DuplicateResourceException;
 import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.ResourceNotFoundException;
+import com.ILoveU.exception.ServiceUnavailableException;
 import com.ILoveU.exception.ValidationException;
+import com.ILoveU.util.AuthTokens;
 
 /**
  * 用户服务接口，提供用户注册和登录功能
@@ -21,9 +24,10 @@ public interface UserService {
      * @throws ValidationException 当输入数据验证失败时抛出
      * @throws DuplicateResourceException 当用户账号已存在时抛出
      * @throws OperationFailedException 当注册操作失败时抛出
+     * @throws ServiceUnavailableException 当密码哈希线程池过载时抛出
      */
     UserDTO registerUser(String account, String password, String name)
-            throws ValidationException, DuplicateResourceException, OperationFailedException;
+            throws ValidationException, DuplicateResourceException, OperationFailedException, ServiceUnavailableException;
 
     /**
      * 用户登录
@@ -33,7 +37,38 @@ public interface UserService {
      * @return 登录成功的用户信息
      * @throws ValidationException 当输入数据验证失败时抛出
      * @throws AuthenticationException 当认证失败时抛出
+     * @throws ServiceUnavailableException 当密码哈希线程池过载时抛出
      */
     UserDTO loginUser(String account, String password)
-            throws ValidationException, AuthenticationException;
-}
\ No newline at end of file
+            throws ValidationException, AuthenticationException, ServiceUnavailableException;
+
+    /**
+     * 用户注销：撤销本次登录使用的令牌，使其在所有节点上失效
+     *
+     * @param claims 当前请求已校验的令牌内容
+     * @throws OperationFailedException 当撤销记录写入失败时抛出
+     */
+    void logoutUser(AuthTokens.Claims claims) throws OperationFailedException;
+
+    /**
+     * 读取用户当前的角色，用于换发令牌时按最新角色重新计算权限
+     *
+     * @param userId 用户ID
+     * @return 角色名；用户不存在时返回null
+     * @throws OperationFailedException 当查询失败时抛出
+     */
+    String findCurrentRole(int userId) throws OperationFailedException;
+
+    /**
+     * 修改用户角色。该用户已签发的令牌全部撤销，需要重新登录，新令牌按新角色计算权限
+     *
+     * @param userId 用户ID
+     * @param role 新角色：READER、LIBRARIAN 或 ADMIN
+     * @return 修改后的用户信息
+     * @throws ValidationException 当角色名无效时抛出
+     * @throws ResourceNotFoundException 当用户不存在时抛出
+     * @throws OperationFailedException 当更新失败时抛出
+     */
+    UserDTO changeUserRole(int userId, String role)
+            throws ValidationException, ResourceNotFoundException, OperationFailedException;
+}
@@ -6,10 +6,16 @@ import com.ILoveU.dto.UserDTO;
 import com.ILoveU.exception.AuthenticationException;
 import com.ILoveU.exception.DuplicateResourceException;
 import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.ServiceUnavailableException;
+import com.ILoveU.exception.TooManyRequestsException;
 import com.ILoveU.exception.ValidationException;
 import com.ILoveU.service.Impl.UserServiceImpl;
 import com.ILoveU.service.UserService;
 
+import com.ILoveU.util.ApiRoute;
+import com.ILoveU.util.AuthTokens;
+import com.ILoveU.util.LoginThrottle;
+import com.ILoveU.util.RouteTrie;
 import com.ILoveU.util.ServletUtil;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
@@ -17,14 +23,13 @@ import com.google.gson.JsonSyntaxException;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
 import java.io.PrintWriter;
 
+import java.util.Collections;
 import java.util.List;
 
 // 仅用于logout的简单成功响应
@@ -34,8 +39,8 @@ import java.util.HashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@WebServlet("/api/auth/*")
-public class AuthServlet extends HttpServlet {
+@WebServlet(urlPatterns = "/api/auth/*", asyncSupported = true)
+public class AuthServlet extends BulkheadServlet {
     private static final long serialVersionUID = 1L;
     private static final Logger logger = LoggerFactory.getLogger(AuthServlet.class);
 
@@ -53,6 +58,7 @@ public class AuthServlet extends HttpServlet {
             throws ServletException, IOException {
 
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
@@ -76,7 +82,7 @@ public class AuthServlet extends HttpServlet {
                 }
             }
 
-            if ("/register".equals(pathInfo)) {
+            if (route != null && route.is(ApiRoute.AUTH_REGISTER)) {
                 if (jsonRequest != null && jsonRequest.has("username") && !jsonRequest.get("username").isJsonNull()) {
                     // API规范中注册请求体是 "username", "account", "password"
                     // 假设 "username" 对应我们User实体的 "name"
@@ -88,36 +94,48 @@ public class AuthServlet extends HttpServlet {
 
 
                 logger.info("Handling /register request for account: {}", account);
+                LoginThrottle.beforeRegister(request.getRemoteAddr());
                 successUserDTO = userService.registerUser(account, password, name);
                 response.setStatus(HttpServletResponse.SC_CREATED); // 201 Created
                 successResponseObject = successUserDTO; // 直接返回UserDTO，符合API规范
 
-            } else if ("/login".equals(pathInfo)) {
+            } else if (route != null && route.is(ApiRoute.AUTH_LOGIN)) {
                 logger.info("Handling /login request for account: {}", account);
-                successUserDTO = userService.loginUser(account, password);
+                // 超限的请求在这里被拒绝，不会查询数据库也不会进入密码哈希线程池
+                LoginThrottle.beforeLogin(request.getRemoteAddr(), account);
+                try {
+                    successUserDTO = userService.loginUser(account, password);
+                } catch (AuthenticationException e) {
+                    LoginThrottle.loginFailed(account);
+                    throw e;
+                }
+                LoginThrottle.loginSucceeded(account);
 
-                // 登录成功，创建Session
-                HttpSession session = request.getSession(true);
-                session.setAttribute("loggedInUser", successUserDTO); // 将UserDTO存入Session
-                logger.info("Session created/updated for user: {}, Session ID: {}", successUserDTO.getAccount(), session.getId());
+                // 登录成功，签发令牌（不再创建HttpSession，任意节点都能校验）
+                AuthTokens.Issued issued = AuthTokens.issue(successUserDTO.getId(), Collections.singleton(successUserDTO.getRole()));
+                AuthTokens.writeCookie(request, response, issued.getToken(), AuthTokens.getTtlSeconds());
+                // 供 ReadRoutingFilter 在本次请求结束时识别已登录的用户
+                request.setAttribute(AuthTokens.REQUEST_ATTRIBUTE, issued.getClaims());
+                logger.info("Token issued for user: {}, token ID: {}", successUserDTO.getAccount(), issued.getClaims().getTokenId());
 
                 response.setStatus(HttpServletResponse.SC_OK); // 200 OK
 
-                // 根据API规范，登录成功返回 {"user": UserDTO} (因为我们不用JWT，所以token部分省略)
+                // 令牌同时以HttpOnly Cookie下发；非浏览器客户端可以改用 Authorization: Bearer 携带响应中的token
                 Map<String, Object> tempMap = new HashMap<>();
                 tempMap.put("user", successUserDTO);
+                tempMap.put("token", issued.getToken());
+                tempMap.put("expiresAt", issued.getClaims().getExpiresAt());
                 successResponseObject = tempMap;
 
 
-            } else if ("/logout".equals(pathInfo)) {
+            } else if (route != null && route.is(ApiRoute.AUTH_LOGOUT)) {
                 logger.info("Handling /logout request");
-                HttpSession session = request.getSession(false);
-                if (session != null) {
-                    UserDTO loggedInUser = (UserDTO) session.getAttribute("loggedInUser");
-                    String userAccountInSession = (loggedInUser != null) ? loggedInUser.getAccount() : "UnknownUser";
-                    logger.info("Invalidating session for user: {}, Session ID: {}", userAccountInSession, session.getId());
-                    session.invalidate();
+                // AuthenticationFilter 已经校验过令牌
+                AuthTokens.Claims claims = AuthTokens.authenticate(request);
+                if (claims != null) {
+                    userService.logoutUser(claims);
                 }
+                AuthTokens.clearCookie(request, response);
                 response.setStatus(HttpServletResponse.SC_OK); // 200 OK
 
                 // API规范未明确定义logout成功响应体，可以返回简单成功消息
@@ -155,6 +173,14 @@ public class AuthServlet extends HttpServlet {
         } catch (AuthenticationException e) {
             logger.warn("Authentication failed for path {}: {}", request.getRequestURI(), e.getMessage());
             sendErrorResponse(response, request, HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized", e.getMessage());
+        } catch (TooManyRequestsException e) {
+            logger.warn("Too many requests for path {} from {}: {}", request.getRequestURI(), request.getRemoteAddr(), e.getMessage());
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            sendErrorResponse(response, request, ServletUtil.SC_TOO_MANY_REQUESTS, "Too Many Requests", e.getMessage());
+        } catch (ServiceUnavailableException e) {
+            logger.warn("Service unavailable for path {}: {}", request.getRequestURI(), e.getMessage());
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            sendErrorResponse(response, request, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service Unavailable", e.getMessage());
         } catch (OperationFailedException e) {
             logger.error("Operation failed for path {}: {}", request.getRequestURI(), e.getMessage(), e.getCause());
             sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", e.getMessage());
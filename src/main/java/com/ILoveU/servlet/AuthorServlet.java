@@ -5,13 +5,15 @@ import com.ILoveU.dto.PageDTO;
 import com.ILoveU.exception.*;
 import com.ILoveU.service.AuthorService;
 import com.ILoveU.service.Impl.AuthorServiceImpl;
+import com.ILoveU.util.ApiRoute;
+import com.ILoveU.util.FieldMask;
+import com.ILoveU.util.RouteTrie;
 import com.ILoveU.util.ServletUtil;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
@@ -21,8 +23,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
-@WebServlet("/api/authors/*")
-public class AuthorServlet extends HttpServlet {
+@WebServlet(urlPatterns = "/api/authors/*", asyncSupported = true)
+public class AuthorServlet extends BulkheadServlet {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthorServlet.class);
     private AuthorService authorService;
@@ -40,37 +42,45 @@ public class AuthorServlet extends HttpServlet {
         response.setCharacterEncoding("UTF-8");
 
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         try {
             // 情况1: GET /api/authors (获取作者列表，支持分页和关键词搜索)
-            if (pathInfo == null || pathInfo.equals("/")) {
+            if (route != null && route.is(ApiRoute.AUTHOR_LIST)) {
                 String pageStr = request.getParameter("page");
                 String pageSizeStr = request.getParameter("size"); // API规范中是size
                 String searchKeyword = request.getParameter("search");
+                // 稀疏字段集: ?fields=id,firstName,lastName
+                FieldMask fieldMask = FieldMask.parse(request.getParameter("fields"), AuthorDTO.FIELD_NAMES);
+                // 容错搜索: ?search=fowlr&fuzzy=true
+                boolean fuzzy = "true".equalsIgnoreCase(request.getParameter("fuzzy"));
 
                 int page = (pageStr != null && !pageStr.isEmpty()) ? Integer.parseInt(pageStr) : 1;
                 int pageSize = (pageSizeStr != null && !pageSizeStr.isEmpty()) ? Integer.parseInt(pageSizeStr) : 10;
 
-                logger.info("Handling GET /api/authors - keyword: '{}', page: {}, pageSize: {}", searchKeyword, page, pageSize);
-                PageDTO<AuthorDTO> pageResult = authorService.getAuthors(searchKeyword, page, pageSize);
+                logger.info("Handling GET /api/authors - keyword: '{}', fuzzy: {}, page: {}, pageSize: {}, fields: {}", searchKeyword, fuzzy, page, pageSize, fieldMask);
+                PageDTO<AuthorDTO> pageResult = fuzzy
+                        ? authorService.fuzzySearchAuthors(searchKeyword, page, pageSize, fieldMask)
+                        : authorService.getAuthors(searchKeyword, page, pageSize, fieldMask);
                 ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, pageResult);
 
                 // 情况2: GET /api/authors/{authorId} (获取指定作者)
+            } else if (route != null && route.is(ApiRoute.AUTHOR_GET)) {
+                int authorId = route.getInt("id");
+                logger.info("Handling GET /api/authors/{}", authorId);
+                AuthorDTO authorDTO = authorService.getAuthorById(authorId);
+                ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, authorDTO);
             } else {
-                String authorIdStr = pathInfo.substring(1);
-                try {
-                    int authorId = Integer.parseInt(authorIdStr);
-                    logger.info("Handling GET /api/authors/{}", authorId);
-                    AuthorDTO authorDTO = authorService.getAuthorById(authorId);
-                    ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, authorDTO);
-                } catch (NumberFormatException e) {
-                    logger.warn("无效的作者ID格式: {}", authorIdStr, e);
-                    ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "作者ID格式无效。", logger);
-                }
+                logger.warn("Invalid path for GET request: /api/authors{}", pathInfo);
+                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", "请求的作者接口未找到。", logger);
             }
         } catch (ValidationException e) {
             logger.warn("Validation error in GET /api/authors: {}", e.getMessage());
             ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), e.getErrors(), logger);
+        } catch (ServiceUnavailableException e) {
+            logger.warn("Service unavailable in GET /api/authors: {}", e.getMessage());
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service Unavailable", e.getMessage(), logger);
         } catch (ResourceNotFoundException e) {
             logger.warn("Resource not found in GET /api/authors: {}", e.getMessage());
             ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage(), logger);
@@ -92,8 +102,9 @@ public class AuthorServlet extends HttpServlet {
         response.setCharacterEncoding("UTF-8");
 
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
-        if (pathInfo == null || pathInfo.equals("/")) {
+        if (route != null && route.is(ApiRoute.AUTHOR_CREATE)) {
             try {
                 JsonObject jsonRequest = ServletUtil.getJsonFromRequestBody(request);
                 if (jsonRequest == null) {
@@ -103,7 +114,7 @@ public class AuthorServlet extends HttpServlet {
                 String lastName = jsonRequest.has("lastName") ? jsonRequest.get("lastName").getAsString() : null;
                 String bio = jsonRequest.has("bio") ? jsonRequest.get("bio").getAsString() : null;
 
-                AuthorDTO authorToCreate = new AuthorDTO(null, firstName, lastName, bio, null, null);
+                AuthorDTO authorToCreate = new AuthorDTO(null, firstName, lastName, bio, null, null, null);
 
                 logger.info("Handling POST /api/authors");
                 AuthorDTO createdAuthor = authorService.createAuthor(authorToCreate);
@@ -140,11 +151,11 @@ public class AuthorServlet extends HttpServlet {
         response.setCharacterEncoding("UTF-8");
 
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
-        if (pathInfo != null && pathInfo.matches("/\\d+")) {
-            String authorIdStr = pathInfo.substring(1);
+        if (route != null && route.is(ApiRoute.AUTHOR_UPDATE)) {
+            int authorId = route.getInt("id");
             try {
-                int authorId = Integer.parseInt(authorIdStr);
                 JsonObject jsonRequest = ServletUtil.getJsonFromRequestBody(request);
                 if (jsonRequest == null) {
                     throw new ValidationException("请求体不能为空。");
@@ -152,15 +163,15 @@ public class AuthorServlet extends HttpServlet {
                 String firstName = jsonRequest.has("firstName") ? jsonRequest.get("firstName").getAsString() : null;
                 String lastName = jsonRequest.has("lastName") ? jsonRequest.get("lastName").getAsString() : null;
                 String bio = jsonRequest.has("bio") ? jsonRequest.get("bio").getAsString() : null;
-                AuthorDTO authorToUpdate = new AuthorDTO(authorId, firstName, lastName, bio, null, null);
+                AuthorDTO authorToUpdate = new AuthorDTO(authorId, firstName, lastName, bio, null, null, null);
 
                 logger.info("Handling PUT /api/authors/{}", authorId);
                 AuthorDTO updatedAuthor = authorService.updateAuthor(authorId, authorToUpdate);
                 ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, updatedAuthor);
 
-            } catch (NumberFormatException e) {
-                logger.warn("无效的作者ID格式: {}", authorIdStr, e);
-                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "作者ID格式无效。", logger);
+            } catch (NumberFormatException e) { // 请求体中的数字字段格式错误
+                logger.warn("无效的数字格式: {}", e.getMessage());
+                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "请求中的数字格式无效。", logger);
             } catch (ValidationException e) {
                 logger.warn("Validation error in PUT /api/authors: {}", e.getMessage());
                 ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), e.getErrors(), logger);
@@ -194,18 +205,15 @@ public class AuthorServlet extends HttpServlet {
         response.setCharacterEncoding("UTF-8");
 
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
-        if (pathInfo != null && pathInfo.matches("/\\d+")) {
-            String authorIdStr = pathInfo.substring(1);
+        if (route != null && route.is(ApiRoute.AUTHOR_DELETE)) {
+            int authorId = route.getInt("id");
             try {
-                int authorId = Integer.parseInt(authorIdStr);
                 logger.info("Handling DELETE /api/authors/{}", authorId);
                 authorService.deleteAuthor(authorId);
                 response.setStatus(HttpServletResponse.SC_NO_CONTENT);
 
-            } catch (NumberFormatException e) {
-                logger.warn("无效的作者ID格式: {}", authorIdStr, e);
-                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "作者ID格式无效。", logger);
             } catch (ResourceNotFoundException e) {
                 logger.warn("Resource not found in DELETE /api/authors: {}", e.getMessage());
                 ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage(), logger);
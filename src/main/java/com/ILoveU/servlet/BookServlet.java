@@ -7,6 +7,9 @@ import com.ILoveU.dao.impl.*;      // 导入所有DAO接口 (Service实现类会
 import com.ILoveU.model.*;    // 导入所有模型实体 (Service实现类会用到)
 import com.ILoveU.service.*;
 import com.ILoveU.service.Impl.*;// 导入所有Service接口
+import com.ILoveU.util.ApiRoute;
+import com.ILoveU.util.FieldMask;
+import com.ILoveU.util.RouteTrie;
 import com.ILoveU.util.ServletUtil;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
@@ -14,7 +17,6 @@ import com.google.gson.JsonSyntaxException;
 // 使用 jakarta.servlet.* 因为你用的是Tomcat 10
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 // import jakarta.servlet.http.HttpSession; // 如果需要获取用户信息进行日志记录或细致权限控制
@@ -27,8 +29,8 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@WebServlet("/api/books/*")
-public class BookServlet extends HttpServlet {
+@WebServlet(urlPatterns = "/api/books/*", asyncSupported = true)
+public class BookServlet extends BulkheadServlet {
 
     private static final Logger logger = LoggerFactory.getLogger(BookServlet.class);
     private BookService bookService;
@@ -52,15 +54,20 @@ public class BookServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
         try {
             // 情况1: GET /api/books (获取图书列表，支持分页、搜索、按出版社/标签过滤)
-            if (pathInfo == null || pathInfo.equals("/")) {
+            if (route != null && route.is(ApiRoute.BOOK_LIST)) {
                 // 从请求参数中获取过滤和分页参数
                 String searchKeyword = request.getParameter("search");
                 String pressIdStr = request.getParameter("press");
                 String tagIdStr = request.getParameter("tag");
                 String pageStr = request.getParameter("page");
                 String pageSizeStr = request.getParameter("size");
+                // 稀疏字段集: ?fields=id,title,numCopiesAvailable
+                FieldMask fieldMask = FieldMask.parse(request.getParameter("fields"), BookDTO.FIELD_NAMES);
+                // 容错搜索: ?search=refactorng&fuzzy=true
+                boolean fuzzy = "true".equalsIgnoreCase(request.getParameter("fuzzy"));
 
                 // API规范中分页参数默认值: page=1, size=10
                 int page = (pageStr != null && !pageStr.isEmpty()) ? Integer.parseInt(pageStr) : 1;
@@ -68,28 +75,31 @@ public class BookServlet extends HttpServlet {
                 Integer pressId = (pressIdStr != null && !pressIdStr.isEmpty()) ? Integer.parseInt(pressIdStr) : null;
                 Integer tagId = (tagIdStr != null && !tagIdStr.isEmpty()) ? Integer.parseInt(tagIdStr) : null;
 
-                logger.info("Handling GET /api/books - keyword: '{}', pressId: {}, tagId: {}, page: {}, pageSize: {}",
-                        searchKeyword, pressId, tagId, page, pageSize);
+                logger.info("Handling GET /api/books - keyword: '{}', fuzzy: {}, pressId: {}, tagId: {}, page: {}, pageSize: {}, fields: {}",
+                        searchKeyword, fuzzy, pressId, tagId, page, pageSize, fieldMask);
 
-                PageDTO<BookDTO> pageResult = bookService.getBooks(searchKeyword, pressId, tagId, page, pageSize);
+                PageDTO<BookDTO> pageResult = fuzzy
+                        ? bookService.fuzzySearchBooks(searchKeyword, pressId, tagId, page, pageSize, fieldMask)
+                        : bookService.getBooks(searchKeyword, pressId, tagId, page, pageSize, fieldMask);
                 ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, pageResult);
 
             // 情况2: GET /api/books/{bookId} (获取指定图书详情)
+            } else if (route != null && route.is(ApiRoute.BOOK_GET)) {
+                int bookId = route.getInt("id");
+                logger.info("Handling GET /api/books/{}", bookId);
+                BookDTO bookDTO = bookService.getBookById(bookId);
+                ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, bookDTO);
             } else {
-                String bookIdStr = pathInfo.substring(1); // 移除开头的 '/'
-                try {
-                    int bookId = Integer.parseInt(bookIdStr);
-                    logger.info("Handling GET /api/books/{}", bookId);
-                    BookDTO bookDTO = bookService.getBookById(bookId);
-                    ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, bookDTO);
-                } catch (NumberFormatException e) {
-                    logger.warn("无效的图书ID格式: {}", bookIdStr, e);
-                    ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "图书ID格式无效。", logger);
-                }
+                logger.warn("Invalid path for GET request: /api/books{}", pathInfo);
+                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", "请求的图书接口未找到。", logger);
             }
         } catch (ValidationException e) {
             logger.warn("Validation error in GET /api/books: {}", e.getMessage());
             ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), e.getErrors(), logger);
+        } catch (ServiceUnavailableException e) {
+            logger.warn("Service unavailable in GET /api/books: {}", e.getMessage());
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service Unavailable", e.getMessage(), logger);
         } catch (ResourceNotFoundException e) {
             logger.warn("Resource not found in GET /api/books: {}", e.getMessage());
             ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage(), logger);
@@ -110,9 +120,10 @@ public class BookServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         // POST /api/books (创建新图书)
-        if (pathInfo == null || pathInfo.equals("/")) {
+        if (route != null && route.is(ApiRoute.BOOK_CREATE)) {
             try {
                 JsonObject jsonRequest = ServletUtil.getJsonFromRequestBody(request);
                 if (jsonRequest == null) {
@@ -179,12 +190,12 @@ public class BookServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         // PUT /api/books/{bookId} (更新图书)
-        if (pathInfo != null && pathInfo.matches("/\\d+")) { // 匹配 /数字
-            String bookIdStr = pathInfo.substring(1);
+        if (route != null && route.is(ApiRoute.BOOK_UPDATE)) {
+            int bookId = route.getInt("id");
             try {
-                int bookId = Integer.parseInt(bookIdStr);
                 JsonObject jsonRequest = ServletUtil.getJsonFromRequestBody(request);
                 if (jsonRequest == null) {
                     throw new ValidationException("请求体不能为空。");
@@ -212,9 +223,9 @@ public class BookServlet extends HttpServlet {
                 BookDTO updatedBook = bookService.updateBook(bookId, updateRequestDTO);
                 ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, updatedBook);
 
-            } catch (NumberFormatException e) {
-                logger.warn("无效的图书ID格式: {}", bookIdStr, e);
-                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "图书ID格式无效。", logger);
+            } catch (NumberFormatException e) { // 请求体中的数字字段格式错误
+                logger.warn("无效的数字格式: {}", e.getMessage());
+                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "请求中的数字格式无效。", logger);
             } catch (ValidationException e) {
                 logger.warn("Validation error in PUT /api/books: {}", e.getMessage());
                 ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), e.getErrors(), logger);
@@ -247,19 +258,16 @@ public class BookServlet extends HttpServlet {
     protected void doDelete(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         // DELETE /api/books/{bookId} (删除图书)
-        if (pathInfo != null && pathInfo.matches("/\\d+")) {
-            String bookIdStr = pathInfo.substring(1);
+        if (route != null && route.is(ApiRoute.BOOK_DELETE)) {
+            int bookId = route.getInt("id");
             try {
-                int bookId = Integer.parseInt(bookIdStr);
                 logger.info("Handling DELETE /api/books/{}", bookId);
                 bookService.deleteBook(bookId);
                 ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_NO_CONTENT, null); // 204 No Content
 
-            } catch (NumberFormatException e) {
-                logger.warn("无效的图书ID格式: {}", bookIdStr, e);
-                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "图书ID格式无效。", logger);
             } catch (ResourceNotFoundException e) {
                 logger.warn("Resource not found in DELETE /api/books: {}", e.getMessage());
                 ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage(), logger);
@@ -0,0 +1,88 @@
+package com.ILoveU.servlet;
+
+import com.ILoveU.util.Bulkheads;
+import com.ILoveU.util.ConnectionWaits;
+import com.ILoveU.util.ReplicaRouter;
+import com.ILoveU.util.ServletUtil;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在隔离线程池（见 Bulkheads）上处理请求的Servlet基类。
+ *
+ * 容器线程只负责把请求转为异步并按路由交给对应类别的线程池，随即返回；doGet/doPost 等方法在线程池上执行
+ * （虚拟线程模式下在虚拟线程上执行），写法与同步Servlet相同。线程池队列已满时直接返回 503 和 Retry-After。
+ * 子类的 {@code @WebServlet} 必须声明 asyncSupported = true，否则按同步方式在容器线程上处理。
+ *
+ * 过滤器绑定在容器线程上的上下文（读写分离的最近写入时间、连接等待计数）会带到执行线程上。
+ * 请求在线程池队列中等待的时间也累加到连接等待计数上，作为排队时延交给准入控制（见 AdmissionControlFilter）；
+ * 需要在请求结束后执行的过滤器逻辑通过 ServletUtil.runAfterResponse 等到异步处理结束。
+ * 异步请求不设超时：排队长度由线程池队列限制，执行时间与同步处理时相同。
+ */
+public abstract class BulkheadServlet extends HttpServlet {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkheadServlet.class);
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        if (!request.isAsyncSupported()) {
+            super.service(request, response);
+            return;
+        }
+
+        Bulkheads.Workload workload = Bulkheads.classify(request);
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(0);
+        Long lastWriteAt = ReplicaRouter.boundLastWrite();
+        AtomicLong connectionWait = ConnectionWaits.current();
+        long submittedAt = System.nanoTime();
+
+        boolean accepted = Bulkheads.execute(workload, () -> {
+            if (connectionWait != null) {
+                connectionWait.addAndGet(System.nanoTime() - submittedAt);
+            }
+            ReplicaRouter.bindLastWrite(lastWriteAt);
+            ConnectionWaits.attach(connectionWait);
+            try {
+                super.service(request, response);
+            } catch (Exception e) {
+                logger.error("Unhandled error for {} {}: {}", request.getMethod(), request.getRequestURI(), e.getMessage(), e);
+                sendError(request, response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                        "Internal Server Error", "服务器内部错误。");
+            } finally {
+                ReplicaRouter.unbindLastWrite();
+                ConnectionWaits.detach();
+                asyncContext.complete();
+            }
+        });
+        if (!accepted) {
+            logger.warn("Bulkhead '{}' is full, rejecting {} {}", workload, request.getMethod(), request.getRequestURI());
+            response.setHeader("Retry-After", "1");
+            sendError(request, response, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    "Service Unavailable", "服务繁忙，请稍后重试。");
+            asyncContext.complete();
+        }
+    }
+
+    private static void sendError(HttpServletRequest request, HttpServletResponse response,
+                                  int status, String error, String message) {
+        try {
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            ServletUtil.sendErrorResponse(response, request, status, error, message, logger);
+        } catch (IOException e) {
+            logger.warn("Failed to send error response for {}: {}", request.getRequestURI(), e.getMessage());
+        }
+    }
+}
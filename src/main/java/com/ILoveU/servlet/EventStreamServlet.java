@@ -0,0 +1,104 @@
+package com.ILoveU.servlet;
+
+import com.ILoveU.event.EventHub;
+import com.ILoveU.event.SseClient;
+import com.ILoveU.util.AccessControl;
+import com.ILoveU.util.AuthTokens;
+import com.ILoveU.util.Permission;
+import com.ILoveU.util.ServletUtil;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * GET /api/events?topics=availability,loans,books
+ * 以 Server-Sent Events 推送库存、借阅和图书目录的变化（见 {@link EventHub}）。
+ * 请求以异步方式保持打开，不占用容器的请求线程。
+ * 借阅事件只推送当前用户本人的借阅；拥有 LOAN_ANY 权限的用户（馆员）接收全部借阅事件。
+ */
+@WebServlet(urlPatterns = "/api/events", asyncSupported = true)
+public class EventStreamServlet extends HttpServlet {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventStreamServlet.class);
+
+    // 断线后浏览器重连前等待的毫秒数
+    private static final String RETRY_FRAME = "retry: 3000\n\n";
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        Set<String> topics = parseTopics(request.getParameter("topics"));
+        if (topics == null) {
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request",
+                    "topics 参数无效，可选值: " + String.join(",", EventHub.TOPICS), logger);
+            return;
+        }
+        if (EventHub.getInstance().clientCount() >= EventHub.MAX_CLIENTS) {
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service Unavailable",
+                    "事件连接数已达上限，请稍后重试。", logger);
+            return;
+        }
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        // 禁止反向代理缓冲事件流
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(0);
+        ServletOutputStream out = response.getOutputStream();
+        // AuthenticationFilter 已校验过令牌，这里读取请求属性中缓存的结果
+        AuthTokens.Claims claims = AuthTokens.authenticate(request);
+        Integer userId = claims != null ? claims.getUserId() : null;
+        boolean allLoans = claims != null && AccessControl.has(claims, Permission.LOAN_ANY);
+        SseClient client = new SseClient(asyncContext, out, topics, userId, allLoans);
+        asyncContext.addListener(client);
+        client.enqueue(":retry", RETRY_FRAME.getBytes(StandardCharsets.UTF_8));
+        // 设置后输出流进入非阻塞模式，容器在可写时回调 onWritePossible 写出首帧；
+        // 之后才登记到事件中心，分发线程只会在非阻塞模式下调用 isReady()
+        out.setWriteListener(client);
+        if (!EventHub.getInstance().register(client)) {
+            client.close();
+            return;
+        }
+        logger.info("Handling GET /api/events - topics: {}, userId: {}", topics, userId);
+    }
+
+    /**
+     * @return 请求的主题集合，未指定时为全部主题；包含未知主题时返回null
+     */
+    private static Set<String> parseTopics(String param) {
+        if (param == null || param.trim().isEmpty()) {
+            return EventHub.TOPICS;
+        }
+        Set<String> topics = new HashSet<>();
+        for (String topic : param.split(",")) {
+            String trimmed = topic.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!EventHub.TOPICS.contains(trimmed)) {
+                return null;
+            }
+            topics.add(trimmed);
+        }
+        return topics.isEmpty() ? EventHub.TOPICS : topics;
+    }
+}
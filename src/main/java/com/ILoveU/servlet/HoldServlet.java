@@ -0,0 +1,185 @@
+package com.ILoveU.servlet;
+
+import com.ILoveU.dto.HoldDTO;
+import com.ILoveU.exception.*;
+import com.ILoveU.service.HoldService;
+import com.ILoveU.service.Impl.HoldServiceImpl;
+import com.ILoveU.util.AccessControl;
+import com.ILoveU.util.ApiRoute;
+import com.ILoveU.util.Permission;
+import com.ILoveU.util.RouteTrie;
+import com.ILoveU.util.ServletUtil;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 图书预约接口：
+ * POST   /api/holds            预约暂无库存的图书
+ * GET    /api/holds?userId=5   查询用户未结束的预约及排队位置
+ * DELETE /api/holds/{holdId}   取消预约
+ *
+ * 读者只能预约、查询、取消自己的预约；拥有 LOAN_ANY 权限的馆员可以代任何读者操作。
+ */
+@WebServlet(urlPatterns = "/api/holds/*", asyncSupported = true)
+public class HoldServlet extends BulkheadServlet {
+
+    private static final Logger logger = LoggerFactory.getLogger(HoldServlet.class);
+    private HoldService holdService;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        this.holdService = new HoldServiceImpl();
+        logger.info("HoldServlet initialized.");
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
+
+        try {
+            if (route == null || !route.is(ApiRoute.HOLD_CREATE)) {
+                logger.warn("Invalid path for POST request: /api/holds{}", pathInfo);
+                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_METHOD_NOT_ALLOWED, "Method Not Allowed", "此路径不支持POST请求。", logger);
+                return;
+            }
+            JsonObject jsonRequest = ServletUtil.getJsonFromRequestBody(request);
+            if (jsonRequest == null) {
+                throw new ValidationException("请求体不能为空。");
+            }
+            // 请求体: { "userId": 5, "bookId": 124 }
+            if (!jsonRequest.has("userId") || !jsonRequest.has("bookId")) {
+                throw new ValidationException("请求体必须包含userId和bookId。");
+            }
+            int userId = jsonRequest.get("userId").getAsInt();
+            int bookId = jsonRequest.get("bookId").getAsInt();
+            AccessControl.checkActingFor(request, userId, Permission.LOAN_ANY);
+
+            logger.info("Handling POST /api/holds - userId: {}, bookId: {}", userId, bookId);
+            HoldDTO hold = holdService.placeHold(userId, bookId);
+            ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_CREATED, hold);
+        } catch (ValidationException e) {
+            logger.warn("Validation error in POST /api/holds: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), e.getErrors(), logger);
+        } catch (AccessDeniedException e) {
+            logger.warn("Access denied in POST /api/holds: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_FORBIDDEN, "Forbidden", e.getMessage(), logger);
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Resource not found in POST /api/holds: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage(), logger);
+        } catch (DuplicateResourceException e) {
+            logger.warn("Duplicate hold in POST /api/holds: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_CONFLICT, "Conflict", e.getMessage(), logger);
+        } catch (OperationForbiddenException e) {
+            logger.warn("Operation forbidden in POST /api/holds: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), logger);
+        } catch (OperationFailedException e) {
+            logger.error("Operation failed in POST /api/holds: {}", e.getMessage(), e.getCause());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", e.getMessage(), logger);
+        } catch (JsonSyntaxException | IllegalStateException | NumberFormatException e) {
+            logger.warn("Invalid JSON in POST /api/holds: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "请求的JSON格式无效: " + e.getMessage(), logger);
+        } catch (Exception e) {
+            logger.error("Unexpected error in POST /api/holds: {}", e.getMessage(), e);
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", "处理预约请求时发生意外错误。", logger);
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
+
+        try {
+            if (route == null || !route.is(ApiRoute.HOLD_LIST)) {
+                logger.warn("Invalid path for GET request: /api/holds{}", pathInfo);
+                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", "请求的预约接口未找到。", logger);
+                return;
+            }
+            String userIdStr = request.getParameter("userId");
+            if (userIdStr == null || userIdStr.isEmpty()) {
+                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "查询预约需要提供userId参数。", logger);
+                return;
+            }
+            int userId = Integer.parseInt(userIdStr);
+            AccessControl.checkActingFor(request, userId, Permission.LOAN_ANY);
+            logger.info("Handling GET /api/holds?userId={}", userId);
+            List<HoldDTO> holds = holdService.getHoldsByUserId(userId);
+            ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, holds);
+        } catch (NumberFormatException e) {
+            logger.warn("无效的用户ID格式: {}", request.getParameter("userId"));
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "用户ID格式无效。", logger);
+        } catch (AccessDeniedException e) {
+            logger.warn("Access denied in GET /api/holds: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_FORBIDDEN, "Forbidden", e.getMessage(), logger);
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Resource not found in GET /api/holds: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage(), logger);
+        } catch (OperationFailedException e) {
+            logger.error("Operation failed in GET /api/holds: {}", e.getMessage(), e.getCause());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", e.getMessage(), logger);
+        } catch (Exception e) {
+            logger.error("Unexpected error in GET /api/holds: {}", e.getMessage(), e);
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", "获取预约信息时发生意外错误。", logger);
+        }
+    }
+
+    @Override
+    protected void doDelete(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
+
+        // DELETE /api/holds/{holdId} (取消预约)
+        if (route == null || !route.is(ApiRoute.HOLD_CANCEL)) {
+            logger.warn("Invalid path for DELETE request: /api/holds{}", pathInfo);
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "删除请求的路径无效，应为 /api/holds/{holdId}。", logger);
+            return;
+        }
+        try {
+            int holdId = route.getInt("id");
+            logger.info("Handling DELETE /api/holds/{}", holdId);
+            AccessControl.checkActingFor(request, holdService.getHoldById(holdId).getUserId(), Permission.LOAN_ANY);
+            HoldDTO hold = holdService.cancelHold(holdId);
+            ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, hold);
+        } catch (ValidationException e) {
+            logger.warn("Validation error in DELETE /api/holds: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), e.getErrors(), logger);
+        } catch (AccessDeniedException e) {
+            logger.warn("Access denied in DELETE /api/holds: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_FORBIDDEN, "Forbidden", e.getMessage(), logger);
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Resource not found in DELETE /api/holds: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage(), logger);
+        } catch (OperationFailedException e) {
+            logger.error("Operation failed in DELETE /api/holds: {}", e.getMessage(), e.getCause());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", e.getMessage(), logger);
+        } catch (Exception e) {
+            logger.error("Unexpected error in DELETE /api/holds: {}", e.getMessage(), e);
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", "取消预约时发生意外错误。", logger);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        logger.info("HoldServlet destroyed.");
+    }
+}
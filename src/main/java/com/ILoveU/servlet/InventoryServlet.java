@@ -0,0 +1,74 @@
+package com.ILoveU.servlet;
+
+import com.ILoveU.dto.InventoryReconciliationDTO;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.OperationForbiddenException;
+import com.ILoveU.service.InventoryService;
+import com.ILoveU.service.Impl.InventoryServiceImpl;
+import com.ILoveU.util.ServletUtil;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 库存核对接口：
+ * GET  /api/inventory/reconciliation             查询当前或最近一次核对的进度和结果
+ * POST /api/inventory/reconciliation?repair=true 在后台启动一次核对（repair=true 时修复不一致的记录）
+ */
+@WebServlet(urlPatterns = "/api/inventory/reconciliation", asyncSupported = true)
+public class InventoryServlet extends BulkheadServlet {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryServlet.class);
+
+    private InventoryService inventoryService;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        this.inventoryService = new InventoryServiceImpl();
+        logger.info("InventoryServlet initialized.");
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        try {
+            InventoryReconciliationDTO status = inventoryService.getReconciliationStatus();
+            ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, status);
+        } catch (Exception e) {
+            logger.error("Unexpected error in GET /api/inventory/reconciliation: {}", e.getMessage(), e);
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", "查询库存核对状态时发生意外错误。", logger);
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        try {
+            boolean repair = "true".equalsIgnoreCase(request.getParameter("repair"));
+            logger.info("Handling POST /api/inventory/reconciliation - repair: {}", repair);
+            InventoryReconciliationDTO status = inventoryService.startReconciliation(repair);
+            ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_ACCEPTED, status);
+        } catch (OperationForbiddenException e) {
+            logger.warn("Conflict in POST /api/inventory/reconciliation: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_CONFLICT, "Conflict", e.getMessage(), logger);
+        } catch (OperationFailedException e) {
+            logger.error("Operation failed in POST /api/inventory/reconciliation: {}", e.getMessage(), e);
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", e.getMessage(), logger);
+        } catch (Exception e) {
+            logger.error("Unexpected error in POST /api/inventory/reconciliation: {}", e.getMessage(), e);
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", "启动库存核对时发生意外错误。", logger);
+        }
+    }
+}
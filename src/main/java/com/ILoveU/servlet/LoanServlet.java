@@ -6,23 +6,28 @@ import com.ILoveU.dto.PageDTO;
 import com.ILoveU.exception.*;
 import com.ILoveU.service.LoanService;
 import com.ILoveU.service.Impl.LoanServiceImpl;
+import com.ILoveU.util.AccessControl;
+import com.ILoveU.util.ApiRoute;
+import com.ILoveU.util.FieldMask;
+import com.ILoveU.util.Permission;
+import com.ILoveU.util.RouteTrie;
 import com.ILoveU.util.ServletUtil;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@WebServlet("/api/loans/*")
-public class LoanServlet extends HttpServlet {
+@WebServlet(urlPatterns = "/api/loans/*", asyncSupported = true)
+public class LoanServlet extends BulkheadServlet {
 
     private static final Logger logger = LoggerFactory.getLogger(LoanServlet.class);
     private LoanService loanService;
@@ -39,6 +44,7 @@ public class LoanServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         try {
             JsonObject jsonRequest = ServletUtil.getJsonFromRequestBody(request);
@@ -46,7 +52,7 @@ public class LoanServlet extends HttpServlet {
                 throw new ValidationException("请求体不能为空。");
             }
 
-            if ("/checkout".equals(pathInfo)) {
+            if (route != null && route.is(ApiRoute.LOAN_CHECKOUT)) {
                 // POST /api/loans/checkout (借书)
                 // API规范请求体: { "userId": 5, "bookId":124 }
                 if (!jsonRequest.has("userId") || !jsonRequest.has("bookId")) {
@@ -54,18 +60,21 @@ public class LoanServlet extends HttpServlet {
                 }
                 int userId = jsonRequest.get("userId").getAsInt();
                 int bookId = jsonRequest.get("bookId").getAsInt();
+                // 读者只能为自己借书，馆员可以为任何读者办理
+                AccessControl.checkActingFor(request, userId, Permission.LOAN_ANY);
 
                 logger.info("Handling POST /api/loans/checkout - userId: {}, bookId: {}", userId, bookId);
                 LoanDTO createdLoan = loanService.checkoutBook(userId, bookId);
                 ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_CREATED, createdLoan);
 
-            } else if ("/return".equals(pathInfo)) {
+            } else if (route != null && route.is(ApiRoute.LOAN_RETURN)) {
                 // POST /api/loans/return (还书)
                 // API规范请求体: { "loanId":501 }
                 if (!jsonRequest.has("loanId")) {
                     throw new ValidationException("请求体必须包含loanId。");
                 }
                 int loanId = jsonRequest.get("loanId").getAsInt();
+                AccessControl.checkActingFor(request, loanService.getLoanById(loanId).getUserId(), Permission.LOAN_ANY);
 
                 logger.info("Handling POST /api/loans/return - loanId: {}", loanId);
                 LoanDTO updatedLoan = loanService.returnBook(loanId);
@@ -78,6 +87,9 @@ public class LoanServlet extends HttpServlet {
         } catch (ValidationException e) {
             logger.warn("Validation error in POST /api/loans: {}", e.getMessage());
             ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), e.getErrors(), logger);
+        } catch (AccessDeniedException e) {
+            logger.warn("Access denied in POST /api/loans: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_FORBIDDEN, "Forbidden", e.getMessage(), logger);
         } catch (ResourceNotFoundException e) {
             logger.warn("Resource not found in POST /api/loans: {}", e.getMessage());
             ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage(), logger);
@@ -104,13 +116,18 @@ public class LoanServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         try {
             // 情况1: GET /api/loans (查询借阅记录, API规范可选功能, 支持?userId=5 或分页)
-            if (pathInfo == null || pathInfo.equals("/")) {
+            if (route != null && route.is(ApiRoute.LOAN_LIST)) {
                 String userIdStr = request.getParameter("userId");
                 String pageStr = request.getParameter("page");
                 String pageSizeStr = request.getParameter("size");
+                // 稀疏字段集: ?fields=id,bookId,dueDate
+                FieldMask fieldMask = FieldMask.parse(request.getParameter("fields"), LoanDTO.FIELD_NAMES);
+                // ?includeArchived=true 时同时返回已归档的历史借阅
+                boolean includeArchived = "true".equalsIgnoreCase(request.getParameter("includeArchived"));
 
                 int page = (pageStr != null && !pageStr.isEmpty()) ? Integer.parseInt(pageStr) : 1;
                 int pageSize = (pageSizeStr != null && !pageSizeStr.isEmpty()) ? Integer.parseInt(pageSizeStr) : 10;
@@ -118,8 +135,10 @@ public class LoanServlet extends HttpServlet {
                 if (userIdStr != null && !userIdStr.isEmpty()) {
                     try {
                         int userId = Integer.parseInt(userIdStr);
-                        logger.info("Handling GET /api/loans?userId={} - page: {}, pageSize: {}", userId, page, pageSize);
-                        PageDTO<LoanDTO> pageResult = loanService.getLoansByUserId(userId, page, pageSize);
+                        AccessControl.checkActingFor(request, userId, Permission.LOAN_ANY);
+                        logger.info("Handling GET /api/loans?userId={} - page: {}, pageSize: {}, fields: {}, includeArchived: {}",
+                                userId, page, pageSize, fieldMask, includeArchived);
+                        PageDTO<LoanDTO> pageResult = loanService.getLoansByUserId(userId, page, pageSize, fieldMask, includeArchived);
                         ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, pageResult);
                     } catch (NumberFormatException e) {
                         logger.warn("无效的用户ID格式: {}", userIdStr, e);
@@ -130,18 +149,33 @@ public class LoanServlet extends HttpServlet {
                     logger.warn("GET /api/loans request without userId parameter.");
                     ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "查询借阅记录需要提供userId参数。", logger);
                 }
-            // 情况2: GET /api/loans/{loanId} (获取指定借阅记录)
-            } else if (pathInfo.matches("/\\d+")) { // 匹配 /数字
-                String loanIdStr = pathInfo.substring(1);
-                try {
-                    int loanId = Integer.parseInt(loanIdStr);
-                    logger.info("Handling GET /api/loans/{}", loanId);
-                    LoanDTO loanDTO = loanService.getLoanById(loanId);
-                    ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, loanDTO);
-                } catch (NumberFormatException e) {
-                    logger.warn("无效的借阅记录ID格式: {}", loanIdStr, e);
-                    ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "借阅记录ID格式无效。", logger);
-                }
+            // 情况2: GET /api/loans/overdue (当前逾期的借阅记录, 支持 ?page=&size=)
+            } else if (route != null && route.is(ApiRoute.LOAN_OVERDUE)) {
+                String pageStr = request.getParameter("page");
+                String pageSizeStr = request.getParameter("size");
+                int page = (pageStr != null && !pageStr.isEmpty()) ? Integer.parseInt(pageStr) : 1;
+                int pageSize = (pageSizeStr != null && !pageSizeStr.isEmpty()) ? Integer.parseInt(pageSizeStr) : 10;
+
+                logger.info("Handling GET /api/loans/overdue - page: {}, pageSize: {}", page, pageSize);
+                PageDTO<LoanDTO> pageResult = loanService.getOverdueLoans(page, pageSize);
+                ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, pageResult);
+            // 情况3: GET /api/loans/cold-archive (在冷归档段文件中查询, 支持 ?userId=&from=&to=)
+            } else if (route != null && route.is(ApiRoute.LOAN_COLD_ARCHIVE)) {
+                String userIdStr = request.getParameter("userId");
+                Integer userId = (userIdStr != null && !userIdStr.isEmpty()) ? Integer.valueOf(userIdStr) : null;
+                String from = request.getParameter("from");
+                String to = request.getParameter("to");
+
+                logger.info("Handling GET /api/loans/cold-archive - userId: {}, from: {}, to: {}", userId, from, to);
+                List<LoanDTO> loans = loanService.findColdArchivedLoans(userId, from, to);
+                ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, loans);
+            // 情况4: GET /api/loans/{loanId} (获取指定借阅记录)
+            } else if (route != null && route.is(ApiRoute.LOAN_GET)) {
+                int loanId = route.getInt("id");
+                logger.info("Handling GET /api/loans/{}", loanId);
+                LoanDTO loanDTO = loanService.getLoanById(loanId);
+                AccessControl.checkActingFor(request, loanDTO.getUserId(), Permission.LOAN_ANY);
+                ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, loanDTO);
             } else {
                 logger.warn("Invalid path for GET request: /api/loans{}", pathInfo);
                 ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", "请求的借阅记录接口未找到。", logger);
@@ -149,6 +183,9 @@ public class LoanServlet extends HttpServlet {
         } catch (ValidationException e) {
             logger.warn("Validation error in GET /api/loans: {}", e.getMessage());
             ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), e.getErrors(), logger);
+        } catch (AccessDeniedException e) {
+            logger.warn("Access denied in GET /api/loans: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_FORBIDDEN, "Forbidden", e.getMessage(), logger);
         } catch (ResourceNotFoundException e) {
             logger.warn("Resource not found in GET /api/loans: {}", e.getMessage());
             ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage(), logger);
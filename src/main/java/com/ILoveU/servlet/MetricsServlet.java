@@ -0,0 +1,36 @@
+package com.ILoveU.servlet;
+
+import com.ILoveU.util.Metrics;
+import com.ILoveU.util.ServletUtil;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * GET /api/metrics 输出各组件登记的运行指标（见 {@link Metrics}），供监控系统定期抓取。
+ */
+@WebServlet("/api/metrics")
+public class MetricsServlet extends HttpServlet {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsServlet.class);
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        try {
+            ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, Metrics.snapshot());
+        } catch (Exception e) {
+            logger.error("Unexpected error in GET /api/metrics: {}", e.getMessage(), e);
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", "读取运行指标时发生意外错误。", logger);
+        }
+    }
+}
@@ -6,12 +6,13 @@ import com.ILoveU.dto.PressDTO;
 import com.ILoveU.exception.*;
 import com.ILoveU.service.Impl.PressServiceImpl;
 import com.ILoveU.service.PressService;
+import com.ILoveU.util.ApiRoute;
+import com.ILoveU.util.RouteTrie;
 import com.ILoveU.util.ServletUtil;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -21,8 +22,8 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.List;
 
-@WebServlet("/api/presses/*")
-public class PressServlet extends HttpServlet {
+@WebServlet(urlPatterns = "/api/presses/*", asyncSupported = true)
+public class PressServlet extends BulkheadServlet {
 
     private static final Logger logger = LoggerFactory.getLogger(PressServlet.class);
     private PressService pressService;
@@ -39,10 +40,11 @@ public class PressServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         try {
             // 情况1: GET /api/presses (获取出版社列表，支持分页)
-            if (pathInfo == null || pathInfo.equals("/")) {
+            if (route != null && route.is(ApiRoute.PRESS_LIST)) {
                 String pageStr = request.getParameter("page");
                 String pageSizeStr = request.getParameter("pageSize");
 
@@ -55,17 +57,14 @@ public class PressServlet extends HttpServlet {
                 sendSuccessResponse(response, HttpServletResponse.SC_OK, pageResult);
 
                 // 情况2: GET /api/presses/{pressId} (获取指定出版社)
+            } else if (route != null && route.is(ApiRoute.PRESS_GET)) {
+                int pressId = route.getInt("id");
+                logger.info("Handling GET /api/presses/{}", pressId);
+                PressDTO pressDTO = pressService.getPressById(pressId);
+                sendSuccessResponse(response, HttpServletResponse.SC_OK, pressDTO);
             } else {
-                String pressIdStr = pathInfo.substring(1); // 移除开头的 '/'
-                try {
-                    int pressId = Integer.parseInt(pressIdStr);
-                    logger.info("Handling GET /api/presses/{}", pressId);
-                    PressDTO pressDTO = pressService.getPressById(pressId);
-                    sendSuccessResponse(response, HttpServletResponse.SC_OK, pressDTO);
-                } catch (NumberFormatException e) {
-                    logger.warn("无效的出版社ID格式: {}", pressIdStr, e);
-                    sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "出版社ID格式无效。");
-                }
+                logger.warn("Invalid path for GET request: /api/presses{}", pathInfo);
+                sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", "请求的出版社接口未找到。");
             }
         } catch (ValidationException e) {
             logger.warn("Validation error in GET /api/presses: {}", e.getMessage());
@@ -90,9 +89,10 @@ public class PressServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         // POST /api/presses (创建新出版社)
-        if (pathInfo == null || pathInfo.equals("/")) {
+        if (route != null && route.is(ApiRoute.PRESS_CREATE)) {
             try {
                 JsonObject jsonRequest = ServletUtil.getJsonFromRequestBody(request);
                 if (jsonRequest == null) {
@@ -139,12 +139,12 @@ public class PressServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         // PUT /api/presses/{pressId} (更新出版社)
-        if (pathInfo != null && pathInfo.matches("/\\d+")) { // 匹配 /数字
-            String pressIdStr = pathInfo.substring(1);
+        if (route != null && route.is(ApiRoute.PRESS_UPDATE)) {
+            int pressId = route.getInt("id");
             try {
-                int pressId = Integer.parseInt(pressIdStr);
                 JsonObject jsonRequest = ServletUtil.getJsonFromRequestBody(request);
                 if (jsonRequest == null) {
                     throw new ValidationException("请求体不能为空。");
@@ -156,9 +156,9 @@ public class PressServlet extends HttpServlet {
                 PressDTO updatedPress = pressService.updateExistingPress(pressId, pressToUpdate);
                 sendSuccessResponse(response, HttpServletResponse.SC_OK, updatedPress);
 
-            } catch (NumberFormatException e) {
-                logger.warn("无效的出版社ID格式: {}", pressIdStr, e);
-                sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "出版社ID格式无效。");
+            } catch (NumberFormatException e) { // 请求体中的数字字段格式错误
+                logger.warn("无效的数字格式: {}", e.getMessage());
+                sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "请求中的数字格式无效。");
             } catch (ValidationException e) {
                 logger.warn("Validation error in PUT /api/presses: {}", e.getMessage());
                 sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), e.getErrors());
@@ -192,19 +192,16 @@ public class PressServlet extends HttpServlet {
         response.setContentType("application/json"); // 虽然204不返回内容，但设置一下无妨
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         // DELETE /api/presses/{pressId} (删除出版社)
-        if (pathInfo != null && pathInfo.matches("/\\d+")) { // 匹配 /数字
-            String pressIdStr = pathInfo.substring(1);
+        if (route != null && route.is(ApiRoute.PRESS_DELETE)) {
+            int pressId = route.getInt("id");
             try {
-                int pressId = Integer.parseInt(pressIdStr);
                 logger.info("Handling DELETE /api/presses/{}", pressId);
                 pressService.deletePressById(pressId);
                 response.setStatus(HttpServletResponse.SC_NO_CONTENT); // 204 No Content for successful deletion
 
-            } catch (NumberFormatException e) {
-                logger.warn("无效的出版社ID格式: {}", pressIdStr, e);
-                sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "出版社ID格式无效。");
             } catch (ResourceNotFoundException e) {
                 logger.warn("Resource not found in DELETE /api/presses: {}", e.getMessage());
                 sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage());
@@ -0,0 +1,92 @@
+package com.ILoveU.servlet;
+
+import com.ILoveU.dto.ApiErrorResponse;
+import com.ILoveU.dto.SuggestionDTO;
+import com.ILoveU.exception.ServiceUnavailableException;
+import com.ILoveU.exception.ValidationException;
+import com.ILoveU.service.SuggestService;
+import com.ILoveU.service.Impl.SuggestServiceImpl;
+import com.ILoveU.util.ServletUtil;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 输入联想接口：GET /api/suggest?q=前缀&types=book,author,tag,press&limit=5
+ * 供前端搜索框在每次按键时调用，代替完整的分页搜索查询。
+ */
+@WebServlet(urlPatterns = "/api/suggest", asyncSupported = true)
+public class SuggestServlet extends BulkheadServlet {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestServlet.class);
+    private static final int DEFAULT_LIMIT = 5;
+
+    private SuggestService suggestService;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        this.suggestService = new SuggestServiceImpl();
+        logger.info("SuggestServlet initialized.");
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        try {
+            String prefix = request.getParameter("q");
+            String typesStr = request.getParameter("types");
+            String limitStr = request.getParameter("limit");
+
+            int limit = (limitStr != null && !limitStr.isEmpty()) ? Integer.parseInt(limitStr) : DEFAULT_LIMIT;
+
+            List<SuggestService.Category> categories = new ArrayList<>();
+            if (typesStr != null && !typesStr.trim().isEmpty()) {
+                List<ApiErrorResponse.FieldErrorDetail> errors = new ArrayList<>();
+                for (String rawType : typesStr.split(",")) {
+                    String type = rawType.trim();
+                    if (type.isEmpty()) {
+                        continue;
+                    }
+                    SuggestService.Category category = SuggestService.Category.fromTypeName(type);
+                    if (category == null) {
+                        errors.add(new ApiErrorResponse.FieldErrorDetail("types", "未知类型: " + type));
+                    } else if (!categories.contains(category)) {
+                        categories.add(category);
+                    }
+                }
+                if (!errors.isEmpty()) {
+                    throw new ValidationException("types 参数包含无效类型。", errors);
+                }
+            }
+
+            logger.debug("Handling GET /api/suggest - q: '{}', types: {}, limit: {}", prefix, categories, limit);
+            List<SuggestionDTO> suggestions = suggestService.suggest(prefix, categories, limit);
+            ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, suggestions);
+        } catch (ValidationException e) {
+            logger.warn("Validation error in GET /api/suggest: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), e.getErrors(), logger);
+        } catch (ServiceUnavailableException e) {
+            logger.warn("Service unavailable in GET /api/suggest: {}", e.getMessage());
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service Unavailable", e.getMessage(), logger);
+        } catch (NumberFormatException e) {
+            logger.warn("无效的limit参数格式: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "limit 参数格式无效。", logger);
+        } catch (Exception e) {
+            logger.error("Unexpected error in GET /api/suggest: {}", e.getMessage(), e);
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", "获取联想建议时发生意外错误。", logger);
+        }
+    }
+}
@@ -9,13 +9,14 @@ import com.ILoveU.dao.impl.BookDAOImpl;
 import com.ILoveU.dao.impl.TagDAOImpl;
 import com.ILoveU.service.TagService;
 import com.ILoveU.service.Impl.TagServiceImpl;
+import com.ILoveU.util.ApiRoute;
+import com.ILoveU.util.RouteTrie;
 import com.ILoveU.util.ServletUtil;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
@@ -26,8 +27,8 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@WebServlet("/api/tags/*")
-public class TagServlet extends HttpServlet {
+@WebServlet(urlPatterns = "/api/tags/*", asyncSupported = true)
+public class TagServlet extends BulkheadServlet {
 
     private static final Logger logger = LoggerFactory.getLogger(TagServlet.class);
     private TagService tagService;
@@ -44,11 +45,12 @@ public class TagServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         try {
             // 情况1: GET /api/tags (获取标签列表，支持分页)
             // API规范中未明确Tag列表是否分页，但通常列表接口会支持分页
-            if (pathInfo == null || pathInfo.equals("/")) {
+            if (route != null && route.is(ApiRoute.TAG_LIST)) {
                 String pageStr = request.getParameter("page");
                 String pageSizeStr = request.getParameter("size");
 
@@ -60,17 +62,14 @@ public class TagServlet extends HttpServlet {
                 ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, pageResult);
 
             // 情况2: GET /api/tags/{tagId} (获取指定标签)
+            } else if (route != null && route.is(ApiRoute.TAG_GET)) {
+                int tagId = route.getInt("id");
+                logger.info("Handling GET /api/tags/{}", tagId);
+                TagDTO tagDTO = tagService.getTagById(tagId);
+                ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, tagDTO);
             } else {
-                String tagIdStr = pathInfo.substring(1); // 移除开头的 '/'
-                try {
-                    int tagId = Integer.parseInt(tagIdStr);
-                    logger.info("Handling GET /api/tags/{}", tagId);
-                    TagDTO tagDTO = tagService.getTagById(tagId);
-                    ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, tagDTO);
-                } catch (NumberFormatException e) {
-                    logger.warn("无效的标签ID格式: {}", tagIdStr, e);
-                    ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "标签ID格式无效。", logger);
-                }
+                logger.warn("Invalid path for GET request: /api/tags{}", pathInfo);
+                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", "请求的标签接口未找到。", logger);
             }
         } catch (ValidationException e) {
             logger.warn("Validation error in GET /api/tags: {}", e.getMessage());
@@ -95,9 +94,10 @@ public class TagServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         // POST /api/tags (创建新标签)
-        if (pathInfo == null || pathInfo.equals("/")) {
+        if (route != null && route.is(ApiRoute.TAG_CREATE)) {
             try {
                 JsonObject jsonRequest = ServletUtil.getJsonFromRequestBody(request);
                 if (jsonRequest == null) {
@@ -142,12 +142,12 @@ public class TagServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         // PUT /api/tags/{tagId} (更新标签)
-        if (pathInfo != null && pathInfo.matches("/\\d+")) { // 匹配 /数字
-            String tagIdStr = pathInfo.substring(1);
+        if (route != null && route.is(ApiRoute.TAG_UPDATE)) {
+            int tagId = route.getInt("id");
             try {
-                int tagId = Integer.parseInt(tagIdStr);
                 JsonObject jsonRequest = ServletUtil.getJsonFromRequestBody(request);
                 if (jsonRequest == null) {
                     throw new ValidationException("请求体不能为空。");
@@ -159,9 +159,9 @@ public class TagServlet extends HttpServlet {
                 TagDTO updatedTag = tagService.updateTag(tagId, tagToUpdate);
                 ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, updatedTag);
 
-            } catch (NumberFormatException e) {
-                logger.warn("无效的标签ID格式: {}", tagIdStr, e);
-                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "标签ID格式无效。", logger);
+            } catch (NumberFormatException e) { // 请求体中的数字字段格式错误
+                logger.warn("无效的数字格式: {}", e.getMessage());
+                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "请求中的数字格式无效。", logger);
             } catch (ValidationException e) {
                 logger.warn("Validation error in PUT /api/tags: {}", e.getMessage());
                 ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), e.getErrors(), logger);
@@ -195,19 +195,16 @@ public class TagServlet extends HttpServlet {
         response.setCharacterEncoding("UTF-8"); // 204通常不设置ContentType，但设置编码无妨
 
         String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
 
         // DELETE /api/tags/{tagId} (删除标签)
-        if (pathInfo != null && pathInfo.matches("/\\d+")) { // 匹配 /数字
-            String tagIdStr = pathInfo.substring(1);
+        if (route != null && route.is(ApiRoute.TAG_DELETE)) {
+            int tagId = route.getInt("id");
             try {
-                int tagId = Integer.parseInt(tagIdStr);
                 logger.info("Handling DELETE /api/tags/{}", tagId);
                 tagService.deleteTag(tagId);
                 response.setStatus(HttpServletResponse.SC_NO_CONTENT); // 204 No Content for successful deletion
 
-            } catch (NumberFormatException e) {
-                logger.warn("无效的标签ID格式: {}", tagIdStr, e);
-                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "标签ID格式无效。", logger);
             } catch (ResourceNotFoundException e) {
                 logger.warn("Resource not found in DELETE /api/tags: {}", e.getMessage());
                 ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage(), logger);
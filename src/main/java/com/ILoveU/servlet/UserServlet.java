@@ -0,0 +1,144 @@
+package com.ILoveU.servlet;
+
+import com.ILoveU.dto.FineBalanceDTO;
+import com.ILoveU.dto.UserDTO;
+import com.ILoveU.dto.UserLoanSummaryDTO;
+import com.ILoveU.exception.AccessDeniedException;
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.ResourceNotFoundException;
+import com.ILoveU.exception.ValidationException;
+import com.ILoveU.service.FineService;
+import com.ILoveU.service.Impl.FineServiceImpl;
+import com.ILoveU.service.Impl.LoanServiceImpl;
+import com.ILoveU.service.Impl.UserServiceImpl;
+import com.ILoveU.service.LoanService;
+import com.ILoveU.service.UserService;
+import com.ILoveU.util.AccessControl;
+import com.ILoveU.util.ApiRoute;
+import com.ILoveU.util.Permission;
+import com.ILoveU.util.RouteTrie;
+import com.ILoveU.util.ServletUtil;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 用户相关的查询接口：
+ * GET /api/users/{userId}/fines   查询用户的逾期罚款余额
+ * GET /api/users/{userId}/summary 查询用户的未归还数、逾期数和借阅上限
+ * PUT /api/users/{userId}/role    修改用户角色（需要 USER_MANAGE 权限）
+ *
+ * 读者只能查询自己的罚款和借阅概况，拥有 LOAN_ANY 权限的馆员可以查询任何读者。
+ */
+@WebServlet(urlPatterns = "/api/users/*", asyncSupported = true)
+public class UserServlet extends BulkheadServlet {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserServlet.class);
+
+    private FineService fineService;
+    private LoanService loanService;
+    private UserService userService;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        this.fineService = new FineServiceImpl();
+        this.loanService = new LoanServiceImpl();
+        this.userService = new UserServiceImpl();
+        logger.info("UserServlet initialized.");
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
+
+        try {
+            if (route != null && route.is(ApiRoute.USER_SUMMARY)) {
+                int userId = route.getInt("id");
+                AccessControl.checkActingFor(request, userId, Permission.LOAN_ANY);
+                logger.info("Handling GET /api/users/{}/summary", userId);
+                UserLoanSummaryDTO summary = loanService.getUserLoanSummary(userId);
+                ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, summary);
+            } else if (route != null && route.is(ApiRoute.USER_FINES)) {
+                int userId = route.getInt("id");
+                AccessControl.checkActingFor(request, userId, Permission.LOAN_ANY);
+                logger.info("Handling GET /api/users/{}/fines", userId);
+                FineBalanceDTO balance = fineService.getUserFineBalance(userId);
+                ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, balance);
+            } else {
+                logger.warn("Invalid path for GET request: /api/users{}", pathInfo);
+                ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", "请求的用户接口未找到。", logger);
+            }
+        } catch (AccessDeniedException e) {
+            logger.warn("Access denied in GET /api/users: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_FORBIDDEN, "Forbidden", e.getMessage(), logger);
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Resource not found in GET /api/users: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage(), logger);
+        } catch (OperationFailedException e) {
+            logger.error("Operation failed in GET /api/users: {}", e.getMessage(), e.getCause());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", e.getMessage(), logger);
+        } catch (Exception e) {
+            logger.error("Unexpected error in GET /api/users: {}", e.getMessage(), e);
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", "获取用户信息时发生意外错误。", logger);
+        }
+    }
+
+    @Override
+    protected void doPut(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        String pathInfo = request.getPathInfo();
+        RouteTrie.Match<ApiRoute> route = ApiRoute.match(request);
+
+        // PUT /api/users/{userId}/role，请求体: { "role": "LIBRARIAN" }
+        if (route == null || !route.is(ApiRoute.USER_ROLE_UPDATE)) {
+            logger.warn("Invalid path for PUT request: /api/users{}", pathInfo);
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", "请求的用户接口未找到。", logger);
+            return;
+        }
+        try {
+            int userId = route.getInt("id");
+            JsonObject jsonRequest = ServletUtil.getJsonFromRequestBody(request);
+            if (jsonRequest == null || !jsonRequest.has("role")) {
+                throw new ValidationException("请求体必须包含role。");
+            }
+            logger.info("Handling PUT /api/users/{}/role", userId);
+            UserDTO user = userService.changeUserRole(userId, jsonRequest.get("role").getAsString());
+            ServletUtil.sendSuccessResponse(response, HttpServletResponse.SC_OK, user);
+        } catch (ValidationException e) {
+            logger.warn("Validation error in PUT /api/users: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", e.getMessage(), e.getErrors(), logger);
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Resource not found in PUT /api/users: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_NOT_FOUND, "Not Found", e.getMessage(), logger);
+        } catch (OperationFailedException e) {
+            logger.error("Operation failed in PUT /api/users: {}", e.getMessage(), e.getCause());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", e.getMessage(), logger);
+        } catch (JsonSyntaxException | IllegalStateException | UnsupportedOperationException e) {
+            logger.warn("Invalid JSON in PUT /api/users: {}", e.getMessage());
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_BAD_REQUEST, "Bad Request", "请求的JSON格式无效: " + e.getMessage(), logger);
+        } catch (Exception e) {
+            logger.error("Unexpected error in PUT /api/users: {}", e.getMessage(), e);
+            ServletUtil.sendErrorResponse(response, request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal Server Error", "修改用户角色时发生意外错误。", logger);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        logger.info("UserServlet destroyed.");
+    }
+}
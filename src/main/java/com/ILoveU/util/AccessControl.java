@@ -0,0 +1,67 @@
+package com.ILoveU.util;
+
+import com.ILoveU.exception.AccessDeniedException;
+import com.ILoveU.model.User;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基于角色的访问控制。角色到权限位集的对应关系在类加载时预先算好，各路由所需的权限登记在 ApiRoute 中，
+ * 每个请求的检查只是一次路由匹配加一次按位与，不查询数据库。
+ *
+ * 路由只能判断“能不能调用这个接口”；“能不能操作这个读者的数据”由Servlet在解析出目标用户后
+ * 调用 {@link #checkActingFor} 判断。
+ */
+public final class AccessControl {
+
+    // 角色名 -> 权限位集
+    private static final Map<String, Long> ROLE_PERMISSIONS = new HashMap<>();
+
+    static {
+        long reader = Permission.mask(Permission.CATALOG_READ, Permission.LOAN_SELF);
+        long librarian = reader | Permission.mask(Permission.CATALOG_WRITE, Permission.LOAN_ANY,
+                Permission.ARCHIVE_READ, Permission.INVENTORY_MANAGE);
+        long admin = librarian | Permission.mask(Permission.METRICS_READ, Permission.USER_MANAGE);
+        ROLE_PERMISSIONS.put(User.Role.READER.name(), reader);
+        ROLE_PERMISSIONS.put(User.Role.LIBRARIAN.name(), librarian);
+        ROLE_PERMISSIONS.put(User.Role.ADMIN.name(), admin);
+    }
+
+    private AccessControl() {
+    }
+
+    /**
+     * @param roles 角色名，无法识别的角色（如旧版本令牌中的 USER）不带任何权限
+     * @return 这些角色的权限位集之并
+     */
+    public static long permissionsOf(Collection<String> roles) {
+        long permissions = 0;
+        for (String role : roles) {
+            Long mask = ROLE_PERMISSIONS.get(role);
+            if (mask != null) {
+                permissions |= mask;
+            }
+        }
+        return permissions;
+    }
+
+    public static boolean has(AuthTokens.Claims claims, Permission permission) {
+        return (claims.getPermissions() & permission.bit()) != 0;
+    }
+
+    /**
+     * 检查当前登录用户能否操作 targetUserId 的数据：本人，或者拥有 anyUserPermission（如 LOAN_ANY）。
+     *
+     * @throws AccessDeniedException 如果既不是本人也没有该权限
+     */
+    public static void checkActingFor(HttpServletRequest request, int targetUserId, Permission anyUserPermission)
+            throws AccessDeniedException {
+        AuthTokens.Claims claims = AuthTokens.authenticate(request);
+        if (claims == null || (claims.getUserId() != targetUserId && !has(claims, anyUserPermission))) {
+            throw new AccessDeniedException("没有权限操作其他用户的数据。");
+        }
+    }
+}
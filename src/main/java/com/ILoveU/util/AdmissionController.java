@@ -0,0 +1,236 @@
+package com.ILoveU.util;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按排队时延自适应的并发准入控制，思路来自 CoDel（Controlled Delay）。
+ *
+ * 每个请求的排队时延 = 等待请求槽位的时间 + 等待数据库连接的时间。只看每个间隔（interval）内的最小时延：
+ * 偶尔的突发会让个别请求排队，但只要间隔内有一个请求几乎不用等，说明队列能及时排空；
+ * 最小时延也超过目标值（target）时，说明已经形成了持续的积压，此时：
+ * - 进入过载状态，低优先级请求直接拒绝，普通请求不再排队等待槽位；
+ * - 并发上限按比例下调（每个间隔一次），直到时延回落；
+ * 间隔内没有积压且并发曾经用满时，上限加一，逐步试探数据库能承受的并发。
+ *
+ * 为了让高优先级请求在过载时仍能进入，普通和低优先级请求只能使用上限的一部分：
+ * 低优先级从不排队，槽位不够时立即拒绝；普通和高优先级最多排队 maxWait，高优先级先被唤醒。
+ */
+public final class AdmissionController {
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    // 普通和低优先级请求最多使用的并发上限比例，余下的留给高优先级
+    private static final double NORMAL_SHARE = 0.8;
+    private static final double LOW_SHARE = 0.5;
+    // 持续积压时每个间隔把上限乘以这个系数
+    private static final double DECREASE_FACTOR = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final long intervalNanos;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] slotFreed = new Condition[PRIORITIES.length];
+
+    // 以下字段受 lock 保护
+    private final int[] waiting = new int[PRIORITIES.length];
+    private int limit;
+    private int inFlight;
+    private int peakInFlight;
+    private long intervalStart;
+    private long intervalMinDelay = Long.MAX_VALUE;
+    private long lastMinDelay;
+    private boolean overloaded;
+    private long limitDecreases;
+
+    private final LongAdder[] admitted = new LongAdder[PRIORITIES.length];
+    private final LongAdder[] shed = new LongAdder[PRIORITIES.length];
+
+    /**
+     * @param initialLimit 初始并发上限，在 [minLimit, maxLimit] 之间调整
+     * @param targetNanos  可以接受的持续排队时延
+     * @param intervalNanos 观察最小时延的间隔，应大于正常请求的耗时
+     * @param maxWaitNanos 高优先级（以及未过载时的普通优先级）请求等待槽位的最长时间
+     */
+    public AdmissionController(int initialLimit, int minLimit, int maxLimit,
+                               long targetNanos, long intervalNanos, long maxWaitNanos) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("并发上限应满足 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.targetNanos = targetNanos;
+        this.intervalNanos = intervalNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.intervalStart = System.nanoTime();
+        for (Priority priority : PRIORITIES) {
+            slotFreed[priority.ordinal()] = lock.newCondition();
+            admitted[priority.ordinal()] = new LongAdder();
+            shed[priority.ordinal()] = new LongAdder();
+        }
+    }
+
+    /**
+     * 申请一个请求槽位，取得后必须调用 {@link #release} 归还。
+     *
+     * @return 等待槽位的纳秒数；被拒绝时返回 -1
+     */
+    public long acquire(Priority priority) {
+        int index = priority.ordinal();
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            roll(start);
+            if (priority == Priority.LOW && overloaded) {
+                shed[index].increment();
+                return -1;
+            }
+            long remaining = maxWait(priority);
+            while (inFlight >= threshold(priority)) {
+                if (remaining <= 0) {
+                    long now = System.nanoTime();
+                    if (now > start) {
+                        // 等到超时的请求同样说明队列在积压
+                        record(now - start, now);
+                    }
+                    shed[index].increment();
+                    // 等待期间可能收到过唤醒信号，转交给下一个等待者
+                    wakeUp();
+                    return -1;
+                }
+                waiting[index]++;
+                try {
+                    remaining = slotFreed[index].awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    remaining = 0;
+                } finally {
+                    waiting[index]--;
+                }
+            }
+            inFlight++;
+            peakInFlight = Math.max(peakInFlight, inFlight);
+            admitted[index].increment();
+            return System.nanoTime() - start;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还槽位。
+     *
+     * @param queueDelayNanos 这个请求的排队时延（等待槽位和数据库连接的时间之和）
+     */
+    public void release(long queueDelayNanos, long nowNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            record(queueDelayNanos, nowNanos);
+            wakeUp();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            metrics.put("limit", limit);
+            metrics.put("inFlight", inFlight);
+            metrics.put("overloaded", overloaded);
+            metrics.put("minQueueDelayMs", lastMinDelay / 1_000_000.0);
+            metrics.put("limitDecreases", limitDecreases);
+        } finally {
+            lock.unlock();
+        }
+        for (Priority priority : PRIORITIES) {
+            String name = priority.name().toLowerCase(Locale.ROOT);
+            metrics.put(name + "Admitted", admitted[priority.ordinal()].sum());
+            metrics.put(name + "Shed", shed[priority.ordinal()].sum());
+        }
+        return metrics;
+    }
+
+    private void record(long delayNanos, long now) {
+        roll(now);
+        intervalMinDelay = Math.min(intervalMinDelay, delayNanos);
+    }
+
+    /**
+     * 间隔结束时根据最小时延调整状态和上限。调用方持有 lock。
+     */
+    private void roll(long now) {
+        if (now - intervalStart < intervalNanos) {
+            return;
+        }
+        if (intervalMinDelay == Long.MAX_VALUE) {
+            // 整个间隔没有请求，也就没有积压
+            overloaded = false;
+            lastMinDelay = 0;
+        } else {
+            overloaded = intervalMinDelay > targetNanos;
+            lastMinDelay = intervalMinDelay;
+            if (overloaded) {
+                int decreased = Math.max(minLimit, (int) (limit * DECREASE_FACTOR));
+                if (decreased < limit) {
+                    limit = decreased;
+                    limitDecreases++;
+                }
+            } else if (peakInFlight >= limit && limit < maxLimit) {
+                limit++;
+                wakeUp();
+            }
+        }
+        intervalStart = now;
+        intervalMinDelay = Long.MAX_VALUE;
+        peakInFlight = inFlight;
+    }
+
+    /**
+     * 有空闲槽位时唤醒一个等待者，高优先级优先。调用方持有 lock。
+     */
+    private void wakeUp() {
+        for (Priority priority : PRIORITIES) {
+            if (waiting[priority.ordinal()] > 0 && inFlight < threshold(priority)) {
+                slotFreed[priority.ordinal()].signal();
+                return;
+            }
+        }
+    }
+
+    private int threshold(Priority priority) {
+        switch (priority) {
+            case HIGH:
+                return limit;
+            case NORMAL:
+                return Math.max(1, (int) (limit * NORMAL_SHARE));
+            default:
+                return Math.max(1, (int) (limit * LOW_SHARE));
+        }
+    }
+
+    private long maxWait(Priority priority) {
+        switch (priority) {
+            case HIGH:
+                return maxWaitNanos;
+            case NORMAL:
+                return overloaded ? 0 : maxWaitNanos;
+            default:
+                return 0;
+        }
+    }
+}
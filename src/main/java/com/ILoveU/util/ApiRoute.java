@@ -0,0 +1,145 @@
+package com.ILoveU.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * 全部API路由及其所需权限。启动时编译为一棵 RouteTrie，每个请求只匹配一次：
+ * 第一个用到的过滤器（通常是 AuthenticationFilter）把结果缓存在请求属性中，
+ * 之后的过滤器和Servlet直接取用已经解析好的路由和路径变量。
+ *
+ * 新增接口时必须在这里登记，未登记的路由一律返回404。
+ */
+public enum ApiRoute {
+
+    // 公共接口：不需要登录
+    AUTH_LOGIN("POST", "/api/auth/login", true),
+    AUTH_REGISTER("POST", "/api/auth/register", true),
+    // 登录后即可注销，不需要额外权限
+    AUTH_LOGOUT("POST", "/api/auth/logout"),
+
+    BOOK_LIST("GET", "/api/books", Permission.CATALOG_READ),
+    BOOK_GET("GET", "/api/books/{id}", Permission.CATALOG_READ),
+    BOOK_CREATE("POST", "/api/books", Permission.CATALOG_WRITE),
+    BOOK_UPDATE("PUT", "/api/books/{id}", Permission.CATALOG_WRITE),
+    BOOK_DELETE("DELETE", "/api/books/{id}", Permission.CATALOG_WRITE),
+
+    AUTHOR_LIST("GET", "/api/authors", Permission.CATALOG_READ),
+    AUTHOR_GET("GET", "/api/authors/{id}", Permission.CATALOG_READ),
+    AUTHOR_CREATE("POST", "/api/authors", Permission.CATALOG_WRITE),
+    AUTHOR_UPDATE("PUT", "/api/authors/{id}", Permission.CATALOG_WRITE),
+    AUTHOR_DELETE("DELETE", "/api/authors/{id}", Permission.CATALOG_WRITE),
+
+    PRESS_LIST("GET", "/api/presses", Permission.CATALOG_READ),
+    PRESS_GET("GET", "/api/presses/{id}", Permission.CATALOG_READ),
+    PRESS_CREATE("POST", "/api/presses", Permission.CATALOG_WRITE),
+    PRESS_UPDATE("PUT", "/api/presses/{id}", Permission.CATALOG_WRITE),
+    PRESS_DELETE("DELETE", "/api/presses/{id}", Permission.CATALOG_WRITE),
+
+    TAG_LIST("GET", "/api/tags", Permission.CATALOG_READ),
+    TAG_GET("GET", "/api/tags/{id}", Permission.CATALOG_READ),
+    TAG_CREATE("POST", "/api/tags", Permission.CATALOG_WRITE),
+    TAG_UPDATE("PUT", "/api/tags/{id}", Permission.CATALOG_WRITE),
+    TAG_DELETE("DELETE", "/api/tags/{id}", Permission.CATALOG_WRITE),
+
+    SUGGEST("GET", "/api/suggest", Permission.CATALOG_READ),
+    EVENTS("GET", "/api/events", Permission.CATALOG_READ),
+
+    // 借阅和预约：读者只能操作自己的记录，由Servlet按目标用户再检查 LOAN_ANY
+    LOAN_CHECKOUT("POST", "/api/loans/checkout", Permission.LOAN_SELF),
+    LOAN_RETURN("POST", "/api/loans/return", Permission.LOAN_SELF),
+    LOAN_LIST("GET", "/api/loans", Permission.LOAN_SELF),
+    LOAN_GET("GET", "/api/loans/{id}", Permission.LOAN_SELF),
+    LOAN_OVERDUE("GET", "/api/loans/overdue", Permission.LOAN_ANY),
+    LOAN_COLD_ARCHIVE("GET", "/api/loans/cold-archive", Permission.ARCHIVE_READ),
+    HOLD_CREATE("POST", "/api/holds", Permission.LOAN_SELF),
+    HOLD_LIST("GET", "/api/holds", Permission.LOAN_SELF),
+    HOLD_CANCEL("DELETE", "/api/holds/{id}", Permission.LOAN_SELF),
+    USER_FINES("GET", "/api/users/{id}/fines", Permission.LOAN_SELF),
+    USER_SUMMARY("GET", "/api/users/{id}/summary", Permission.LOAN_SELF),
+
+    USER_ROLE_UPDATE("PUT", "/api/users/{id}/role", Permission.USER_MANAGE),
+    INVENTORY_REPORT("GET", "/api/inventory/reconciliation", Permission.INVENTORY_MANAGE),
+    INVENTORY_RECONCILE("POST", "/api/inventory/reconciliation", Permission.INVENTORY_MANAGE),
+    METRICS("GET", "/api/metrics", Permission.METRICS_READ);
+
+    // 缓存匹配结果的请求属性；未匹配到路由时缓存 NO_MATCH，避免重复匹配
+    private static final String REQUEST_ATTRIBUTE = "apiRoute";
+    private static final Object NO_MATCH = new Object();
+
+    private static final RouteTrie<ApiRoute> ROUTES = new RouteTrie<>();
+
+    static {
+        for (ApiRoute route : values()) {
+            ROUTES.add(route.method, route.pattern, route);
+        }
+    }
+
+    private final String method;
+    private final String pattern;
+    private final boolean publicRoute;
+    private final long requiredPermissions;
+
+    ApiRoute(String method, String pattern, Permission... required) {
+        this(method, pattern, false, required);
+    }
+
+    ApiRoute(String method, String pattern, boolean publicRoute, Permission... required) {
+        this.method = method;
+        this.pattern = pattern;
+        this.publicRoute = publicRoute;
+        this.requiredPermissions = Permission.mask(required);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @return 是否不需要登录
+     */
+    public boolean isPublic() {
+        return publicRoute;
+    }
+
+    /**
+     * @return 所需权限位集，0 表示登录即可
+     */
+    public long getRequiredPermissions() {
+        return requiredPermissions;
+    }
+
+    /**
+     * 匹配路由，不读取也不写入请求属性。HEAD 按 GET 匹配。
+     *
+     * @param path 去掉上下文路径后的请求路径
+     */
+    public static RouteTrie.Match<ApiRoute> match(String method, String path) {
+        return ROUTES.match("HEAD".equals(method) ? "GET" : method, path);
+    }
+
+    /**
+     * 匹配当前请求的路由，结果缓存在请求属性中，同一请求经过多个过滤器和Servlet时只匹配一次。
+     * 使用容器解码、规范化后的 servletPath + pathInfo，与容器分派到Servlet所依据的路径一致。
+     *
+     * @return 匹配结果；没有对应的路由时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public static RouteTrie.Match<ApiRoute> match(HttpServletRequest request) {
+        Object cached = request.getAttribute(REQUEST_ATTRIBUTE);
+        if (cached == NO_MATCH) {
+            return null;
+        }
+        if (cached instanceof RouteTrie.Match) {
+            return (RouteTrie.Match<ApiRoute>) cached;
+        }
+        String pathInfo = request.getPathInfo();
+        String path = pathInfo == null ? request.getServletPath() : request.getServletPath() + pathInfo;
+        RouteTrie.Match<ApiRoute> match = match(request.getMethod(), path);
+        request.setAttribute(REQUEST_ATTRIBUTE, match == null ? NO_MATCH : match);
+        return match;
+    }
+}
@@ -0,0 +1,468 @@
+package com.ILoveU.util;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 无状态登录令牌：HMAC-SHA256 签名，携带用户ID、角色、权限位集（见 AccessControl）和过期时间，校验时不查询数据库也不依赖 HttpSession，
+ * 因此任意节点都能校验，负载均衡不需要会话粘滞。
+ *
+ * 令牌格式为 {@code kid.payload.signature}（均为 base64url），payload 为 {@code userId:roles:permissions:exp:iat:jti}，
+ * 权限位集为十六进制，exp 为过期时间（epoch 秒），iat 为签发时间（epoch 毫秒）。
+ * 密钥在 hibernate.cfg.xml 中通过 library.auth.keys 配置为 {@code kid:base64密钥} 列表，
+ * 第一个用于签发，其余只用于校验；轮换时把新密钥加到最前面，旧密钥保留到其签发的令牌全部过期后再删除。
+ *
+ * 注销的令牌按 jti 记入撤销表，只保留到令牌本身过期，因此撤销表很小；
+ * 修改角色时按用户撤销：该用户在某一时刻及之前签发的令牌全部失效。签发时间以毫秒记录在令牌中，
+ * 不由过期时间倒推，因此不受有效期配置变化的影响，撤销之后（哪怕同一秒内）换发的令牌也不会被误判为失效。
+ * 各节点由 TokenRevocationSyncJob 定期从 revoked_tokens 和 revoked_user_tokens 表同步。
+ */
+public final class AuthTokens {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthTokens.class);
+
+    public static final String COOKIE_NAME = "LIBRARY_TOKEN";
+    // AuthenticationFilter 把校验通过的 Claims 放在此请求属性中
+    public static final String REQUEST_ATTRIBUTE = "authClaims";
+
+    // 撤销表的容量上限；超过时先清理已过期的条目
+    public static final int MAX_REVOKED = 10_000;
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+    private static final Pattern KEY_ID = Pattern.compile("[A-Za-z0-9_-]{1,16}");
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final Map<String, byte[]> KEYS;
+    private static final String ACTIVE_KEY_ID;
+    private static final long TTL_SECONDS;
+
+    // jti -> 令牌过期时间（epoch 秒）
+    private static final Map<String, Long> REVOKED = new ConcurrentHashMap<>();
+    // userId -> 在此时及之前签发的令牌无效（epoch 毫秒）
+    private static final Map<Integer, Long> REVOKED_USERS = new ConcurrentHashMap<>();
+
+    static {
+        Properties properties = new Configuration().configure().getProperties();
+        KEYS = Collections.unmodifiableMap(parseKeys(properties.getProperty("library.auth.keys")));
+        ACTIVE_KEY_ID = KEYS.keySet().iterator().next();
+        TTL_SECONDS = 60L * Long.parseLong(properties.getProperty("library.auth.token_ttl_minutes", "480").trim());
+    }
+
+    /**
+     * 校验通过的令牌内容。
+     */
+    public static final class Claims {
+        private final int userId;
+        private final Set<String> roles;
+        private final long permissions;
+        private final long expiresAt;
+        private final long issuedAt;
+        private final String tokenId;
+        private final String keyId;
+
+        Claims(int userId, Set<String> roles, long permissions, long expiresAt, long issuedAt, String tokenId, String keyId) {
+            this.userId = userId;
+            this.roles = roles;
+            this.permissions = permissions;
+            this.expiresAt = expiresAt;
+            this.issuedAt = issuedAt;
+            this.tokenId = tokenId;
+            this.keyId = keyId;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public Set<String> getRoles() {
+            return roles;
+        }
+
+        /**
+         * @return 签发时由角色算出的权限位集（见 Permission）
+         */
+        public long getPermissions() {
+            return permissions;
+        }
+
+        /**
+         * @return 过期时间（epoch 秒）
+         */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        /**
+         * @return 签发时间（epoch 毫秒）
+         */
+        public long getIssuedAt() {
+            return issuedAt;
+        }
+
+        public String getTokenId() {
+            return tokenId;
+        }
+
+        public String getKeyId() {
+            return keyId;
+        }
+    }
+
+    /**
+     * 签发的令牌及其内容。
+     */
+    public static final class Issued {
+        private final String token;
+        private final Claims claims;
+
+        Issued(String token, Claims claims) {
+            this.token = token;
+            this.claims = claims;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public Claims getClaims() {
+            return claims;
+        }
+    }
+
+    private AuthTokens() {
+    }
+
+    public static long getTtlSeconds() {
+        return TTL_SECONDS;
+    }
+
+    /**
+     * 用当前签发密钥为用户签发一个新令牌，权限位集按角色重新计算。
+     */
+    public static Issued issue(int userId, Collection<String> roles) {
+        Set<String> roleSet = Collections.unmodifiableSet(new LinkedHashSet<>(roles));
+        long permissions = AccessControl.permissionsOf(roleSet);
+        long issuedAt = System.currentTimeMillis();
+        long expiresAt = issuedAt / 1000 + TTL_SECONDS;
+        byte[] jti = new byte[12];
+        RANDOM.nextBytes(jti);
+        String tokenId = ENCODER.encodeToString(jti);
+
+        String payload = userId + ":" + String.join(",", roleSet) + ":" + Long.toHexString(permissions)
+                + ":" + expiresAt + ":" + issuedAt + ":" + tokenId;
+        String signed = ACTIVE_KEY_ID + "." + ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        String token = signed + "." + ENCODER.encodeToString(sign(KEYS.get(ACTIVE_KEY_ID), signed));
+        return new Issued(token, new Claims(userId, roleSet, permissions, expiresAt, issuedAt, tokenId, ACTIVE_KEY_ID));
+    }
+
+    /**
+     * 校验令牌的签名、过期时间和撤销状态。
+     *
+     * @return 令牌内容；令牌格式错误、签名不符、已过期或已撤销时返回null
+     */
+    public static Claims verify(String token) {
+        if (token == null || token.length() > 512) {
+            return null;
+        }
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot <= firstDot + 1 || lastDot == token.length() - 1) {
+            return null;
+        }
+        String keyId = token.substring(0, firstDot);
+        byte[] key = KEYS.get(keyId);
+        if (key == null) {
+            // 未知密钥或已下线的密钥
+            return null;
+        }
+        try {
+            String signed = token.substring(0, lastDot);
+            byte[] signature = DECODER.decode(token.substring(lastDot + 1));
+            // 常数时间比较，避免通过响应时间逐字节猜出签名
+            if (!MessageDigest.isEqual(signature, sign(key, signed))) {
+                return null;
+            }
+            String payload = new String(DECODER.decode(token.substring(firstDot + 1, lastDot)), StandardCharsets.UTF_8);
+            String[] parts = payload.split(":", -1);
+            // 旧格式（没有权限位集或签发时间）的令牌不再接受，用户重新登录即可
+            if (parts.length != 6) {
+                return null;
+            }
+            long expiresAt = Long.parseLong(parts[3]);
+            long issuedAt = Long.parseLong(parts[4]);
+            String tokenId = parts[5];
+            if (expiresAt <= System.currentTimeMillis() / 1000 || REVOKED.containsKey(tokenId)) {
+                return null;
+            }
+            int userId = Integer.parseInt(parts[0]);
+            // 只有严格晚于撤销时刻签发的令牌有效
+            Long notBefore = REVOKED_USERS.get(userId);
+            if (notBefore != null && issuedAt <= notBefore) {
+                return null;
+            }
+            Set<String> roles = new LinkedHashSet<>();
+            for (String role : parts[1].split(",")) {
+                if (!role.isEmpty()) {
+                    roles.add(role);
+                }
+            }
+            return new Claims(userId, Collections.unmodifiableSet(roles), Long.parseUnsignedLong(parts[2], 16),
+                    expiresAt, issuedAt, tokenId, keyId);
+        } catch (IllegalArgumentException e) {
+            // base64 或数字格式错误（NumberFormatException 是其子类）
+            return null;
+        }
+    }
+
+    /**
+     * 读取并校验请求携带的令牌（Cookie 或 Authorization: Bearer），结果缓存在请求属性中，
+     * 同一请求经过多个过滤器时只校验一次。
+     *
+     * @return 令牌内容；未登录或令牌无效时返回null
+     */
+    public static Claims authenticate(HttpServletRequest request) {
+        Object cached = request.getAttribute(REQUEST_ATTRIBUTE);
+        if (cached instanceof Claims) {
+            return (Claims) cached;
+        }
+        Claims claims = verify(tokenFrom(request));
+        if (claims != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * 令牌已过半有效期或不是用当前密钥签发时应换发新令牌，使活跃用户不会突然掉线，密钥轮换后旧密钥也能尽快下线。
+     */
+    public static boolean needsRefresh(Claims claims) {
+        long remaining = claims.getExpiresAt() - System.currentTimeMillis() / 1000;
+        return remaining < TTL_SECONDS / 2 || !ACTIVE_KEY_ID.equals(claims.getKeyId());
+    }
+
+    /**
+     * 把令牌记入本节点的撤销表。持久化到 revoked_tokens 由调用方负责，其他节点会在下一次同步时读到。
+     */
+    public static void revoke(String tokenId, long expiresAt) {
+        if (REVOKED.size() >= MAX_REVOKED) {
+            pruneRevoked();
+            if (REVOKED.size() >= MAX_REVOKED) {
+                logger.warn("令牌撤销表已达上限 {}，jti {} 只能等待令牌自然过期", MAX_REVOKED, tokenId);
+                return;
+            }
+        }
+        REVOKED.put(tokenId, expiresAt);
+    }
+
+    /**
+     * 使该用户在 notBefore 及之前签发的令牌在本节点失效（如角色被修改后）。持久化到 revoked_user_tokens 由调用方负责。
+     *
+     * @param notBefore epoch 毫秒
+     */
+    public static void revokeUser(int userId, long notBefore) {
+        REVOKED_USERS.merge(userId, notBefore, Math::max);
+    }
+
+    /**
+     * 合并从数据库同步来的按用户撤销记录。
+     *
+     * @param revoked userId -> not_before（epoch 毫秒）
+     */
+    public static void mergeUserRevocations(Map<Integer, Long> revoked) {
+        for (Map.Entry<Integer, Long> entry : revoked.entrySet()) {
+            revokeUser(entry.getKey(), entry.getValue());
+        }
+        pruneRevoked();
+    }
+
+    /**
+     * 合并从数据库同步来的撤销记录，并清理已过期的条目。
+     *
+     * @param revoked jti -> 令牌过期时间（epoch 秒）
+     */
+    public static void mergeRevocations(Map<String, Long> revoked) {
+        for (Map.Entry<String, Long> entry : revoked.entrySet()) {
+            revoke(entry.getKey(), entry.getValue());
+        }
+        pruneRevoked();
+    }
+
+    public static int revokedCount() {
+        return REVOKED.size() + REVOKED_USERS.size();
+    }
+
+    private static void pruneRevoked() {
+        long nowMillis = System.currentTimeMillis();
+        long now = nowMillis / 1000;
+        for (Iterator<Long> it = REVOKED.values().iterator(); it.hasNext(); ) {
+            if (it.next() <= now) {
+                it.remove();
+            }
+        }
+        // 撤销时刻之前签发的令牌都已过期后，按用户的记录不再起作用
+        for (Iterator<Long> it = REVOKED_USERS.values().iterator(); it.hasNext(); ) {
+            if (it.next() + TTL_SECONDS * 1000 <= nowMillis) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * 用当前签发密钥为一个短值签名，得到 {@code kid.value.signature}。用于不是登录令牌、但同样不能被客户端篡改的 Cookie，
+     * 如读自己的写的最近写入时间（见 ReadRoutingFilter）。value 只能包含 base64url 字符。
+     */
+    public static String seal(String value) {
+        String signed = ACTIVE_KEY_ID + "." + value;
+        return signed + "." + ENCODER.encodeToString(sign(KEYS.get(ACTIVE_KEY_ID), signed));
+    }
+
+    /**
+     * 校验 {@link #seal(String)} 的结果。
+     *
+     * @return 原值；格式错误、密钥未知或签名不符时返回null
+     */
+    public static String unseal(String sealed) {
+        if (sealed == null || sealed.length() > 256) {
+            return null;
+        }
+        int firstDot = sealed.indexOf('.');
+        int lastDot = sealed.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot <= firstDot + 1 || lastDot == sealed.length() - 1) {
+            return null;
+        }
+        byte[] key = KEYS.get(sealed.substring(0, firstDot));
+        if (key == null) {
+            return null;
+        }
+        try {
+            String signed = sealed.substring(0, lastDot);
+            if (!MessageDigest.isEqual(DECODER.decode(sealed.substring(lastDot + 1)), sign(key, signed))) {
+                return null;
+            }
+            return sealed.substring(firstDot + 1, lastDot);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 以 HttpOnly Cookie 下发令牌。Servlet 5 的 Cookie 不支持 SameSite，因此直接写 Set-Cookie 头。
+     */
+    public static void writeCookie(HttpServletRequest request, HttpServletResponse response, String token, long maxAgeSeconds) {
+        writeCookie(request, response, COOKIE_NAME, token, maxAgeSeconds);
+    }
+
+    /**
+     * 以 HttpOnly、SameSite=Strict 的 Cookie 下发任意值，路径为应用的上下文路径。
+     */
+    public static void writeCookie(HttpServletRequest request, HttpServletResponse response,
+                                   String name, String value, long maxAgeSeconds) {
+        String path = request.getContextPath().isEmpty() ? "/" : request.getContextPath();
+        StringBuilder cookie = new StringBuilder(name).append('=').append(value)
+                .append("; Max-Age=").append(maxAgeSeconds)
+                .append("; Path=").append(path)
+                .append("; HttpOnly; SameSite=Strict");
+        if (request.isSecure()) {
+            cookie.append("; Secure");
+        }
+        response.addHeader("Set-Cookie", cookie.toString());
+    }
+
+    public static void clearCookie(HttpServletRequest request, HttpServletResponse response) {
+        writeCookie(request, response, "", 0);
+    }
+
+    private static String tokenFrom(HttpServletRequest request) {
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return authorization.substring(7).trim();
+        }
+        return cookieValue(request, COOKIE_NAME);
+    }
+
+    /**
+     * @return 请求中指定名称的 Cookie 值；没有时返回null
+     */
+    public static String cookieValue(HttpServletRequest request, String name) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (name.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static byte[] sign(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+            return mac.doFinal(data.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            // HmacSHA256 是每个JRE都必须提供的算法
+            throw new IllegalStateException("无法计算令牌签名", e);
+        }
+    }
+
+    /**
+     * 解析 {@code kid:base64密钥,kid:base64密钥}，顺序即优先级。未配置时生成一个随机密钥：
+     * 只适用于单节点，且重启后已签发的令牌全部失效。
+     */
+    private static Map<String, byte[]> parseKeys(String value) {
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        if (value != null) {
+            for (String entry : value.split(",")) {
+                String trimmed = entry.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                int colon = trimmed.indexOf(':');
+                String keyId = colon > 0 ? trimmed.substring(0, colon) : "";
+                if (!KEY_ID.matcher(keyId).matches()) {
+                    throw new IllegalStateException("library.auth.keys 中的密钥ID无效: " + keyId);
+                }
+                byte[] secret = Base64.getDecoder().decode(trimmed.substring(colon + 1).trim());
+                if (secret.length < MIN_KEY_BYTES) {
+                    throw new IllegalStateException("library.auth.keys 中的密钥 " + keyId + " 少于 " + MIN_KEY_BYTES + " 字节");
+                }
+                keys.put(keyId, secret);
+            }
+        }
+        if (keys.isEmpty()) {
+            byte[] secret = new byte[MIN_KEY_BYTES];
+            RANDOM.nextBytes(secret);
+            keys.put("local", secret);
+            logger.warn("未配置 library.auth.keys，使用随机生成的签名密钥：多个节点之间令牌不通用，重启后需要重新登录");
+        } else {
+            logger.info("令牌签名密钥已加载：{}，签发使用 {}", keys.keySet(), keys.keySet().iterator().next());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,53 @@
+package com.ILoveU.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 应用内后台定时任务的共享调度器（守护线程），由 HibernateAppListener 在启动/关闭时管理。
+ * 任务抛出的异常会被记录并吞掉，避免 ScheduledExecutorService 因异常而停止后续执行。
+ */
+public final class BackgroundJobs {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundJobs.class);
+    // 罚款计算等长时间任务会占用一个线程，保留余量给借阅到期调度这类高频短任务
+    private static final int POOL_SIZE = 3;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(POOL_SIZE, runnable -> {
+        Thread thread = new Thread(runnable, "background-job-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private BackgroundJobs() {
+    }
+
+    /**
+     * 按固定间隔执行任务（上一次执行结束后才会开始下一次）。
+     */
+    public static ScheduledFuture<?> scheduleWithFixedDelay(String name, Runnable task,
+                                                            long initialDelay, long delay, TimeUnit unit) {
+        logger.info("注册后台任务 '{}'，首次延迟 {} {}，间隔 {} {}", name, initialDelay, unit, delay, unit);
+        return SCHEDULER.scheduleWithFixedDelay(() -> runSafely(name, task), initialDelay, delay, unit);
+    }
+
+    public static void shutdown() {
+        SCHEDULER.shutdownNow();
+        logger.info("后台任务调度器已关闭");
+    }
+
+    private static void runSafely(String name, Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            logger.error("后台任务 '{}' 执行失败: {}", name, t.getMessage(), t);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.ILoveU.util;
+
+/**
+ * 整数键的布隆过滤器，用于冷归档段文件快速判断某个用户是否可能出现在段中。
+ * mightContain 返回false时键一定不存在；返回true时存在一定的误判率（按每个键10位、7个哈希函数约为1%）。
+ *
+ * 位数组以 long[] 保存，可以原样写入文件再读回。实例不是线程安全的，构建完成后只读使用即可并发访问。
+ */
+public final class BloomFilter {
+
+    public static final int BITS_PER_KEY = 10;
+    public static final int DEFAULT_HASHES = 7;
+
+    private final long[] words;
+    private final int hashes;
+    private final long bitCount;
+
+    /**
+     * 为预计 expectedKeys 个键创建过滤器。
+     */
+    public BloomFilter(int expectedKeys) {
+        this(new long[(int) ((Math.max(expectedKeys, 1) * (long) BITS_PER_KEY + 63) / 64)], DEFAULT_HASHES);
+    }
+
+    /**
+     * 从已保存的位数组恢复过滤器。
+     */
+    public BloomFilter(long[] words, int hashes) {
+        if (words.length == 0 || hashes <= 0) {
+            throw new IllegalArgumentException("位数组和哈希函数个数不能为空");
+        }
+        this.words = words;
+        this.hashes = hashes;
+        this.bitCount = words.length * 64L;
+    }
+
+    public void add(int key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(int key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long[] getWords() {
+        return words;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    // SplitMix64 的最终混合步骤，把相邻的整数键打散到整个64位空间
+    private static long mix(int key) {
+        long z = key * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,335 @@
+package com.ILoveU.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按负载类别隔离的请求线程池（舱壁）。所有接口共用容器的请求线程时，几个慢导出或批量导入就能占满全部线程，
+ * 借书还书也跟着排队；分开之后每类请求只能用满自己的线程和队列，互不影响。
+ *
+ * 每类一个有界线程池，线程数和等待队列长度在 hibernate.cfg.xml 中通过 library.bulkhead.&lt;类别&gt;
+ * 配置为 {@code 线程数:队列长度}。处理请求的线程同一时刻最多占用一个数据库连接，因此线程数就是这一类
+ * 可以使用的连接数；各类线程数之和应小于 hibernate.connection.pool_size，给后台任务留出余量。
+ * 队列满时立即拒绝（由调用方返回503），不会把请求堆积在容器线程上。
+ *
+ * library.execution.mode 为 virtual 时，请求改为每个请求一个虚拟线程执行（需要 Java 21 及以上的运行时，
+ * 通过反射创建，项目仍按 Java 8 编译）：线程数变为同时执行的请求数上限，队列长度为等待执行的请求数上限，
+ * 等待和阻塞在 JDBC 调用上的请求只占用虚拟线程。同时访问 MySQL 的连接数由 TimedConnectionProvider 的信号量限制。
+ * 运行时不支持虚拟线程时记录警告并回退到平台线程池。
+ */
+public final class Bulkheads {
+
+    private static final Logger logger = LoggerFactory.getLogger(Bulkheads.class);
+
+    public enum Workload {
+        // 其他读请求（含搜索）
+        READ("8:64"),
+        // 借还、预约和目录维护等写请求
+        WRITE("6:32"),
+        // 冷归档扫描、库存核对等批量操作
+        EXPORT("2:4"),
+        // 登录、注册、注销：等待密码哈希时不占用写请求的线程
+        AUTH("4:64");
+
+        final String defaultSize;
+
+        Workload(String defaultSize) {
+            this.defaultSize = defaultSize;
+        }
+    }
+
+    /**
+     * 请求的执行方式。
+     */
+    public enum Mode {
+        // 每类一个固定大小的平台线程池
+        PLATFORM,
+        // 每个请求一个虚拟线程，按类别用信号量限制并发
+        VIRTUAL
+    }
+
+    private static final Workload[] WORKLOADS = Workload.values();
+    private static final Pool[] POOLS = new Pool[WORKLOADS.length];
+    private static final LongAdder[] REJECTED = new LongAdder[WORKLOADS.length];
+    private static final Mode MODE;
+
+    static {
+        Properties properties = new Configuration().configure().getProperties();
+        String modeValue = properties.getProperty("library.execution.mode", "platform").trim();
+        Mode mode;
+        try {
+            mode = Mode.valueOf(modeValue.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("library.execution.mode 应为 platform 或 virtual，当前为: " + modeValue, e);
+        }
+        if (mode == Mode.VIRTUAL && virtualThreadFactory("bulkhead-probe-") == null) {
+            logger.warn("当前Java运行时（{}）不支持虚拟线程，需要 Java 21 及以上，请求改为在平台线程池上执行",
+                    System.getProperty("java.version"));
+            mode = Mode.PLATFORM;
+        }
+        MODE = mode;
+        int totalThreads = 0;
+        for (Workload workload : WORKLOADS) {
+            String name = workload.name().toLowerCase(Locale.ROOT);
+            String value = properties.getProperty("library.bulkhead." + name, workload.defaultSize).trim();
+            String[] parts = value.split(":");
+            int threads;
+            int queueDepth;
+            try {
+                threads = Integer.parseInt(parts[0].trim());
+                queueDepth = Integer.parseInt(parts[1].trim());
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalStateException("library.bulkhead." + name + " 格式应为 线程数:队列长度，当前为: " + value, e);
+            }
+            if (threads < 1 || queueDepth < 1) {
+                throw new IllegalStateException("library.bulkhead." + name + " 的线程数和队列长度至少为1，当前为: " + value);
+            }
+            POOLS[workload.ordinal()] = MODE == Mode.VIRTUAL
+                    ? new VirtualPool(virtualThreadFactory("bulkhead-" + name + "-"), threads, queueDepth)
+                    : new PlatformPool("bulkhead-" + name + "-", threads, queueDepth);
+            REJECTED[workload.ordinal()] = new LongAdder();
+            totalThreads += threads;
+            logger.info("请求线程池 '{}' 已创建（{}）：{} 个线程，队列上限 {}", name, MODE, threads, queueDepth);
+        }
+        String poolSize = properties.getProperty("hibernate.connection.pool_size");
+        // 虚拟线程模式下连接数由连接池前的信号量限制，并发数可以超过连接池大小
+        if (MODE == Mode.PLATFORM && poolSize != null && totalThreads >= Integer.parseInt(poolSize.trim())) {
+            logger.warn("请求线程池共 {} 个线程，不少于连接池大小 {}，连接池耗尽时请求会直接失败", totalThreads, poolSize.trim());
+        }
+    }
+
+    private Bulkheads() {
+    }
+
+    /**
+     * 按路由和请求方法确定负载类别。路由取自请求属性中缓存的匹配结果（见 ApiRoute）。
+     */
+    public static Workload classify(HttpServletRequest request) {
+        RouteTrie.Match<ApiRoute> match = ApiRoute.match(request);
+        ApiRoute route = match == null ? null : match.getValue();
+        if (route == ApiRoute.AUTH_LOGIN || route == ApiRoute.AUTH_REGISTER || route == ApiRoute.AUTH_LOGOUT) {
+            return Workload.AUTH;
+        }
+        if (route == ApiRoute.LOAN_COLD_ARCHIVE || route == ApiRoute.INVENTORY_REPORT
+                || route == ApiRoute.INVENTORY_RECONCILE) {
+            return Workload.EXPORT;
+        }
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+            return Workload.READ;
+        }
+        return Workload.WRITE;
+    }
+
+    /**
+     * 在该类别的线程池上执行任务。
+     *
+     * @return 队列已满、任务被拒绝时返回false
+     */
+    public static boolean execute(Workload workload, Runnable task) {
+        if (POOLS[workload.ordinal()].execute(task)) {
+            return true;
+        }
+        REJECTED[workload.ordinal()].increment();
+        return false;
+    }
+
+    public static Mode mode() {
+        return MODE;
+    }
+
+    public static Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", MODE.name().toLowerCase(Locale.ROOT));
+        for (Workload workload : WORKLOADS) {
+            Pool executor = POOLS[workload.ordinal()];
+            Map<String, Object> pool = new LinkedHashMap<>();
+            pool.put("threads", executor.threads());
+            pool.put("active", executor.active());
+            pool.put("queued", executor.queued());
+            pool.put("completed", executor.completed());
+            pool.put("rejected", REJECTED[workload.ordinal()].sum());
+            metrics.put(workload.name().toLowerCase(Locale.ROOT), pool);
+        }
+        return metrics;
+    }
+
+    public static void shutdown() {
+        for (Pool pool : POOLS) {
+            pool.shutdown();
+        }
+        logger.info("请求线程池已关闭");
+    }
+
+    /**
+     * 通过反射创建虚拟线程工厂（等价于 {@code Thread.ofVirtual().name(prefix, 1).factory()}）。
+     *
+     * @return 运行时不支持虚拟线程（Java 21 以下，或 19/20 未开启预览特性）时返回null
+     */
+    private static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private interface Pool {
+        /**
+         * @return 已满、任务被拒绝时返回false
+         */
+        boolean execute(Runnable task);
+
+        int threads();
+
+        int active();
+
+        int queued();
+
+        long completed();
+
+        void shutdown();
+    }
+
+    /**
+     * 固定大小的平台线程池，队列有界。
+     */
+    private static final class PlatformPool implements Pool {
+        private final ThreadPoolExecutor executor;
+
+        PlatformPool(String namePrefix, int threads, int queueDepth) {
+            AtomicInteger threadCounter = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueDepth), runnable -> {
+                Thread thread = new Thread(runnable, namePrefix + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        }
+
+        @Override
+        public boolean execute(Runnable task) {
+            try {
+                executor.execute(task);
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public int threads() {
+            return executor.getMaximumPoolSize();
+        }
+
+        @Override
+        public int active() {
+            return executor.getActiveCount();
+        }
+
+        @Override
+        public int queued() {
+            return executor.getQueue().size();
+        }
+
+        @Override
+        public long completed() {
+            return executor.getCompletedTaskCount();
+        }
+
+        @Override
+        public void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 每个任务一个虚拟线程。accepted 限制已接受（执行中和等待中）的任务数，相当于线程数加队列长度；
+     * running 限制同时执行的任务数，按先后顺序放行。等待 running 的虚拟线程只是挂起，不占用平台线程。
+     */
+    private static final class VirtualPool implements Pool {
+        private final ThreadFactory factory;
+        private final int threads;
+        private final int capacity;
+        private final Semaphore accepted;
+        private final Semaphore running;
+        private final LongAdder completed = new LongAdder();
+        private volatile boolean shutdown;
+
+        VirtualPool(ThreadFactory factory, int threads, int queueDepth) {
+            this.factory = factory;
+            this.threads = threads;
+            this.capacity = threads + queueDepth;
+            this.accepted = new Semaphore(capacity);
+            this.running = new Semaphore(threads, true);
+        }
+
+        @Override
+        public boolean execute(Runnable task) {
+            if (shutdown || !accepted.tryAcquire()) {
+                return false;
+            }
+            try {
+                factory.newThread(() -> {
+                    running.acquireUninterruptibly();
+                    try {
+                        task.run();
+                    } finally {
+                        running.release();
+                        accepted.release();
+                        completed.increment();
+                    }
+                }).start();
+                return true;
+            } catch (RuntimeException e) {
+                accepted.release();
+                logger.error("创建虚拟线程失败: {}", e.getMessage());
+                return false;
+            }
+        }
+
+        @Override
+        public int threads() {
+            return threads;
+        }
+
+        @Override
+        public int active() {
+            return threads - running.availablePermits();
+        }
+
+        @Override
+        public int queued() {
+            return Math.max(0, capacity - accepted.availablePermits() - active());
+        }
+
+        @Override
+        public long completed() {
+            return completed.sum();
+        }
+
+        @Override
+        public void shutdown() {
+            // 虚拟线程不需要回收，只是不再接受新请求
+            shutdown = true;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.ILoveU.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计获取数据库连接所花的时间（主库见 TimedConnectionProvider，副本见 ReplicaRouter）。
+ *
+ * 除了全局计数外，还按请求累加等待时间：AdmissionControlFilter 在请求开始时调用 {@link #begin()} 得到这个请求的计数器，
+ * 请求结束时读取，与等待请求槽位的时间一起作为这个请求的排队时延。计数器绑定在线程上，
+ * 请求转到隔离线程池（见 Bulkheads）执行时由 {@link #attach}/{@link #detach} 跟随过去；
+ * 在线程池队列中等待的时间由 BulkheadServlet 直接加到计数器上，不计入全局的连接等待统计。
+ * 不在请求中的线程（后台任务等）只计入全局计数。
+ */
+public final class ConnectionWaits {
+
+    private static final ThreadLocal<AtomicLong> CURRENT = new ThreadLocal<>();
+
+    private static final LongAdder COUNT = new LongAdder();
+    private static final LongAdder TOTAL_NANOS = new LongAdder();
+    private static final LongAccumulator MAX_NANOS = new LongAccumulator(Math::max, 0);
+
+    private ConnectionWaits() {
+    }
+
+    public static void record(long nanos) {
+        COUNT.increment();
+        TOTAL_NANOS.add(nanos);
+        MAX_NANOS.accumulate(nanos);
+        AtomicLong current = CURRENT.get();
+        if (current != null) {
+            current.addAndGet(nanos);
+        }
+    }
+
+    /**
+     * 为当前线程上的请求创建计数器并开始累加。
+     *
+     * @return 这个请求的计数器（纳秒），请求在其他线程上继续执行时同样累加到这里
+     */
+    public static AtomicLong begin() {
+        AtomicLong tally = new AtomicLong();
+        CURRENT.set(tally);
+        return tally;
+    }
+
+    /**
+     * @return 当前线程正在累加的计数器，没有时为null
+     */
+    public static AtomicLong current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 让当前线程累加到另一个线程上创建的计数器，tally 为null时不累加。
+     */
+    public static void attach(AtomicLong tally) {
+        if (tally == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(tally);
+        }
+    }
+
+    /**
+     * 当前线程停止累加。
+     */
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    public static long count() {
+        return COUNT.sum();
+    }
+
+    public static long totalMillis() {
+        return TOTAL_NANOS.sum() / 1_000_000;
+    }
+
+    public static long maxMillis() {
+        return MAX_NANOS.get() / 1_000_000;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ILoveU.util;
+
+import com.ILoveU.dto.ApiErrorResponse;
+import com.ILoveU.exception.ValidationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 稀疏字段集（?fields=）的字段掩码。
+ * 在Servlet层对 fields 参数只解析一次，之后同一个掩码同时决定：
+ * - DAO层需要查询哪些列、需要加载哪些关联（出版社/作者/标签）；
+ * - Service层在DTO中填充哪些属性（未请求的属性保持为null，Gson默认不会输出null字段）。
+ */
+public final class FieldMask {
+
+    /**
+     * 表示"未指定 fields 参数"，即返回全部字段。
+     */
+    public static final FieldMask ALL = new FieldMask(null);
+
+    // 为null表示全部字段
+    private final Set<String> fields;
+
+    private FieldMask(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * 解析逗号分隔的 fields 参数，例如 "id,title,numCopiesAvailable"。
+     *
+     * @param fieldsParam   请求中的 fields 参数，为null或空白时返回 {@link #ALL}。
+     * @param allowedFields 该资源允许请求的字段名集合（即DTO的属性名）。
+     * @return 解析后的字段掩码。
+     * @throws ValidationException 如果包含未知字段，或解析后没有任何字段。
+     */
+    public static FieldMask parse(String fieldsParam, Set<String> allowedFields) throws ValidationException {
+        if (fieldsParam == null || fieldsParam.trim().isEmpty()) {
+            return ALL;
+        }
+
+        Set<String> requested = new LinkedHashSet<>();
+        List<ApiErrorResponse.FieldErrorDetail> errors = new ArrayList<>();
+        for (String rawField : fieldsParam.split(",")) {
+            String field = rawField.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (!allowedFields.contains(field)) {
+                errors.add(new ApiErrorResponse.FieldErrorDetail("fields", "未知字段: " + field));
+                continue;
+            }
+            requested.add(field);
+        }
+
+        if (!errors.isEmpty()) {
+            throw new ValidationException("fields 参数包含无效字段。", errors);
+        }
+        if (requested.isEmpty()) {
+            throw new ValidationException("fields 参数至少需要包含一个有效字段。",
+                    Collections.singletonList(new ApiErrorResponse.FieldErrorDetail("fields", "字段列表不能为空")));
+        }
+        return new FieldMask(Collections.unmodifiableSet(requested));
+    }
+
+    /**
+     * @return 如果掩码表示全部字段则返回true。
+     */
+    public boolean isAll() {
+        return fields == null;
+    }
+
+    /**
+     * 判断某个字段是否被请求。
+     * @param field DTO属性名
+     * @return 如果请求了该字段（或掩码为全部字段）则返回true。
+     */
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * 判断是否请求了给定字段中的任意一个。
+     * @param candidates DTO属性名
+     * @return 只要有一个被请求就返回true。
+     */
+    public boolean includesAny(String... candidates) {
+        for (String candidate : candidates) {
+            if (includes(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return fields == null ? "*" : String.join(",", fields);
+    }
+}
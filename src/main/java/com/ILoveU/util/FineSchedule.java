@@ -0,0 +1,105 @@
+package com.ILoveU.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Properties;
+
+/**
+ * 逾期罚款收费标准。在 hibernate.cfg.xml 中配置（均为可选）：
+ * <pre>
+ * library.fines.grace_days   宽限天数，逾期不超过该天数不收费，默认 0
+ * library.fines.daily_rates  分段日费率，格式 "起始天:每天金额,..."，例如 "1:0.50,8:1.00"
+ *                            表示计费第1~7天每天0.50元、第8天起每天1.00元，默认 "1:0.50"
+ * library.fines.max_per_loan 单笔借阅的罚款上限（元），0 表示不设上限，默认 50.00
+ * </pre>
+ * 金额内部以分为单位计算，避免浮点误差。实例不可变，可被多个线程共享。
+ */
+public final class FineSchedule {
+
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final String PREFIX = "library.fines.";
+
+    private final int graceDays;
+    // 按起始天升序排列的分段
+    private final int[] tierStartDays;
+    private final long[] tierDailyCents;
+    private final long maxCentsPerLoan;
+
+    public FineSchedule(int graceDays, int[] tierStartDays, long[] tierDailyCents, long maxCentsPerLoan) {
+        if (graceDays < 0) {
+            throw new IllegalArgumentException("宽限天数不能为负数");
+        }
+        if (tierStartDays.length == 0 || tierStartDays.length != tierDailyCents.length) {
+            throw new IllegalArgumentException("至少需要一个费率分段");
+        }
+        for (int i = 0; i < tierStartDays.length; i++) {
+            if (tierStartDays[i] < 1 || (i > 0 && tierStartDays[i] <= tierStartDays[i - 1]) || tierDailyCents[i] < 0) {
+                throw new IllegalArgumentException("费率分段的起始天必须从1开始严格递增，且费率不能为负数");
+            }
+        }
+        this.graceDays = graceDays;
+        this.tierStartDays = tierStartDays.clone();
+        this.tierDailyCents = tierDailyCents.clone();
+        this.maxCentsPerLoan = maxCentsPerLoan;
+    }
+
+    /**
+     * 从配置中读取收费标准，未配置的项使用默认值。
+     *
+     * @throws IllegalArgumentException 如果配置格式无效
+     */
+    public static FineSchedule fromProperties(Properties properties) {
+        int graceDays = Integer.parseInt(value(properties, PREFIX + "grace_days", "0"));
+        String rates = value(properties, PREFIX + "daily_rates", "1:0.50");
+        long maxCents = toCents(value(properties, PREFIX + "max_per_loan", "50.00"));
+
+        String[] parts = rates.split(",");
+        int[] startDays = new int[parts.length];
+        long[] dailyCents = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String[] pair = parts[i].trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("无效的费率分段: " + parts[i]);
+            }
+            startDays[i] = Integer.parseInt(pair[0].trim());
+            dailyCents[i] = toCents(pair[1].trim());
+        }
+        return new FineSchedule(graceDays, startDays, dailyCents, maxCents);
+    }
+
+    /**
+     * @return 从应还时间到 endMillis 的逾期天数（不足一天按一天计），未逾期时为0
+     */
+    public static long overdueDays(long dueMillis, long endMillis) {
+        if (endMillis <= dueMillis) {
+            return 0;
+        }
+        return (endMillis - dueMillis + DAY_MILLIS - 1) / DAY_MILLIS;
+    }
+
+    /**
+     * 计算逾期 overdueDays 天应收的罚款（分）。
+     */
+    public long fineCents(long overdueDays) {
+        long chargeableDays = overdueDays - graceDays;
+        if (chargeableDays <= 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < tierStartDays.length && chargeableDays >= tierStartDays[i]; i++) {
+            long lastDay = i + 1 < tierStartDays.length ? Math.min(chargeableDays, tierStartDays[i + 1] - 1L) : chargeableDays;
+            total += (lastDay - tierStartDays[i] + 1) * tierDailyCents[i];
+        }
+        return maxCentsPerLoan > 0 ? Math.min(total, maxCentsPerLoan) : total;
+    }
+
+    private static long toCents(String amount) {
+        return new BigDecimal(amount).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static String value(Properties properties, String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+}
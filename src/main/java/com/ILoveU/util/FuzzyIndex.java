@@ -0,0 +1,357 @@
+package com.ILoveU.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 容错（拼写错误）搜索用的内存 n-gram 索引。
+ *
+ * 每个名称会拆成若干"词项"（完整名称以及其中的每个单词），每个词项再拆成带边界填充的三元组（trigram），
+ * 建立 三元组 → 词项 的倒排表。查询时只遍历查询串自身三元组的倒排表来生成候选，
+ * 再用 q-gram 计数下界和长度差过滤，最后对剩余候选做有界编辑距离校验。
+ *
+ * 边界三元组（如名称开头的 "\0\0t"）和常见字母组合的倒排表可能覆盖目录的很大一部分，全部遍历时
+ * 每次查询的代价与目录规模成正比。合格的候选至少要与查询串共有 T 个三元组（q-gram 引理），
+ * 因此按倒排表长度从长到短跳过总权重小于 T 的那些三元组也不会漏掉结果（前缀过滤）：
+ * 任何合格的候选都至少出现在一个没被跳过的（较短的）倒排表中。候选数另有上限 {@link #MAX_CANDIDATES}。
+ *
+ * 允许的最大编辑距离随查询长度自动确定：少于3个字符只做精确匹配，3~5个字符允许1处错误，更长允许2处。
+ */
+public final class FuzzyIndex {
+
+    private static final int Q = 3;
+    private static final char PAD = '\u0000';
+
+    /**
+     * 一次查询最多生成的候选词项数。正常情况下前缀过滤后的候选远少于此数，
+     * 达到上限时停止生成，结果可能不完整。
+     */
+    public static final int MAX_CANDIDATES = 5000;
+
+    /**
+     * 一个匹配结果：条目ID及其与查询串的最小编辑距离。
+     */
+    public static final class Match {
+        private final int id;
+        private final int distance;
+
+        Match(int id, int distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+    }
+
+    private static final class Term {
+        final String text;
+        final Set<Integer> ids = new HashSet<>(2);
+
+        Term(String text) {
+            this.text = text;
+        }
+    }
+
+    private final Map<String, Term> terms = new HashMap<>();
+    private final Map<String, List<Term>> postings = new HashMap<>();
+    private final Map<Integer, Set<String>> termsById = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 查询时遍历过的倒排表条目数（累计），用于观察候选生成的代价
+    private final LongAdder scannedPostings = new LongAdder();
+    private final LongAdder truncatedSearches = new LongAdder();
+
+    /**
+     * 批量加载条目。
+     *
+     * @param entries 每个元素为 [id, 名称, ...]，只使用前两列
+     */
+    public void loadAll(List<Object[]> entries) {
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : entries) {
+                int id = ((Number) row[0]).intValue();
+                removeInternal(id);
+                addInternal(id, (String) row[1]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 插入或替换一个条目的名称。
+     */
+    public void upsert(int id, String text) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            addInternal(id, text);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除一个条目；条目不存在时忽略。
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查找与查询串在允许编辑距离内的条目。
+     *
+     * @param query      查询串（大小写和多余空白不敏感）
+     * @param maxResults 最多返回的条目数
+     * @return 按编辑距离升序（相同时按ID升序）排列的匹配结果
+     */
+    public List<Match> search(String query, int maxResults) {
+        String normalized = PrefixIndex.normalize(query);
+        if (normalized.isEmpty() || maxResults <= 0) {
+            return Collections.emptyList();
+        }
+        int maxDistance = maxDistanceFor(normalized.length());
+        // 每个不同的三元组在查询串中的出现次数，即它对共有数的最大贡献
+        Map<String, Integer> queryGrams = new HashMap<>();
+        for (String gram : grams(normalized)) {
+            queryGrams.merge(gram, 1, Integer::sum);
+        }
+        // 长度在允许范围内的任何候选至少要共有的三元组数（取最短的候选，即最宽松的下界）
+        int minShared = normalized.length() + Q - 1 - maxDistance * Q;
+
+        Map<Integer, Integer> bestDistanceById = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            // 1. 前缀过滤：倒排表按长度升序，从最长的一端跳过总权重小于 minShared 的三元组
+            List<Map.Entry<String, Integer>> present = new ArrayList<>(queryGrams.size());
+            for (Map.Entry<String, Integer> gram : queryGrams.entrySet()) {
+                if (postings.containsKey(gram.getKey())) {
+                    present.add(gram);
+                }
+            }
+            present.sort((a, b) -> Integer.compare(postings.get(a.getKey()).size(), postings.get(b.getKey()).size()));
+            int scanEnd = present.size();
+            int skippedWeight = 0;
+            while (scanEnd > 0 && skippedWeight + present.get(scanEnd - 1).getValue() < minShared) {
+                scanEnd--;
+                skippedWeight += present.get(scanEnd).getValue();
+            }
+
+            // 2. 候选生成：只遍历没被跳过的倒排表，统计共有的三元组个数
+            // （按查询串中的出现次数计数，只会高估共有数，不会漏掉真正的匹配）
+            Map<Term, Integer> sharedGrams = new HashMap<>();
+            long scanned = 0;
+            generate:
+            for (int i = 0; i < scanEnd; i++) {
+                int occurrences = present.get(i).getValue();
+                for (Term term : postings.get(present.get(i).getKey())) {
+                    scanned++;
+                    sharedGrams.merge(term, occurrences, Integer::sum);
+                    if (sharedGrams.size() >= MAX_CANDIDATES) {
+                        truncatedSearches.increment();
+                        break generate;
+                    }
+                }
+            }
+            scannedPostings.add(scanned);
+
+            // 3. 过滤 + 校验
+            for (Map.Entry<Term, Integer> candidate : sharedGrams.entrySet()) {
+                Term term = candidate.getKey();
+                if (Math.abs(term.text.length() - normalized.length()) > maxDistance) {
+                    continue;
+                }
+                // q-gram 引理：编辑距离不超过k的两个串至少共有 max(|a|,|b|) + Q - 1 - k*Q 个三元组
+                int required = Math.max(term.text.length(), normalized.length()) + Q - 1 - maxDistance * Q;
+                // 被跳过的三元组没有计数，按全部共有估计
+                if (candidate.getValue() + skippedWeight < required) {
+                    continue;
+                }
+                int distance = boundedLevenshtein(normalized, term.text, maxDistance);
+                if (distance > maxDistance) {
+                    continue;
+                }
+                for (Integer id : term.ids) {
+                    bestDistanceById.merge(id, distance, Math::min);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> matches = new ArrayList<>(bestDistanceById.size());
+        for (Map.Entry<Integer, Integer> entry : bestDistanceById.entrySet()) {
+            matches.add(new Match(entry.getKey(), entry.getValue()));
+        }
+        matches.sort((a, b) -> a.distance != b.distance ? Integer.compare(a.distance, b.distance) : Integer.compare(a.id, b.id));
+        return matches.size() > maxResults ? new ArrayList<>(matches.subList(0, maxResults)) : matches;
+    }
+
+    /**
+     * @return 累计遍历过的倒排表条目数
+     */
+    public long scannedPostings() {
+        return scannedPostings.sum();
+    }
+
+    /**
+     * @return 因候选数达到 {@link #MAX_CANDIDATES} 而提前停止的查询次数
+     */
+    public long truncatedSearches() {
+        return truncatedSearches.sum();
+    }
+
+    /**
+     * @return 索引中的条目数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static int maxDistanceFor(int queryLength) {
+        if (queryLength < 3) {
+            return 0;
+        }
+        return queryLength <= 5 ? 1 : 2;
+    }
+
+    /**
+     * 计算两个串的编辑距离；一旦确定超过 maxDistance 就提前返回 maxDistance + 1。
+     */
+    static int boundedLevenshtein(String a, String b, int maxDistance) {
+        if (Math.abs(a.length() - b.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * 带边界填充的三元组，长度为 n 的串产生 n + Q - 1 个三元组（可重复）。
+     */
+    static List<String> grams(String text) {
+        StringBuilder padded = new StringBuilder(text.length() + 2 * (Q - 1));
+        for (int i = 0; i < Q - 1; i++) {
+            padded.append(PAD);
+        }
+        padded.append(text);
+        for (int i = 0; i < Q - 1; i++) {
+            padded.append(PAD);
+        }
+        List<String> grams = new ArrayList<>(text.length() + Q - 1);
+        for (int i = 0; i + Q <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + Q));
+        }
+        return grams;
+    }
+
+    /**
+     * 一个名称对应的词项：完整名称，以及其中长度不少于3的每个单词。
+     */
+    static Set<String> termsOf(String text) {
+        String normalized = PrefixIndex.normalize(text);
+        Set<String> result = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return result;
+        }
+        result.add(normalized);
+        for (String word : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() >= Q) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    // ---- 以下方法均需在持有写锁时调用 ----
+
+    private void addInternal(int id, String text) {
+        Set<String> termTexts = termsOf(text);
+        if (termTexts.isEmpty()) {
+            return;
+        }
+        for (String termText : termTexts) {
+            Term term = terms.get(termText);
+            if (term == null) {
+                term = new Term(termText);
+                terms.put(termText, term);
+                for (String gram : new LinkedHashSet<>(grams(termText))) {
+                    postings.computeIfAbsent(gram, g -> new ArrayList<>(2)).add(term);
+                }
+            }
+            term.ids.add(id);
+        }
+        termsById.put(id, termTexts);
+    }
+
+    private void removeInternal(int id) {
+        Set<String> termTexts = termsById.remove(id);
+        if (termTexts == null) {
+            return;
+        }
+        for (String termText : termTexts) {
+            Term term = terms.get(termText);
+            if (term == null) {
+                continue;
+            }
+            term.ids.remove(id);
+            if (!term.ids.isEmpty()) {
+                continue;
+            }
+            terms.remove(termText);
+            for (String gram : new LinkedHashSet<>(grams(termText))) {
+                List<Term> list = postings.get(gram);
+                if (list != null) {
+                    list.remove(term);
+                    if (list.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+}
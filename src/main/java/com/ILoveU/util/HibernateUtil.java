@@ -1,15 +1,32 @@
 // 放在 com.example.util 包下
 package com.ILoveU.util;
 
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.query.Query;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLIntegrityConstraintViolationException;
+
 public class HibernateUtil {
     private static final Logger logger = LoggerFactory.getLogger(HibernateUtil.class);
     private static final SessionFactory sessionFactory;
 
+    /**
+     * 只读会话中查询的 JDBC fetch size。
+     * 注意：MySQL Connector/J 只有在开启 useCursorFetch 时才会按此值分批读取，否则只作为提示。
+     */
+    public static final int READ_ONLY_FETCH_SIZE = 100;
+
     static {
         try {
             // 创建SessionFactory，默认会读取 hibernate.cfg.xml 文件
@@ -28,6 +45,131 @@ public class HibernateUtil {
         return sessionFactory;
     }
 
+    /**
+     * 打开一个只读会话，供所有查询路径（GET请求、写操作前的存在性/唯一性校验等）使用。
+     *
+     * 与普通会话相比：
+     * - 默认只读（setDefaultReadOnly）：加载的实体不保存脏检查快照，大分页时堆占用明显更小；
+     * - FlushMode.MANUAL：查询前不再自动flush，也不会做脏检查；
+     * - 通过该会话创建的查询会设置只读和 fetch size 提示；
+     * - JDBC连接被标记为只读，MySQL驱动会以只读事务执行，误写会直接报错。
+     *
+     * 使用方式与 openSession() 相同（try-with-resources）。关闭时会先把连接的只读标记恢复，
+     * 避免连接回到连接池后影响后续的写会话。
+     *
+     * 会话默认在每个事务结束后就把连接还给连接池，之后再取到的可能是另一个连接，设置和恢复只读标记的
+     * 就不是同一个连接了；因此主库会话改为持有连接直到关闭（DELAYED_ACQUISITION_AND_HOLD）。
+     */
+    public static Session openReadOnlySession() {
+        // 配置了只读副本时优先使用副本连接（见 ReplicaRouter），否则使用主库
+        return openReadOnlySession(ReplicaRouter.acquireReadConnection());
+    }
+
+    /**
+     * 与 {@link #openReadOnlySession()} 相同，但始终使用主库，不借用副本连接。
+     * 用于结果会直接决定后续写入、不能读到副本旧数据的查询，如登录和注册时按账户查询用户
+     * （客户端第一次请求时还没有最近写入时间的 Cookie，"读自己的写"的回退对它不起作用）。
+     */
+    public static Session openPrimaryReadOnlySession() {
+        return openReadOnlySession(null);
+    }
+
+    private static Session openReadOnlySession(ReplicaRouter.Lease lease) {
+        Session session = null;
+        try {
+            session = lease == null
+                    ? sessionFactory.withOptions()
+                            .connectionHandlingMode(PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_HOLD)
+                            .openSession()
+                    : sessionFactory.withOptions().connection(lease.getConnection()).openSession();
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            session.doWork(connection -> connection.setReadOnly(true));
+        } catch (RuntimeException e) {
+            if (session != null) {
+                session.close();
+            }
+            if (lease != null) {
+                lease.release();
+            }
+            throw e;
+        }
+        return (Session) Proxy.newProxyInstance(
+                Session.class.getClassLoader(),
+                new Class<?>[]{Session.class},
+                new ReadOnlySessionHandler(session, lease));
+    }
+
+    /**
+     * 只读会话的代理：为创建的查询加上只读提示，并在关闭时恢复连接的只读标记（或归还副本连接）。
+     */
+    private static final class ReadOnlySessionHandler implements InvocationHandler {
+        private final Session target;
+        // 使用主库连接时为null
+        private final ReplicaRouter.Lease lease;
+
+        ReadOnlySessionHandler(Session target, ReplicaRouter.Lease lease) {
+            this.target = target;
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                close();
+                return null;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Query) {
+                Query<?> query = (Query<?>) result;
+                query.setReadOnly(true);
+                query.setFetchSize(READ_ONLY_FETCH_SIZE);
+            }
+            return result;
+        }
+
+        private void close() {
+            if (!target.isOpen()) {
+                return;
+            }
+            if (lease != null) {
+                // 副本连接由副本连接池管理，本身就是只读的，直接归还即可
+                try {
+                    target.close();
+                } finally {
+                    lease.release();
+                }
+                return;
+            }
+            try {
+                target.doWork(connection -> connection.setReadOnly(false));
+            } catch (RuntimeException e) {
+                logger.warn("恢复只读会话的连接状态失败: {}", e.getMessage());
+            } finally {
+                target.close();
+            }
+        }
+    }
+
+    /**
+     * 判断异常（或其原因链上的某个异常）是否为数据库约束冲突，如外键或唯一约束。
+     * Hibernate 在 flush/commit 时可能把 {@link ConstraintViolationException} 再包装成 PersistenceException，
+     * 因此需要沿原因链查找。
+     */
+    public static boolean isConstraintViolation(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException || t instanceof SQLIntegrityConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static void shutdown() {
         // 关闭缓存和连接池
         if (sessionFactory != null) {
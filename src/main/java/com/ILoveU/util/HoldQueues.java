@@ -0,0 +1,103 @@
+package com.ILoveU.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 每本书等待中预约队列的进程内镜像，数据库中的 holds 表为准。
+ *
+ * 排队位置和队列长度直接从镜像计算，不必为每次查询统计 holds。本实例发生的入队只追加到已加载的队列；
+ * 出队（副本分配、取消、过期、借走）由调用方在事务提交后使对应图书的镜像失效，下次查询时重新加载。
+ * 条目在 {@link #TTL_MILLIS} 后过期，使其他实例的变化最终可见。
+ */
+public final class HoldQueues {
+
+    public static final long TTL_MILLIS = 30_000L;
+    // 最多缓存的图书数，超出时清空
+    private static final int MAX_BOOKS = 10_000;
+
+    private static final class Queue {
+        final long loadedAt = System.currentTimeMillis();
+        // 按排队顺序的 [holdId, userId]
+        final List<int[]> holds;
+
+        Queue(List<int[]> holds) {
+            this.holds = holds;
+        }
+
+        boolean expired() {
+            return System.currentTimeMillis() - loadedAt > TTL_MILLIS;
+        }
+    }
+
+    private static final Map<Integer, Queue> QUEUES = new ConcurrentHashMap<>();
+
+    private HoldQueues() {
+    }
+
+    /**
+     * @return 预约在队列中的位置（从1开始）；不在队列中返回0；队列未加载或已过期返回-1
+     */
+    public static int positionOf(int bookId, int holdId) {
+        Queue queue = QUEUES.get(bookId);
+        if (queue == null || queue.expired()) {
+            return -1;
+        }
+        synchronized (queue) {
+            for (int i = 0; i < queue.holds.size(); i++) {
+                if (queue.holds.get(i)[0] == holdId) {
+                    return i + 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return 队列长度；队列未加载或已过期返回-1
+     */
+    public static int lengthOf(int bookId) {
+        Queue queue = QUEUES.get(bookId);
+        if (queue == null || queue.expired()) {
+            return -1;
+        }
+        synchronized (queue) {
+            return queue.holds.size();
+        }
+    }
+
+    /**
+     * 缓存从数据库读到的队列（按排队顺序的 [holdId, userId]）。
+     */
+    public static void load(int bookId, List<int[]> waiting) {
+        if (QUEUES.size() >= MAX_BOOKS && !QUEUES.containsKey(bookId)) {
+            QUEUES.clear();
+        }
+        QUEUES.put(bookId, new Queue(new ArrayList<>(waiting)));
+    }
+
+    /**
+     * 在预约提交后追加到队尾；队列未加载时不做任何事。
+     */
+    public static void append(int bookId, int holdId, int userId) {
+        Queue queue = QUEUES.get(bookId);
+        if (queue == null) {
+            return;
+        }
+        synchronized (queue) {
+            // 并发加载的队列可能已经包含这条预约
+            for (int[] hold : queue.holds) {
+                if (hold[0] == holdId) {
+                    return;
+                }
+            }
+            queue.holds.add(new int[]{holdId, userId});
+        }
+    }
+
+    public static void invalidate(int bookId) {
+        QUEUES.remove(bookId);
+    }
+}
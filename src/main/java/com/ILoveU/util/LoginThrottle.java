@@ -0,0 +1,113 @@
+package com.ILoveU.util;
+
+import com.ILoveU.exception.TooManyRequestsException;
+import org.hibernate.cfg.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录和注册的限流，位于 UserServiceImpl 之前，被拒绝的请求不会查询数据库也不会占用密码哈希线程池：
+ * - 按客户端IP：每分钟的登录和注册请求数（library.auth.throttle.ip_per_minute）；
+ * - 按账户：窗口内的登录失败次数（library.auth.throttle.account_failures / account_window_minutes），
+ *   登录成功后清零，因此只影响正在被猜测密码的账户。
+ *   每次登录在校验密码之前就原子地占用一次额度，失败时不再另计；否则同一时刻并发的一批猜测
+ *   都会在任何一次失败被记下之前通过检查。
+ *
+ * 客户端IP取 request.getRemoteAddr()；部署在负载均衡之后时，应在 Tomcat 中配置 RemoteIpValve，
+ * 由它根据受信任代理的 X-Forwarded-For 还原真实IP，而不是在这里直接信任该请求头。
+ */
+public final class LoginThrottle {
+
+    private static final SlidingWindowLimiter BY_IP;
+    private static final SlidingWindowLimiter BY_ACCOUNT;
+
+    private static final LongAdder ALLOWED = new LongAdder();
+    private static final LongAdder THROTTLED_BY_IP = new LongAdder();
+    private static final LongAdder THROTTLED_BY_ACCOUNT = new LongAdder();
+    private static final LongAdder FAILURES = new LongAdder();
+
+    static {
+        Properties properties = new Configuration().configure().getProperties();
+        int ipPerMinute = Integer.parseInt(properties.getProperty("library.auth.throttle.ip_per_minute", "20").trim());
+        int accountFailures = Integer.parseInt(properties.getProperty("library.auth.throttle.account_failures", "5").trim());
+        long accountWindowMinutes = Long.parseLong(properties.getProperty("library.auth.throttle.account_window_minutes", "15").trim());
+        int maxKeys = Integer.parseInt(properties.getProperty("library.auth.throttle.max_keys", "100000").trim());
+        BY_IP = new SlidingWindowLimiter(60_000L, ipPerMinute, maxKeys);
+        BY_ACCOUNT = new SlidingWindowLimiter(accountWindowMinutes * 60_000L, accountFailures, maxKeys);
+    }
+
+    private LoginThrottle() {
+    }
+
+    /**
+     * 登录前调用：计入一次IP请求，并为账户占用一次登录尝试（登录成功后清零）。
+     *
+     * @throws TooManyRequestsException 如果IP或账户已超限
+     */
+    public static void beforeLogin(String clientIp, String account) throws TooManyRequestsException {
+        long now = System.currentTimeMillis();
+        acquireForIp(clientIp, now);
+        if (account != null) {
+            long wait = BY_ACCOUNT.tryAcquire(accountKey(account), now);
+            if (wait > 0) {
+                THROTTLED_BY_ACCOUNT.increment();
+                throw new TooManyRequestsException("该账户登录失败次数过多，请稍后再试。", toSeconds(wait));
+            }
+        }
+        ALLOWED.increment();
+    }
+
+    /**
+     * 注册前调用：计入一次IP请求。
+     *
+     * @throws TooManyRequestsException 如果IP已超限
+     */
+    public static void beforeRegister(String clientIp) throws TooManyRequestsException {
+        acquireForIp(clientIp, System.currentTimeMillis());
+        ALLOWED.increment();
+    }
+
+    /**
+     * 登录失败时调用。账户的这次尝试已在 beforeLogin 中计入，这里只做统计。
+     */
+    public static void loginFailed(String account) {
+        FAILURES.increment();
+    }
+
+    public static void loginSucceeded(String account) {
+        BY_ACCOUNT.reset(accountKey(account));
+    }
+
+    public static Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("allowed", ALLOWED.sum());
+        metrics.put("throttledByIp", THROTTLED_BY_IP.sum());
+        metrics.put("throttledByAccount", THROTTLED_BY_ACCOUNT.sum());
+        metrics.put("failedLogins", FAILURES.sum());
+        metrics.put("trackedIps", BY_IP.trackedKeys());
+        metrics.put("trackedAccounts", BY_ACCOUNT.trackedKeys());
+        metrics.put("evictedKeys", BY_IP.evictions() + BY_ACCOUNT.evictions());
+        metrics.put("overflowHits", BY_IP.overflowHits() + BY_ACCOUNT.overflowHits());
+        return metrics;
+    }
+
+    private static void acquireForIp(String clientIp, long now) {
+        long wait = BY_IP.tryAcquire(clientIp, now);
+        if (wait > 0) {
+            THROTTLED_BY_IP.increment();
+            throw new TooManyRequestsException("请求过于频繁，请稍后再试。", toSeconds(wait));
+        }
+    }
+
+    // 与数据库中的 account_normalized 一致，大小写或全半角不同的写法计入同一个账户
+    private static String accountKey(String account) {
+        return TextNormalizer.normalize(account);
+    }
+
+    private static int toSeconds(long millis) {
+        return (int) Math.max(1, (millis + 999) / 1000);
+    }
+}
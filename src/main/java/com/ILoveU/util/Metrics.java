@@ -0,0 +1,46 @@
+package com.ILoveU.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 运行指标的登记处：各组件在启动时登记一个返回当前计数的 Supplier，GET /api/metrics 按名称汇总输出。
+ * 指标在读取时才计算，组件自身只维护计数器，不需要为指标做额外的工作。
+ */
+public final class Metrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    // 受类锁保护，保持登记顺序
+    private static final Map<String, Supplier<Map<String, Object>>> SOURCES = new LinkedHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static synchronized void register(String name, Supplier<Map<String, Object>> source) {
+        SOURCES.put(name, source);
+    }
+
+    /**
+     * @return 名称 -> 该组件的指标；某个组件读取失败时只跳过它
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Supplier<Map<String, Object>>> sources;
+        synchronized (Metrics.class) {
+            sources = new LinkedHashMap<>(SOURCES);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Supplier<Map<String, Object>>> entry : sources.entrySet()) {
+            try {
+                result.put(entry.getKey(), entry.getValue().get());
+            } catch (RuntimeException e) {
+                logger.warn("读取指标 '{}' 失败: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,105 @@
+package com.ILoveU.util;
+
+import com.ILoveU.exception.OperationFailedException;
+import com.ILoveU.exception.ServiceUnavailableException;
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 密码哈希专用的有界线程池。PBKDF2 每次需要数百毫秒的CPU，放在请求线程上计算时，
+ * 一阵登录高峰会占满容器的全部请求线程，连带所有其他接口一起变慢。
+ *
+ * 线程数固定（默认为CPU核数的一半），等待队列有上限：队列满时立即拒绝，
+ * 排队超过 {@link #WAIT_SECONDS} 秒也放弃，都以 ServiceUnavailableException（HTTP 503）返回，
+ * 因此过载只会让登录和注册变慢或失败，不影响其他接口。
+ */
+public final class PasswordHashExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashExecutor.class);
+
+    private static final long WAIT_SECONDS = 5;
+    private static final int RETRY_AFTER_SECONDS = 2;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final AtomicLong REJECTED = new AtomicLong();
+    private static final ThreadPoolExecutor EXECUTOR;
+
+    static {
+        Properties properties = new Configuration().configure().getProperties();
+        int defaultThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int threads = Integer.parseInt(properties.getProperty("library.auth.hash_threads", String.valueOf(defaultThreads)).trim());
+        int queueDepth = Integer.parseInt(properties.getProperty("library.auth.hash_queue_depth", "64").trim());
+        EXECUTOR = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth), runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        logger.info("密码哈希线程池已创建：{} 个线程，队列上限 {}", threads, queueDepth);
+    }
+
+    private PasswordHashExecutor() {
+    }
+
+    /**
+     * 在哈希线程池上执行任务并等待结果。
+     *
+     * @throws ServiceUnavailableException 如果队列已满或等待超时
+     * @throws OperationFailedException 如果任务本身失败
+     */
+    public static <T> T call(Callable<T> task) throws ServiceUnavailableException, OperationFailedException {
+        Future<T> future;
+        try {
+            future = EXECUTOR.submit(task);
+        } catch (RejectedExecutionException e) {
+            long rejected = REJECTED.incrementAndGet();
+            logger.warn("密码哈希队列已满（排队 {}），拒绝请求，累计拒绝 {} 次", EXECUTOR.getQueue().size(), rejected);
+            throw new ServiceUnavailableException("登录请求过多，请稍后重试。", RETRY_AFTER_SECONDS);
+        }
+        try {
+            return future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // 还在排队的任务取消后不会再执行，已经开始的计算让它算完
+            future.cancel(false);
+            REJECTED.incrementAndGet();
+            logger.warn("密码哈希排队超过 {} 秒，放弃请求", WAIT_SECONDS);
+            throw new ServiceUnavailableException("登录请求过多，请稍后重试。", RETRY_AFTER_SECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new OperationFailedException("密码校验被中断。", e);
+        } catch (ExecutionException e) {
+            throw new OperationFailedException("密码处理失败。", e.getCause());
+        }
+    }
+
+    public static Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("threads", EXECUTOR.getMaximumPoolSize());
+        metrics.put("active", EXECUTOR.getActiveCount());
+        metrics.put("queued", EXECUTOR.getQueue().size());
+        metrics.put("completed", EXECUTOR.getCompletedTaskCount());
+        metrics.put("rejected", REJECTED.get());
+        return metrics;
+    }
+
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+        logger.info("密码哈希线程池已关闭");
+    }
+}
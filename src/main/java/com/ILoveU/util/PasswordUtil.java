@@ -1,36 +1,146 @@
 package com.ILoveU.util;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.regex.Pattern;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import org.hibernate.cfg.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * 密码哈希。新密码使用加盐的 PBKDF2-HMAC-SHA256，存储格式为 {@code pbkdf2-sha256$迭代次数$盐$哈希}（base64），
+ * 参数随哈希一起保存，因此调高迭代次数后旧哈希仍能校验，并在用户下次登录时重新哈希（见 {@link #needsRehash}）。
+ * 早期版本存储的是未加盐的 SHA-256 十六进制串，仍然可以校验，登录成功后同样会被重新哈希。
+ *
+ * PBKDF2 是故意做慢的计算，调用方应在 PasswordHashExecutor 上执行，而不是直接占用请求线程。
+ */
 public class PasswordUtil {
     private static final Logger logger = LoggerFactory.getLogger(PasswordUtil.class);
-    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private static final String PBKDF2_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PBKDF2_PREFIX = "pbkdf2-sha256";
+    private static final String LEGACY_ALGORITHM = "SHA-256";
+    private static final Pattern LEGACY_HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BYTES = 32;
+    private static final int MIN_ITERATIONS = 10_000;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // 新哈希使用的迭代次数，在 hibernate.cfg.xml 中通过 library.auth.pbkdf2_iterations 配置
+    private static final int ITERATIONS;
+
+    // 账户不存在时用来走一遍同样耗时的校验，避免通过响应时间判断账户是否存在
+    private static volatile String dummyHash;
+
+    static {
+        String configured = new Configuration().configure().getProperties()
+                .getProperty("library.auth.pbkdf2_iterations", "310000");
+        ITERATIONS = Math.max(MIN_ITERATIONS, Integer.parseInt(configured.trim()));
+    }
 
     public static String hashPassword(String password) {
-        // String saltedPassword = salt + password;
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, ITERATIONS);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PBKDF2_PREFIX + "$" + ITERATIONS + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * 校验密码，支持 PBKDF2 格式和旧的 SHA-256 格式；哈希比较为常数时间。
+     *
+     * @return 密码匹配时返回true；存储的哈希格式无法识别时返回false
+     */
+    public static boolean verifyPassword(String plainPassword, String hashedPassword) {
+        if (plainPassword == null || hashedPassword == null) {
+            return false;
+        }
+        if (LEGACY_HASH.matcher(hashedPassword).matches()) {
+            return MessageDigest.isEqual(legacyHash(plainPassword),
+                    hashedPassword.getBytes(StandardCharsets.US_ASCII));
+        }
+        String[] parts = hashedPassword.split("\\$");
+        if (parts.length != 4 || !PBKDF2_PREFIX.equals(parts[0])) {
+            logger.warn("无法识别的密码哈希格式");
+            return false;
+        }
         try {
-            MessageDigest md = MessageDigest.getInstance(HASH_ALGORITHM);
-            byte[] hashedBytes = md.digest(password.getBytes());
-            // 将字节数组转换为十六进制字符串表示
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hashedBytes) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (NoSuchAlgorithmException e) {
-            // 这种异常理论上不应该发生，因为SHA-256是标准算法
-            logger.error("密码哈希算法未找到: {}", e.getMessage(), e);
-            throw new RuntimeException("password hash transformation failed ", e);
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(pbkdf2(plainPassword, salt, iterations, expected.length), expected);
+        } catch (IllegalArgumentException e) {
+            logger.warn("密码哈希格式错误: {}", e.getMessage());
+            return false;
         }
     }
 
-    public static boolean verifyPassword(String plainPassword, String hashedPassword) {
-        // use same hash algorithm
-        String newHashedPassword = hashPassword(plainPassword);
-        return newHashedPassword.equals(hashedPassword);
+    /**
+     * @return 存储的哈希是旧格式或迭代次数低于当前配置时返回true，调用方应在登录成功后用明文密码重新哈希
+     */
+    public static boolean needsRehash(String hashedPassword) {
+        if (hashedPassword == null || !hashedPassword.startsWith(PBKDF2_PREFIX + "$")) {
+            return true;
+        }
+        String[] parts = hashedPassword.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < ITERATIONS;
+        } catch (NumberFormatException e) {
+            return true;
+        }
     }
 
+    /**
+     * @return 一个与真实哈希参数相同的哈希，用于账户不存在时的等时校验
+     */
+    public static String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = hashPassword("dummy-password-for-timing");
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        return pbkdf2(password, salt, iterations, HASH_BYTES);
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations, int hashBytes) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, hashBytes * 8);
+        try {
+            return SecretKeyFactory.getInstance(PBKDF2_ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            // PBKDF2WithHmacSHA256 是Java 8起每个JRE都提供的算法
+            logger.error("密码哈希算法不可用: {}", e.getMessage(), e);
+            throw new RuntimeException("password hash transformation failed ", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * 旧格式：未加盐的 SHA-256，小写十六进制。只用于校验已有的哈希，不再生成。
+     */
+    private static byte[] legacyHash(String password) {
+        try {
+            // 旧代码使用平台默认编码，这里保持一致，否则非ASCII密码会校验失败
+            byte[] digest = MessageDigest.getInstance(LEGACY_ALGORITHM).digest(password.getBytes());
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = Character.forDigit((digest[i] >> 4) & 0xf, 16);
+                hex[i * 2 + 1] = Character.forDigit(digest[i] & 0xf, 16);
+            }
+            return new String(hex).getBytes(StandardCharsets.US_ASCII);
+        } catch (GeneralSecurityException e) {
+            logger.error("密码哈希算法未找到: {}", e.getMessage(), e);
+            throw new RuntimeException("password hash transformation failed ", e);
+        }
+    }
 }
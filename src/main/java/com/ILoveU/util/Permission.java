@@ -0,0 +1,40 @@
+package com.ILoveU.util;
+
+/**
+ * 权限位。每个角色的权限在 AccessControl 中预先合成一个 long 位集，签发令牌时写入令牌，
+ * 校验请求时只需要一次按位与。
+ *
+ * 令牌中保存的是位集本身，因此只能在末尾追加新权限，不能调整已有权限的顺序。
+ */
+public enum Permission {
+    /** 浏览图书、作者、出版社、标签，输入联想和实时事件 */
+    CATALOG_READ,
+    /** 新增、修改、删除图书、作者、出版社、标签 */
+    CATALOG_WRITE,
+    /** 办理和查询自己的借阅、预约、罚款 */
+    LOAN_SELF,
+    /** 为任何读者办理借阅、归还、预约，查询任何读者的记录和逾期列表 */
+    LOAN_ANY,
+    /** 读取冷归档的历史借阅 */
+    ARCHIVE_READ,
+    /** 库存核对 */
+    INVENTORY_MANAGE,
+    /** 查看运行指标 */
+    METRICS_READ,
+    /** 修改用户角色 */
+    USER_MANAGE;
+
+    private final long bit = 1L << ordinal();
+
+    public long bit() {
+        return bit;
+    }
+
+    public static long mask(Permission... permissions) {
+        long mask = 0;
+        for (Permission permission : permissions) {
+            mask |= permission.bit;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,372 @@
+package com.ILoveU.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 用于输入联想（typeahead）的内存前缀索引。
+ *
+ * 结构是一棵紧凑字典树：每个节点的子节点以有序 char[] + Node[] 存放（二分查找），
+ * 并且每个节点缓存其子树中热度最高的前 {@link #MAX_TOP_K} 个条目。
+ * 因此查询只需沿前缀走 O(前缀长度) 步，然后直接返回缓存，不需要遍历子树。
+ *
+ * 除了完整名称外，名称中每个单词的起始位置也会作为一个键插入，
+ * 这样 "fow" 也能联想到 "Martin Fowler"。
+ *
+ * 写操作（插入/删除/调整热度）只重算受影响路径上的缓存；读写之间用读写锁隔离。
+ */
+public final class PrefixIndex {
+
+    /**
+     * 每个节点缓存的条目数上限，也是单次查询能返回的最大条目数。
+     */
+    public static final int MAX_TOP_K = 10;
+
+    // 排序规则：热度降序，其次按名称、ID升序，保证结果稳定
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong((Entry e) -> e.weight).reversed()
+            .thenComparing(e -> e.text)
+            .thenComparingInt(e -> e.id);
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    /**
+     * 索引中的一个条目（不可变）。热度变化时会用新的 Entry 替换旧的。
+     */
+    public static final class Entry {
+        private final int id;
+        private final String text;
+        private final long weight;
+
+        Entry(int id, String text, long weight) {
+            this.id = id;
+            this.text = text;
+            this.weight = weight;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+    }
+
+    private static final class Node {
+        char[] keys = NO_KEYS;
+        Node[] children = NO_NODES;
+        // 以该节点为结尾的键对应的条目（同名条目可能有多个）
+        List<Entry> terminals;
+        Entry[] top = NO_ENTRIES;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int insertAt = -i - 1;
+            Node created = new Node();
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = created;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return created;
+        }
+
+        void removeChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return keys.length == 0 && (terminals == null || terminals.isEmpty());
+        }
+    }
+
+    private final Node root = new Node();
+    private final Map<Integer, Entry> entriesById = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 批量加载条目，用于启动时从数据库构建索引。
+     * 所有条目插入完成后再统一自底向上计算一次缓存，避免逐条插入时反复重算。
+     *
+     * @param entries 每个元素为 [id, 名称, 热度]
+     */
+    public void loadAll(List<Object[]> entries) {
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : entries) {
+                int id = ((Number) row[0]).intValue();
+                String text = (String) row[1];
+                long weight = row[2] == null ? 0L : ((Number) row[2]).longValue();
+                if (text == null || normalize(text).isEmpty()) {
+                    continue;
+                }
+                Entry old = entriesById.remove(id);
+                if (old != null) {
+                    detach(old, false);
+                }
+                Entry entry = new Entry(id, text, weight);
+                entriesById.put(id, entry);
+                for (String key : keysOf(text)) {
+                    Node node = root;
+                    for (int i = 0; i < key.length(); i++) {
+                        node = node.childOrCreate(key.charAt(i));
+                    }
+                    if (node.terminals == null) {
+                        node.terminals = new ArrayList<>(1);
+                    }
+                    node.terminals.add(entry);
+                }
+            }
+            recomputeSubtree(root);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 插入或更新一个条目的名称。如果条目已存在，则保留其原有热度。
+     */
+    public void upsert(int id, String text) {
+        lock.writeLock().lock();
+        try {
+            Entry old = entriesById.get(id);
+            replace(old, text, old == null ? 0L : old.weight, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 调整一个条目的热度；条目不存在时忽略。
+     */
+    public void adjustWeight(int id, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Entry old = entriesById.get(id);
+            if (old != null) {
+                replace(old, old.text, Math.max(0L, old.weight + delta), id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除一个条目；条目不存在时忽略。
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            Entry old = entriesById.remove(id);
+            if (old != null) {
+                detach(old, true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 返回与前缀匹配的热度最高的条目。
+     *
+     * @param prefix 用户输入的前缀（大小写和多余空白不敏感）
+     * @param limit  期望返回的条目数，会被限制在 [1, {@link #MAX_TOP_K}] 之间
+     * @return 按热度降序排列的条目列表；没有匹配时返回空列表
+     */
+    public List<Entry> top(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int k = Math.max(1, Math.min(limit, MAX_TOP_K));
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            Entry[] top = node.top;
+            List<Entry> result = new ArrayList<>(Math.min(k, top.length));
+            for (int i = 0; i < top.length && i < k; i++) {
+                result.add(top[i]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 索引中的条目数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entriesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 规范化键，规则见 {@link TextNormalizer#normalize(String)}。
+     */
+    static String normalize(String text) {
+        return text == null ? "" : TextNormalizer.normalize(text);
+    }
+
+    /**
+     * 计算一个名称对应的所有键：完整名称，以及每个单词起始处开始的后缀。
+     */
+    static Set<String> keysOf(String text) {
+        String normalized = normalize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(normalized);
+        for (int i = 1; i < normalized.length(); i++) {
+            char previous = normalized.charAt(i - 1);
+            if (!Character.isLetterOrDigit(previous) && Character.isLetterOrDigit(normalized.charAt(i))) {
+                keys.add(normalized.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    // ---- 以下方法均需在持有写锁时调用 ----
+
+    private void replace(Entry old, String text, long weight, int id) {
+        if (old != null) {
+            detach(old, true);
+        }
+        if (text == null || normalize(text).isEmpty()) {
+            entriesById.remove(id);
+            return;
+        }
+        Entry entry = new Entry(id, text, weight);
+        entriesById.put(id, entry);
+        for (String key : keysOf(text)) {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = root;
+            for (int i = 0; i < key.length(); i++) {
+                path[i + 1] = path[i].childOrCreate(key.charAt(i));
+            }
+            Node leaf = path[key.length()];
+            if (leaf.terminals == null) {
+                leaf.terminals = new ArrayList<>(1);
+            }
+            leaf.terminals.add(entry);
+            for (int i = path.length - 1; i >= 0; i--) {
+                recompute(path[i]);
+            }
+        }
+    }
+
+    private void detach(Entry entry, boolean recomputePath) {
+        for (String key : keysOf(entry.text)) {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = root;
+            int depth = 0;
+            while (depth < key.length() && path[depth] != null) {
+                path[depth + 1] = path[depth].child(key.charAt(depth));
+                depth++;
+            }
+            Node leaf = path[key.length()];
+            if (leaf == null || leaf.terminals == null) {
+                continue;
+            }
+            leaf.terminals.removeIf(e -> e == entry);
+            // 自底向上剪除空节点并重算缓存
+            for (int i = key.length(); i >= 0; i--) {
+                Node node = path[i];
+                if (i > 0 && node.isEmpty()) {
+                    path[i - 1].removeChild(key.charAt(i - 1));
+                    continue;
+                }
+                if (recomputePath) {
+                    recompute(node);
+                }
+            }
+        }
+    }
+
+    private void recomputeSubtree(Node node) {
+        for (Node child : node.children) {
+            recomputeSubtree(child);
+        }
+        recompute(node);
+    }
+
+    /**
+     * 由自身终止条目和各子节点的缓存合并出当前节点的前 K 个条目（按ID去重）。
+     */
+    private void recompute(Node node) {
+        List<Entry> candidates = new ArrayList<>();
+        if (node.terminals != null) {
+            candidates.addAll(node.terminals);
+        }
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(RANKING);
+
+        List<Entry> top = new ArrayList<>(MAX_TOP_K);
+        Set<Integer> seenIds = new HashSet<>();
+        for (Entry candidate : candidates) {
+            if (seenIds.add(candidate.id)) {
+                top.add(candidate);
+                if (top.size() == MAX_TOP_K) {
+                    break;
+                }
+            }
+        }
+        node.top = top.toArray(NO_ENTRIES);
+    }
+}
@@ -0,0 +1,269 @@
+package com.ILoveU.util;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 读写分离的只读副本路由。
+ *
+ * 写操作始终使用 hibernate.cfg.xml 中配置的主库；只读会话（{@link HibernateUtil#openReadOnlySession()}）
+ * 通过本类从副本连接池中借用连接。在 hibernate.cfg.xml 中配置（均为可选，未配置副本时所有读请求仍走主库）：
+ * <pre>
+ * library.replica.urls              逗号分隔的副本JDBC URL
+ * library.replica.username/password 副本账号，默认与主库相同
+ * library.replica.balancing         round_robin（默认）或 least_connections
+ * library.replica.pool_size         每个副本的连接池大小，默认 10
+ * library.replica.read_your_writes_ms 客户端发起写请求后，其读请求在该时间内回退到主库，默认 5000
+ * </pre>
+ *
+ * 读自己的写的最近写入时间由客户端携带（ReadRoutingFilter 下发的签名 Cookie），不保存在本节点内存中，
+ * 因此写请求和随后的读请求落到不同节点时同样生效。各节点的时钟偏差应远小于回退窗口。
+ *
+ * 副本获取连接失败时会被暂时摘除（{@link #FAILURE_COOLDOWN_MS}），期间读请求分配给其他副本或主库。
+ */
+public final class ReplicaRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    private static final String PREFIX = "library.replica.";
+    private static final long FAILURE_COOLDOWN_MS = 5000L;
+
+    /**
+     * 副本负载均衡策略。
+     */
+    public enum Balancing {
+        ROUND_ROBIN, LEAST_CONNECTIONS
+    }
+
+    /**
+     * 从副本借出的一个连接；用完后必须调用 {@link #release()}。
+     */
+    public static final class Lease {
+        private final Replica replica;
+        private final Connection connection;
+
+        Lease(Replica replica, Connection connection) {
+            this.replica = replica;
+            this.connection = connection;
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        public String getReplicaUrl() {
+            return replica.url;
+        }
+
+        public void release() {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.warn("归还副本连接失败 ({}): {}", replica.url, e.getMessage());
+            } finally {
+                replica.active.decrementAndGet();
+            }
+        }
+    }
+
+    static final class Replica {
+        final String url;
+        final HikariDataSource dataSource;
+        final AtomicInteger active = new AtomicInteger();
+        volatile long unavailableUntil;
+
+        Replica(String url, HikariDataSource dataSource) {
+            this.url = url;
+            this.dataSource = dataSource;
+        }
+    }
+
+    // 当前请求所属客户端最近一次写请求的时间（epoch 毫秒）
+    private static final ThreadLocal<Long> LAST_WRITE = new ThreadLocal<>();
+    private static final AtomicInteger NEXT = new AtomicInteger();
+
+    // 保护副本连接池的创建和关闭。创建时要建立数据库连接，使用显式锁，虚拟线程在这里等待时可以让出载体线程
+    private static final ReentrantLock INIT_LOCK = new ReentrantLock();
+    private static volatile List<Replica> replicas;
+    private static volatile Balancing balancing = Balancing.ROUND_ROBIN;
+    private static volatile long readYourWritesMillis = 5000L;
+
+    private ReplicaRouter() {
+    }
+
+    /**
+     * 绑定当前线程正在处理的请求所属客户端最近一次写请求的时间，用于"读自己的写"判断。由 ReadRoutingFilter 调用。
+     *
+     * @param lastWriteAt epoch 毫秒；没有最近写入时为null
+     */
+    public static void bindLastWrite(Long lastWriteAt) {
+        if (lastWriteAt == null) {
+            LAST_WRITE.remove();
+        } else {
+            LAST_WRITE.set(lastWriteAt);
+        }
+    }
+
+    public static void unbindLastWrite() {
+        LAST_WRITE.remove();
+    }
+
+    /**
+     * @return 当前线程绑定的最近写入时间，请求转到其他线程执行时用于重新绑定
+     */
+    public static Long boundLastWrite() {
+        return LAST_WRITE.get();
+    }
+
+    /**
+     * @return 是否配置了只读副本；未配置时不需要记录最近写入时间
+     */
+    public static boolean hasReplicas() {
+        return !replicas().isEmpty();
+    }
+
+    /**
+     * @return 写请求后读请求回退到主库的时长（毫秒）
+     */
+    public static long readYourWritesMillis() {
+        replicas();
+        return readYourWritesMillis;
+    }
+
+    /**
+     * 为只读会话借用一个副本连接。
+     *
+     * @return 副本连接；如果未配置副本、当前客户端刚写过数据或所有副本都不可用，返回null（调用方应使用主库）
+     */
+    public static Lease acquireReadConnection() {
+        List<Replica> candidates = replicas();
+        if (candidates.isEmpty() || mustReadFromPrimary()) {
+            return null;
+        }
+        int start = Math.floorMod(NEXT.getAndIncrement(), candidates.size());
+        long now = System.currentTimeMillis();
+        for (Replica replica : ordered(candidates, start)) {
+            if (replica.unavailableUntil > now) {
+                continue;
+            }
+            replica.active.incrementAndGet();
+            long waitStart = System.nanoTime();
+            try {
+                return new Lease(replica, replica.dataSource.getConnection());
+            } catch (SQLException e) {
+                replica.active.decrementAndGet();
+                replica.unavailableUntil = now + FAILURE_COOLDOWN_MS;
+                logger.warn("副本 {} 不可用，{}ms 内不再使用: {}", replica.url, FAILURE_COOLDOWN_MS, e.getMessage());
+            } finally {
+                // 超时失败的等待同样计入排队时延
+                ConnectionWaits.record(System.nanoTime() - waitStart);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 关闭所有副本连接池。
+     */
+    public static void shutdown() {
+        INIT_LOCK.lock();
+        try {
+            if (replicas == null) {
+                return;
+            }
+            for (Replica replica : replicas) {
+                replica.dataSource.close();
+            }
+            replicas = Collections.emptyList();
+            logger.info("副本连接池已关闭");
+        } finally {
+            INIT_LOCK.unlock();
+        }
+    }
+
+    private static boolean mustReadFromPrimary() {
+        Long lastWrite = LAST_WRITE.get();
+        return lastWrite != null && System.currentTimeMillis() - lastWrite <= readYourWritesMillis;
+    }
+
+    /**
+     * 按负载均衡策略给出尝试顺序：轮询从 start 开始依次尝试；最少连接按当前借出数升序（相同时保持轮询顺序）。
+     */
+    private static List<Replica> ordered(List<Replica> candidates, int start) {
+        List<Replica> order = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            order.add(candidates.get((start + i) % candidates.size()));
+        }
+        if (balancing == Balancing.LEAST_CONNECTIONS) {
+            order.sort((a, b) -> Integer.compare(a.active.get(), b.active.get()));
+        }
+        return order;
+    }
+
+    private static List<Replica> replicas() {
+        List<Replica> current = replicas;
+        if (current == null) {
+            INIT_LOCK.lock();
+            try {
+                if (replicas == null) {
+                    replicas = init(new Configuration().configure().getProperties());
+                }
+                current = replicas;
+            } finally {
+                INIT_LOCK.unlock();
+            }
+        }
+        return current;
+    }
+
+    private static List<Replica> init(Properties properties) {
+        String urls = properties.getProperty(PREFIX + "urls");
+        if (urls == null || urls.trim().isEmpty()) {
+            logger.info("未配置只读副本，所有读请求使用主库");
+            return Collections.emptyList();
+        }
+        String username = value(properties, PREFIX + "username", properties.getProperty("hibernate.connection.username"));
+        String password = value(properties, PREFIX + "password", properties.getProperty("hibernate.connection.password"));
+        int poolSize = Integer.parseInt(value(properties, PREFIX + "pool_size", "10"));
+        balancing = Balancing.valueOf(value(properties, PREFIX + "balancing", "round_robin").toUpperCase());
+        readYourWritesMillis = Long.parseLong(value(properties, PREFIX + "read_your_writes_ms", "5000"));
+
+        List<Replica> result = new ArrayList<>();
+        for (String rawUrl : urls.split(",")) {
+            String url = rawUrl.trim();
+            if (url.isEmpty()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + result.size());
+            config.setJdbcUrl(url);
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(poolSize);
+            config.setReadOnly(true);
+            // 副本暂时不可达时不阻止应用启动，读请求会回退到主库
+            config.setInitializationFailTimeout(-1);
+            result.add(new Replica(url, new HikariDataSource(config)));
+        }
+        logger.info("已配置 {} 个只读副本，负载均衡策略: {}，读自己写的回退窗口: {}ms",
+                result.size(), balancing, readYourWritesMillis);
+        return Collections.unmodifiableList(result);
+    }
+
+    private static String value(Properties properties, String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+}
@@ -0,0 +1,203 @@
+package com.ILoveU.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按路径段组织的路由前缀树。路由模式如 {@code /api/books/{id}} 在启动时编译进树中，
+ * 匹配时逐段向下查找，不拆分字符串、不使用正则，也不依赖异常判断路径参数是否合法。
+ *
+ * 路径变量 {@code {name}} 只匹配非负整数（不超过 Integer.MAX_VALUE），匹配时直接解析为 int；
+ * 不是整数的段不会匹配变量，因此字面段（如 overdue）与变量在同一位置时不需要回溯。
+ * 没有路径变量的路由返回预先创建的匹配结果，有变量的路由每次只分配一个结果对象和一个 int 数组。
+ *
+ * 树在构建完成后只读，可以被多个线程同时匹配；构建（{@link #add}）不是线程安全的。
+ */
+public final class RouteTrie<T> {
+
+    // 十位数字可能超过 int 范围，需要按 long 检查
+    private static final int MAX_INT_DIGITS = 10;
+
+    /**
+     * 匹配结果：路由的值和解析好的路径变量。
+     */
+    public static final class Match<T> {
+        private static final int[] NO_VALUES = new int[0];
+
+        private final T value;
+        private final String[] names;
+        private final int[] values;
+
+        Match(T value, String[] names, int[] values) {
+            this.value = value;
+            this.names = names;
+            this.values = values;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public boolean is(T route) {
+            return value == route;
+        }
+
+        /**
+         * @return 路径变量的值
+         * @throws IllegalArgumentException 如果路由模式中没有这个变量（属于编程错误）
+         */
+        public int getInt(String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return values[i];
+                }
+            }
+            throw new IllegalArgumentException("路由中没有路径变量: " + name);
+        }
+    }
+
+    private static final class Node<T> {
+        final List<String> literals = new ArrayList<>();
+        final List<Node<T>> literalChildren = new ArrayList<>();
+        Node<T> variableChild;
+        T value;
+        String[] variableNames;
+        Match<T> staticMatch;
+
+        Node<T> literalChild(String path, int start, int end) {
+            int length = end - start;
+            for (int i = 0; i < literals.size(); i++) {
+                String literal = literals.get(i);
+                if (literal.length() == length && path.regionMatches(start, literal, 0, length)) {
+                    return literalChildren.get(i);
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Map<String, Node<T>> roots = new HashMap<>();
+    private int maxVariables;
+
+    /**
+     * 编译一条路由。
+     *
+     * @param pattern 以 / 开头的路径模式，变量段写作 {@code {name}}
+     * @throws IllegalArgumentException 如果模式格式错误，或与已有路由冲突
+     */
+    public RouteTrie<T> add(String method, String pattern, T value) {
+        if (pattern == null || !pattern.startsWith("/")) {
+            throw new IllegalArgumentException("路由模式必须以 / 开头: " + pattern);
+        }
+        Node<T> node = roots.computeIfAbsent(method, k -> new Node<>());
+        List<String> names = new ArrayList<>();
+        for (String segment : pattern.substring(1).split("/", -1)) {
+            if (segment.isEmpty()) {
+                if (pattern.length() == 1) {
+                    break;
+                }
+                throw new IllegalArgumentException("路由模式中有空的路径段: " + pattern);
+            }
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String name = segment.substring(1, segment.length() - 1);
+                if (name.isEmpty() || names.contains(name)) {
+                    throw new IllegalArgumentException("路径变量名为空或重复: " + pattern);
+                }
+                names.add(name);
+                if (node.variableChild == null) {
+                    node.variableChild = new Node<>();
+                }
+                node = node.variableChild;
+            } else {
+                if (parseInt(segment, 0, segment.length()) >= 0) {
+                    throw new IllegalArgumentException("字面路径段不能是纯数字，会与路径变量冲突: " + pattern);
+                }
+                Node<T> child = node.literalChild(segment, 0, segment.length());
+                if (child == null) {
+                    child = new Node<>();
+                    node.literals.add(segment);
+                    node.literalChildren.add(child);
+                }
+                node = child;
+            }
+        }
+        if (node.value != null) {
+            throw new IllegalArgumentException("路由重复: " + method + " " + pattern);
+        }
+        node.value = value;
+        node.variableNames = names.toArray(new String[0]);
+        node.staticMatch = names.isEmpty() ? new Match<>(value, node.variableNames, Match.NO_VALUES) : null;
+        maxVariables = Math.max(maxVariables, names.size());
+        return this;
+    }
+
+    /**
+     * 匹配请求路径。末尾的斜杠被忽略（{@code /api/books/} 与 {@code /api/books} 相同）。
+     *
+     * @return 匹配结果；没有对应的路由，或路径变量不是合法的 int 时返回null
+     */
+    public Match<T> match(String method, String path) {
+        Node<T> node = roots.get(method);
+        if (node == null || path == null || !path.startsWith("/")) {
+            return null;
+        }
+        int length = path.length();
+        while (length > 1 && path.charAt(length - 1) == '/') {
+            length--;
+        }
+        int[] values = null;
+        int count = 0;
+        int start = 1;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0 || end > length) {
+                end = length;
+            }
+            if (end == start) {
+                // 连续的斜杠
+                return null;
+            }
+            Node<T> next = node.literalChild(path, start, end);
+            if (next == null && node.variableChild != null) {
+                long parsed = parseInt(path, start, end);
+                if (parsed < 0) {
+                    return null;
+                }
+                if (values == null) {
+                    values = new int[maxVariables];
+                }
+                values[count++] = (int) parsed;
+                next = node.variableChild;
+            }
+            if (next == null) {
+                return null;
+            }
+            node = next;
+            start = end + 1;
+        }
+        if (node.value == null) {
+            return null;
+        }
+        return count == 0 ? node.staticMatch : new Match<>(node.value, node.variableNames, values);
+    }
+
+    /**
+     * @return 段的整数值；不是纯数字或超出 int 范围时返回 -1
+     */
+    private static long parseInt(String path, int start, int end) {
+        if (end - start > MAX_INT_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= Integer.MAX_VALUE ? value : -1;
+    }
+}
@@ -0,0 +1,303 @@
+package com.ILoveU.util;
+
+import org.hibernate.cfg.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 版本化的数据库迁移执行器。
+ *
+ * 迁移脚本放在 classpath 的 db/migration/ 目录下，命名为 V{版本号}__{描述}.sql，
+ * 执行顺序由同目录下的 index.txt 决定。每个成功执行的脚本都会记录到 schema_version 表
+ * （版本号、描述、SHA-256 校验和、执行时间），下次启动时只执行尚未记录的脚本；
+ * 已执行脚本的内容如果被修改，启动会失败，避免不同环境的表结构悄悄分叉。
+ *
+ * 必须在 SessionFactory 构建之前调用（见 HibernateAppListener），
+ * 因为 Hibernate 运行在 hbm2ddl.auto=validate 模式下，表结构必须已经就绪。
+ * 使用 MySQL 的 GET_LOCK 保证多个实例同时启动时只有一个在执行迁移。
+ */
+public final class SchemaMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final String MIGRATION_DIR = "db/migration/";
+    private static final String INDEX_FILE = MIGRATION_DIR + "index.txt";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final Pattern DELIMITER_DIRECTIVE = Pattern.compile("(?i)^DELIMITER\\s+(\\S+)\\s*$");
+
+    private static final String LOCK_NAME = "library_system_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * 一个迁移脚本。
+     */
+    static final class Migration {
+        final int version;
+        final String description;
+        final String scriptName;
+        final String content;
+        final String checksum;
+
+        Migration(int version, String description, String scriptName, String content) {
+            this.version = version;
+            this.description = description;
+            this.scriptName = scriptName;
+            this.content = content;
+            this.checksum = sha256(content);
+        }
+    }
+
+    /**
+     * 使用 hibernate.cfg.xml 中的连接配置执行所有未执行的迁移。
+     *
+     * @throws IllegalStateException 如果脚本缺失/命名不规范、已执行脚本被修改，或执行SQL失败
+     */
+    public static void migrate() {
+        Properties properties = new Configuration().configure().getProperties();
+        String url = trim(properties.getProperty("hibernate.connection.url"));
+        String username = trim(properties.getProperty("hibernate.connection.username"));
+        String password = properties.getProperty("hibernate.connection.password");
+        String driverClass = trim(properties.getProperty("hibernate.connection.driver_class"));
+
+        try {
+            if (driverClass != null) {
+                Class.forName(driverClass);
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("找不到JDBC驱动: " + driverClass, e);
+        }
+
+        List<Migration> migrations = loadMigrations();
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            migrate(connection, migrations);
+        } catch (SQLException e) {
+            throw new IllegalStateException("数据库迁移失败: " + e.getMessage(), e);
+        }
+    }
+
+    static void migrate(Connection connection, List<Migration> migrations) throws SQLException {
+        acquireLock(connection);
+        try {
+            ensureVersionTable(connection);
+            Map<Integer, String> applied = loadAppliedVersions(connection);
+
+            int appliedCount = 0;
+            for (Migration migration : migrations) {
+                String appliedChecksum = applied.get(migration.version);
+                if (appliedChecksum != null) {
+                    if (!appliedChecksum.equals(migration.checksum)) {
+                        throw new IllegalStateException("已执行的迁移脚本 " + migration.scriptName
+                                + " 内容被修改（校验和不一致）。请新增一个版本的脚本，而不是修改已发布的脚本。");
+                    }
+                    continue;
+                }
+                apply(connection, migration);
+                appliedCount++;
+            }
+            logger.info("数据库迁移完成 - 共 {} 个脚本，本次执行 {} 个。", migrations.size(), appliedCount);
+        } finally {
+            releaseLock(connection);
+        }
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        logger.info("执行数据库迁移 V{}: {}", migration.version, migration.description);
+        long start = System.currentTimeMillis();
+        // 注意：MySQL 的DDL会隐式提交，无法整体回滚；脚本应尽量写成可重复执行的形式
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : splitStatements(migration.content)) {
+                try {
+                    statement.execute(sql);
+                } catch (SQLException e) {
+                    logger.error("迁移 V{} 执行失败的语句:\n{}", migration.version, sql);
+                    throw e;
+                }
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+
+        String insert = "INSERT INTO schema_version (version, description, script, checksum, execution_ms) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = connection.prepareStatement(insert)) {
+            ps.setInt(1, migration.version);
+            ps.setString(2, migration.description);
+            ps.setString(3, migration.scriptName);
+            ps.setString(4, migration.checksum);
+            ps.setLong(5, elapsed);
+            ps.executeUpdate();
+        }
+        logger.info("迁移 V{} 完成，耗时 {}ms。", migration.version, elapsed);
+    }
+
+    private static void ensureVersionTable(Connection connection) throws SQLException {
+        String ddl = "CREATE TABLE IF NOT EXISTS schema_version ("
+                + "version INT NOT NULL PRIMARY KEY, "
+                + "description VARCHAR(200) NOT NULL, "
+                + "script VARCHAR(255) NOT NULL, "
+                + "checksum CHAR(64) NOT NULL, "
+                + "execution_ms BIGINT NOT NULL, "
+                + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP"
+                + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(ddl);
+        }
+    }
+
+    private static Map<Integer, String> loadAppliedVersions(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private static void acquireLock(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new IllegalStateException("等待数据库迁移锁超时，可能有其他实例正在执行迁移。");
+                }
+            }
+        }
+    }
+
+    private static void releaseLock(Connection connection) {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        } catch (SQLException e) {
+            logger.warn("释放数据库迁移锁失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按 index.txt 的顺序加载迁移脚本，并校验命名和版本号严格递增。
+     */
+    static List<Migration> loadMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        int lastVersion = 0;
+        for (String line : readResource(INDEX_FILE).split("\\r?\\n")) {
+            String scriptName = line.trim();
+            if (scriptName.isEmpty() || scriptName.startsWith("#")) {
+                continue;
+            }
+            Matcher matcher = SCRIPT_NAME.matcher(scriptName);
+            if (!matcher.matches()) {
+                throw new IllegalStateException("迁移脚本命名不符合 V{版本号}__{描述}.sql 规范: " + scriptName);
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            if (version <= lastVersion) {
+                throw new IllegalStateException("迁移脚本版本号必须严格递增: " + scriptName);
+            }
+            lastVersion = version;
+            String description = matcher.group(2).replace('_', ' ');
+            migrations.add(new Migration(version, description, scriptName, readResource(MIGRATION_DIR + scriptName)));
+        }
+        return migrations;
+    }
+
+    /**
+     * 将脚本拆分为单条SQL语句。
+     * 支持 mysql 客户端的 DELIMITER 指令（用于触发器/存储过程），跳过语句之外的注释行。
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        String delimiter = ";";
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\\r?\\n")) {
+            String trimmed = line.trim();
+            if (current.length() == 0 && (trimmed.isEmpty() || trimmed.startsWith("--"))) {
+                continue;
+            }
+            Matcher directive = DELIMITER_DIRECTIVE.matcher(trimmed);
+            if (current.length() == 0 && directive.matches()) {
+                delimiter = directive.group(1);
+                continue;
+            }
+            if (trimmed.endsWith(delimiter)) {
+                current.append(line, 0, line.lastIndexOf(delimiter));
+                String sql = current.toString().trim();
+                if (!sql.isEmpty()) {
+                    statements.add(sql);
+                }
+                current.setLength(0);
+            } else {
+                current.append(line).append('\n');
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static String readResource(String path) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = SchemaMigrator.class.getClassLoader();
+        }
+        try (InputStream in = classLoader.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("找不到迁移资源: " + path);
+            }
+            StringBuilder sb = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                char[] buffer = new char[4096];
+                int n;
+                while ((n = reader.read(buffer)) != -1) {
+                    sb.append(buffer, 0, n);
+                }
+            }
+            return sb.toString();
+        } catch (IOException e) {
+            throw new IllegalStateException("读取迁移资源失败: " + path, e);
+        }
+    }
+
+    private static String sha256(String content) {
+        try {
+            // 统一换行符，避免同一脚本在不同操作系统上检出后校验和不同
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(content.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+}
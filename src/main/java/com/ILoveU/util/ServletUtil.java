@@ -8,6 +8,8 @@ import com.google.gson.JsonSyntaxException;
 
 // 根据你的Servlet容器版本选择正确的Servlet API包
 // 如果是Tomcat 10+ (Jakarta EE 9+), 使用 jakarta.servlet
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -24,6 +26,9 @@ public class ServletUtil {
 
     private static final Gson gson = new Gson(); // Gson实例，可以在工具类中共享
 
+    // HttpServletResponse 中没有定义429
+    public static final int SC_TOO_MANY_REQUESTS = 429;
+
     /**
      * 从HttpServletRequest中读取请求体，并将其解析为JsonObject。
      *
@@ -53,6 +58,35 @@ public class ServletUtil {
         return gson.fromJson(requestBody, JsonObject.class);
     }
 
+    /**
+     * 在请求处理完成后执行 action，供过滤器在 chain.doFilter 返回后调用。
+     * 同步请求此时已经处理完，立即执行；请求已转为异步（见 BulkheadServlet）时，等异步处理结束后再执行。
+     */
+    public static void runAfterResponse(HttpServletRequest request, Runnable action) {
+        if (!request.isAsyncStarted()) {
+            action.run();
+            return;
+        }
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                action.run();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
     /**
      * 将Java对象转换为JSON字符串。
      * @param object 要转换的对象
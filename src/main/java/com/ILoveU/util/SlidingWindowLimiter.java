@@ -0,0 +1,203 @@
+package com.ILoveU.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 key 计数的滑动窗口限流器（近似滑动窗口：上一个固定窗口的计数按剩余比例加权，再加上当前窗口的计数）。
+ *
+ * 每个 key 的状态压缩在一个 long 中（窗口序号32位、上一窗口计数16位、当前窗口计数16位），
+ * 用 CAS 更新，不加锁。key 分散在 {@link #STRIPES} 个分段中，每段有容量上限：
+ * 满时由一个线程清理两个窗口内没有活动的 key，其余线程不等待；清理后仍然满时，新 key 共用一个溢出计数器，
+ * 因此大量随机 key 的攻击只会让这些 key 一起被限流，而不会让内存无限增长。
+ */
+public final class SlidingWindowLimiter {
+
+    public static final int STRIPES = 16;
+
+    private static final long COUNT_MASK = 0xFFFFL;
+    private static final long MAX_COUNT = COUNT_MASK;
+
+    private static final class Stripe {
+        final ConcurrentHashMap<String, AtomicLong> windows = new ConcurrentHashMap<>();
+        final AtomicBoolean sweeping = new AtomicBoolean();
+    }
+
+    private final long windowMillis;
+    private final int limit;
+    private final int maxKeysPerStripe;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicLong overflow = new AtomicLong();
+
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder overflowHits = new LongAdder();
+
+    /**
+     * @param windowMillis 窗口长度，至少1秒
+     * @param limit        一个窗口内允许的次数，最大65535
+     * @param maxKeys      同时跟踪的 key 数上限
+     */
+    public SlidingWindowLimiter(long windowMillis, int limit, int maxKeys) {
+        if (windowMillis < 1000 || limit < 1 || limit > MAX_COUNT || maxKeys < STRIPES) {
+            throw new IllegalArgumentException("滑动窗口参数无效: window=" + windowMillis + "ms, limit=" + limit + ", maxKeys=" + maxKeys);
+        }
+        this.windowMillis = windowMillis;
+        this.limit = limit;
+        this.maxKeysPerStripe = maxKeys / STRIPES;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 未超限时记一次。
+     *
+     * @return 0 表示允许（已计数）；否则为建议等待的毫秒数（未计数）
+     */
+    public long tryAcquire(String key, long now) {
+        AtomicLong window = windowFor(key, now);
+        long index = now / windowMillis;
+        long elapsed = now % windowMillis;
+        while (true) {
+            long state = window.get();
+            long rolled = roll(state, index);
+            long previous = (rolled >>> 16) & COUNT_MASK;
+            long current = rolled & COUNT_MASK;
+            if (estimate(previous, current, elapsed) >= limit) {
+                return retryAfter(previous, current, elapsed);
+            }
+            if (window.compareAndSet(state, rolled + 1)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 只检查不计数。
+     *
+     * @return 0 表示未超限；否则为建议等待的毫秒数
+     */
+    public long check(String key, long now) {
+        AtomicLong window = stripeFor(key).windows.get(key);
+        if (window == null) {
+            return 0;
+        }
+        long rolled = roll(window.get(), now / windowMillis);
+        long previous = (rolled >>> 16) & COUNT_MASK;
+        long current = rolled & COUNT_MASK;
+        long elapsed = now % windowMillis;
+        return estimate(previous, current, elapsed) >= limit ? retryAfter(previous, current, elapsed) : 0;
+    }
+
+    /**
+     * 无条件记一次（计数在65535处饱和）。
+     */
+    public void record(String key, long now) {
+        AtomicLong window = windowFor(key, now);
+        long index = now / windowMillis;
+        while (true) {
+            long state = window.get();
+            long rolled = roll(state, index);
+            long next = (rolled & COUNT_MASK) == MAX_COUNT ? rolled : rolled + 1;
+            if (window.compareAndSet(state, next)) {
+                return;
+            }
+        }
+    }
+
+    public void reset(String key) {
+        stripeFor(key).windows.remove(key);
+    }
+
+    public int trackedKeys() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.windows.size();
+        }
+        return size;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long overflowHits() {
+        return overflowHits.sum();
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private AtomicLong windowFor(String key, long now) {
+        Stripe stripe = stripeFor(key);
+        AtomicLong window = stripe.windows.get(key);
+        if (window != null) {
+            return window;
+        }
+        if (stripe.windows.size() >= maxKeysPerStripe) {
+            sweep(stripe, now / windowMillis);
+            if (stripe.windows.size() >= maxKeysPerStripe) {
+                overflowHits.increment();
+                return overflow;
+            }
+        }
+        return stripe.windows.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    /**
+     * 清理两个窗口内没有活动的 key（它们的加权计数已经是0）。同一分段同时只有一个线程清理。
+     */
+    private void sweep(Stripe stripe, long index) {
+        if (!stripe.sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (Iterator<Map.Entry<String, AtomicLong>> it = stripe.windows.entrySet().iterator(); it.hasNext(); ) {
+                if ((it.next().getValue().get() >>> 32) < index - 1) {
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+        } finally {
+            stripe.sweeping.set(false);
+        }
+    }
+
+    /**
+     * 把状态推进到窗口 index：相邻窗口时当前计数变为上一窗口计数，相隔更远时两者都清零。
+     */
+    private static long roll(long state, long index) {
+        long stateIndex = state >>> 32;
+        if (stateIndex == index) {
+            return state;
+        }
+        long previous = stateIndex + 1 == index ? state & COUNT_MASK : 0;
+        return (index << 32) | (previous << 16);
+    }
+
+    private double estimate(long previous, long current, long elapsed) {
+        return previous * (double) (windowMillis - elapsed) / windowMillis + current;
+    }
+
+    /**
+     * 估算加权计数降到 limit - 1 以下还需要多久。
+     */
+    private long retryAfter(long previous, long current, long elapsed) {
+        long allowed = limit - 1;
+        double wait;
+        if (current <= allowed) {
+            // 本窗口内上一窗口的权重继续下降即可
+            wait = (1 - (double) (allowed - current) / previous) * windowMillis - elapsed;
+        } else {
+            // 要等到下一窗口，本窗口的计数成为按比例衰减的上一窗口计数
+            wait = (windowMillis - elapsed) + (1 - (double) allowed / current) * windowMillis;
+        }
+        return Math.max(1, (long) Math.ceil(wait));
+    }
+}
@@ -0,0 +1,32 @@
+package com.ILoveU.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 名称规范化工具。
+ * 实体中的 *_normalized 影子列、重名检查以及内存搜索索引都使用这里的同一套规则，
+ * 保证"看起来相同"的名称（大小写、全角/半角、首尾及连续空白不同）得到相同的键。
+ */
+public final class TextNormalizer {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * 规范化规则：Unicode NFKC 规范化 → 去除首尾空白 → 合并连续空白为一个空格 → 转小写。
+     *
+     * @param text 原始文本
+     * @return 规范化后的文本；输入为null时返回null
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).trim();
+        return WHITESPACE.matcher(normalized).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
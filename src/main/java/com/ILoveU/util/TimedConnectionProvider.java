@@ -0,0 +1,134 @@
+package com.ILoveU.util;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 主库连接池（HikariCP），额外记录每次获取连接的耗时（见 ConnectionWaits）。
+ * MySQL 变慢时新建连接和等待空闲连接的时间先变长，准入控制据此在请求大量堆积之前开始拒绝低优先级请求。
+ *
+ * 连接池在启动时建满 hibernate.connection.pool_size 个连接并一直保持（minimumIdle 等于连接池大小），
+ * 连接断开后由 HikariCP 自己的后台线程补建，请求线程只借用已有的连接。Hibernate 内置连接池在 synchronized 中新建连接，
+ * 请求在虚拟线程上执行时（见 Bulkheads）会钉住载体线程，因此主库与副本一样改用 HikariCP。
+ *
+ * 连接池前面有一个与连接池同样大小的公平信号量：连接都被占用时按先后顺序等待，最多 library.db.connection_wait_ms 毫秒。
+ * 等待信号量的时间同样计入 ConnectionWaits，连接不够用时准入控制才能看到排队时延。虚拟线程模式下并发的请求数不再受线程数限制，
+ * 由这个信号量保证同时访问 MySQL 的连接数不超过连接池大小。
+ *
+ * 在 hibernate.cfg.xml 中通过 hibernate.connection.provider_class 启用，连接地址、账号和连接池大小仍使用 hibernate.connection.* 配置。
+ */
+public class TimedConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    // 与 Hibernate 内置连接池的默认大小相同
+    private static final int DEFAULT_POOL_SIZE = 20;
+    private static final int DEFAULT_WAIT_MILLIS = 5000;
+    // HikariCP 允许的最短获取连接超时
+    private static final long MIN_CONNECTION_TIMEOUT_MILLIS = 250;
+
+    private HikariDataSource dataSource;
+    private Semaphore permits;
+    private long waitMillis;
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void configure(Map configurationValues) {
+        int poolSize = ConfigurationHelper.getInt(AvailableSettings.POOL_SIZE, configurationValues, DEFAULT_POOL_SIZE);
+        permits = new Semaphore(poolSize, true);
+        waitMillis = ConfigurationHelper.getInt("library.db.connection_wait_ms", configurationValues, DEFAULT_WAIT_MILLIS);
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("primary");
+        String driver = ConfigurationHelper.getString(AvailableSettings.DRIVER, configurationValues);
+        if (driver != null) {
+            config.setDriverClassName(driver.trim());
+        }
+        config.setJdbcUrl(ConfigurationHelper.getString(AvailableSettings.URL, configurationValues).trim());
+        config.setUsername(ConfigurationHelper.getString(AvailableSettings.USER, configurationValues));
+        config.setPassword(ConfigurationHelper.getString(AvailableSettings.PASS, configurationValues));
+        config.setMaximumPoolSize(poolSize);
+        // 启动时建满并保持：请求线程不会在借用连接时新建连接
+        config.setMinimumIdle(poolSize);
+        // 与 Hibernate 内置连接池相同，默认关闭自动提交
+        config.setAutoCommit(ConfigurationHelper.getBoolean(AvailableSettings.AUTOCOMMIT, configurationValues, false));
+        // 等待时长由前面的信号量控制，这里只作兜底
+        config.setConnectionTimeout(Math.max(MIN_CONNECTION_TIMEOUT_MILLIS, waitMillis));
+        dataSource = new HikariDataSource(config);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired = false;
+        try {
+            if (!permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("等待数据库连接超过 " + waitMillis + "ms");
+            }
+            acquired = true;
+            return dataSource.getConnection();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待数据库连接时被中断", e);
+        } catch (SQLException | RuntimeException e) {
+            if (acquired) {
+                permits.release();
+            }
+            throw e;
+        } finally {
+            ConnectionWaits.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void closeConnection(Connection conn) throws SQLException {
+        try {
+            conn.close();
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean isUnwrappableAs(Class unwrapType) {
+        return ConnectionProvider.class.equals(unwrapType)
+                || TimedConnectionProvider.class.isAssignableFrom(unwrapType)
+                || DataSource.class.isAssignableFrom(unwrapType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (ConnectionProvider.class.equals(unwrapType) || TimedConnectionProvider.class.isAssignableFrom(unwrapType)) {
+            return (T) this;
+        }
+        if (DataSource.class.isAssignableFrom(unwrapType)) {
+            return (T) dataSource;
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    @Override
+    public void stop() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+}
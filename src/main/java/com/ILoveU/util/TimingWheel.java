@@ -0,0 +1,200 @@
+package com.ILoveU.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分层时间轮（hierarchical timing wheel），用于大量长周期定时事件（如借阅到期）。
+ *
+ * 共 {@link #LEVELS} 层，每层 {@link #SLOTS} 个槽；第 i 层每个槽覆盖 tick * SLOTS^i 毫秒。
+ * 事件按到期时间距当前时间的远近放入能容纳它的最低一层；低层转完一圈时，把上一层对应槽中的事件
+ * 重新分配（cascade）到更低的层。因此新增和取消都是 O(1)，每次推进只处理到期槽中的事件，
+ * 与事件总数无关。超出最高层范围的事件先放在最高层，随时间推进再逐层下放。
+ *
+ * 事件以 key 标识，同一个 key 重复调度会替换旧事件。所有方法线程安全。
+ *
+ * @param <K> 事件标识的类型
+ * @param <T> 事件携带的数据类型
+ */
+public final class TimingWheel<K, T> {
+
+    public static final int LEVELS = 5;
+    private static final int BITS = 6;
+    public static final int SLOTS = 1 << BITS;
+    private static final long MASK = SLOTS - 1;
+    // 所有层合计能表示的最大 tick 数
+    private static final long MAX_SPAN_TICKS = 1L << (BITS * LEVELS);
+
+    /**
+     * 一个已到期的事件。
+     */
+    public static final class Expired<K, T> {
+        private final K key;
+        private final T payload;
+        private final long deadlineMillis;
+
+        Expired(K key, T payload, long deadlineMillis) {
+            this.key = key;
+            this.payload = payload;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+    }
+
+    private static final class Entry<K, T> {
+        final K key;
+        final T payload;
+        final long deadlineMillis;
+        final long deadlineTick;
+        Set<Entry<K, T>> slot;
+
+        Entry(K key, T payload, long deadlineMillis, long deadlineTick) {
+            this.key = key;
+            this.payload = payload;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final List<List<Set<Entry<K, T>>>> wheels = new ArrayList<>(LEVELS);
+    private final Map<K, Entry<K, T>> entries = new HashMap<>();
+    // 已处理到的 tick（该 tick 对应的第0层槽已经处理过）
+    private long currentTick;
+
+    /**
+     * @param tickMillis 时间轮精度（毫秒）
+     * @param nowMillis  当前时间
+     */
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis 必须大于0");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        for (int level = 0; level < LEVELS; level++) {
+            List<Set<Entry<K, T>>> wheel = new ArrayList<>(SLOTS);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel.add(new LinkedHashSet<>());
+            }
+            wheels.add(wheel);
+        }
+    }
+
+    /**
+     * 调度一个事件；到期时间已过的事件会在下一次推进时到期。
+     */
+    public synchronized void schedule(K key, long deadlineMillis, T payload) {
+        cancelInternal(key);
+        long deadlineTick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        Entry<K, T> entry = new Entry<>(key, payload, deadlineMillis, deadlineTick);
+        entries.put(key, entry);
+        place(entry);
+    }
+
+    /**
+     * 取消一个事件。
+     *
+     * @return 如果事件存在（尚未到期）则返回true
+     */
+    public synchronized boolean cancel(K key) {
+        return cancelInternal(key);
+    }
+
+    /**
+     * 将时间轮推进到 nowMillis，返回这段时间内到期的事件（按到期先后）。
+     */
+    public synchronized List<Expired<K, T>> advanceTo(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<Expired<K, T>> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Set<Entry<K, T>> slot = wheels.get(0).get((int) (currentTick & MASK));
+            if (slot.isEmpty()) {
+                continue;
+            }
+            for (Entry<K, T> entry : slot) {
+                entries.remove(entry.key);
+                entry.slot = null;
+                expired.add(new Expired<>(entry.key, entry.payload, entry.deadlineMillis));
+            }
+            slot.clear();
+        }
+        return expired;
+    }
+
+    /**
+     * @return 尚未到期的事件数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 当较低各层都转完一圈（对应位全为0）时，把上一层当前槽中的事件重新分配到更低的层。
+     * 从低到高逐层检查，高层先下放到次高层，再由次高层下放，保证事件最终落到正确的槽。
+     */
+    private void cascade() {
+        int level = 1;
+        while (level < LEVELS && ((currentTick >> (BITS * (level - 1))) & MASK) == 0) {
+            level++;
+        }
+        // level - 1 为需要下放的最高层
+        for (int l = level - 1; l >= 1; l--) {
+            Set<Entry<K, T>> slot = wheels.get(l).get((int) ((currentTick >> (BITS * l)) & MASK));
+            if (slot.isEmpty()) {
+                continue;
+            }
+            List<Entry<K, T>> moving = new ArrayList<>(slot);
+            slot.clear();
+            for (Entry<K, T> entry : moving) {
+                place(entry);
+            }
+        }
+    }
+
+    private void place(Entry<K, T> entry) {
+        long delta = entry.deadlineTick - currentTick;
+        long tick = entry.deadlineTick;
+        if (delta >= MAX_SPAN_TICKS) {
+            // 超出范围：先放在最高层能表示的最远处，之后随下放重新计算
+            tick = currentTick + MAX_SPAN_TICKS - 1;
+            delta = MAX_SPAN_TICKS - 1;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) {
+            level++;
+        }
+        Set<Entry<K, T>> slot = wheels.get(level).get((int) ((tick >> (BITS * level)) & MASK));
+        slot.add(entry);
+        entry.slot = slot;
+    }
+
+    private boolean cancelInternal(K key) {
+        Entry<K, T> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.slot != null) {
+            entry.slot.remove(entry);
+            entry.slot = null;
+        }
+        return true;
+    }
+}
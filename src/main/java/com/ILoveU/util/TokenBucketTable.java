@@ -0,0 +1,150 @@
+package com.ILoveU.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 (用户ID, 路由类别) 区分的令牌桶，存放在固定大小的开放寻址表中。
+ *
+ * 已存在的桶在查找和扣减时不分配任何对象：表槽位是 AtomicReferenceArray，桶的状态
+ * （上次补充的时间42位、千分之一令牌数22位）压缩在一个 AtomicLong 中用 CAS 更新。
+ * 只有用户第一次访问某类路由时才创建桶。
+ *
+ * 探测窗口内没有空位时回收填充比例最高的桶：已经补满的桶和新建的桶没有区别，回收不丢失任何限流状态；
+ * 窗口内没有满桶时，被回收的用户下次访问得到一个满桶（对该用户略微放宽）。被回收的桶如果恰好还有线程在用，
+ * 那次扣减只是落在一个不再使用的桶上，同样只是放宽一次，不需要加锁。
+ */
+public final class TokenBucketTable {
+
+    private static final int MAX_PROBES = 8;
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    // 令牌以千分之一为单位保存，补充速率为小数时也不会丢失零头
+    private static final long MILLI = 1000;
+    public static final int MAX_CAPACITY = (int) (TOKEN_MASK / MILLI);
+
+    // 时间以此为零点，42位毫秒足够表示一百多年
+    private static final long EPOCH = System.currentTimeMillis();
+
+    private static final class Bucket {
+        final int userId;
+        final int routeClass;
+        final long capacityMilli;
+        final double refillPerSecond;
+        final AtomicLong state;
+
+        Bucket(int userId, int routeClass, long capacityMilli, double refillPerSecond, long now) {
+            this.userId = userId;
+            this.routeClass = routeClass;
+            this.capacityMilli = capacityMilli;
+            this.refillPerSecond = refillPerSecond;
+            this.state = new AtomicLong((now << TOKEN_BITS) | capacityMilli);
+        }
+
+        /**
+         * @return 补充到 now 之后的填充比例，1 表示已满
+         */
+        double fillRatio(long now) {
+            long current = state.get();
+            long tokens = (current & TOKEN_MASK) + (long) ((now - (current >>> TOKEN_BITS)) * refillPerSecond);
+            return Math.min(capacityMilli, tokens) / (double) capacityMilli;
+        }
+    }
+
+    private final AtomicReferenceArray<Bucket> slots;
+    private final int mask;
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param size 槽位数，向上取整为2的幂
+     */
+    public TokenBucketTable(int size) {
+        int capacity = Integer.highestOneBit(Math.max(16, size - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 从桶中取一个令牌。
+     *
+     * @param capacity        桶容量（突发上限），不超过 {@link #MAX_CAPACITY}
+     * @param refillPerSecond 每秒补充的令牌数
+     * @return 0 表示取到令牌；否则为下一个令牌补充到位还需要的毫秒数
+     */
+    public long tryAcquire(int userId, int routeClass, int capacity, double refillPerSecond, long nowMillis) {
+        long now = nowMillis - EPOCH;
+        long capacityMilli = capacity * MILLI;
+        Bucket bucket = find(userId, routeClass, now, capacityMilli, refillPerSecond);
+        // refillPerSecond 个令牌/秒 = refillPerSecond 个千分之一令牌/毫秒
+        while (true) {
+            long state = bucket.state.get();
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+            long added = (long) ((now - last) * refillPerSecond);
+            if (added > 0) {
+                tokens = Math.min(capacityMilli, tokens + added);
+                last = now;
+            }
+            if (tokens < MILLI) {
+                return Math.max(1, (long) Math.ceil((MILLI - tokens) / refillPerSecond));
+            }
+            if (bucket.state.compareAndSet(state, (last << TOKEN_BITS) | (tokens - MILLI))) {
+                return 0;
+            }
+        }
+    }
+
+    public int trackedBuckets() {
+        int count = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private Bucket find(int userId, int routeClass, long now, long capacityMilli, double refillPerSecond) {
+        int start = hash(userId, routeClass);
+        while (true) {
+            int victim = -1;
+            double victimFill = -1;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int index = (start + probe) & mask;
+                Bucket bucket = slots.get(index);
+                if (bucket == null) {
+                    Bucket created = new Bucket(userId, routeClass, capacityMilli, refillPerSecond, now);
+                    if (slots.compareAndSet(index, null, created)) {
+                        return created;
+                    }
+                    bucket = slots.get(index);
+                }
+                if (bucket.userId == userId && bucket.routeClass == routeClass) {
+                    return bucket;
+                }
+                double fill = bucket.fillRatio(now);
+                if (fill > victimFill) {
+                    victim = index;
+                    victimFill = fill;
+                }
+            }
+            Bucket old = slots.get(victim);
+            Bucket created = new Bucket(userId, routeClass, capacityMilli, refillPerSecond, now);
+            if (slots.compareAndSet(victim, old, created)) {
+                evictions.increment();
+                return created;
+            }
+            // 槽位刚被其他线程替换，重新探测（可能正是本用户的桶）
+        }
+    }
+
+    private int hash(int userId, int routeClass) {
+        int h = userId * 0x9E3779B9 + routeClass;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,84 @@
+package com.ILoveU.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 用户借阅计数（未归还数、逾期数）的进程内缓存，数据库中的 user_loan_stats 为准。
+ *
+ * 采用分段锁：按用户ID把条目分到 {@link #STRIPES} 个段，每段一把锁、一个 HashMap，
+ * 不同用户的借还互不阻塞。条目在 {@link #TTL_MILLIS} 后过期，使其他实例写入的变化最终可见；
+ * 借阅上限的最终判断由数据库中的条件更新完成；缓存只用于快速放行和 O(1) 的汇总查询，
+ * 显示超出上限时调用方应先从主库重新读取再拒绝，避免因过期的计数误拒。
+ */
+public final class UserLoanStatsCache {
+
+    private static final int STRIPES = 64;
+    private static final int MASK = STRIPES - 1;
+    // 单段最多缓存的用户数，超出时清空该段
+    private static final int MAX_ENTRIES_PER_STRIPE = 4096;
+    public static final long TTL_MILLIS = 30_000L;
+
+    private static final Object[] LOCKS = new Object[STRIPES];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Map<Integer, long[]>[] MAPS = new Map[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new Object();
+            MAPS[i] = new HashMap<>();
+        }
+    }
+
+    private UserLoanStatsCache() {
+    }
+
+    /**
+     * @return [未归还数, 逾期数]；未缓存或已过期时返回null
+     */
+    public static int[] get(int userId) {
+        int stripe = userId & MASK;
+        synchronized (LOCKS[stripe]) {
+            long[] entry = MAPS[stripe].get(userId);
+            if (entry == null || System.currentTimeMillis() - entry[2] > TTL_MILLIS) {
+                return null;
+            }
+            return new int[]{(int) entry[0], (int) entry[1]};
+        }
+    }
+
+    /**
+     * 缓存从数据库读到的计数。
+     */
+    public static void put(int userId, int activeLoans, int overdueLoans) {
+        int stripe = userId & MASK;
+        synchronized (LOCKS[stripe]) {
+            Map<Integer, long[]> map = MAPS[stripe];
+            if (map.size() >= MAX_ENTRIES_PER_STRIPE && !map.containsKey(userId)) {
+                map.clear();
+            }
+            map.put(userId, new long[]{activeLoans, overdueLoans, System.currentTimeMillis()});
+        }
+    }
+
+    /**
+     * 在数据库事务提交后同步调整已缓存的计数；未缓存时不做任何事（下次读取时从数据库加载）。
+     */
+    public static void adjust(int userId, int activeDelta, int overdueDelta) {
+        int stripe = userId & MASK;
+        synchronized (LOCKS[stripe]) {
+            long[] entry = MAPS[stripe].get(userId);
+            if (entry != null) {
+                entry[0] = Math.max(0, entry[0] + activeDelta);
+                entry[1] = Math.max(0, entry[1] + overdueDelta);
+            }
+        }
+    }
+
+    public static void invalidate(int userId) {
+        int stripe = userId & MASK;
+        synchronized (LOCKS[stripe]) {
+            MAPS[stripe].remove(userId);
+        }
+    }
+}
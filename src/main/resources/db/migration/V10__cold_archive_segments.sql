@@ -0,0 +1,19 @@
+-- 冷归档段文件登记表。ColdArchiveExportJob 把 loans_archive 中很早以前的借阅写入本地段文件后，
+-- 在同一个事务中删除这些行并登记段文件名；未登记的临时段文件在下一次运行时被清理，保证不会丢失或重复导出。
+
+CREATE TABLE IF NOT EXISTS `cold_segments` (
+  `segment_name` varchar(255) NOT NULL,
+  `row_count` int NOT NULL,
+  `min_loan_id` int NOT NULL,
+  `max_loan_id` int NOT NULL,
+  `created_at` datetime(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+  PRIMARY KEY (`segment_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+-- 导出任务按归还时间挑选 loans_archive 中的记录（loans_archive 创建于 loans 增加该索引之前）
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'loans_archive' AND INDEX_NAME = 'idx_loans_return_date') = 0,
+                  'ALTER TABLE `loans_archive` ADD KEY `idx_loans_return_date` (`return_date`)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,18 @@
+-- 每个用户未归还借阅数和其中已逾期的借阅数。
+-- 由 LoanDAOImpl 在借书/还书/标记逾期的同一事务中增减，借阅上限检查和 /api/users/{id}/summary 只读取这一行，不再统计 loans。
+
+CREATE TABLE IF NOT EXISTS `user_loan_stats` (
+  `user_id` int NOT NULL,
+  `active_loans` int NOT NULL DEFAULT 0,
+  `overdue_loans` int NOT NULL DEFAULT 0,
+  `updated_at` datetime(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+  PRIMARY KEY (`user_id`),
+  CONSTRAINT `fk_user_loan_stats_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`user_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+-- 为已有数据回填
+INSERT INTO `user_loan_stats` (`user_id`, `active_loans`, `overdue_loans`)
+SELECT `user_id`, SUM(`return_date` IS NULL), SUM(`return_date` IS NULL AND `overdue` = b'1')
+FROM `loans`
+GROUP BY `user_id`
+ON DUPLICATE KEY UPDATE `active_loans` = VALUES(`active_loans`), `overdue_loans` = VALUES(`overdue_loans`);
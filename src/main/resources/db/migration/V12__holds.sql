@@ -0,0 +1,37 @@
+-- 图书预约队列（见 HoldServiceImpl）。
+-- 每本书的等待中（WAITING）预约按 hold_id 先进先出；还书、取消或过期释放出副本时，
+-- 在同一事务中把队首预约置为 READY（为该读者保留一本），并向 hold_notifications 发件箱写入通知。
+-- open_user_id 只对未结束的预约取值，唯一键保证同一读者对同一本书最多只有一个未结束的预约。
+
+CREATE TABLE IF NOT EXISTS `holds` (
+  `hold_id` int NOT NULL AUTO_INCREMENT,
+  `book_id` int NOT NULL,
+  `user_id` int NOT NULL,
+  `status` varchar(12) NOT NULL DEFAULT 'WAITING' COMMENT 'WAITING, READY, FULFILLED, CANCELLED 或 EXPIRED',
+  `created_at` datetime(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+  `ready_at` datetime(6) DEFAULT NULL COMMENT '开始保留副本的时间',
+  `expires_at` datetime(6) DEFAULT NULL COMMENT '保留截止时间，过期未借走则释放给下一位',
+  `closed_at` datetime(6) DEFAULT NULL,
+  `open_user_id` int GENERATED ALWAYS AS (IF(`status` IN ('WAITING', 'READY'), `user_id`, NULL)) STORED,
+  PRIMARY KEY (`hold_id`),
+  UNIQUE KEY `uk_holds_book_open_user` (`book_id`, `open_user_id`),
+  KEY `idx_holds_book_status` (`book_id`, `status`, `hold_id`),
+  KEY `idx_holds_user_status` (`user_id`, `status`),
+  KEY `idx_holds_status_expires` (`status`, `expires_at`),
+  CONSTRAINT `fk_holds_book` FOREIGN KEY (`book_id`) REFERENCES `books` (`book_id`) ON DELETE CASCADE,
+  CONSTRAINT `fk_holds_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`user_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE IF NOT EXISTS `hold_notifications` (
+  `notification_id` bigint NOT NULL AUTO_INCREMENT,
+  `hold_id` int NOT NULL,
+  `user_id` int NOT NULL,
+  `book_id` int NOT NULL,
+  `event_type` varchar(20) NOT NULL COMMENT 'HOLD_READY 或 HOLD_EXPIRED',
+  `created_at` datetime(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+  `dispatched_at` datetime(6) DEFAULT NULL COMMENT '投递完成时间，NULL 表示待投递',
+  PRIMARY KEY (`notification_id`),
+  UNIQUE KEY `uk_hold_notifications_hold_event` (`hold_id`, `event_type`),
+  KEY `idx_hold_notifications_pending` (`dispatched_at`, `notification_id`),
+  CONSTRAINT `fk_hold_notifications_hold` FOREIGN KEY (`hold_id`) REFERENCES `holds` (`hold_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
@@ -0,0 +1,12 @@
+-- 已注销的登录令牌（见 AuthTokens）。令牌本身无状态，只有注销需要记录：
+-- 各节点定期把未过期的记录同步到内存撤销表，校验令牌时不查询数据库。
+-- 记录只需保留到令牌本身过期（expires_at），之后由 TokenRevocationSyncJob 删除。
+
+CREATE TABLE IF NOT EXISTS `revoked_tokens` (
+  `token_id` varchar(32) NOT NULL COMMENT '令牌中的 jti',
+  `user_id` int NOT NULL,
+  `expires_at` datetime(6) NOT NULL COMMENT '令牌本身的过期时间',
+  `revoked_at` datetime(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+  PRIMARY KEY (`token_id`),
+  KEY `idx_revoked_tokens_expires` (`expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
@@ -0,0 +1,10 @@
+-- 用户角色（见 User.Role、AccessControl）：READER 只能操作自己的借阅和预约，LIBRARIAN 可以维护图书目录并为任何读者办理借还，
+-- ADMIN 另外可以查看运行指标和修改用户角色。现有用户均为 READER；第一个管理员需要直接在数据库中指定，例如：
+-- UPDATE users SET role = 'ADMIN' WHERE account_normalized = 'admin';
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'users' AND COLUMN_NAME = 'role') = 0,
+                  'ALTER TABLE `users` ADD COLUMN `role` varchar(16) NOT NULL DEFAULT ''READER'' COMMENT ''READER, LIBRARIAN 或 ADMIN''', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,11 @@
+-- 按用户撤销登录令牌（见 AuthTokens）：修改角色后，该用户在 not_before 及之前签发的令牌全部失效，
+-- 旧令牌中的权限不会继续使用到过期。与 revoked_tokens 一样由各节点定期同步到内存，
+-- 记录保留到这些令牌全部过期（expires_at），之后由 TokenRevocationSyncJob 删除。
+
+CREATE TABLE IF NOT EXISTS `revoked_user_tokens` (
+  `user_id` int NOT NULL,
+  `not_before` datetime(6) NOT NULL COMMENT '在此时及之前签发的令牌无效',
+  `expires_at` datetime(6) NOT NULL COMMENT '此前签发的令牌全部过期的时间',
+  PRIMARY KEY (`user_id`),
+  KEY `idx_revoked_user_tokens_expires` (`expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
@@ -0,0 +1,85 @@
+-- 基线表结构（与 library_db_backup.sql 一致）。
+-- 使用 IF NOT EXISTS，已经通过备份文件或 hbm2ddl 建好表的数据库执行本脚本不会有任何变化。
+
+CREATE TABLE IF NOT EXISTS `users` (
+  `user_id` int NOT NULL AUTO_INCREMENT,
+  `account` varchar(255) NOT NULL COMMENT '登录账号',
+  `password` varchar(255) NOT NULL COMMENT '密码（加密存储）',
+  `name` varchar(100) NOT NULL COMMENT '显示名称',
+  PRIMARY KEY (`user_id`),
+  UNIQUE KEY `account` (`account`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE IF NOT EXISTS `presses` (
+  `press_id` int NOT NULL AUTO_INCREMENT,
+  `name` varchar(255) NOT NULL COMMENT '出版社名称',
+  PRIMARY KEY (`press_id`),
+  UNIQUE KEY `name` (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE IF NOT EXISTS `tags` (
+  `tag_id` int NOT NULL AUTO_INCREMENT,
+  `name` varchar(100) NOT NULL COMMENT '标签名称',
+  PRIMARY KEY (`tag_id`),
+  UNIQUE KEY `name` (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE IF NOT EXISTS `authors` (
+  `author_id` int NOT NULL AUTO_INCREMENT,
+  `first_name` varchar(100) NOT NULL COMMENT '名',
+  `last_name` varchar(100) NOT NULL COMMENT '姓',
+  `bio` text COMMENT '简介',
+  `created_at` timestamp NULL DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` timestamp NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`author_id`),
+  FULLTEXT KEY `idx_authors_name` (`first_name`,`last_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE IF NOT EXISTS `books` (
+  `book_id` int NOT NULL AUTO_INCREMENT,
+  `title` varchar(255) NOT NULL COMMENT '书名',
+  `isbn` varchar(13) NOT NULL COMMENT 'ISBN（13位）',
+  `num_copies_total` int NOT NULL DEFAULT '0' COMMENT '总库存',
+  `num_copies_available` int NOT NULL DEFAULT '0' COMMENT '可用库存',
+  `press_id` int NOT NULL COMMENT '出版社ID',
+  `created_at` timestamp NULL DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` timestamp NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (`book_id`),
+  UNIQUE KEY `isbn` (`isbn`),
+  KEY `idx_books_press_id` (`press_id`),
+  FULLTEXT KEY `idx_books_title` (`title`),
+  CONSTRAINT `books_ibfk_1` FOREIGN KEY (`press_id`) REFERENCES `presses` (`press_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE IF NOT EXISTS `book_authors` (
+  `book_id` int NOT NULL,
+  `author_id` int NOT NULL,
+  PRIMARY KEY (`book_id`,`author_id`),
+  KEY `author_id` (`author_id`),
+  CONSTRAINT `book_authors_ibfk_1` FOREIGN KEY (`book_id`) REFERENCES `books` (`book_id`),
+  CONSTRAINT `book_authors_ibfk_2` FOREIGN KEY (`author_id`) REFERENCES `authors` (`author_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE IF NOT EXISTS `book_tags` (
+  `book_id` int NOT NULL,
+  `tag_id` int NOT NULL,
+  PRIMARY KEY (`book_id`,`tag_id`),
+  KEY `idx_book_tags_tag_id` (`tag_id`),
+  CONSTRAINT `book_tags_ibfk_1` FOREIGN KEY (`book_id`) REFERENCES `books` (`book_id`),
+  CONSTRAINT `book_tags_ibfk_2` FOREIGN KEY (`tag_id`) REFERENCES `tags` (`tag_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE IF NOT EXISTS `loans` (
+  `loan_id` int NOT NULL AUTO_INCREMENT COMMENT '借阅记录ID',
+  `user_id` int NOT NULL COMMENT '用户ID (外键, 参照 users 表)',
+  `book_id` int DEFAULT NULL COMMENT '图书ID (外键, 参照 books 表, 允许为NULL)',
+  `borrowed_book_title` varchar(255) DEFAULT NULL COMMENT '借阅时记录的图书标题',
+  `loan_date` date NOT NULL COMMENT '借出日期',
+  `due_date` date NOT NULL COMMENT '应归还日期',
+  `return_date` date DEFAULT NULL COMMENT '实际归还日期 (允许为NULL)',
+  PRIMARY KEY (`loan_id`),
+  KEY `idx_user_id` (`user_id`),
+  KEY `idx_book_id` (`book_id`),
+  CONSTRAINT `fk_loans_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`user_id`) ON DELETE RESTRICT ON UPDATE CASCADE,
+  CONSTRAINT `fk_loans_book` FOREIGN KEY (`book_id`) REFERENCES `books` (`book_id`) ON DELETE SET NULL ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci COMMENT='图书借阅记录表';
@@ -0,0 +1,11 @@
+-- 让列类型与实体映射一致，hibernate.hbm2ddl.auto=validate 才能通过：
+-- Loan 的日期字段是 java.sql.Timestamp（需要时间部分），Author.bio 是 @Lob String（对应 LONGTEXT）。
+-- 对已经是目标类型的列（例如曾由 hbm2ddl 建表），MODIFY 不会改变任何东西。
+
+ALTER TABLE `loans`
+    MODIFY `loan_date` datetime(6) NOT NULL COMMENT '借出时间',
+    MODIFY `due_date` datetime(6) NOT NULL COMMENT '应归还时间',
+    MODIFY `return_date` datetime(6) DEFAULT NULL COMMENT '实际归还时间 (允许为NULL)';
+
+ALTER TABLE `authors`
+    MODIFY `bio` longtext COMMENT '简介';
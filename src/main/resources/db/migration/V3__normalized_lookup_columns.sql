@@ -0,0 +1,87 @@
+-- 规范化影子列（见 TextNormalizer 和各实体的 @PrePersist/@PreUpdate 回调）及其索引。
+-- MySQL 8 不支持 ADD COLUMN IF NOT EXISTS，这里先查 information_schema 再动态执行，
+-- 以兼容曾由 hbm2ddl=update 自动加过这些列的数据库。
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'tags' AND COLUMN_NAME = 'name_normalized') = 0,
+                  'ALTER TABLE `tags` ADD COLUMN `name_normalized` varchar(100) DEFAULT NULL', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'presses' AND COLUMN_NAME = 'name_normalized') = 0,
+                  'ALTER TABLE `presses` ADD COLUMN `name_normalized` varchar(255) DEFAULT NULL', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'authors' AND COLUMN_NAME = 'first_name_normalized') = 0,
+                  'ALTER TABLE `authors` ADD COLUMN `first_name_normalized` varchar(100) DEFAULT NULL', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'authors' AND COLUMN_NAME = 'last_name_normalized') = 0,
+                  'ALTER TABLE `authors` ADD COLUMN `last_name_normalized` varchar(100) DEFAULT NULL', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'users' AND COLUMN_NAME = 'account_normalized') = 0,
+                  'ALTER TABLE `users` ADD COLUMN `account_normalized` varchar(255) DEFAULT NULL', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 为已有数据回填（新写入的数据由实体回调维护）。
+-- 规则与 TextNormalizer 一致：去除首尾空白、合并连续空白、转小写。
+-- MySQL 无法做 NFKC 规范化，全角字符等少数情况会在该行下次更新时由实体回调修正。
+
+UPDATE tags
+SET name_normalized = LOWER(REGEXP_REPLACE(TRIM(name), '[[:space:]]+', ' '))
+WHERE name_normalized IS NULL;
+
+UPDATE presses
+SET name_normalized = LOWER(REGEXP_REPLACE(TRIM(name), '[[:space:]]+', ' '))
+WHERE name_normalized IS NULL;
+
+UPDATE authors
+SET first_name_normalized = LOWER(REGEXP_REPLACE(TRIM(first_name), '[[:space:]]+', ' ')),
+    last_name_normalized  = LOWER(REGEXP_REPLACE(TRIM(last_name), '[[:space:]]+', ' '))
+WHERE first_name_normalized IS NULL OR last_name_normalized IS NULL;
+
+UPDATE users
+SET account_normalized = LOWER(REGEXP_REPLACE(TRIM(account), '[[:space:]]+', ' '))
+WHERE account_normalized IS NULL;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'tags' AND INDEX_NAME = 'uk_tags_name_normalized') = 0,
+                  'ALTER TABLE `tags` ADD UNIQUE KEY `uk_tags_name_normalized` (`name_normalized`)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'presses' AND INDEX_NAME = 'idx_presses_name_normalized') = 0,
+                  'ALTER TABLE `presses` ADD KEY `idx_presses_name_normalized` (`name_normalized`)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'authors' AND INDEX_NAME = 'idx_authors_name_normalized') = 0,
+                  'ALTER TABLE `authors` ADD KEY `idx_authors_name_normalized` (`last_name_normalized`, `first_name_normalized`)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'users' AND INDEX_NAME = 'uk_users_account_normalized') = 0,
+                  'ALTER TABLE `users` ADD UNIQUE KEY `uk_users_account_normalized` (`account_normalized`)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
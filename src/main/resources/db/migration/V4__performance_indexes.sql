@@ -0,0 +1,33 @@
+-- 热点查询所需的索引：
+-- loans(user_id, loan_date)   : 按用户分页查询借阅记录（WHERE user_id = ? ORDER BY loan_date）
+-- loans(book_id, return_date) : 统计图书未归还的借阅（WHERE book_id = ? AND return_date IS NULL）
+-- books(title)                : 按标题排序分页（FULLTEXT 索引不能用于排序和前缀匹配）
+-- book_tags(tag_id, book_id)  : 按标签过滤图书，覆盖索引，无需回表
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'loans' AND INDEX_NAME = 'idx_loans_user_loan_date') = 0,
+                  'ALTER TABLE `loans` ADD KEY `idx_loans_user_loan_date` (`user_id`, `loan_date`)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'loans' AND INDEX_NAME = 'idx_loans_book_return_date') = 0,
+                  'ALTER TABLE `loans` ADD KEY `idx_loans_book_return_date` (`book_id`, `return_date`)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'books' AND INDEX_NAME = 'idx_books_title_btree') = 0,
+                  'ALTER TABLE `books` ADD KEY `idx_books_title_btree` (`title`)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'book_tags' AND INDEX_NAME = 'idx_book_tags_tag_book') = 0,
+                  'ALTER TABLE `book_tags` ADD KEY `idx_book_tags_tag_book` (`tag_id`, `book_id`)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
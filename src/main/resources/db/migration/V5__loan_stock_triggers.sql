@@ -0,0 +1,32 @@
+-- 借书/还书时维护 books.num_copies_available 的触发器。
+-- 之前只存在于 library_db_backup.sql 中，需要手工导入；现在纳入版本化迁移。
+
+DROP TRIGGER IF EXISTS `tr_loans_before_insert`;
+DROP TRIGGER IF EXISTS `tr_loans_before_update`;
+
+DELIMITER ;;
+CREATE TRIGGER `tr_loans_before_insert` BEFORE INSERT ON `loans` FOR EACH ROW BEGIN
+    -- 检查库存 (确保 NEW.book_id 不为 NULL)
+    IF NEW.book_id IS NOT NULL AND (SELECT num_copies_available FROM books WHERE book_id = NEW.book_id) <= 0 THEN
+        SIGNAL SQLSTATE '45000'
+            SET MESSAGE_TEXT = '图书无可用库存，无法借出';
+    END IF;
+    -- 减少可用库存
+    IF NEW.book_id IS NOT NULL THEN
+        UPDATE books SET num_copies_available = num_copies_available - 1
+        WHERE book_id = NEW.book_id;
+    END IF;
+END ;;
+
+CREATE TRIGGER `tr_loans_before_update` BEFORE UPDATE ON `loans` FOR EACH ROW BEGIN
+    -- 只在 return_date 从 NULL 变为非 NULL 时（即还书时）增加库存
+    IF NEW.return_date IS NOT NULL AND OLD.return_date IS NULL THEN
+        IF NEW.book_id IS NOT NULL AND (SELECT num_copies_available FROM books WHERE book_id = NEW.book_id) <
+           (SELECT num_copies_total FROM books WHERE book_id = NEW.book_id) THEN
+            UPDATE books
+            SET num_copies_available = num_copies_available + 1
+            WHERE book_id = NEW.book_id;
+        END IF;
+    END IF;
+END ;;
+DELIMITER ;
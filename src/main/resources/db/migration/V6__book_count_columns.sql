@@ -0,0 +1,36 @@
+-- 出版社/作者/标签的图书数量计数列（book_count）。
+-- 由 BookDAOImpl 在图书新增/更新/删除的同一事务中增减，并由 BookCountReconciliationJob 定期按实际关联数校正。
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'presses' AND COLUMN_NAME = 'book_count') = 0,
+                  'ALTER TABLE `presses` ADD COLUMN `book_count` int NOT NULL DEFAULT 0', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'authors' AND COLUMN_NAME = 'book_count') = 0,
+                  'ALTER TABLE `authors` ADD COLUMN `book_count` int NOT NULL DEFAULT 0', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'tags' AND COLUMN_NAME = 'book_count') = 0,
+                  'ALTER TABLE `tags` ADD COLUMN `book_count` int NOT NULL DEFAULT 0', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 为已有数据回填
+UPDATE `presses` p
+    LEFT JOIN (SELECT `press_id`, COUNT(*) AS c FROM `books` GROUP BY `press_id`) x ON x.`press_id` = p.`press_id`
+SET p.`book_count` = COALESCE(x.c, 0);
+
+UPDATE `authors` a
+    LEFT JOIN (SELECT `author_id`, COUNT(*) AS c FROM `book_authors` GROUP BY `author_id`) x ON x.`author_id` = a.`author_id`
+SET a.`book_count` = COALESCE(x.c, 0);
+
+UPDATE `tags` t
+    LEFT JOIN (SELECT `tag_id`, COUNT(*) AS c FROM `book_tags` GROUP BY `tag_id`) x ON x.`tag_id` = t.`tag_id`
+SET t.`book_count` = COALESCE(x.c, 0);
@@ -0,0 +1,35 @@
+-- 借阅逾期标记和通知发件箱（见 LoanDueScheduler）。
+-- overdue 由时间轮在到期时置位，并在同一事务中写入 OVERDUE 通知；
+-- (overdue, return_date, due_date) 索引使"当前逾期借阅"查询只扫描结果行。
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'loans' AND COLUMN_NAME = 'overdue') = 0,
+                  'ALTER TABLE `loans` ADD COLUMN `overdue` bit(1) NOT NULL DEFAULT b''0''', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'loans' AND INDEX_NAME = 'idx_loans_overdue_return_due') = 0,
+                  'ALTER TABLE `loans` ADD KEY `idx_loans_overdue_return_due` (`overdue`, `return_date`, `due_date`)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 为已有数据回填：已逾期未还，以及逾期后才归还的记录
+UPDATE `loans` SET `overdue` = b'1'
+WHERE (`return_date` IS NULL AND `due_date` < NOW(6)) OR (`return_date` > `due_date`);
+
+CREATE TABLE IF NOT EXISTS `loan_notifications` (
+  `notification_id` bigint NOT NULL AUTO_INCREMENT,
+  `loan_id` int NOT NULL,
+  `user_id` int NOT NULL,
+  `event_type` varchar(20) NOT NULL COMMENT 'DUE_SOON 或 OVERDUE',
+  `due_date` datetime(6) NOT NULL,
+  `created_at` datetime(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+  `dispatched_at` datetime(6) DEFAULT NULL COMMENT '投递完成时间，NULL 表示待投递',
+  PRIMARY KEY (`notification_id`),
+  UNIQUE KEY `uk_loan_notifications_loan_event` (`loan_id`, `event_type`),
+  KEY `idx_loan_notifications_pending` (`dispatched_at`, `notification_id`),
+  CONSTRAINT `fk_loan_notifications_loan` FOREIGN KEY (`loan_id`) REFERENCES `loans` (`loan_id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
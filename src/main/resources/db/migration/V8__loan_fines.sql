@@ -0,0 +1,14 @@
+-- 逾期罚款计算结果，由 FineCalculationJob 每晚批量计算并按 loan_id 覆盖写入。
+-- 罚款属于财务记录，不与 loans 建外键：借阅记录归档或删除后罚款仍然保留。
+-- accruing = 1 表示计算时该借阅仍未归还，金额会随时间继续增长；归还后的金额在下一次计算后固定。
+
+CREATE TABLE IF NOT EXISTS `loan_fines` (
+  `loan_id`      int           NOT NULL,
+  `user_id`      int           NOT NULL,
+  `overdue_days` int           NOT NULL,
+  `amount`       decimal(10,2) NOT NULL,
+  `accruing`     bit(1)        NOT NULL DEFAULT b'0',
+  `computed_at`  datetime(6)   NOT NULL,
+  PRIMARY KEY (`loan_id`),
+  KEY `idx_loan_fines_user` (`user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
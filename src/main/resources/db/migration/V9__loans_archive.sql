@@ -0,0 +1,20 @@
+-- 借阅历史归档表：LoanArchivalJob 把归还时间早于保留期限的借阅从 loans 分批移入这里，使热表只保留近期数据。
+-- 表结构与 loans 相同（CREATE TABLE ... LIKE 会复制列和索引，不复制触发器和外键），另加归档时间。
+-- 以后修改 loans 的列时，需要在同一个迁移脚本中同步修改本表。
+
+CREATE TABLE IF NOT EXISTS `loans_archive` LIKE `loans`;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'loans_archive' AND COLUMN_NAME = 'archived_at') = 0,
+                  'ALTER TABLE `loans_archive` ADD COLUMN `archived_at` datetime(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 归档任务按归还时间挑选待归档的借阅（WHERE return_date < ? ORDER BY return_date LIMIT ?）
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'loans' AND INDEX_NAME = 'idx_loans_return_date') = 0,
+                  'ALTER TABLE `loans` ADD KEY `idx_loans_return_date` (`return_date`)', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -159,8 +159,14 @@ function updateNavbarState() {
         `;
         
         // 添加退出登录事件
-        document.getElementById('logout').addEventListener('click', (e) => {
+        document.getElementById('logout').addEventListener('click', async (e) => {
             e.preventDefault();
+            try {
+                // 服务端撤销令牌并清除Cookie
+                await fetchAPI('/auth/logout', 'POST');
+            } catch (error) {
+                // 令牌已过期时注销接口返回401，本地状态照常清除
+            }
             localStorage.removeItem('user');
             updateNavbarState();
             loadPage('login');
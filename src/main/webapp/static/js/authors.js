@@ -28,6 +28,7 @@ async function loadAuthorsPage(container) {
             loadAuthorsTable(1);
         }
     });
+    attachSuggest(document.getElementById('author-search-input'), 'author');
     loadAuthorsTable(1);
 }
 
@@ -54,7 +55,12 @@ async function loadAuthorsTable(page) {
 
     try {
         // 请求作者列表
-        const data = await fetchAPI(`/authors?${params.toString()}`);
+        let data = await fetchAPI(`/authors?${params.toString()}`);
+        // 精确搜索没有结果时，自动改用容错搜索（容忍拼写错误）
+        if (keyword && !(data.data || []).length) {
+            params.append('fuzzy', 'true');
+            data = await fetchAPI(`/authors?${params.toString()}`);
+        }
         // data结构应为 { data: [...], pagination: {...} }
         renderAuthorsTable(data.data || [], tableContainer);
         // 渲染分页
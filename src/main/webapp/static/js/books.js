@@ -32,9 +32,26 @@ async function loadBooksPage(container) {
             loadBooksTable(1);
         }
     });
+    attachSuggest(document.getElementById('book-search-input'), 'book,author');
     loadBooksTable(1);
+    // 库存变化直接更新表格中的可借数量，图书被增删改时重新加载当前页
+    let reloadTimer = null;
+    subscribeEvents('availability,books', {
+        availability: (data) => {
+            const cell = document.querySelector(`#books-table-container td[data-available-of="${data.bookId}"]`);
+            if (cell) cell.textContent = data.numCopiesAvailable;
+        },
+        book: () => {
+            clearTimeout(reloadTimer);
+            reloadTimer = setTimeout(() => loadBooksTable(currentBooksPage), 500);
+        },
+        resync: () => loadBooksTable(currentBooksPage)
+    });
 }
 
+// 当前显示的图书列表页码
+let currentBooksPage = 1;
+
 /**
  * 获取标签和出版社列表并渲染筛选下拉框
  * @returns {Promise<{tags: Array, presses: Array}>}
@@ -93,6 +110,7 @@ async function renderFilters() {
  * @param {number} page - 当前页码
  */
 async function loadBooksTable(page) {
+    currentBooksPage = page;
     const tableContainer = document.getElementById('books-table-container');
     const paginationContainer = document.getElementById('books-pagination');
     const searchInput = document.getElementById('book-search-input');
@@ -115,7 +133,12 @@ async function loadBooksTable(page) {
 
     try {
         // 请求图书列表
-        const data = await fetchAPI(`/books?${params.toString()}`);
+        let data = await fetchAPI(`/books?${params.toString()}`);
+        // 精确搜索没有结果时，自动改用容错搜索（容忍拼写错误）
+        if (keyword && !(data.data || []).length) {
+            params.append('fuzzy', 'true');
+            data = await fetchAPI(`/books?${params.toString()}`);
+        }
         // data结构应为 { data: [...], pagination: {...} }
         renderBooksTable(data.data || [], tableContainer);
         // 渲染分页
@@ -165,7 +188,7 @@ function renderBooksTable(books, container) {
                     <td>${(book.authors||[]).map(a=>a.firstName + (a.lastName?(' ' + a.lastName):'')).join(', ')}</td>
                     <td>${book.press ? book.press.name : ''}</td>
                     <td>${(book.tags||[]).map(t=>t.name).join(', ')}</td>
-                    <td>${book.numCopiesAvailable}</td>
+                    <td data-available-of="${book.id}">${book.numCopiesAvailable}</td>
                     <td>
                         <button class="btn btn-primary" onclick="showBookDetail(${book.id})">详情</button>
                         <button class="btn btn-primary" onclick="showEditBookModal(${book.id})">编辑</button>
@@ -179,4 +179,79 @@ function createPagination(pagination, onPageChange) {
     paginationContainer.appendChild(nextLi);
 
     return paginationContainer;
-} 
\ No newline at end of file
+} 
+/**
+ * 为搜索框绑定输入联想（调用 /api/suggest），建议显示在浏览器原生的 datalist 中
+ * @param {HTMLInputElement} input - 搜索输入框
+ * @param {string} types - 联想类别，逗号分隔，如 'book,author'
+ */
+function attachSuggest(input, types) {
+    const listId = `${input.id}-suggestions`;
+    let datalist = document.getElementById(listId);
+    if (!datalist) {
+        datalist = document.createElement('datalist');
+        datalist.id = listId;
+        input.parentNode.appendChild(datalist);
+    }
+    input.setAttribute('list', listId);
+    input.setAttribute('autocomplete', 'off');
+
+    let timer = null;
+    let lastQuery = '';
+    input.addEventListener('input', () => {
+        clearTimeout(timer);
+        const query = input.value.trim();
+        if (!query || query === lastQuery) return;
+        // 简单防抖，避免每次按键都发请求
+        timer = setTimeout(async () => {
+            lastQuery = query;
+            try {
+                const suggestions = await fetchAPI(`/suggest?q=${encodeURIComponent(query)}&types=${types}&limit=8`);
+                if (input.value.trim() !== query) return; // 结果已过期
+                datalist.innerHTML = '';
+                (suggestions || []).forEach(s => {
+                    const option = document.createElement('option');
+                    option.value = s.text;
+                    datalist.appendChild(option);
+                });
+            } catch (e) {
+                // 联想失败不影响正常搜索
+            }
+        }, 150);
+    });
+}
+
+// 当前页面的事件订阅，切换页面时关闭旧连接
+let currentEventSource = null;
+
+/**
+ * 订阅服务端推送的变化事件（/api/events），代替定时刷新。
+ * 每个页面只保持一个连接；再次调用会关闭上一个连接。
+ * @param {string} topics - 逗号分隔的主题：availability, loans, books
+ * @param {Object} handlers - 事件名到处理函数的映射，处理函数接收解析后的 data
+ */
+function subscribeEvents(topics, handlers) {
+    unsubscribeEvents();
+    if (typeof EventSource === 'undefined') return;
+    const source = new EventSource(`${API_BASE_URL}/events?topics=${encodeURIComponent(topics)}`, { withCredentials: true });
+    Object.keys(handlers).forEach(type => {
+        source.addEventListener(type, (e) => {
+            try {
+                handlers[type](e.data ? JSON.parse(e.data) : {});
+            } catch (error) {
+                console.error('处理事件失败:', error);
+            }
+        });
+    });
+    currentEventSource = source;
+}
+
+/**
+ * 关闭当前页面的事件订阅
+ */
+function unsubscribeEvents() {
+    if (currentEventSource) {
+        currentEventSource.close();
+        currentEventSource = null;
+    }
+}
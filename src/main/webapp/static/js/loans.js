@@ -30,13 +30,31 @@ async function loadLoansPage(container) {
         }
     });
     loadLoansTable(1);
+    // 借还发生时重新加载当前页（同一批变化合并为一次刷新）
+    let reloadTimer = null;
+    const reload = () => {
+        clearTimeout(reloadTimer);
+        reloadTimer = setTimeout(() => loadLoansTable(currentLoansPage), 500);
+    };
+    // 按用户ID查询时，只有该用户的借阅变化才需要刷新
+    const onLoanChanged = (event) => {
+        const userId = document.getElementById('loan-user-id-input').value.trim();
+        if (!userId || String(event.userId) === userId) {
+            reload();
+        }
+    };
+    subscribeEvents('loans', { loan: onLoanChanged, resync: reload });
 }
 
+// 当前显示的借阅记录页码
+let currentLoansPage = 1;
+
 /**
  * 加载并渲染借阅记录表格
  * @param {number} page - 当前页码
  */
 async function loadLoansTable(page) {
+    currentLoansPage = page;
     const tableContainer = document.getElementById('loans-table-container');
     const paginationContainer = document.getElementById('loans-pagination');
     const userIdInput = document.getElementById('loan-user-id-input');
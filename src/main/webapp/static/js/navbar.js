@@ -33,6 +33,9 @@ document.addEventListener('DOMContentLoaded', () => {
 async function loadPage(pageName) {
     const contentContainer = document.getElementById('content');
     
+    // 离开页面时关闭其事件订阅，需要的页面会重新订阅
+    unsubscribeEvents();
+
     // 显示加载状态
     const loadingElement = showLoading(contentContainer);
     
@@ -0,0 +1,57 @@
+import com.ILoveU.util.AccessControl;
+import com.ILoveU.util.ApiRoute;
+import com.ILoveU.util.AuthTokens;
+import com.ILoveU.util.Permission;
+import com.ILoveU.util.RouteTrie;
+
+import java.util.Collections;
+
+public class AccessControlTest {
+
+    public static void main(String[] args) {
+        RouteTrie.Match<ApiRoute> delete = ApiRoute.match("DELETE", "/api/books/12");
+        System.out.println("DELETE /api/books/12: " + delete.getValue() + ", id=" + delete.getInt("id"));       // BOOK_DELETE, id=12
+        System.out.println("GET /api/loans/: " + ApiRoute.match("GET", "/api/loans/").getValue());             // LOAN_LIST
+        System.out.println("GET /api/loans/overdue: " + ApiRoute.match("GET", "/api/loans/overdue").getValue()); // LOAN_OVERDUE
+        System.out.println("GET /api/users/5/fines: " + ApiRoute.match("GET", "/api/users/5/fines").getInt("id")); // 5
+        System.out.println("HEAD 按 GET: " + ApiRoute.match("HEAD", "/api/books").getValue());                  // BOOK_LIST
+        System.out.println("未登记的方法: " + ApiRoute.match("PATCH", "/api/books/12"));                          // null
+        System.out.println("非数字ID: " + ApiRoute.match("GET", "/api/books/abc"));                               // null
+        System.out.println("超出int范围: " + ApiRoute.match("GET", "/api/books/2147483648"));                     // null
+        System.out.println("连续斜杠: " + ApiRoute.match("GET", "/api//books"));                                  // null
+        System.out.println("登录是公共路由: " + ApiRoute.match("POST", "/api/auth/login").getValue().isPublic()); // true
+
+        // 权限位集随令牌签发，校验后原样取回
+        long bookWrite = ApiRoute.BOOK_DELETE.getRequiredPermissions();
+        AuthTokens.Claims reader = AuthTokens.verify(AuthTokens.issue(5, Collections.singleton("READER")).getToken());
+        AuthTokens.Claims librarian = AuthTokens.verify(AuthTokens.issue(6, Collections.singleton("LIBRARIAN")).getToken());
+        AuthTokens.Claims legacy = AuthTokens.verify(AuthTokens.issue(7, Collections.singleton("USER")).getToken());
+        System.out.println("读者可以删书: " + ((reader.getPermissions() & bookWrite) == bookWrite));       // false
+        System.out.println("馆员可以删书: " + ((librarian.getPermissions() & bookWrite) == bookWrite));    // true
+        System.out.println("馆员可以看指标: " + AccessControl.has(librarian, Permission.METRICS_READ));     // false
+        System.out.println("未知角色的权限: " + legacy.getPermissions());                                   // 0
+
+        // 按用户撤销：只有严格晚于撤销时刻（毫秒）签发的令牌有效
+        AuthTokens.Issued before = AuthTokens.issue(8, Collections.singleton("READER"));
+        AuthTokens.revokeUser(8, before.getClaims().getIssuedAt());
+        AuthTokens.Issued after = AuthTokens.issue(8, Collections.singleton("READER"));
+        while (after.getClaims().getIssuedAt() <= before.getClaims().getIssuedAt()) {
+            after = AuthTokens.issue(8, Collections.singleton("READER"));
+        }
+        System.out.println("撤销时刻签发的令牌: " + AuthTokens.verify(before.getToken()));                    // null
+        System.out.println("撤销之后签发的令牌有效: " + (AuthTokens.verify(after.getToken()) != null));       // true
+
+        // 签名的 Cookie 值被篡改后不再接受
+        String sealed = AuthTokens.seal("1760889600000");
+        System.out.println("签名值: " + AuthTokens.unseal(sealed));                                              // 1760889600000
+        System.out.println("篡改后的签名值: " + AuthTokens.unseal(sealed.replace("1760889600000", "9999999999999"))); // null
+
+        // 路由冲突在启动时报错
+        try {
+            new RouteTrie<String>().add("GET", "/a/{id}", "x").add("GET", "/a/{other}", "y");
+            System.out.println("重复路由未报错");
+        } catch (IllegalArgumentException e) {
+            System.out.println("重复路由: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+import com.ILoveU.util.AdmissionController;
+import com.ILoveU.util.AdmissionController.Priority;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdmissionControllerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    public static void main(String[] args) throws InterruptedException {
+        // 上限10（5-20），目标5ms，间隔100ms，最多等待50ms
+        AdmissionController controller = new AdmissionController(10, 5, 20, 5 * MS, 100 * MS, 50 * MS);
+
+        // 低优先级最多使用一半上限，且从不排队
+        int low = 0;
+        for (int i = 0; i < 10; i++) {
+            if (controller.acquire(Priority.LOW) >= 0) {
+                low++;
+            }
+        }
+        System.out.println("低优先级通过: " + low);                               // 5
+        // 普通优先级最多使用 80%，剩下的留给高优先级
+        int normal = 0;
+        for (int i = 0; i < 3; i++) {
+            if (controller.acquire(Priority.NORMAL) >= 0) {
+                normal++;
+            }
+        }
+        System.out.println("普通优先级通过: " + normal);                            // 3
+        System.out.println("高优先级通过: " + (controller.acquire(Priority.HIGH) >= 0));   // true
+        System.out.println("高优先级通过: " + (controller.acquire(Priority.HIGH) >= 0));   // true
+        long begin = System.nanoTime();
+        System.out.println("上限用满时高优先级等待后被拒: " + (controller.acquire(Priority.HIGH) < 0)
+                + ", 等待(ms)≈" + (System.nanoTime() - begin) / MS);                // true, 50
+
+        // 归还槽位时唤醒等待中的高优先级请求
+        final long[] waited = new long[1];
+        Thread waiter = new Thread(() -> waited[0] = controller.acquire(Priority.HIGH));
+        waiter.start();
+        Thread.sleep(10);
+        long now = System.nanoTime();
+        controller.release(0, now);
+        waiter.join();
+        System.out.println("被唤醒的高优先级请求: " + (waited[0] >= 0));              // true
+
+        // 一个间隔内最小排队时延都超过目标值：进入过载状态，上限下调，低优先级直接拒绝
+        // （第一个间隔内并发用满且没有积压，上限先加一到11）
+        for (int i = 0; i < 9; i++) {
+            controller.release(20 * MS, now + 200 * MS);
+        }
+        controller.release(20 * MS, now + 400 * MS);
+        System.out.println(controller.metrics());   // limit=9, inFlight=0, overloaded=true, limitDecreases=1
+        System.out.println("过载时低优先级被拒: " + (controller.acquire(Priority.LOW) < 0));  // true
+        System.out.println("过载时高优先级通过: " + (controller.acquire(Priority.HIGH) >= 0)); // true
+
+        // 间隔内有请求几乎不用等：恢复正常
+        controller.release(0, now + 600 * MS);
+        controller.acquire(Priority.HIGH);
+        controller.release(0, now + 800 * MS);
+        System.out.println(controller.metrics());   // limit=8, inFlight=0, overloaded=false
+    }
+}
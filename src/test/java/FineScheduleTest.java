@@ -0,0 +1,35 @@
+import com.ILoveU.util.FineSchedule;
+
+import java.util.Properties;
+
+public class FineScheduleTest {
+
+    public static void main(String[] args) {
+        Properties properties = new Properties();
+        properties.setProperty("library.fines.grace_days", "2");
+        properties.setProperty("library.fines.daily_rates", "1:0.50,8:1.00");
+        properties.setProperty("library.fines.max_per_loan", "20.00");
+        FineSchedule schedule = FineSchedule.fromProperties(properties);
+
+        long due = 1_000_000_000L;
+        System.out.println("未逾期天数: " + FineSchedule.overdueDays(due, due - 1));                 // 0
+        System.out.println("逾期1毫秒天数: " + FineSchedule.overdueDays(due, due + 1));              // 1
+        System.out.println("逾期整3天天数: " + FineSchedule.overdueDays(due, due + 3 * FineSchedule.DAY_MILLIS)); // 3
+
+        System.out.println("逾期2天(宽限内): " + schedule.fineCents(2));   // 0
+        System.out.println("逾期3天: " + schedule.fineCents(3));           // 50
+        System.out.println("逾期9天: " + schedule.fineCents(9));           // 7*50 = 350
+        System.out.println("逾期12天: " + schedule.fineCents(12));         // 350 + 3*100 = 650
+        System.out.println("逾期365天(封顶): " + schedule.fineCents(365)); // 2000
+
+        FineSchedule defaults = FineSchedule.fromProperties(new Properties());
+        System.out.println("默认标准逾期10天: " + defaults.fineCents(10)); // 500
+
+        long start = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < 10_000_000; i++) {
+            sum += schedule.fineCents(i % 400);
+        }
+        System.out.println("一千万次计算耗时(ms): " + (System.nanoTime() - start) / 1_000_000 + "，合计 " + sum);
+    }
+}
@@ -0,0 +1,70 @@
+import com.ILoveU.util.FuzzyIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class FuzzyIndexTest {
+
+    public static void main(String[] args) {
+        FuzzyIndex index = new FuzzyIndex();
+        index.loadAll(Arrays.asList(
+                new Object[]{1, "Martin Fowler"},
+                new Object[]{2, "Kent Beck"},
+                new Object[]{3, "Robert C. Martin"},
+                new Object[]{4, "Eric Evans"}
+        ));
+
+        print("fowlr", index.search("fowlr", 10));         // 1
+        print("martn", index.search("martn", 10));         // 1, 3
+        print("kent bekc", index.search("kent bekc", 10)); // 2
+        print("evens", index.search("evens", 10));         // 4
+        print("xyz", index.search("xyz", 10));             // 无
+
+        index.upsert(4, "Eric Gamma");
+        print("evens 改名后", index.search("evens", 10));  // 无
+        index.remove(1);
+        print("fowlr 删除后", index.search("fowlr", 10));  // 无
+
+        candidateBudget();
+    }
+
+    /**
+     * 所有名称都以 "re" 开头时，边界三元组的倒排表覆盖整个目录；查询只应遍历较短的倒排表。
+     */
+    private static void candidateBudget() {
+        int size = 20000;
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>(size + 1);
+        rows.add(new Object[]{0, "Refactoring"});
+        for (int i = 1; i <= size; i++) {
+            StringBuilder name = new StringBuilder("re");
+            for (int j = 0; j < 6; j++) {
+                name.append((char) ('a' + random.nextInt(26)));
+            }
+            rows.add(new Object[]{i, name.toString()});
+        }
+        FuzzyIndex catalog = new FuzzyIndex();
+        catalog.loadAll(rows);
+
+        long before = catalog.scannedPostings();
+        List<FuzzyIndex.Match> matches = catalog.search("refactorng", 10);
+        long scanned = catalog.scannedPostings() - before;
+        print("refactorng（" + size + " 条，遍历 " + scanned + " 个倒排表条目）", matches); // 0
+        if (matches.isEmpty() || matches.get(0).getId() != 0) {
+            throw new AssertionError("没有找到 Refactoring");
+        }
+        if (scanned > size / 10) {
+            throw new AssertionError("候选生成遍历了 " + scanned + " 个倒排表条目，超出预算 " + size / 10);
+        }
+    }
+
+    private static void print(String label, List<FuzzyIndex.Match> matches) {
+        StringBuilder sb = new StringBuilder(label).append(" -> ");
+        for (FuzzyIndex.Match match : matches) {
+            sb.append(match.getId()).append("(距离").append(match.getDistance()).append(") ");
+        }
+        System.out.println(sb);
+    }
+}
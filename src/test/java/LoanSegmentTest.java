@@ -0,0 +1,69 @@
+import com.ILoveU.archive.LoanSegment;
+import com.ILoveU.archive.LoanSegmentWriter;
+import com.ILoveU.model.Book;
+import com.ILoveU.model.Loan;
+import com.ILoveU.model.User;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LoanSegmentTest {
+
+    public static void main(String[] args) throws Exception {
+        long day = 24L * 60 * 60 * 1000;
+        long base = Timestamp.valueOf("2019-01-01 00:00:00").getTime();
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            Loan loan = new Loan();
+            loan.setLoanId(1000 + i);
+            User user = new User();
+            user.setId(1 + i % 500);
+            loan.setUser(user);
+            if (i % 10 != 0) {
+                Book book = new Book();
+                book.setBookId(i % 3000);
+                loan.setBook(book);
+            }
+            loan.setBorrowedBookTitle(i % 7 == 0 ? null : "图书-" + (i % 3000));
+            loan.setLoanDate(new Timestamp(base + i * 3_600_000L));
+            loan.setDueDate(new Timestamp(base + i * 3_600_000L + 14 * day));
+            loan.setReturnDate(new Timestamp(base + i * 3_600_000L + (i % 20) * day));
+            loan.setOverdue(i % 20 > 14);
+            loans.add(loan);
+        }
+
+        Path dir = Files.createTempDirectory("loan-segment-test");
+        Path file = dir.resolve("test.seg");
+        LoanSegmentWriter.write(file, loans);
+        System.out.println("段文件大小(字节): " + Files.size(file) + "，记录数: " + loans.size());
+
+        LoanSegment segment = LoanSegment.open(file);
+        System.out.println("用户42可能命中: " + segment.mightMatch(42, null, null));     // true
+        System.out.println("用户9999可能命中: " + segment.mightMatch(9999, null, null)); // false（超出范围）
+        System.out.println("2030年可能命中: " + segment.mightMatch(null, Timestamp.valueOf("2030-01-01 00:00:00").getTime(), null)); // false
+
+        List<Loan> result = new ArrayList<>();
+        segment.scan(42, null, null, result, 1000);
+        System.out.println("用户42命中条数: " + result.size());                           // 40
+        Loan first = result.get(0);
+        Loan expected = loans.get(41);
+        System.out.println("首条一致: " + (first.getLoanId().equals(expected.getLoanId())
+                && first.getLoanDate().equals(expected.getLoanDate())
+                && first.getDueDate().equals(expected.getDueDate())
+                && first.getReturnDate().equals(expected.getReturnDate())
+                && first.getBook().getBookId().equals(expected.getBook().getBookId())
+                && first.getBorrowedBookTitle().equals(expected.getBorrowedBookTitle())
+                && first.getOverdue().equals(expected.getOverdue())));                // true
+
+        result.clear();
+        long from = base + 100 * 3_600_000L;
+        segment.scan(null, from, from + 10 * 3_600_000L, result, 1000);
+        System.out.println("日期区间命中条数: " + result.size());                          // 10
+
+        Files.delete(file);
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,24 @@
+import com.ILoveU.util.PasswordUtil;
+
+public class PasswordUtilTest {
+
+    public static void main(String[] args) {
+        String hash = PasswordUtil.hashPassword("pass1234");
+        System.out.println("新哈希: " + hash);
+        System.out.println("正确密码: " + PasswordUtil.verifyPassword("pass1234", hash));   // true
+        System.out.println("错误密码: " + PasswordUtil.verifyPassword("pass1235", hash));   // false
+        System.out.println("同一密码两次哈希不同(加盐): " + !hash.equals(PasswordUtil.hashPassword("pass1234"))); // true
+        System.out.println("新哈希需要重新哈希: " + PasswordUtil.needsRehash(hash));         // false
+
+        // 旧版本存储的未加盐 SHA-256（"pass1234"）
+        String legacy = "bd94dcda26fccb4e68d6a31f9b5aac0b571ae266d822620e901ef7ebe3a11d4f";
+        System.out.println("旧哈希正确密码: " + PasswordUtil.verifyPassword("pass1234", legacy)); // true
+        System.out.println("旧哈希错误密码: " + PasswordUtil.verifyPassword("pass123", legacy));  // false
+        System.out.println("旧哈希需要重新哈希: " + PasswordUtil.needsRehash(legacy));           // true
+        System.out.println("无法识别的格式: " + PasswordUtil.verifyPassword("pass1234", "plain")); // false
+
+        long start = System.nanoTime();
+        PasswordUtil.verifyPassword("pass1234", hash);
+        System.out.println("单次校验耗时(ms): " + (System.nanoTime() - start) / 1_000_000);
+    }
+}
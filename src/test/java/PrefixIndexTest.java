@@ -0,0 +1,44 @@
+import com.ILoveU.util.PrefixIndex;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class PrefixIndexTest {
+
+    public static void main(String[] args) {
+        PrefixIndex index = new PrefixIndex();
+        index.loadAll(Arrays.asList(
+                new Object[]{1, "Refactoring", 5L},
+                new Object[]{2, "Release It!", 12L},
+                new Object[]{3, "Patterns of Enterprise Application Architecture", 8L},
+                new Object[]{4, "重构", 3L}
+        ));
+
+        print("re", index.top("re", 5));          // Release It!, Refactoring
+        print("ent", index.top("ent", 5));        // Patterns of Enterprise ...（单词起始匹配）
+
+        index.adjustWeight(1, 10);
+        print("re 调整热度后", index.top("re", 5)); // Refactoring, Release It!
+
+        index.upsert(2, "Site Reliability Engineering");
+        print("re 重命名后", index.top("re", 5));   // Refactoring, Site Reliability Engineering
+
+        index.remove(1);
+        print("re 删除后", index.top("RE", 5));     // Site Reliability Engineering
+        print("重", index.top("重", 5));            // 重构
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100000; i++) {
+            index.top("re", 5);
+        }
+        System.out.println("平均查询耗时(ns): " + (System.nanoTime() - start) / 100000);
+    }
+
+    private static void print(String label, List<PrefixIndex.Entry> entries) {
+        StringBuilder sb = new StringBuilder(label).append(" -> ");
+        for (PrefixIndex.Entry entry : entries) {
+            sb.append(entry.getText()).append('(').append(entry.getWeight()).append(") ");
+        }
+        System.out.println(sb);
+    }
+}
@@ -0,0 +1,54 @@
+import com.ILoveU.util.SlidingWindowLimiter;
+
+public class SlidingWindowLimiterTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        long window = 60_000L;
+        long start = 1_000_000L * window; // 对齐到窗口起点
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(window, 5, 1600);
+
+        for (int i = 0; i < 5; i++) {
+            System.out.println("第" + (i + 1) + "次: " + limiter.tryAcquire("1.2.3.4", start + i)); // 0
+        }
+        System.out.println("第6次等待(ms): " + limiter.tryAcquire("1.2.3.4", start + 10));     // > 0
+        System.out.println("其他IP不受影响: " + limiter.tryAcquire("5.6.7.8", start + 10));     // 0
+
+        // 下一窗口过半时，上一窗口的5次按一半计为2.5次，可以再通过3次（2.5 + 2 < 5）
+        long half = start + window + window / 2;
+        for (int i = 0; i < 3; i++) {
+            System.out.println("下一窗口过半: " + limiter.tryAcquire("1.2.3.4", half)); // 0
+        }
+        System.out.println("再一次等待(ms): " + limiter.tryAcquire("1.2.3.4", half));   // > 0
+
+        // 只检查不计数
+        limiter.record("acct", start);
+        System.out.println("检查: " + limiter.check("acct", start) + ", 不存在的key: " + limiter.check("none", start)); // 0, 0
+        limiter.reset("acct");
+        System.out.println("跟踪的key数: " + limiter.trackedKeys()); // 2
+
+        // 容量满后不活跃的key被清理
+        SlidingWindowLimiter small = new SlidingWindowLimiter(window, 5, 16);
+        for (int i = 0; i < 1000; i++) {
+            small.tryAcquire("k" + i, start);
+        }
+        System.out.println("容量满时落入共用计数器: " + (small.overflowHits() > 0) + ", 跟踪: " + small.trackedKeys()); // true, <= 16
+        small.tryAcquire("late", start + 3 * window);
+        System.out.println("清理不活跃key: " + small.evictions() + ", 跟踪: " + small.trackedKeys()); // 只清理新key所在的分段
+
+        // 并发计数不丢失
+        SlidingWindowLimiter shared = new SlidingWindowLimiter(window, 60_000, 1600);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    shared.record("hot", start);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println("并发记录40000次后剩余额度: " + shared.tryAcquire("hot", start)); // 0（40001 <= 60000）
+    }
+}
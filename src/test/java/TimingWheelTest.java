@@ -0,0 +1,45 @@
+import com.ILoveU.util.TimingWheel;
+
+import java.util.List;
+
+public class TimingWheelTest {
+
+    public static void main(String[] args) {
+        long start = 1_000_000L;
+        TimingWheel<String, Integer> wheel = new TimingWheel<>(1000L, start);
+
+        wheel.schedule("a", start + 3_000L, 1);               // 第0层
+        wheel.schedule("b", start + 90_000L, 2);              // 第1层，需要下放一次
+        wheel.schedule("c", start + 14L * 24 * 3600 * 1000, 3); // 14天后，高层
+        wheel.schedule("d", start + 5_000L, 4);
+        wheel.cancel("d");
+        print("3秒", wheel.advanceTo(start + 3_000L));          // a
+        print("89秒", wheel.advanceTo(start + 89_000L));        // 无
+        print("90秒", wheel.advanceTo(start + 90_000L));        // b
+        print("14天-1秒", wheel.advanceTo(start + 14L * 24 * 3600 * 1000 - 1_000L)); // 无
+        print("14天", wheel.advanceTo(start + 14L * 24 * 3600 * 1000));  // c
+
+        // 已过期的事件在下一次推进时到期
+        long now = start + 14L * 24 * 3600 * 1000;
+        wheel.schedule("late", now - 60_000L, 5);
+        print("过期事件", wheel.advanceTo(now + 1_000L));       // late
+        System.out.println("剩余事件数: " + wheel.size());      // 0
+
+        // 大量事件：推进耗时只与到期事件数有关
+        int count = 100000;
+        for (int i = 0; i < count; i++) {
+            wheel.schedule("loan-" + i, now + (i % 1209600) * 1000L + 1_000L, i);
+        }
+        long begin = System.nanoTime();
+        int fired = wheel.advanceTo(now + 60_000L).size();
+        System.out.println("推进60秒触发 " + fired + " 个事件，耗时(us): " + (System.nanoTime() - begin) / 1000);
+    }
+
+    private static void print(String label, List<TimingWheel.Expired<String, Integer>> expired) {
+        StringBuilder sb = new StringBuilder(label).append(" -> ");
+        for (TimingWheel.Expired<String, Integer> e : expired) {
+            sb.append(e.getKey()).append(' ');
+        }
+        System.out.println(sb);
+    }
+}
@@ -0,0 +1,63 @@
+import com.ILoveU.util.TokenBucketTable;
+
+public class TokenBucketTableTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        TokenBucketTable table = new TokenBucketTable(1024);
+        long now = System.currentTimeMillis();
+
+        // 容量5，每秒补充1个
+        for (int i = 0; i < 5; i++) {
+            System.out.println("第" + (i + 1) + "次: " + table.tryAcquire(7, 0, 5, 1.0, now)); // 0
+        }
+        System.out.println("第6次等待(ms): " + table.tryAcquire(7, 0, 5, 1.0, now));           // 1000
+        System.out.println("同一用户其他类别: " + table.tryAcquire(7, 1, 5, 1.0, now));          // 0
+        System.out.println("其他用户: " + table.tryAcquire(8, 0, 5, 1.0, now));                 // 0
+        System.out.println("500ms后等待(ms): " + table.tryAcquire(7, 0, 5, 1.0, now + 500));    // 500
+        System.out.println("1秒后: " + table.tryAcquire(7, 0, 5, 1.0, now + 1000));             // 0
+        System.out.println("小数速率等待(ms): " + drain(table, 9, 0.05, now));                   // 20000
+
+        // 表满后回收已补满的桶，不影响仍在限流中的用户
+        TokenBucketTable small = new TokenBucketTable(16);
+        for (int user = 0; user < 1000; user++) {
+            small.tryAcquire(user, 0, 5, 1.0, now);
+        }
+        System.out.println("回收的桶: " + small.evictions() + ", 跟踪: " + small.trackedBuckets()); // > 0, 32
+
+        // 并发扣减不超发：容量1000，8个线程各取500次，最多成功1000次
+        TokenBucketTable shared = new TokenBucketTable(1024);
+        final long start = now;
+        final int[] granted = new int[8];
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int slot = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (shared.tryAcquire(1, 0, 1000, 0.001, start) == 0) {
+                        granted[slot]++;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        int total = 0;
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            total += granted[t];
+        }
+        System.out.println("并发成功次数: " + total); // 1000
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < 10_000_000; i++) {
+            table.tryAcquire(i & 255, 0, 4000, 1_000_000, now + i);
+        }
+        System.out.println("一千万次取令牌耗时(ms): " + (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    private static long drain(TokenBucketTable table, int userId, double rate, long now) {
+        while (table.tryAcquire(userId, 0, 3, rate, now) == 0) {
+            // 取完初始的3个令牌
+        }
+        return table.tryAcquire(userId, 0, 3, rate, now);
+    }
+}